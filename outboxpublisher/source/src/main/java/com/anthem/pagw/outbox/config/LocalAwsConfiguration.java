@@ -8,6 +8,7 @@ import org.springframework.context.annotation.Profile;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
 import java.net.URI;
@@ -46,4 +47,17 @@ public class LocalAwsConfiguration {
                 .credentialsProvider(localCredentials())
                 .build();
     }
+
+    /**
+     * LocalStack SQS async client (concurrent outbox publish workers).
+     */
+    @Bean
+    @Primary
+    public SqsAsyncClient sqsAsyncClient() {
+        return SqsAsyncClient.builder()
+                .endpointOverride(URI.create(awsEndpoint))
+                .region(Region.of(awsRegion))
+                .credentialsProvider(localCredentials())
+                .build();
+    }
 }
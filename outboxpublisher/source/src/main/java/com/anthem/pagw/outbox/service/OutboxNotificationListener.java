@@ -0,0 +1,173 @@
+package com.anthem.pagw.outbox.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wakes the outbox publisher via Postgres LISTEN/NOTIFY.
+ *
+ * <p>Enabled with {@code pagw.outbox.notify.enabled=true} (requires migration
+ * V003__outbox_insert_notify.sql). Two daemon threads:</p>
+ * <ul>
+ *   <li>listener - holds one dedicated connection, {@code LISTEN pagw_outbox}, and signals a wakeup
+ *       for every batch of notifications received; reconnects on failure. The connection is opened
+ *       outside the Hikari pool (same {@code spring.datasource} settings), so it never takes a
+ *       pooled connection away from the publish workers</li>
+ *   <li>dispatcher - runs one publish cycle per wakeup. The wakeup signal holds at most one
+ *       pending token, so a burst of notifications collapses into a single extra cycle</li>
+ * </ul>
+ *
+ * The {@code @Scheduled} poll in {@link OutboxPublisherService} keeps running as a slow fallback.
+ */
+@Component
+public class OutboxNotificationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxNotificationListener.class);
+    static final String CHANNEL = "pagw_outbox";
+    private static final int MAX_BUSY_RETRIES = 25;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final OutboxPublisherService publisherService;
+    private final OutboxPublisherMetrics metrics;
+    private final PagwProperties properties;
+
+    // Capacity 1: offers while a wakeup is already pending are dropped (coalescing)
+    private final BlockingQueue<Boolean> wakeups = new ArrayBlockingQueue<>(1);
+    private volatile boolean running;
+    private DataSource listenDataSource;
+    private Thread listenerThread;
+    private Thread dispatcherThread;
+
+    public OutboxNotificationListener(
+            DataSourceProperties dataSourceProperties,
+            OutboxPublisherService publisherService,
+            OutboxPublisherMetrics metrics,
+            PagwProperties properties) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.publisherService = publisherService;
+        this.metrics = metrics;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.getOutbox().getNotify().isEnabled()) {
+            return;
+        }
+        // Unpooled: every (re)connect opens a fresh physical connection
+        listenDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "outbox-notify-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        dispatcherThread = new Thread(this::dispatchLoop, "outbox-notify-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+        log.info("Outbox NOTIFY listener started: channel={}", CHANNEL);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+        if (dispatcherThread != null) {
+            dispatcherThread.interrupt();
+        }
+    }
+
+    /**
+     * Signal a publish cycle. Returns false if a wakeup was already pending (coalesced).
+     */
+    boolean signalWakeup() {
+        return wakeups.offer(Boolean.TRUE);
+    }
+
+    private void listenLoop() {
+        int timeoutMs = properties.getOutbox().getNotify().getListenTimeoutMs();
+        long reconnectDelayMs = properties.getOutbox().getNotify().getReconnectDelayMs();
+
+        while (running) {
+            try (Connection connection = listenDataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for outbox notifications: channel={}", CHANNEL);
+
+                // Catch anything inserted while we were not listening
+                signalWakeup();
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(timeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        metrics.recordNotifications(notifications.length);
+                        signalWakeup();
+                    } else if (!connection.isValid(1)) {
+                        throw new IllegalStateException("Outbox notification connection is no longer valid");
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Outbox NOTIFY listener failed, reconnecting in {}ms: {}", reconnectDelayMs, e.getMessage());
+                sleepQuietly(reconnectDelayMs);
+            }
+        }
+        log.info("Outbox NOTIFY listener stopped");
+    }
+
+    private void dispatchLoop() {
+        long busyRetryMs = properties.getOutbox().getNotify().getBusyRetryMs();
+
+        while (running) {
+            try {
+                wakeups.take();
+
+                // A cycle may already be running (scheduled poll or another pod holding the lock).
+                // Retry briefly so notifications arriving mid-cycle are not left for the slow poll.
+                for (int attempt = 0; attempt < MAX_BUSY_RETRIES && running; attempt++) {
+                    if (publisherService.publishOnNotification()) {
+                        break;
+                    }
+                    // Any newer wakeup that arrives while waiting is covered by this retry
+                    wakeups.poll(busyRetryMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Outbox notification-triggered publish failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.anthem.pagw.outbox.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Leases outbox hash partitions to this pod.
+ *
+ * <p>When {@code pagw.outbox.partitioning.enabled=true}, the outbox is split into
+ * {@code count} partitions by aggregate_id. Every pod heartbeats into
+ * {@code pagw.outbox_publisher_node} and holds a fair share
+ * ({@code ceil(count / liveNodes)}) of partitions in {@code pagw.outbox_partition_lease}:</p>
+ * <ul>
+ *   <li>Leases are renewed on every heartbeat and expire if a pod dies</li>
+ *   <li>Expired or released partitions are claimed by pods below their fair share</li>
+ *   <li>Pods above their fair share (e.g. after a new pod joins) release the extras</li>
+ *   <li>Released partitions stay blocked for one heartbeat interval so an in-flight
+ *       batch on the old owner finishes before the new owner starts (keeps per-pagwId order)</li>
+ * </ul>
+ *
+ * All timestamps use database time to avoid clock skew between pods.
+ */
+@Service
+public class OutboxPartitionLeaseManager {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPartitionLeaseManager.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PagwProperties properties;
+    private final String nodeId;
+
+    private volatile List<Integer> ownedPartitions = Collections.emptyList();
+
+    public OutboxPartitionLeaseManager(JdbcTemplate jdbcTemplate, PagwProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        String podName = System.getenv().getOrDefault("HOSTNAME", "outboxpublisher");
+        this.nodeId = podName + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Heartbeat and rebalance partition leases.
+     */
+    @Scheduled(fixedDelayString = "${pagw.outbox.partitioning.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        if (!properties.getOutbox().isPartitioned()) {
+            return;
+        }
+
+        PagwProperties.Partitioning partitioning = properties.getOutbox().getPartitioning();
+        int count = partitioning.getCount();
+        long leaseMs = partitioning.getLeaseDurationMs();
+
+        try {
+            registerNode();
+            pruneDeadNodes(leaseMs);
+            ensurePartitions(count);
+
+            int liveNodes = countLiveNodes(leaseMs);
+            int fairShare = (count + liveNodes - 1) / liveNodes;
+
+            Set<Integer> owned = new TreeSet<>(renewLeases(count, leaseMs));
+
+            if (owned.size() > fairShare) {
+                List<Integer> extras = new ArrayList<>(owned).subList(fairShare, owned.size());
+                // Stop publishing the extras before handing them over
+                owned.removeAll(extras);
+                ownedPartitions = List.copyOf(owned);
+                releasePartitions(extras, partitioning.getHeartbeatIntervalMs());
+                log.info("Released outbox partitions for rebalance: nodeId={}, released={}", nodeId, extras);
+            } else if (owned.size() < fairShare) {
+                List<Integer> claimed = claimPartitions(count, fairShare - owned.size(), leaseMs);
+                if (!claimed.isEmpty()) {
+                    owned.addAll(claimed);
+                    log.info("Claimed outbox partitions: nodeId={}, claimed={}", nodeId, claimed);
+                }
+            }
+
+            ownedPartitions = List.copyOf(owned);
+            log.debug("Outbox partition leases: nodeId={}, liveNodes={}, fairShare={}, owned={}",
+                    nodeId, liveNodes, fairShare, ownedPartitions);
+
+        } catch (Exception e) {
+            // Without a renewed lease we must assume another pod may take over
+            ownedPartitions = Collections.emptyList();
+            log.error("Outbox partition heartbeat failed: nodeId={}, error={}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Partitions this pod currently holds a lease on.
+     */
+    public List<Integer> getOwnedPartitions() {
+        return ownedPartitions;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Release all leases on shutdown so other pods pick them up without waiting for expiry.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!properties.getOutbox().isPartitioned()) {
+            return;
+        }
+        try {
+            ownedPartitions = Collections.emptyList();
+            jdbcTemplate.update("""
+                UPDATE pagw.outbox_partition_lease
+                SET owner_id = NULL, lease_until = NOW(), heartbeat_at = NOW()
+                WHERE owner_id = ?
+                """, nodeId);
+            jdbcTemplate.update("DELETE FROM pagw.outbox_publisher_node WHERE node_id = ?", nodeId);
+            log.info("Released all outbox partition leases: nodeId={}", nodeId);
+        } catch (Exception e) {
+            log.warn("Failed to release outbox partition leases on shutdown: nodeId={}, error={}", nodeId, e.getMessage());
+        }
+    }
+
+    private void registerNode() {
+        jdbcTemplate.update("""
+            INSERT INTO pagw.outbox_publisher_node (node_id, started_at, heartbeat_at)
+            VALUES (?, NOW(), NOW())
+            ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = NOW()
+            """, nodeId);
+    }
+
+    private void pruneDeadNodes(long leaseMs) {
+        jdbcTemplate.update("""
+            DELETE FROM pagw.outbox_publisher_node
+            WHERE heartbeat_at < NOW() - (? * 10 * INTERVAL '1 millisecond')
+            """, leaseMs);
+    }
+
+    private void ensurePartitions(int count) {
+        jdbcTemplate.update("""
+            INSERT INTO pagw.outbox_partition_lease (partition_no)
+            SELECT generate_series(0, ? - 1)
+            ON CONFLICT (partition_no) DO NOTHING
+            """, count);
+    }
+
+    private int countLiveNodes(long leaseMs) {
+        Integer live = jdbcTemplate.queryForObject("""
+            SELECT COUNT(*)
+            FROM pagw.outbox_publisher_node
+            WHERE heartbeat_at > NOW() - (? * INTERVAL '1 millisecond')
+            """, Integer.class, leaseMs);
+        // This node just heartbeated, so at least one node is alive
+        return (live != null && live > 0) ? live : 1;
+    }
+
+    private List<Integer> renewLeases(int count, long leaseMs) {
+        return jdbcTemplate.queryForList("""
+            UPDATE pagw.outbox_partition_lease
+            SET lease_until = NOW() + (? * INTERVAL '1 millisecond'), heartbeat_at = NOW()
+            WHERE owner_id = ?
+              AND partition_no < ?
+              AND lease_until > NOW()
+            RETURNING partition_no
+            """, Integer.class, leaseMs, nodeId, count);
+    }
+
+    private List<Integer> claimPartitions(int count, int wanted, long leaseMs) {
+        return jdbcTemplate.queryForList("""
+            UPDATE pagw.outbox_partition_lease
+            SET owner_id = ?, lease_until = NOW() + (? * INTERVAL '1 millisecond'), heartbeat_at = NOW()
+            WHERE partition_no IN (
+                SELECT partition_no
+                FROM pagw.outbox_partition_lease
+                WHERE partition_no < ?
+                  AND (lease_until IS NULL OR lease_until < NOW())
+                ORDER BY partition_no
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING partition_no
+            """, Integer.class, nodeId, leaseMs, count, wanted);
+    }
+
+    private void releasePartitions(List<Integer> partitions, long graceMs) {
+        for (Integer partition : partitions) {
+            jdbcTemplate.update("""
+                UPDATE pagw.outbox_partition_lease
+                SET owner_id = NULL, lease_until = NOW() + (? * INTERVAL '1 millisecond'), heartbeat_at = NOW()
+                WHERE partition_no = ? AND owner_id = ?
+                """, graceMs, partition, nodeId);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.anthem.pagw.outbox.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the daily range partitions of pagw.outbox (migration V007__outbox_time_partitions.sql).
+ *
+ * <ul>
+ *   <li>Creates partitions {@code pagw.outbox.retention.premake-days} ahead via
+ *       {@code pagw.ensure_outbox_partitions()} - an insert for a day without a partition
+ *       would land in the default partition {@code pagw.outbox_p_default} (V010), which is logged as an error
+ *       and exported as {@code pagw.outbox.partition.default.rows}</li>
+ *   <li>Detaches partitions that ended more than {@code retention-days} ago, but only once every
+ *       row in them is COMPLETED (failed entries waiting in the retry lane keep their partition)</li>
+ *   <li>Drops detached partitions unless {@code drop-detached=false}</li>
+ * </ul>
+ *
+ * Runs on one pod at a time (ShedLock), hourly by default and once right after startup.
+ */
+@Service
+public class OutboxPartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPartitionMaintenance.class);
+
+    private static final String MAINTENANCE_LOCK = "outbox-partition-maintenance";
+    private static final Pattern DAILY_PARTITION = Pattern.compile("outbox_p(\\d{8})");
+    private static final Pattern CATCH_UP_PARTITION = Pattern.compile("outbox_p_before_(\\d{8})");
+    private static final DateTimeFormatter PARTITION_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String DEFAULT_PARTITION = "outbox_p_default";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PagwProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxPublisherMetrics metrics;
+
+    public OutboxPartitionMaintenance(
+            JdbcTemplate jdbcTemplate,
+            PagwProperties properties,
+            PlatformTransactionManager transactionManager,
+            OutboxPublisherMetrics metrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+    }
+
+    @Scheduled(fixedDelayString = "${pagw.outbox.retention.maintenance-interval-ms:3600000}")
+    @SchedulerLock(name = MAINTENANCE_LOCK, lockAtMostFor = "PT10M")
+    public void maintainPartitions() {
+        PagwProperties.Retention retention = properties.getOutbox().getRetention();
+        if (!retention.isEnabled()) {
+            return;
+        }
+
+        try {
+            Integer created = jdbcTemplate.queryForObject(
+                    "SELECT pagw.ensure_outbox_partitions(?)", Integer.class, retention.getPremakeDays());
+            if (created != null && created > 0) {
+                log.info("Created outbox partitions: count={}, premakeDays={}", created, retention.getPremakeDays());
+            }
+        } catch (Exception e) {
+            log.error("Failed to create outbox partitions: error={}", e.getMessage());
+        }
+        checkDefaultPartition();
+
+        LocalDate cutoff = LocalDate.now(ZoneOffset.UTC).minusDays(retention.getRetentionDays());
+        for (String partition : listPartitions()) {
+            if (isExpired(partition, cutoff)) {
+                retire(partition, retention.isDropDetached());
+            }
+        }
+    }
+
+    /**
+     * True if the partition's range ended on or before the cutoff day.
+     * Unknown names (e.g. manually attached partitions) are never expired.
+     */
+    static boolean isExpired(String partition, LocalDate cutoff) {
+        Matcher daily = DAILY_PARTITION.matcher(partition);
+        if (daily.matches()) {
+            LocalDate upperBound = LocalDate.parse(daily.group(1), PARTITION_DATE).plusDays(1);
+            return !upperBound.isAfter(cutoff);
+        }
+        Matcher catchUp = CATCH_UP_PARTITION.matcher(partition);
+        if (catchUp.matches()) {
+            LocalDate upperBound = LocalDate.parse(catchUp.group(1), PARTITION_DATE);
+            return !upperBound.isAfter(cutoff);
+        }
+        return false;
+    }
+
+    /**
+     * Rows left in the default partition after ensure_outbox_partitions() moved what it could -
+     * normally none. Any rows there are for a day that could not get a partition and need a look.
+     */
+    private void checkDefaultPartition() {
+        try {
+            Long rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pagw." + DEFAULT_PARTITION, Long.class);
+            long count = rows != null ? rows : 0;
+            metrics.recordDefaultPartitionRows(count);
+            if (count > 0) {
+                log.error("Outbox rows in the default partition, no daily partition covers them: partition={}, rows={}",
+                        DEFAULT_PARTITION, count);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to check the default outbox partition: error={}", e.getMessage());
+        }
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("""
+            SELECT child.relname
+            FROM pg_inherits i
+            JOIN pg_class parent ON parent.oid = i.inhparent
+            JOIN pg_class child ON child.oid = i.inhrelid
+            JOIN pg_namespace ns ON ns.oid = parent.relnamespace
+            WHERE ns.nspname = 'pagw' AND parent.relname = 'outbox'
+            ORDER BY child.relname
+            """, String.class);
+    }
+
+    /**
+     * Detach a partition if all of its rows are COMPLETED, then optionally drop it.
+     * The partition name comes from the catalog and matched a fixed pattern, so it is safe to inline.
+     */
+    private void retire(String partition, boolean drop) {
+        try {
+            Boolean detached = transactionTemplate.execute(status -> {
+                // DETACH needs an exclusive lock on pagw.outbox - give up quickly instead of queueing publishers behind it
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+                Boolean unfinished = jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM pagw." + partition + " WHERE status <> 'COMPLETED')", Boolean.class);
+                if (Boolean.TRUE.equals(unfinished)) {
+                    return false;
+                }
+                jdbcTemplate.execute("ALTER TABLE pagw.outbox DETACH PARTITION pagw." + partition);
+                return true;
+            });
+
+            if (!Boolean.TRUE.equals(detached)) {
+                log.warn("Outbox partition past retention still has unfinished entries, keeping it: partition={}", partition);
+                return;
+            }
+            if (drop) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS pagw." + partition);
+                log.info("Dropped outbox partition: partition={}", partition);
+            } else {
+                log.info("Detached outbox partition: partition={}", partition);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to retire outbox partition, will retry next run: partition={}, error={}", partition, e.getMessage());
+        }
+    }
+}
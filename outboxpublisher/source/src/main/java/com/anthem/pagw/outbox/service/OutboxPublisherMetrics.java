@@ -0,0 +1,64 @@
+package com.anthem.pagw.outbox.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Gauge;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer metrics for the outbox publisher (exposed via /actuator/metrics).
+ *
+ * <ul>
+ *   <li>{@code pagw.outbox.wakeups{trigger=notify}} - publish cycles started by a Postgres NOTIFY</li>
+ *   <li>{@code pagw.outbox.wakeups{trigger=poll}} - publish cycles started by the scheduled poll</li>
+ *   <li>{@code pagw.outbox.notifications} - raw notifications received (before coalescing)</li>
+ *   <li>{@code pagw.outbox.partition.default.rows} - rows in pagw.outbox_p_default at the last partition
+ *       maintenance run; anything above 0 means an insert found no daily partition (alert on it)</li>
+ * </ul>
+ */
+@Component
+public class OutboxPublisherMetrics {
+
+    public static final String TRIGGER_NOTIFY = "notify";
+    public static final String TRIGGER_POLL = "poll";
+
+    private final Counter notifyWakeups;
+    private final Counter pollWakeups;
+    private final Counter notifications;
+    private final AtomicLong defaultPartitionRows = new AtomicLong();
+
+    public OutboxPublisherMetrics(MeterRegistry meterRegistry) {
+        this.notifyWakeups = Counter.builder("pagw.outbox.wakeups")
+                .description("Outbox publish cycles by trigger")
+                .tag("trigger", TRIGGER_NOTIFY)
+                .register(meterRegistry);
+        this.pollWakeups = Counter.builder("pagw.outbox.wakeups")
+                .description("Outbox publish cycles by trigger")
+                .tag("trigger", TRIGGER_POLL)
+                .register(meterRegistry);
+        this.notifications = Counter.builder("pagw.outbox.notifications")
+                .description("Postgres NOTIFY messages received on the outbox channel")
+                .register(meterRegistry);
+        Gauge.builder("pagw.outbox.partition.default.rows", defaultPartitionRows, AtomicLong::get)
+                .description("Rows in the default outbox partition (no daily partition for their day)")
+                .register(meterRegistry);
+    }
+
+    public void recordWakeup(String trigger) {
+        if (TRIGGER_NOTIFY.equals(trigger)) {
+            notifyWakeups.increment();
+        } else {
+            pollWakeups.increment();
+        }
+    }
+
+    public void recordNotifications(int count) {
+        notifications.increment(count);
+    }
+
+    public void recordDefaultPartitionRows(long rows) {
+        defaultPartitionRows.set(rows);
+    }
+}
@@ -8,13 +8,32 @@ import com.anthem.pagw.core.service.EventTrackerService;
 import com.anthem.pagw.core.service.OutboxService;
 import com.anthem.pagw.core.service.SqsService;
 import com.anthem.pagw.core.util.JsonUtils;
+import jakarta.annotation.PreDestroy;
+import net.javacrumbs.shedlock.core.DefaultLockingTaskExecutor;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.LockingTaskExecutor;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Outbox Publisher Service with High Availability Support.
@@ -30,26 +49,72 @@ import java.util.List;
  *   <li>If the active pod fails, another will take over automatically</li>
  *   <li>Lock timeout ensures no stuck locks from crashed pods</li>
  * </ul>
+ * 
+ * <p>Partitioned mode ({@code pagw.outbox.partitioning.enabled=true}):</p>
+ * <ul>
+ *   <li>The outbox is split into N hash partitions by aggregate_id (pagwId)</li>
+ *   <li>Each pod leases a fair share of partitions and publishes them in parallel with other pods</li>
+ *   <li>The global ShedLock is not used, so throughput grows with the number of pods</li>
+ * </ul>
+ * 
+ * <p>With {@code pagw.outbox.notify.enabled=true}, {@link OutboxNotificationListener} triggers a
+ * cycle as soon as rows are inserted; the scheduled poll then only acts as a slow fallback.</p>
+ * 
+ * <p>Within a cycle, {@code pagw.outbox.publish-workers} workers claim batches concurrently
+ * (status IN_FLIGHT with a {@code pagw.outbox.claim-ttl-ms} lease) and send them over the
+ * async SQS client, with at most {@code pagw.outbox.max-in-flight} SendMessageBatch calls
+ * outstanding. Claims left behind by a crashed pod are requeued by {@link #requeueExpiredClaims()}.
+ * Per-pagwId order is kept: each worker claims its own hash bucket of pagwIds (or, in partitioned
+ * mode, its own subset of the pod's partitions), and within a worker a send batch waits for the
+ * previous batch carrying the same pagwId to the same queue.</p>
+ * 
+ * <p>Failed entries leave the hot path: they wait in status FAILED with an exponential backoff
+ * and are re-published by {@link #publishDueRetries()}; after {@code pagw.outbox.max-retries}
+ * they are parked in pagw.outbox_parked.</p>
  */
 @Service
 public class OutboxPublisherService {
     
     private static final Logger log = LoggerFactory.getLogger(OutboxPublisherService.class);
     
+    private static final String PUBLISHER_LOCK = "outbox-publisher";
+    private static final String RETRY_LANE_LOCK = "outbox-retry-lane";
+    
+    /** SQS limit for entries per SendMessageBatch call. */
+    private static final int SEND_BATCH_SIZE = 10;
+    
     private final OutboxService outboxService;
     private final SqsService sqsService;
     private final EventTrackerService eventTrackerService;
     private final PagwProperties properties;
+    private final OutboxPartitionLeaseManager leaseManager;
+    private final LockingTaskExecutor lockingTaskExecutor;
+    private final OutboxPublisherMetrics metrics;
+    // Partitioned mode has no ShedLock - keeps poll and NOTIFY cycles on this pod from overlapping
+    private final ReentrantLock partitionCycleLock = new ReentrantLock();
+    // Publish workers of the running cycle; at most pagw.outbox.publish-workers threads are busy at a time
+    private final AtomicInteger workerThreads = new AtomicInteger();
+    private final ExecutorService workerPool = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "outbox-publish-worker-" + workerThreads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
     
     public OutboxPublisherService(
             OutboxService outboxService,
             SqsService sqsService,
             EventTrackerService eventTrackerService,
-            PagwProperties properties) {
+            PagwProperties properties,
+            OutboxPartitionLeaseManager leaseManager,
+            LockProvider lockProvider,
+            OutboxPublisherMetrics metrics) {
         this.outboxService = outboxService;
         this.sqsService = sqsService;
         this.eventTrackerService = eventTrackerService;
         this.properties = properties;
+        this.leaseManager = leaseManager;
+        this.lockingTaskExecutor = new DefaultLockingTaskExecutor(lockProvider);
+        this.metrics = metrics;
     }
     
     /**
@@ -62,92 +127,479 @@ public class OutboxPublisherService {
      */
     @Scheduled(fixedDelayString = "${pagw.outbox.publish-interval-ms:1000}")
     @SchedulerLock(
-            name = "outbox-publisher",
+            name = PUBLISHER_LOCK,
             lockAtLeastFor = "PT1S",   // Hold lock for at least 1 second
             lockAtMostFor = "PT30S"    // Release lock after 30 seconds max (failsafe)
     )
     public void publishOutboxEntries() {
-        int batchSize = properties.getOutbox().getBatchSize();
-        int maxRetries = properties.getOutbox().getMaxRetries();
+        if (properties.getOutbox().isPartitioned()) {
+            // Partitioned mode publishes via publishPartitionedOutboxEntries()
+            return;
+        }
         
-        List<OutboxEntry> entries = outboxService.fetchUnpublished(batchSize);
+        metrics.recordWakeup(OutboxPublisherMetrics.TRIGGER_POLL);
+        publishPendingEntries(false);
+    }
+    
+    /**
+     * Scheduled task to publish outbox entries in partitioned mode.
+     * 
+     * Runs on every pod without a global lock. Each pod only fetches entries
+     * from the hash partitions it currently leases (see {@link OutboxPartitionLeaseManager}),
+     * so throughput scales with the number of pods while per-pagwId ordering is kept.
+     */
+    @Scheduled(fixedDelayString = "${pagw.outbox.publish-interval-ms:1000}")
+    public void publishPartitionedOutboxEntries() {
+        if (!properties.getOutbox().isPartitioned()) {
+            return;
+        }
         
-        if (entries.isEmpty()) {
+        if (!partitionCycleLock.tryLock()) {
             return;
         }
+        try {
+            metrics.recordWakeup(OutboxPublisherMetrics.TRIGGER_POLL);
+            publishOwnedPartitions(false);
+        } finally {
+            partitionCycleLock.unlock();
+        }
+    }
+    
+    /**
+     * Run one publish cycle because a Postgres NOTIFY arrived (see {@link OutboxNotificationListener}).
+     * Uses the same exclusion as the scheduled poll: the outbox-publisher ShedLock
+     * (without lockAtLeastFor) or, in partitioned mode, the local partition cycle lock.
+     * 
+     * @return false if another cycle held the lock and the caller should retry shortly
+     */
+    public boolean publishOnNotification() {
+        if (properties.getOutbox().isPartitioned()) {
+            if (!partitionCycleLock.tryLock()) {
+                return false;
+            }
+            try {
+                metrics.recordWakeup(OutboxPublisherMetrics.TRIGGER_NOTIFY);
+                publishOwnedPartitions(true);
+                return true;
+            } finally {
+                partitionCycleLock.unlock();
+            }
+        }
         
-        log.info("Processing {} outbox entries", entries.size());
+        try {
+            LockingTaskExecutor.TaskResult<Boolean> result = lockingTaskExecutor.executeWithLock(() -> {
+                metrics.recordWakeup(OutboxPublisherMetrics.TRIGGER_NOTIFY);
+                publishPendingEntries(true);
+                return true;
+            }, new LockConfiguration(Instant.now(), PUBLISHER_LOCK, Duration.ofSeconds(30), Duration.ZERO));
+            return result.wasExecuted();
+        } catch (Throwable e) {
+            log.error("Notification-triggered outbox publishing failed: error={}", e.getMessage());
+            // The cycle ran and failed - do not retry immediately, the poll is the fallback
+            return true;
+        }
+    }
+    
+    /**
+     * @param notified NOTIFY-woken cycle: claim freshly committed rows instead of leaving them to
+     *                 the post-commit fast path for {@code sweep-grace-ms}
+     */
+    private void publishPendingEntries(boolean notified) {
+        long claimTtlMs = properties.getOutbox().getClaimTtlMs();
+        long graceMs = notified ? 0 : outboxService.getSweepGraceMs();
+        int workers = publishWorkers();
+        
+        // Worker i only claims hash bucket i, so one pagwId is never sent by two workers at once
+        runPublishWorkers((worker, limit, claimedBy) -> outboxService.claimUnpublished(
+                limit, workers, worker, claimedBy, claimTtlMs, graceMs));
+    }
+    
+    /**
+     * @param notified see {@link #publishPendingEntries(boolean)}
+     */
+    private void publishOwnedPartitions(boolean notified) {
+        if (leaseManager.getOwnedPartitions().isEmpty()) {
+            return;
+        }
+        
+        PagwProperties.Outbox outbox = properties.getOutbox();
+        int partitionCount = outbox.getPartitioning().getCount();
+        long graceMs = notified ? 0 : outboxService.getSweepGraceMs();
+        int workers = publishWorkers();
+        // Re-read leases on every claim so a worker stops claiming partitions handed over mid-cycle;
+        // the claim statement itself re-checks that this node still holds them.
+        // Worker i only takes partitions p with p % workers == i, so one pagwId stays on one worker.
+        runPublishWorkers((worker, limit, claimedBy) -> outboxService.claimUnpublished(limit, partitionCount,
+                leaseManager.getOwnedPartitions().stream().filter(p -> p % workers == worker).toList(),
+                leaseManager.getNodeId(), claimedBy, outbox.getClaimTtlMs(), graceMs));
+    }
+    
+    /**
+     * Run one publish cycle with a bounded pool of concurrent workers.
+     * 
+     * Each worker repeatedly claims a batch (rows move to IN_FLIGHT, so no other worker or pod
+     * can pick them up) and sends it, until the outbox is drained. All workers share one
+     * in-flight window of {@code pagw.outbox.max-in-flight} SendMessageBatch calls.
+     * Claimers give each worker a disjoint set of pagwIds, so per-pagwId order is kept.
+     */
+    private PublishResult runPublishWorkers(Claimer claimer) {
+        PagwProperties.Outbox outbox = properties.getOutbox();
+        int workers = publishWorkers();
+        int batchSize = Math.max(1, outbox.getBatchSize());
+        Semaphore inFlightWindow = new Semaphore(Math.max(1, outbox.getMaxInFlight()));
+        
+        if (workers == 1) {
+            return runWorker(claimer, 0, batchSize, inFlightWindow);
+        }
+        
+        List<Future<PublishResult>> running = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            int worker = i;
+            running.add(workerPool.submit(() -> runWorker(claimer, worker, batchSize, inFlightWindow)));
+        }
+        
+        int published = 0;
+        int failed = 0;
+        for (Future<PublishResult> worker : running) {
+            try {
+                PublishResult result = worker.get();
+                published += result.published();
+                failed += result.failed();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                // Entries the worker had claimed stay IN_FLIGHT until the reaper requeues them
+                log.error("Outbox publish worker failed: error={}", e.getCause().getMessage());
+            }
+        }
+        return new PublishResult(published, failed);
+    }
+    
+    private PublishResult runWorker(Claimer claimer, int worker, int batchSize, Semaphore inFlightWindow) {
+        String claimedBy = claimOwner(worker);
+        int published = 0;
+        int failed = 0;
+        
+        while (!Thread.currentThread().isInterrupted()) {
+            List<OutboxEntry> entries = claimer.claim(worker, batchSize, claimedBy);
+            if (entries.isEmpty()) {
+                break;
+            }
+            
+            log.info("Processing {} outbox entries: claimedBy={}", entries.size(), claimedBy);
+            PublishResult result = publishBatch(entries, inFlightWindow);
+            published += result.published();
+            failed += result.failed();
+            
+            if (entries.size() < batchSize) {
+                break;
+            }
+        }
+        return new PublishResult(published, failed);
+    }
+    
+    /**
+     * Publish a claimed batch of outbox entries to SQS.
+     * 
+     * Entries are grouped by destination queue and sent with SendMessageBatch
+     * (10 per API call) on the async SQS client; each call holds one permit of the
+     * in-flight window. Stored payloads are forwarded unchanged; only entries written
+     * before the message columns existed are parsed. Failed batch entries are mapped back to their outbox
+     * row so only those get a retry; successful rows are completed in one UPDATE per call.
+     */
+    private PublishResult publishBatch(List<OutboxEntry> entries, Semaphore inFlightWindow) {
+        int maxRetries = properties.getOutbox().getMaxRetries();
         
         int published = 0;
         int failed = 0;
         
+        // Preserve claim order (created_at) within each destination queue
+        Map<String, Map<String, PreparedEntry>> byQueue = new LinkedHashMap<>();
+        
         for (OutboxEntry entry : entries) {
             long startTime = System.currentTimeMillis();
             String pagwId = null;
             String tenant = null;
             
             try {
-                // Extract pagwId and tenant from message
-                PagwMessage message = JsonUtils.fromJson(entry.getPayload(), PagwMessage.class);
-                pagwId = message.getPagwId();
-                // Try top-level tenant first, then fall back to meta.tenant
-                tenant = message.getTenant();
-                if (tenant == null && message.getMeta() != null) {
-                    tenant = message.getMeta().getTenant();
-                }
-                // Final fallback to prevent NOT NULL constraint violations
-                if (tenant == null) {
-                    tenant = "UNKNOWN";
-                    log.warn("No tenant found in message for pagwId={}, using default: UNKNOWN", pagwId);
+                SqsService.RawMessage message;
+                if (entry.getPagwId() != null) {
+                    // Routing fields are columns - forward the stored payload without parsing it
+                    pagwId = entry.getPagwId();
+                    tenant = entry.getTenant();
+                    message = new SqsService.RawMessage(entry.getPayload(), entry.getMessageGroupId(), entry.getMessageId());
+                } else {
+                    // Entry written before the message columns existed
+                    PagwMessage parsed = JsonUtils.fromJson(entry.getPayload(), PagwMessage.class);
+                    pagwId = parsed.getPagwId();
+                    tenant = legacyTenant(parsed);
+                    message = new SqsService.RawMessage(entry.getPayload(), parsed.getPagwId(), parsed.getMessageId());
                 }
                 
                 // Event tracking: PUBLISH_START
                 eventTrackerService.logStageStart(pagwId, tenant, "OUTBOX_PUBLISHER", EventTracker.EVENT_PUBLISH_START, null);
                 
-                // Check if max retries exceeded
+                // Check if max retries exceeded (e.g. max-retries lowered since the entry failed)
                 if (entry.getRetryCount() >= maxRetries) {
                     log.error("Outbox entry exceeded max retries: id={}, destinationQueue={}, retries={}",
                             entry.getId(), entry.getDestinationQueue(), entry.getRetryCount());
-                    // Could move to a failed/operator queue here
+                    outboxService.parkEntry(entry, entry.getLastError());
+                    failed++;
                     continue;
                 }
                 
-                // Publish to SQS
-                String queueUrl = getQueueUrl(entry.getDestinationQueue());
-                sqsService.sendMessage(queueUrl, message);
+                byQueue.computeIfAbsent(entry.getDestinationQueue(), q -> new LinkedHashMap<>())
+                        .put(entry.getId().toString(), new PreparedEntry(entry, message, pagwId, tenant, startTime));
                 
-                // Mark as published
-                outboxService.markCompleted(entry.getId());
-                published++;
+            } catch (Exception e) {
+                handlePublishFailure(entry, pagwId, tenant, e.getMessage());
+                failed++;
+            }
+        }
+        
+        // Dispatch every SendMessageBatch call first, then collect results in order
+        List<InFlightSend> sends = new ArrayList<>();
+        // Last send per queue and pagwId: a later chunk with the same pagwId waits for it,
+        // as concurrent batch calls to one FIFO queue may be applied in either order
+        Map<String, CompletableFuture<SqsService.BatchSendResult>> lastSendByPagwId = new HashMap<>();
+        for (Map.Entry<String, Map<String, PreparedEntry>> queueBatch : byQueue.entrySet()) {
+            String destinationQueue = queueBatch.getKey();
+            
+            String queueUrl;
+            try {
+                queueUrl = getQueueUrl(destinationQueue);
+            } catch (Exception e) {
+                // Queue could not be resolved - every entry for it failed
+                for (PreparedEntry p : queueBatch.getValue().values()) {
+                    handlePublishFailure(p.entry(), p.pagwId(), p.tenant(), e.getMessage());
+                    failed++;
+                }
+                continue;
+            }
+            
+            for (Map<String, PreparedEntry> chunk : chunks(queueBatch.getValue())) {
+                for (PreparedEntry p : chunk.values()) {
+                    CompletableFuture<SqsService.BatchSendResult> previous = lastSendByPagwId.get(pagwKey(queueUrl, p));
+                    if (previous != null) {
+                        previous.join();
+                    }
+                }
+                InFlightSend send = dispatch(destinationQueue, queueUrl, chunk, inFlightWindow);
+                if (send == null) {
+                    // Interrupted while waiting for the window - undispatched rows are requeued by the reaper
+                    break;
+                }
+                sends.add(send);
+                chunk.values().forEach(p -> lastSendByPagwId.put(pagwKey(queueUrl, p), send.result()));
+            }
+        }
+        
+        for (InFlightSend send : sends) {
+            SqsService.BatchSendResult result = send.result().join();
+            Map<String, PreparedEntry> prepared = send.entries();
+            
+            // Mark all successful rows as published in one statement
+            List<OutboxEntry> completed = new ArrayList<>(result.successfulIds().size());
+            result.successfulIds().forEach(id -> completed.add(prepared.get(id).entry()));
+            outboxService.markCompleted(completed);
+            published += completed.size();
+            
+            for (String id : result.successfulIds()) {
+                PreparedEntry p = prepared.get(id);
                 
                 // Event tracking: PUBLISH_OK
-                long duration = System.currentTimeMillis() - startTime;
+                long duration = System.currentTimeMillis() - p.startTime();
                 String metadata = String.format("{\"destinationQueue\":\"%s\",\"retryCount\":%d}",
-                    entry.getDestinationQueue(), entry.getRetryCount());
+                    send.destinationQueue(), p.entry().getRetryCount());
                 eventTrackerService.logStageComplete(
-                    pagwId, tenant, "OUTBOX_PUBLISHER", EventTracker.EVENT_PUBLISH_OK, duration, metadata
+                    p.pagwId(), p.tenant(), "OUTBOX_PUBLISHER", EventTracker.EVENT_PUBLISH_OK, duration, metadata
                 );
                 
-                log.debug("Published outbox entry: id={}, destinationQueue={}", entry.getId(), entry.getDestinationQueue());
-                
-            } catch (Exception e) {
-                log.error("Failed to publish outbox entry: id={}, destinationQueue={}, error={}",
-                        entry.getId(), entry.getDestinationQueue(), e.getMessage());
-                
-                // Event tracking: PUBLISH_FAIL (retryable)
-                if (pagwId != null) {
-                    eventTrackerService.logStageError(
-                        pagwId, tenant, "OUTBOX_PUBLISHER", EventTracker.EVENT_PUBLISH_FAIL,
-                        "PUBLISH_EXCEPTION", e.getMessage(), true, java.time.Instant.now().plusSeconds(300)
-                    );
-                }
-                
-                outboxService.incrementRetry(entry.getId(), e.getMessage());
+                log.debug("Published outbox entry: id={}, destinationQueue={}", id, send.destinationQueue());
+            }
+            
+            for (Map.Entry<String, String> failure : result.failedIds().entrySet()) {
+                PreparedEntry p = prepared.get(failure.getKey());
+                handlePublishFailure(p.entry(), p.pagwId(), p.tenant(), failure.getValue());
                 failed++;
             }
         }
         
         log.info("Outbox publishing complete: published={}, failed={}", published, failed);
+        return new PublishResult(published, failed);
+    }
+    
+    /**
+     * Start one async SendMessageBatch call once a permit of the in-flight window is free.
+     * 
+     * @return the pending send, or null if interrupted while waiting for a permit
+     */
+    private InFlightSend dispatch(String destinationQueue, String queueUrl, Map<String, PreparedEntry> chunk,
+                                  Semaphore inFlightWindow) {
+        try {
+            inFlightWindow.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        
+        Map<String, SqsService.RawMessage> messages = new LinkedHashMap<>();
+        chunk.forEach((id, p) -> messages.put(id, p.message()));
+        
+        CompletableFuture<SqsService.BatchSendResult> result;
+        try {
+            result = sqsService.sendRawMessageBatchAsync(queueUrl, messages);
+        } catch (Exception e) {
+            Map<String, String> failedIds = new LinkedHashMap<>();
+            chunk.keySet().forEach(id -> failedIds.put(id, e.getMessage()));
+            result = CompletableFuture.completedFuture(new SqsService.BatchSendResult(List.of(), failedIds));
+        }
+        return new InFlightSend(destinationQueue, chunk, result.whenComplete((r, e) -> inFlightWindow.release()));
+    }
+    
+    /**
+     * Tenant of a parsed legacy entry: top-level tenant first, then meta.tenant.
+     * Final fallback prevents NOT NULL constraint violations in event tracking.
+     */
+    private String legacyTenant(PagwMessage message) {
+        String tenant = message.getTenant();
+        if (tenant == null && message.getMeta() != null) {
+            tenant = message.getMeta().getTenant();
+        }
+        if (tenant == null) {
+            tenant = "UNKNOWN";
+            log.warn("No tenant found in message for pagwId={}, using default: UNKNOWN", message.getPagwId());
+        }
+        return tenant;
+    }
+    
+    private static String pagwKey(String queueUrl, PreparedEntry prepared) {
+        return queueUrl + '|' + prepared.pagwId();
+    }
+    
+    /**
+     * Split one queue's entries into SendMessageBatch-sized chunks (10 entries, 256 KiB of bodies),
+     * keeping order.
+     */
+    private List<Map<String, PreparedEntry>> chunks(Map<String, PreparedEntry> prepared) {
+        List<Map<String, PreparedEntry>> chunks = new ArrayList<>();
+        Map<String, PreparedEntry> chunk = new LinkedHashMap<>();
+        int chunkBytes = 0;
+        for (Map.Entry<String, PreparedEntry> e : prepared.entrySet()) {
+            int bytes = SqsService.utf8Length(e.getValue().message().body());
+            if (!chunk.isEmpty() && (chunk.size() == SEND_BATCH_SIZE || chunkBytes + bytes > SqsService.MAX_BATCH_BYTES)) {
+                chunks.add(chunk);
+                chunk = new LinkedHashMap<>();
+                chunkBytes = 0;
+            }
+            chunk.put(e.getKey(), e.getValue());
+            chunkBytes += bytes;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+    
+    private int publishWorkers() {
+        return Math.max(1, properties.getOutbox().getPublishWorkers());
+    }
+    
+    /**
+     * Claim owner recorded in outbox.claimed_by, e.g. "outboxpublisher-7d9f-1a2b3c4d/w0".
+     */
+    private String claimOwner(int worker) {
+        return leaseManager.getNodeId() + "/w" + worker;
+    }
+    
+    /**
+     * Retry lane: re-publish FAILED entries whose backoff has expired.
+     * 
+     * Runs separately from the hot path, under its own ShedLock (one pod cluster-wide),
+     * with its own batch size, a rate limit of {@code pagw.outbox.retry.max-per-second}
+     * and a single in-flight SendMessageBatch call, so failing entries never take batch
+     * slots or send capacity from fresh traffic.
+     */
+    @Scheduled(fixedDelayString = "${pagw.outbox.retry.poll-interval-ms:5000}")
+    @SchedulerLock(name = RETRY_LANE_LOCK, lockAtMostFor = "PT60S")
+    public void publishDueRetries() {
+        PagwProperties.Outbox outbox = properties.getOutbox();
+        PagwProperties.Retry retry = outbox.getRetry();
+        if (!retry.isEnabled()) {
+            return;
+        }
+        
+        List<OutboxEntry> entries = outboxService.claimDueRetries(
+                retryBudget(retry), leaseManager.getNodeId() + "/retry", outbox.getClaimTtlMs());
+        if (entries.isEmpty()) {
+            return;
+        }
+        
+        log.info("Retrying {} failed outbox entries", entries.size());
+        publishBatch(entries, new Semaphore(1));
+    }
+    
+    /**
+     * Entries per retry cycle: one cycle per poll interval, so cap the batch at the rate limit.
+     */
+    private int retryBudget(PagwProperties.Retry retry) {
+        long perCycle = (long) Math.ceil(retry.getMaxPerSecond() * retry.getPollIntervalMs() / 1000.0);
+        return (int) Math.max(1, Math.min(retry.getBatchSize(), perCycle));
+    }
+    
+    /**
+     * Requeue IN_FLIGHT entries whose claim expired (worker or pod died mid-send).
+     * Runs on every pod; the UPDATE is idempotent.
+     */
+    @Scheduled(fixedDelayString = "${pagw.outbox.reaper-interval-ms:15000}")
+    public void requeueExpiredClaims() {
+        try {
+            outboxService.requeueExpiredClaims();
+        } catch (Exception e) {
+            log.error("Outbox claim reaper failed: error={}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+    }
+    
+    /**
+     * Record a failed publish: PUBLISH_FAIL event and hand-off to the retry lane with backoff,
+     * or park the entry once this was its last allowed attempt.
+     */
+    private void handlePublishFailure(OutboxEntry entry, String pagwId, String tenant, String error) {
+        log.error("Failed to publish outbox entry: id={}, destinationQueue={}, error={}",
+                entry.getId(), entry.getDestinationQueue(), error);
+        
+        PagwProperties.Outbox outbox = properties.getOutbox();
+        int failedAttempts = entry.getRetryCount() + 1;
+        
+        if (failedAttempts >= outbox.getMaxRetries()) {
+            // Event tracking: PUBLISH_FAIL (not retryable)
+            if (pagwId != null) {
+                eventTrackerService.logStageError(
+                    pagwId, tenant, "OUTBOX_PUBLISHER", EventTracker.EVENT_PUBLISH_FAIL,
+                    "RETRIES_EXHAUSTED", error, false, null
+                );
+            }
+            outboxService.parkEntry(entry, error);
+            return;
+        }
+        
+        long delayMs = OutboxRetryBackoff.delayMs(outbox.getRetry(), failedAttempts);
+        
+        // Event tracking: PUBLISH_FAIL (retryable)
+        if (pagwId != null) {
+            eventTrackerService.logStageError(
+                pagwId, tenant, "OUTBOX_PUBLISHER", EventTracker.EVENT_PUBLISH_FAIL,
+                "PUBLISH_EXCEPTION", error, true, Instant.now().plusMillis(delayMs)
+            );
+        }
+        
+        outboxService.scheduleRetry(entry, error, delayMs);
     }
     
     /**
@@ -168,26 +620,12 @@ public class OutboxPublisherService {
      * Manual trigger for publishing (for testing/operations).
      */
     public PublishResult publishNow() {
-        List<OutboxEntry> entries = outboxService.fetchUnpublished(
-                properties.getOutbox().getBatchSize());
-        
-        int published = 0;
-        int failed = 0;
+        long claimTtlMs = properties.getOutbox().getClaimTtlMs();
+        long graceMs = outboxService.getSweepGraceMs();
+        int workers = publishWorkers();
         
-        for (OutboxEntry entry : entries) {
-            try {
-                String queueUrl = getQueueUrl(entry.getDestinationQueue());
-                PagwMessage message = JsonUtils.fromJson(entry.getPayload(), PagwMessage.class);
-                sqsService.sendMessage(queueUrl, message);
-                outboxService.markCompleted(entry.getId());
-                published++;
-            } catch (Exception e) {
-                outboxService.incrementRetry(entry.getId(), e.getMessage());
-                failed++;
-            }
-        }
-        
-        return new PublishResult(published, failed);
+        return runPublishWorkers((worker, limit, claimedBy) -> outboxService.claimUnpublished(
+                limit, workers, worker, claimedBy, claimTtlMs, graceMs));
     }
     
     /**
@@ -200,6 +638,16 @@ public class OutboxPublisherService {
         return new OutboxStats(unpublished, stuck);
     }
     
+    @FunctionalInterface
+    private interface Claimer {
+        List<OutboxEntry> claim(int worker, int limit, String claimedBy);
+    }
+    
+    private record PreparedEntry(OutboxEntry entry, SqsService.RawMessage message, String pagwId, String tenant, long startTime) {}
+    
+    private record InFlightSend(String destinationQueue, Map<String, PreparedEntry> entries,
+                                CompletableFuture<SqsService.BatchSendResult> result) {}
+    
     public record PublishResult(int published, int failed) {}
     public record OutboxStats(long unpublished, long stuck) {}
 }
@@ -0,0 +1,35 @@
+package com.anthem.pagw.outbox.service;
+
+import com.anthem.pagw.core.PagwProperties;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for the outbox retry lane.
+ *
+ * <p>The delay after the n-th failed attempt is
+ * {@code min(max-backoff-ms, initial-backoff-ms * multiplier^(n-1))}, of which the upper
+ * half is randomized ("equal jitter"). Entries that failed together in one burst are
+ * therefore spread out, while a retry is never scheduled immediately.</p>
+ */
+final class OutboxRetryBackoff {
+
+    private OutboxRetryBackoff() {
+    }
+
+    /**
+     * @param retry Retry lane settings
+     * @param failedAttempts Number of failed attempts so far, including the current one (&gt;= 1)
+     * @return Delay in milliseconds until the entry is due again
+     */
+    static long delayMs(PagwProperties.Retry retry, int failedAttempts) {
+        double exponential = retry.getInitialBackoffMs()
+                * Math.pow(Math.max(1.0, retry.getMultiplier()), Math.max(0, failedAttempts - 1));
+        long capped = (long) Math.min(retry.getMaxBackoffMs(), exponential);
+        if (capped <= 0) {
+            return 0;
+        }
+        long fixed = capped / 2;
+        return fixed + ThreadLocalRandom.current().nextLong(capped - fixed + 1);
+    }
+}
@@ -0,0 +1,251 @@
+package com.anthem.pagw.outbox.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxNotificationListener, with the LISTEN connection stubbed: each connection
+ * hands out the notification batches queued for it and fails once it is told to drop.
+ */
+class OutboxNotificationListenerTest {
+
+    private static final long WAIT_MS = 2000;
+
+    private DataSourceProperties dataSourceProperties;
+    private DataSource dataSource;
+    private OutboxPublisherService publisherService;
+    private SimpleMeterRegistry meterRegistry;
+    private PagwProperties properties;
+    private OutboxNotificationListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        dataSourceProperties = mock(DataSourceProperties.class);
+        dataSource = mock(DataSource.class);
+        DataSourceBuilder<DataSource> builder = mock(DataSourceBuilder.class);
+        doReturn(builder).when(dataSourceProperties).initializeDataSourceBuilder();
+        doReturn(builder).when(builder).type(any());
+        when(builder.build()).thenReturn(dataSource);
+
+        publisherService = mock(OutboxPublisherService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new PagwProperties();
+        PagwProperties.Notify notify = properties.getOutbox().getNotify();
+        notify.setEnabled(true);
+        notify.setListenTimeoutMs(20);
+        notify.setBusyRetryMs(10);
+        notify.setReconnectDelayMs(10);
+
+        listener = new OutboxNotificationListener(dataSourceProperties, publisherService,
+                new OutboxPublisherMetrics(meterRegistry), properties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        listener.stop();
+        awaitThreadsStopped();
+    }
+
+    @Test
+    void start_shouldDoNothingWhenNotifyIsDisabled() {
+        properties.getOutbox().getNotify().setEnabled(false);
+
+        listener.start();
+
+        verifyNoInteractions(dataSourceProperties, publisherService);
+    }
+
+    @Test
+    void shouldCoalesceNotificationsReceivedDuringACycleIntoOneWakeup() throws Exception {
+        StubConnection connection = new StubConnection();
+        when(dataSource.getConnection()).thenReturn(connection.connection);
+
+        // The wakeup signalled on connect starts a cycle that runs until released
+        CountDownLatch cycleStarted = new CountDownLatch(1);
+        CountDownLatch releaseCycle = new CountDownLatch(1);
+        when(publisherService.publishOnNotification())
+                .thenAnswer(invocation -> {
+                    cycleStarted.countDown();
+                    releaseCycle.await(WAIT_MS, TimeUnit.MILLISECONDS);
+                    return true;
+                })
+                .thenReturn(true);
+
+        listener.start();
+        assertTrue(cycleStarted.await(WAIT_MS, TimeUnit.MILLISECONDS));
+
+        connection.deliver(2);
+        connection.deliver(1);
+        connection.deliver(3);
+        awaitTrue(() -> meterRegistry.counter("pagw.outbox.notifications").count() == 6.0);
+        // The next poll starts after the last batch's wakeup was signalled
+        int polls = connection.polls.get();
+        awaitTrue(() -> connection.polls.get() > polls);
+
+        // The one slot is already taken by the first batch
+        assertFalse(listener.signalWakeup());
+
+        releaseCycle.countDown();
+        verify(publisherService, timeout(WAIT_MS).times(2)).publishOnNotification();
+        verify(publisherService, after(200).times(2)).publishOnNotification();
+    }
+
+    @Test
+    void shouldRetryAWakeupWhileAnotherCycleIsRunning() throws Exception {
+        StubConnection connection = new StubConnection();
+        when(dataSource.getConnection()).thenReturn(connection.connection);
+        // Busy twice (the ShedLock is held elsewhere), then the cycle runs
+        when(publisherService.publishOnNotification()).thenReturn(false, false, true);
+
+        listener.start();
+
+        verify(publisherService, timeout(WAIT_MS).times(3)).publishOnNotification();
+        verify(publisherService, after(200).times(3)).publishOnNotification();
+    }
+
+    @Test
+    void shouldReconnectAfterTheConnectionDrops() throws Exception {
+        StubConnection first = new StubConnection();
+        StubConnection second = new StubConnection();
+        when(dataSource.getConnection()).thenReturn(first.connection, second.connection);
+        when(publisherService.publishOnNotification()).thenReturn(true);
+
+        listener.start();
+        verify(first.statement, timeout(WAIT_MS)).execute("LISTEN pagw_outbox");
+
+        first.drop();
+
+        // The dropped connection is closed and a fresh one LISTENs again
+        verify(first.connection, timeout(WAIT_MS)).close();
+        verify(second.statement, timeout(WAIT_MS)).execute("LISTEN pagw_outbox");
+        // Each (re)connect signals a wakeup for rows inserted while not listening
+        verify(publisherService, timeout(WAIT_MS).times(2)).publishOnNotification();
+
+        second.deliver(1);
+        verify(publisherService, timeout(WAIT_MS).times(3)).publishOnNotification();
+    }
+
+    @Test
+    void shouldReconnectWhenTheIdleConnectionIsNoLongerValid() throws Exception {
+        StubConnection first = new StubConnection();
+        StubConnection second = new StubConnection();
+        when(dataSource.getConnection()).thenReturn(first.connection, second.connection);
+        when(publisherService.publishOnNotification()).thenReturn(true);
+
+        listener.start();
+        verify(first.statement, timeout(WAIT_MS)).execute("LISTEN pagw_outbox");
+
+        first.invalidate();
+
+        verify(first.connection, timeout(WAIT_MS)).close();
+        verify(second.statement, timeout(WAIT_MS)).execute("LISTEN pagw_outbox");
+    }
+
+    @Test
+    void stop_shouldCloseTheConnectionAndEndBothThreads() throws Exception {
+        StubConnection connection = new StubConnection();
+        when(dataSource.getConnection()).thenReturn(connection.connection);
+        when(publisherService.publishOnNotification()).thenReturn(true);
+
+        listener.start();
+        verify(publisherService, timeout(WAIT_MS)).publishOnNotification();
+
+        listener.stop();
+
+        verify(connection.connection, timeout(WAIT_MS)).close();
+        awaitThreadsStopped();
+        verify(dataSource, times(1)).getConnection();
+
+        // Nothing is left to take a wakeup
+        assertTrue(listener.signalWakeup());
+        verify(publisherService, after(200).times(1)).publishOnNotification();
+    }
+
+    private static void awaitThreadsStopped() throws InterruptedException {
+        awaitTrue(() -> Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().startsWith("outbox-notify-")));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within " + WAIT_MS + "ms");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * A LISTEN connection. {@code getNotifications} blocks up to its timeout for the next queued
+     * batch; once dropped it fails the way the driver does on a broken socket, and once invalidated
+     * {@code isValid} reports false.
+     */
+    private static final class StubConnection {
+        private static final PGNotification[] DROPPED = new PGNotification[0];
+
+        private final Connection connection = mock(Connection.class);
+        private final Statement statement = mock(Statement.class);
+        private final PGConnection pgConnection = mock(PGConnection.class);
+        private final BlockingQueue<PGNotification[]> batches = new LinkedBlockingQueue<>();
+        private final AtomicInteger polls = new AtomicInteger();
+        private volatile boolean valid = true;
+
+        private StubConnection() throws SQLException {
+            when(connection.createStatement()).thenReturn(statement);
+            when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+            when(connection.isValid(anyInt())).thenAnswer(invocation -> valid);
+            when(pgConnection.getNotifications(anyInt())).thenAnswer(invocation -> {
+                polls.incrementAndGet();
+                PGNotification[] batch;
+                try {
+                    batch = batches.poll(invocation.<Integer>getArgument(0), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for notifications", e);
+                }
+                if (batch == DROPPED) {
+                    throw new SQLException("An I/O error occurred while sending to the backend.");
+                }
+                return batch;
+            });
+        }
+
+        void deliver(int count) {
+            PGNotification[] batch = new PGNotification[count];
+            for (int i = 0; i < count; i++) {
+                batch[i] = mock(PGNotification.class);
+            }
+            batches.add(batch);
+        }
+
+        void drop() {
+            batches.add(DROPPED);
+        }
+
+        void invalidate() {
+            valid = false;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.anthem.pagw.outbox.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxPartitionLeaseManager, against an in-memory lease table that applies the
+ * manager's statements with a controllable database clock.
+ */
+class OutboxPartitionLeaseManagerTest {
+
+    private static final int COUNT = 4;
+    private static final long LEASE_MS = 30_000;
+    private static final long HEARTBEAT_MS = 5_000;
+
+    private JdbcTemplate jdbcTemplate;
+    private PagwProperties properties;
+
+    /** pagw.outbox_partition_lease rows by partition_no. */
+    private final Map<Integer, Lease> leases = new TreeMap<>();
+    private long now = 1_000_000;
+    private int liveNodes = 1;
+
+    private static final class Lease {
+        private String owner;
+        private Long leaseUntil;
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        properties = new PagwProperties();
+        PagwProperties.Partitioning partitioning = properties.getOutbox().getPartitioning();
+        partitioning.setEnabled(true);
+        partitioning.setCount(COUNT);
+        partitioning.setLeaseDurationMs(LEASE_MS);
+        partitioning.setHeartbeatIntervalMs(HEARTBEAT_MS);
+
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> update(
+                invocation.getArgument(0), invocation.getArguments()));
+        when(jdbcTemplate.queryForObject(contains("COUNT(*)"), eq(Integer.class), any(Object[].class)))
+                .thenAnswer(invocation -> liveNodes);
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class))).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            return sql.contains("FOR UPDATE SKIP LOCKED")
+                    ? claim(invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4), invocation.getArgument(5))
+                    : renew(invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4));
+        });
+    }
+
+    @Test
+    void heartbeat_shouldRenewOwnLeasesAndClaimUpToFairShare() {
+        OutboxPartitionLeaseManager manager = new OutboxPartitionLeaseManager(jdbcTemplate, properties);
+        liveNodes = 2;
+        manager.heartbeat();
+
+        // Fair share is ceil(4 / 2) = 2: the lowest free partitions
+        assertEquals(List.of(0, 1), manager.getOwnedPartitions());
+
+        // Partition 1's lease lapsed (e.g. a long GC pause) and another pod took it over
+        now += 1_000;
+        leases.get(1).owner = "other-pod";
+        leases.get(1).leaseUntil = now + LEASE_MS;
+        manager.heartbeat();
+
+        // Partition 0 is renewed; 1 is lost to the other pod, so one more free partition is claimed
+        assertEquals(List.of(0, 2), manager.getOwnedPartitions());
+        assertEquals(now + LEASE_MS, leases.get(0).leaseUntil);
+        assertEquals(manager.getNodeId(), leases.get(2).owner);
+        assertNull(leases.get(3).owner);
+    }
+
+    @Test
+    void heartbeat_shouldReleaseExtrasAfterANodeJoins() {
+        OutboxPartitionLeaseManager manager = new OutboxPartitionLeaseManager(jdbcTemplate, properties);
+        manager.heartbeat();
+        assertEquals(List.of(0, 1, 2, 3), manager.getOwnedPartitions());
+
+        // A second pod starts heartbeating
+        liveNodes = 2;
+        now += HEARTBEAT_MS;
+        manager.heartbeat();
+
+        assertEquals(List.of(0, 1), manager.getOwnedPartitions());
+        for (int partition : List.of(2, 3)) {
+            assertNull(leases.get(partition).owner);
+            assertEquals(now + HEARTBEAT_MS, leases.get(partition).leaseUntil);
+        }
+    }
+
+    @Test
+    void heartbeat_shouldNotClaimReleasedPartitionsDuringGrace() {
+        OutboxPartitionLeaseManager first = new OutboxPartitionLeaseManager(jdbcTemplate, properties);
+        OutboxPartitionLeaseManager second = new OutboxPartitionLeaseManager(jdbcTemplate, properties);
+        first.heartbeat();
+        liveNodes = 2;
+        now += HEARTBEAT_MS;
+        first.heartbeat();
+
+        // Within the grace the old owner may still be finishing a batch for 2 and 3
+        now += HEARTBEAT_MS - 1;
+        second.heartbeat();
+        assertEquals(List.of(), second.getOwnedPartitions());
+
+        now += 2;
+        second.heartbeat();
+        assertEquals(List.of(2, 3), second.getOwnedPartitions());
+        assertEquals(second.getNodeId(), leases.get(2).owner);
+    }
+
+    @Test
+    void heartbeat_shouldDropAllPartitionsWhenItFails() {
+        OutboxPartitionLeaseManager manager = new OutboxPartitionLeaseManager(jdbcTemplate, properties);
+        manager.heartbeat();
+        assertFalse(manager.getOwnedPartitions().isEmpty());
+
+        when(jdbcTemplate.queryForObject(contains("COUNT(*)"), eq(Integer.class), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+        manager.heartbeat();
+
+        assertEquals(List.of(), manager.getOwnedPartitions());
+    }
+
+    @Test
+    void heartbeat_shouldDoNothingWhenPartitioningIsDisabled() {
+        properties.getOutbox().getPartitioning().setEnabled(false);
+        OutboxPartitionLeaseManager manager = new OutboxPartitionLeaseManager(jdbcTemplate, properties);
+
+        manager.heartbeat();
+
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(List.of(), manager.getOwnedPartitions());
+    }
+
+    private int update(String sql, Object[] invocationArgs) {
+        if (sql.contains("INSERT INTO pagw.outbox_partition_lease")) {
+            int count = (Integer) invocationArgs[1];
+            for (int partition = 0; partition < count; partition++) {
+                leases.computeIfAbsent(partition, p -> new Lease());
+            }
+        } else if (sql.contains("SET owner_id = NULL, lease_until = NOW() + ")) {
+            long graceMs = (Long) invocationArgs[1];
+            Lease lease = leases.get((Integer) invocationArgs[2]);
+            if (invocationArgs[3].equals(lease.owner)) {
+                lease.owner = null;
+                lease.leaseUntil = now + graceMs;
+                return 1;
+            }
+            return 0;
+        }
+        // Node registration and pruning: liveNodes is set by the tests
+        return 1;
+    }
+
+    private List<Integer> renew(long leaseMs, String nodeId, int count) {
+        List<Integer> renewed = new ArrayList<>();
+        leases.forEach((partition, lease) -> {
+            if (nodeId.equals(lease.owner) && partition < count && lease.leaseUntil > now) {
+                lease.leaseUntil = now + leaseMs;
+                renewed.add(partition);
+            }
+        });
+        return renewed;
+    }
+
+    private List<Integer> claim(String nodeId, long leaseMs, int count, int wanted) {
+        List<Integer> claimed = new ArrayList<>();
+        leases.forEach((partition, lease) -> {
+            if (claimed.size() < wanted && partition < count
+                    && (lease.leaseUntil == null || lease.leaseUntil < now)) {
+                lease.owner = nodeId;
+                lease.leaseUntil = now + leaseMs;
+                claimed.add(partition);
+            }
+        });
+        return claimed;
+    }
+}
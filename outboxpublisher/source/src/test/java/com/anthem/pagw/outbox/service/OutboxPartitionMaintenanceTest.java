@@ -0,0 +1,125 @@
+package com.anthem.pagw.outbox.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxPartitionMaintenance.
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboxPartitionMaintenanceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void isExpired_shouldUseEndOfDailyPartition() {
+        LocalDate cutoff = LocalDate.of(2025, 12, 20);
+
+        assertTrue(OutboxPartitionMaintenance.isExpired("outbox_p20251218", cutoff));
+        assertTrue(OutboxPartitionMaintenance.isExpired("outbox_p20251219", cutoff));
+        assertFalse(OutboxPartitionMaintenance.isExpired("outbox_p20251220", cutoff));
+        assertFalse(OutboxPartitionMaintenance.isExpired("outbox_p20251225", cutoff));
+    }
+
+    @Test
+    void isExpired_shouldHandleCatchUpPartitionAndIgnoreUnknownNames() {
+        LocalDate cutoff = LocalDate.of(2025, 12, 20);
+
+        assertTrue(OutboxPartitionMaintenance.isExpired("outbox_p_before_20251215", cutoff));
+        assertFalse(OutboxPartitionMaintenance.isExpired("outbox_p_before_20251221", cutoff));
+        assertFalse(OutboxPartitionMaintenance.isExpired("outbox_archive", cutoff));
+        assertFalse(OutboxPartitionMaintenance.isExpired("outbox_p_default", cutoff));
+    }
+
+    @Test
+    void maintainPartitions_shouldDoNothingWhenDisabled() {
+        PagwProperties properties = new PagwProperties();
+        properties.getOutbox().getRetention().setEnabled(false);
+        OutboxPartitionMaintenance maintenance = maintenance(properties);
+
+        maintenance.maintainPartitions();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void maintainPartitions_shouldPremakePartitionsAndReportDefaultPartitionRows() {
+        PagwProperties properties = new PagwProperties();
+        properties.getOutbox().getRetention().setPremakeDays(3);
+        stubPartitions(3, 2L, List.of("outbox_p_default", "outbox_p" + today()));
+
+        maintenance(properties).maintainPartitions();
+
+        verify(jdbcTemplate).queryForObject("SELECT pagw.ensure_outbox_partitions(?)", Integer.class, 3);
+        assertEquals(2.0, meterRegistry.get("pagw.outbox.partition.default.rows").gauge().value());
+        verify(jdbcTemplate, never()).execute(contains("DETACH"));
+    }
+
+    @Test
+    void maintainPartitions_shouldKeepExpiredPartitionWithUnfinishedRows() {
+        PagwProperties properties = new PagwProperties();
+        stubPartitions(7, 0L, List.of("outbox_p20200101", "outbox_p" + today()));
+        when(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pagw.outbox_p20200101 WHERE status <> 'COMPLETED')", Boolean.class))
+                .thenReturn(true);
+
+        maintenance(properties).maintainPartitions();
+
+        verify(jdbcTemplate, never()).execute(contains("DETACH"));
+        verify(jdbcTemplate, never()).execute(contains("DROP"));
+        assertEquals(0.0, meterRegistry.get("pagw.outbox.partition.default.rows").gauge().value());
+    }
+
+    @Test
+    void maintainPartitions_shouldDetachAndDropExpiredPartitionOnceCompleted() {
+        PagwProperties properties = new PagwProperties();
+        stubPartitions(7, 0L, List.of("outbox_p20200101", "outbox_p" + today()));
+        when(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pagw.outbox_p20200101 WHERE status <> 'COMPLETED')", Boolean.class))
+                .thenReturn(false);
+
+        maintenance(properties).maintainPartitions();
+
+        verify(jdbcTemplate).execute("ALTER TABLE pagw.outbox DETACH PARTITION pagw.outbox_p20200101");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS pagw.outbox_p20200101");
+        verify(jdbcTemplate, never()).execute(contains("outbox_p" + today()));
+    }
+
+    private OutboxPartitionMaintenance maintenance(PagwProperties properties) {
+        return new OutboxPartitionMaintenance(jdbcTemplate, properties, transactionManager,
+                new OutboxPublisherMetrics(meterRegistry));
+    }
+
+    private void stubPartitions(int premakeDays, long defaultRows, List<String> partitions) {
+        when(jdbcTemplate.queryForObject("SELECT pagw.ensure_outbox_partitions(?)", Integer.class, premakeDays))
+                .thenReturn(0);
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pagw.outbox_p_default", Long.class))
+                .thenReturn(defaultRows);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class))).thenReturn(partitions);
+    }
+
+    private static String today() {
+        return LocalDate.now(ZoneOffset.UTC).format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+}
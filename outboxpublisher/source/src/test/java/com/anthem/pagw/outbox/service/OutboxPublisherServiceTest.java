@@ -6,15 +6,31 @@ import com.anthem.pagw.core.model.PagwMessage;
 import com.anthem.pagw.core.service.EventTrackerService;
 import com.anthem.pagw.core.service.OutboxService;
 import com.anthem.pagw.core.service.SqsService;
+import com.anthem.pagw.core.util.JsonUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -39,12 +55,22 @@ class OutboxPublisherServiceTest {
     @Mock
     private PagwProperties properties;
 
+    @Mock
+    private OutboxPartitionLeaseManager leaseManager;
+
+    @Mock
+    private LockProvider lockProvider;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private OutboxPublisherService publisherService;
 
     @BeforeEach
     void setUp() {
         // Setup basic mocking structure
-        publisherService = new OutboxPublisherService(outboxService, sqsService, eventTrackerService, properties);
+        meterRegistry = new SimpleMeterRegistry();
+        publisherService = new OutboxPublisherService(outboxService, sqsService, eventTrackerService, properties,
+                leaseManager, lockProvider, new OutboxPublisherMetrics(meterRegistry));
     }
 
     @Test
@@ -52,19 +78,467 @@ class OutboxPublisherServiceTest {
         // Given
         when(properties.getOutbox()).thenReturn(mock(PagwProperties.Outbox.class));
         when(properties.getOutbox().getBatchSize()).thenReturn(50);
-        when(outboxService.fetchUnpublished(50)).thenReturn(Collections.emptyList());
+        when(outboxService.claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), anyLong())).thenReturn(Collections.emptyList());
 
         // When & Then - Should not throw exception
         assertDoesNotThrow(() -> publisherService.publishOutboxEntries());
         verify(sqsService, never()).sendMessage(anyString(), any());
     }
 
+    @Test
+    void publishOutboxEntries_shouldSkipWhenPartitioned() {
+        // Given
+        PagwProperties.Outbox outbox = mock(PagwProperties.Outbox.class);
+        when(properties.getOutbox()).thenReturn(outbox);
+        when(outbox.isPartitioned()).thenReturn(true);
+
+        // When
+        publisherService.publishOutboxEntries();
+
+        // Then - global ShedLock path must not fetch in partitioned mode
+        verify(outboxService, never()).claimUnpublished(anyInt(), anyInt(), anyInt(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void publishPartitionedOutboxEntries_shouldSkipWhenNotPartitioned() {
+        // Given
+        when(properties.getOutbox()).thenReturn(mock(PagwProperties.Outbox.class));
+
+        // When
+        publisherService.publishPartitionedOutboxEntries();
+
+        // Then
+        verifyNoInteractions(leaseManager);
+        verify(outboxService, never()).claimUnpublished(anyInt(), anyInt(), anyList(), anyString(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void publishPartitionedOutboxEntries_shouldSkipWhenNoPartitionsLeased() {
+        // Given
+        PagwProperties.Outbox outbox = mock(PagwProperties.Outbox.class);
+        when(properties.getOutbox()).thenReturn(outbox);
+        when(outbox.isPartitioned()).thenReturn(true);
+        when(leaseManager.getOwnedPartitions()).thenReturn(Collections.emptyList());
+
+        // When
+        publisherService.publishPartitionedOutboxEntries();
+
+        // Then
+        verify(outboxService, never()).claimUnpublished(anyInt(), anyInt(), anyList(), anyString(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void publishPartitionedOutboxEntries_shouldFetchOnlyLeasedPartitions() {
+        // Given
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.getPartitioning().setEnabled(true);
+        outbox.getPartitioning().setCount(8);
+        outbox.setBatchSize(50);
+        outbox.setPublishWorkers(1);
+        when(properties.getOutbox()).thenReturn(outbox);
+        when(leaseManager.getOwnedPartitions()).thenReturn(List.of(1, 5));
+        when(leaseManager.getNodeId()).thenReturn("pod-a");
+        when(outboxService.claimUnpublished(50, 8, List.of(1, 5), "pod-a", "pod-a/w0", outbox.getClaimTtlMs(), 0L))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        publisherService.publishPartitionedOutboxEntries();
+
+        // Then
+        verify(outboxService).claimUnpublished(50, 8, List.of(1, 5), "pod-a", "pod-a/w0", outbox.getClaimTtlMs(), 0L);
+        verifyNoInteractions(sqsService);
+    }
+
+    @Test
+    void publishOutboxEntries_shouldBatchPerQueueAndRetryOnlyFailedEntries() {
+        // Given
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.setBatchSize(50);
+        outbox.setPublishWorkers(1);
+        when(properties.getOutbox()).thenReturn(outbox);
+
+        String queueUrl = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-business-validator.fifo";
+        OutboxEntry ok = entry("PAGW-1", queueUrl);
+        OutboxEntry bad = entry("PAGW-2", queueUrl);
+        when(outboxService.claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), anyLong())).thenReturn(List.of(ok, bad));
+        when(sqsService.sendRawMessageBatchAsync(eq(queueUrl), anyMap())).thenReturn(CompletableFuture.completedFuture(
+                new SqsService.BatchSendResult(
+                        List.of(ok.getId().toString()),
+                        Map.of(bad.getId().toString(), "InternalError: boom"))));
+
+        // When
+        publisherService.publishOutboxEntries();
+
+        // Then
+        verify(sqsService, never()).sendMessage(anyString(), any());
+        verify(sqsService, times(1)).sendRawMessageBatchAsync(eq(queueUrl), anyMap());
+        verify(outboxService).markCompleted(List.of(ok));
+        verify(outboxService).scheduleRetry(eq(bad), eq("InternalError: boom"), anyLong());
+        verify(outboxService, never()).scheduleRetry(eq(ok), anyString(), anyLong());
+        verify(outboxService, never()).parkEntry(any(OutboxEntry.class), any());
+    }
+
+    @Test
+    void publishOutboxEntries_shouldSplitIntoSendBatchesWithinInFlightWindow() {
+        // Given - 25 entries for one queue, window of 2 concurrent calls
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.setBatchSize(50);
+        outbox.setPublishWorkers(1);
+        outbox.setMaxInFlight(2);
+        when(properties.getOutbox()).thenReturn(outbox);
+
+        String queueUrl = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-request-parser.fifo";
+        List<OutboxEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            entries.add(entry("PAGW-" + i, queueUrl));
+        }
+        when(outboxService.claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), anyLong())).thenReturn(entries);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+        List<CompletableFuture<SqsService.BatchSendResult>> pending = new ArrayList<>();
+        when(sqsService.sendRawMessageBatchAsync(eq(queueUrl), anyMap())).thenAnswer(invocation -> {
+            Map<String, SqsService.RawMessage> messages = invocation.getArgument(1);
+            maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<SqsService.BatchSendResult> future = new CompletableFuture<>();
+            pending.add(future);
+            // Complete the oldest call once the window is full, as the SDK would
+            if (pending.size() >= 2 || messages.size() < 10) {
+                for (CompletableFuture<SqsService.BatchSendResult> f : pending) {
+                    inFlight.decrementAndGet();
+                    f.complete(new SqsService.BatchSendResult(List.of(), Map.of()));
+                }
+                pending.clear();
+            }
+            return future.thenApply(r -> new SqsService.BatchSendResult(new ArrayList<>(messages.keySet()), Map.of()));
+        });
+
+        // When
+        publisherService.publishOutboxEntries();
+
+        // Then - 10 + 10 + 5, never more than 2 outstanding
+        verify(sqsService, times(3)).sendRawMessageBatchAsync(eq(queueUrl), anyMap());
+        assertTrue(maxObserved.get() <= 2);
+        verify(outboxService, times(3)).markCompleted(anyList());
+    }
+
+    @Test
+    void publishOutboxEntries_shouldKeepSendBatchesUnderByteLimit() {
+        // Given - 5 entries of ~100 KiB: fit the count limit, not the 256 KiB limit
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.setBatchSize(50);
+        outbox.setPublishWorkers(1);
+        when(properties.getOutbox()).thenReturn(outbox);
+
+        String queueUrl = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-request-parser.fifo";
+        List<OutboxEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OutboxEntry entry = entry("PAGW-" + i, queueUrl);
+            entry.setPayload("{\"data\":\"" + "x".repeat(100 * 1024) + "\"}");
+            entries.add(entry);
+        }
+        when(outboxService.claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), anyLong())).thenReturn(entries);
+
+        List<Integer> batchBytes = new ArrayList<>();
+        when(sqsService.sendRawMessageBatchAsync(eq(queueUrl), anyMap())).thenAnswer(invocation -> {
+            Map<String, SqsService.RawMessage> messages = invocation.getArgument(1);
+            batchBytes.add(messages.values().stream().mapToInt(m -> m.body().length()).sum());
+            return CompletableFuture.completedFuture(
+                    new SqsService.BatchSendResult(new ArrayList<>(messages.keySet()), Map.of()));
+        });
+
+        // When
+        publisherService.publishOutboxEntries();
+
+        // Then - 2 + 2 + 1
+        assertEquals(3, batchBytes.size());
+        batchBytes.forEach(bytes -> assertTrue(bytes <= SqsService.MAX_BATCH_BYTES));
+        verify(outboxService, times(3)).markCompleted(anyList());
+    }
+
+    @Test
+    void publishOutboxEntries_shouldRunConcurrentWorkersWithDistinctClaimOwners() {
+        // Given
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.setBatchSize(50);
+        outbox.setPublishWorkers(3);
+        when(properties.getOutbox()).thenReturn(outbox);
+        when(leaseManager.getNodeId()).thenReturn("pod-a");
+        when(outboxService.claimUnpublished(eq(50), eq(3), anyInt(), anyString(), eq(outbox.getClaimTtlMs()), anyLong()))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        publisherService.publishOutboxEntries();
+
+        // Then
+        verify(outboxService).claimUnpublished(50, 3, 0, "pod-a/w0", outbox.getClaimTtlMs(), 0L);
+        verify(outboxService).claimUnpublished(50, 3, 1, "pod-a/w1", outbox.getClaimTtlMs(), 0L);
+        verify(outboxService).claimUnpublished(50, 3, 2, "pod-a/w2", outbox.getClaimTtlMs(), 0L);
+    }
+
+    @Test
+    void publishOutboxEntries_shouldKeepPerPagwIdOrderAcrossConcurrentWorkers() {
+        // Given - 8 pagwIds x 12 entries, interleaved; 4 workers, 8 calls in flight, SQS completing out of order
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.setBatchSize(30);
+        outbox.setPublishWorkers(4);
+        outbox.setMaxInFlight(8);
+        when(properties.getOutbox()).thenReturn(outbox);
+        when(leaseManager.getNodeId()).thenReturn("pod-a");
+
+        String queueUrl = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-request-parser.fifo";
+        List<OutboxEntry> pending = new ArrayList<>();
+        for (int seq = 0; seq < 12; seq++) {
+            for (int p = 0; p < 8; p++) {
+                OutboxEntry entry = entry("PAGW-" + p, queueUrl);
+                entry.setMessageId("PAGW-" + p + "-" + seq);
+                pending.add(entry);
+            }
+        }
+
+        // Fake claim: oldest PENDING rows of the worker's hash bucket, as the claim statement selects them
+        Map<String, Set<String>> claimOwners = new ConcurrentHashMap<>();
+        when(outboxService.claimUnpublished(anyInt(), anyInt(), anyInt(), anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> {
+                    int limit = invocation.getArgument(0);
+                    int buckets = invocation.getArgument(1);
+                    int bucket = invocation.getArgument(2);
+                    String claimedBy = invocation.getArgument(3);
+                    List<OutboxEntry> claimed = new ArrayList<>();
+                    synchronized (pending) {
+                        Iterator<OutboxEntry> it = pending.iterator();
+                        while (it.hasNext() && claimed.size() < limit) {
+                            OutboxEntry entry = it.next();
+                            if (Math.floorMod(entry.getAggregateId().hashCode(), buckets) == bucket) {
+                                it.remove();
+                                claimed.add(entry);
+                                claimOwners.computeIfAbsent(entry.getPagwId(), k -> ConcurrentHashMap.newKeySet()).add(claimedBy);
+                            }
+                        }
+                    }
+                    return claimed;
+                });
+
+        // Fake SQS: each batch call is applied after a random delay, in whatever order the calls finish
+        ExecutorService sqs = Executors.newFixedThreadPool(8);
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        when(sqsService.sendRawMessageBatchAsync(eq(queueUrl), anyMap())).thenAnswer(invocation -> {
+            Map<String, SqsService.RawMessage> messages = invocation.getArgument(1);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                messages.values().forEach(m -> received.computeIfAbsent(m.messageGroupId(),
+                        k -> Collections.synchronizedList(new ArrayList<>())).add(m.deduplicationId()));
+                return new SqsService.BatchSendResult(new ArrayList<>(messages.keySet()), Map.of());
+            }, sqs);
+        });
+
+        // When
+        try {
+            publisherService.publishOutboxEntries();
+        } finally {
+            sqs.shutdown();
+        }
+
+        // Then - each pagwId went through one worker and reached SQS in creation order
+        assertEquals(8, received.size());
+        for (int p = 0; p < 8; p++) {
+            String pagwId = "PAGW-" + p;
+            assertEquals(1, claimOwners.get(pagwId).size(), pagwId + " claimed by " + claimOwners.get(pagwId));
+            List<String> expected = new ArrayList<>();
+            for (int seq = 0; seq < 12; seq++) {
+                expected.add(pagwId + "-" + seq);
+            }
+            assertEquals(expected, received.get(pagwId));
+        }
+    }
+
+    @Test
+    void publishOutboxEntries_shouldParkEntryOnLastAllowedAttempt() {
+        // Given
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.setBatchSize(50);
+        outbox.setPublishWorkers(1);
+        outbox.setMaxRetries(3);
+        when(properties.getOutbox()).thenReturn(outbox);
+
+        String queueUrl = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-business-validator.fifo";
+        OutboxEntry poison = entry("PAGW-9", queueUrl);
+        poison.setRetryCount(2);
+        when(outboxService.claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), anyLong())).thenReturn(List.of(poison));
+        when(sqsService.sendRawMessageBatchAsync(eq(queueUrl), anyMap())).thenReturn(CompletableFuture.completedFuture(
+                new SqsService.BatchSendResult(List.of(), Map.of(poison.getId().toString(), "InvalidMessageContents: bad"))));
+
+        // When
+        publisherService.publishOutboxEntries();
+
+        // Then
+        verify(outboxService).parkEntry(poison, "InvalidMessageContents: bad");
+        verify(outboxService, never()).scheduleRetry(any(OutboxEntry.class), anyString(), anyLong());
+        verify(eventTrackerService).logStageError("PAGW-9", "elevance", "OUTBOX_PUBLISHER", "PUBLISH_FAIL",
+                "RETRIES_EXHAUSTED", "InvalidMessageContents: bad", false, null);
+    }
+
+    @Test
+    void publishDueRetries_shouldClaimWithinRateLimitAndSendSeparately() {
+        // Given - 2/s over a 5s interval caps the retry batch at 10
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.getRetry().setBatchSize(20);
+        outbox.getRetry().setMaxPerSecond(2);
+        outbox.getRetry().setPollIntervalMs(5000);
+        when(properties.getOutbox()).thenReturn(outbox);
+        when(leaseManager.getNodeId()).thenReturn("pod-a");
+
+        String queueUrl = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-business-validator.fifo";
+        OutboxEntry retried = entry("PAGW-3", queueUrl);
+        retried.setRetryCount(1);
+        when(outboxService.claimDueRetries(10, "pod-a/retry", outbox.getClaimTtlMs())).thenReturn(List.of(retried));
+        when(sqsService.sendRawMessageBatchAsync(eq(queueUrl), anyMap())).thenReturn(CompletableFuture.completedFuture(
+                new SqsService.BatchSendResult(List.of(retried.getId().toString()), Map.of())));
+
+        // When
+        publisherService.publishDueRetries();
+
+        // Then
+        verify(outboxService).markCompleted(List.of(retried));
+        verify(outboxService, never()).claimUnpublished(anyInt(), anyInt(), anyInt(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void publishDueRetries_shouldDoNothingWhenDisabled() {
+        // Given
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.getRetry().setEnabled(false);
+        when(properties.getOutbox()).thenReturn(outbox);
+
+        // When
+        publisherService.publishDueRetries();
+
+        // Then
+        verifyNoInteractions(outboxService, sqsService);
+    }
+
+    @Test
+    void requeueExpiredClaims_shouldDelegateAndSwallowErrors() {
+        // Given
+        when(outboxService.requeueExpiredClaims()).thenThrow(new RuntimeException("db down"));
+
+        // When & Then
+        assertDoesNotThrow(() -> publisherService.requeueExpiredClaims());
+        verify(outboxService).requeueExpiredClaims();
+    }
+
+    @Test
+    void publishOutboxEntries_shouldForwardStoredPayloadWithColumnRouting() {
+        // Given - payload is forwarded as stored, routing comes from the columns
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.setBatchSize(50);
+        outbox.setPublishWorkers(1);
+        when(properties.getOutbox()).thenReturn(outbox);
+
+        String queueUrl = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-request-enricher.fifo";
+        OutboxEntry entry = entry("PAGW-7", queueUrl);
+        entry.setPayload("{\"pagwId\": \"PAGW-7\", \"stage\": \"REQUEST_ENRICHER\", \"custom\": [1, 2]}");
+        when(outboxService.claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), anyLong())).thenReturn(List.of(entry));
+        when(sqsService.sendRawMessageBatchAsync(eq(queueUrl), anyMap())).thenReturn(CompletableFuture.completedFuture(
+                new SqsService.BatchSendResult(List.of(entry.getId().toString()), Map.of())));
+
+        // When
+        publisherService.publishOutboxEntries();
+
+        // Then
+        verify(sqsService).sendRawMessageBatchAsync(queueUrl, Map.of(entry.getId().toString(),
+                new SqsService.RawMessage(entry.getPayload(), "PAGW-7", entry.getMessageId())));
+        verify(eventTrackerService).logStageStart("PAGW-7", "elevance", "OUTBOX_PUBLISHER", "PUBLISH_START", null);
+    }
+
+    @Test
+    void publishOutboxEntries_shouldParseLegacyEntriesWithoutMessageColumns() {
+        // Given - entry written before V005, no pagw_id/message_id columns
+        PagwProperties.Outbox outbox = new PagwProperties.Outbox();
+        outbox.setBatchSize(50);
+        outbox.setPublishWorkers(1);
+        when(properties.getOutbox()).thenReturn(outbox);
+
+        String queueUrl = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-request-enricher.fifo";
+        PagwMessage message = PagwMessage.builder()
+                .messageId("msg-1")
+                .pagwId("PAGW-8")
+                .tenant("carelon")
+                .build();
+        OutboxEntry legacy = OutboxEntry.create("PagwMessage", "PAGW-8", "REQUEST_ENRICHER",
+                JsonUtils.toJson(message), queueUrl);
+        when(outboxService.claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), anyLong())).thenReturn(List.of(legacy));
+        when(sqsService.sendRawMessageBatchAsync(eq(queueUrl), anyMap())).thenReturn(CompletableFuture.completedFuture(
+                new SqsService.BatchSendResult(List.of(legacy.getId().toString()), Map.of())));
+
+        // When
+        publisherService.publishOutboxEntries();
+
+        // Then
+        verify(sqsService).sendRawMessageBatchAsync(queueUrl, Map.of(legacy.getId().toString(),
+                new SqsService.RawMessage(legacy.getPayload(), "PAGW-8", "msg-1")));
+        verify(eventTrackerService).logStageStart("PAGW-8", "carelon", "OUTBOX_PUBLISHER", "PUBLISH_START", null);
+    }
+
+    private OutboxEntry entry(String pagwId, String destinationQueue) {
+        PagwMessage message = PagwMessage.builder()
+                .messageId(UUID.randomUUID().toString())
+                .pagwId(pagwId)
+                .tenant("elevance")
+                .stage("BUSINESS_VALIDATOR")
+                .build();
+        OutboxEntry entry = OutboxEntry.create("PagwMessage", pagwId, "BUSINESS_VALIDATOR",
+                JsonUtils.toJson(message), destinationQueue);
+        entry.setTenant(message.getTenant());
+        entry.setPagwId(pagwId);
+        entry.setMessageId(message.getMessageId());
+        entry.setMessageGroupId(pagwId);
+        return entry;
+    }
+
+    @Test
+    void publishOnNotification_shouldReturnFalseWhenLockHeldElsewhere() {
+        // Given
+        when(properties.getOutbox()).thenReturn(mock(PagwProperties.Outbox.class));
+        when(lockProvider.lock(any(LockConfiguration.class))).thenReturn(Optional.empty());
+
+        // When
+        boolean ran = publisherService.publishOnNotification();
+
+        // Then - caller retries shortly, nothing fetched
+        assertFalse(ran);
+        verify(outboxService, never()).claimUnpublished(anyInt(), anyInt(), anyInt(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void publishOnNotification_shouldRunCycleUnderLockAndCountNotifyWakeup() {
+        // Given
+        when(properties.getOutbox()).thenReturn(mock(PagwProperties.Outbox.class));
+        when(properties.getOutbox().getBatchSize()).thenReturn(50);
+        when(lockProvider.lock(any(LockConfiguration.class))).thenReturn(Optional.of(mock(SimpleLock.class)));
+        when(outboxService.claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), eq(0L))).thenReturn(Collections.emptyList());
+
+        // When
+        boolean ran = publisherService.publishOnNotification();
+
+        // Then - rows the notification announced are claimed without waiting out the sweep grace
+        assertTrue(ran);
+        verify(outboxService).claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), eq(0L));
+        verify(outboxService, never()).getSweepGraceMs();
+        assertEquals(1.0, meterRegistry.counter("pagw.outbox.wakeups", "trigger", "notify").count());
+        assertEquals(0.0, meterRegistry.counter("pagw.outbox.wakeups", "trigger", "poll").count());
+    }
+
     @Test
     void publishNow_shouldHandleEmptyOutbox() {
         // Given
         when(properties.getOutbox()).thenReturn(mock(PagwProperties.Outbox.class));
         when(properties.getOutbox().getBatchSize()).thenReturn(50);
-        when(outboxService.fetchUnpublished(50)).thenReturn(Collections.emptyList());
+        when(outboxService.claimUnpublished(eq(50), anyInt(), anyInt(), anyString(), anyLong(), anyLong())).thenReturn(Collections.emptyList());
 
         // When
         OutboxPublisherService.PublishResult result = publisherService.publishNow();
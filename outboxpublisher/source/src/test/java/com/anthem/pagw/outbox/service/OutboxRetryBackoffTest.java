@@ -0,0 +1,50 @@
+package com.anthem.pagw.outbox.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OutboxRetryBackoff.
+ */
+class OutboxRetryBackoffTest {
+
+    @Test
+    void delayMs_shouldGrowExponentiallyWithinJitterBounds() {
+        PagwProperties.Retry retry = new PagwProperties.Retry();
+        retry.setInitialBackoffMs(1000);
+        retry.setMultiplier(2.0);
+        retry.setMaxBackoffMs(300000);
+
+        for (int i = 0; i < 100; i++) {
+            long first = OutboxRetryBackoff.delayMs(retry, 1);
+            long third = OutboxRetryBackoff.delayMs(retry, 3);
+            assertTrue(first >= 500 && first <= 1000, "first=" + first);
+            assertTrue(third >= 2000 && third <= 4000, "third=" + third);
+        }
+    }
+
+    @Test
+    void delayMs_shouldBeCappedAtMaxBackoff() {
+        PagwProperties.Retry retry = new PagwProperties.Retry();
+        retry.setInitialBackoffMs(1000);
+        retry.setMaxBackoffMs(60000);
+
+        long delay = OutboxRetryBackoff.delayMs(retry, 50);
+
+        assertTrue(delay >= 30000 && delay <= 60000, "delay=" + delay);
+    }
+
+    @Test
+    void delayMs_shouldSpreadConcurrentFailures() {
+        PagwProperties.Retry retry = new PagwProperties.Retry();
+
+        long distinct = java.util.stream.IntStream.range(0, 50)
+                .mapToLong(i -> OutboxRetryBackoff.delayMs(retry, 4))
+                .distinct()
+                .count();
+
+        assertTrue(distinct > 1);
+    }
+}
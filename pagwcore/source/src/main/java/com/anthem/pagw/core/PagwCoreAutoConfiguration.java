@@ -1,6 +1,22 @@
 package com.anthem.pagw.core;
 
+import com.anthem.pagw.core.cache.ArtifactCache;
+import com.anthem.pagw.core.cache.EncryptedArtifactCache;
+import com.anthem.pagw.core.cache.LocalArtifactCache;
+import com.anthem.pagw.core.cache.RedisArtifactCache;
+import com.anthem.pagw.core.cache.TieredArtifactCache;
+import com.anthem.pagw.core.service.AuditSpoolWriter;
+import com.anthem.pagw.core.service.EventTrackerWriter;
 import com.anthem.pagw.core.service.IdempotencyService;
+import com.anthem.pagw.core.service.IdempotencyStore;
+import com.anthem.pagw.core.service.InMemoryIdempotencyStore;
+import com.anthem.pagw.core.service.PostgresIdempotencyStore;
+import com.anthem.pagw.core.service.SecretsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -8,26 +24,35 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.kms.KmsClient;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+
 /**
  * Auto-configuration for PAGW Core components.
  * Automatically configures AWS clients and core services.
  * 
  * AWS client beans use @ConditionalOnMissingBean to allow applications
  * to define their own clients (e.g., for LocalStack in local development).
+ * Runs after Spring Cloud AWS so its SqsAsyncClient (used by @SqsListener) is reused when present.
  */
-@AutoConfiguration
+@AutoConfiguration(afterName = "io.awspring.cloud.autoconfigure.sqs.SqsAutoConfiguration")
 @ComponentScan(basePackages = "com.anthem.pagw.core")
 @EnableConfigurationProperties(PagwProperties.class)
 public class PagwCoreAutoConfiguration {
 
+    private static final Logger log = LoggerFactory.getLogger(PagwCoreAutoConfiguration.class);
+
     @Bean
     @ConditionalOnMissingBean(SqsClient.class)
     @ConditionalOnProperty(prefix = "pagw.aws.sqs", name = "enabled", havingValue = "true", matchIfMissing = true)
@@ -38,6 +63,16 @@ public class PagwCoreAutoConfiguration {
                 .build();
     }
 
+    @Bean
+    @ConditionalOnMissingBean(SqsAsyncClient.class)
+    @ConditionalOnProperty(prefix = "pagw.aws.sqs", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public SqsAsyncClient sqsAsyncClient(PagwProperties properties) {
+        return SqsAsyncClient.builder()
+                .region(Region.of(properties.getAws().getRegion()))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .build();
+    }
+
     @Bean
     @ConditionalOnMissingBean(S3Client.class)
     @ConditionalOnProperty(prefix = "pagw.aws.s3", name = "enabled", havingValue = "true", matchIfMissing = true)
@@ -84,7 +119,88 @@ public class PagwCoreAutoConfiguration {
      */
     @Bean
     @ConditionalOnBean(DynamoDbClient.class)
-    public IdempotencyService idempotencyService(DynamoDbClient dynamoDbClient, PagwProperties properties) {
-        return new IdempotencyService(dynamoDbClient, properties);
+    @ConditionalOnProperty(prefix = "pagw.idempotency", name = "store", havingValue = "dynamodb", matchIfMissing = true)
+    public IdempotencyService idempotencyService(DynamoDbClient dynamoDbClient, PagwProperties properties,
+                                                 ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new IdempotencyService(dynamoDbClient, properties, meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Idempotency keys in Aurora, written in the caller's transaction (pagw.idempotency.store=postgres).
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pagw.idempotency", name = "store", havingValue = "postgres")
+    public IdempotencyStore postgresIdempotencyStore(JdbcTemplate jdbcTemplate, PagwProperties properties) {
+        return new PostgresIdempotencyStore(jdbcTemplate, properties);
+    }
+
+    /**
+     * Process-local idempotency keys for local runs (pagw.idempotency.store=memory).
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pagw.idempotency", name = "store", havingValue = "memory")
+    public IdempotencyStore inMemoryIdempotencyStore(PagwProperties properties) {
+        return new InMemoryIdempotencyStore(properties);
+    }
+
+    /**
+     * Buffered event_tracker writes (pagw.event-tracking.async-writes=true). Without this bean
+     * EventTrackerService and StageTransitionService insert events in the caller's transaction.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pagw.event-tracking", name = "async-writes", havingValue = "true")
+    public EventTrackerWriter eventTrackerWriter(JdbcTemplate jdbcTemplate, PagwProperties properties,
+                                                 ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new EventTrackerWriter(jdbcTemplate, properties, meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Local audit spool drained to audit_log in bulk (pagw.audit.spool=true). Without this bean
+     * AuditService inserts audit events in the caller's transaction.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pagw.audit", name = "spool", havingValue = "true")
+    public AuditSpoolWriter auditSpoolWriter(JdbcTemplate jdbcTemplate, PagwProperties properties,
+                                             ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new AuditSpoolWriter(jdbcTemplate, properties, meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Artifact cache in front of S3Service: NONE unless pagw.aws.s3.cache.enabled. The shared Redis
+     * tier is only added with an ElastiCache endpoint and an encryption key, so PHI never reaches
+     * Redis unencrypted.
+     */
+    @Bean
+    @ConditionalOnMissingBean(ArtifactCache.class)
+    public ArtifactCache artifactCache(PagwProperties properties, ObjectProvider<SecretsService> secretsServiceProvider) {
+        PagwProperties.S3Cache cache = properties.getAws().getS3().getCache();
+        if (!cache.isEnabled()) {
+            return ArtifactCache.NONE;
+        }
+        ArtifactCache local = new LocalArtifactCache(
+                cache.getLocalMaxBytes(), cache.getMaxEntryBytes(), cache.getLocalTtlSeconds() * 1000);
+
+        PagwProperties.Elasticache elasticache = properties.getAws().getElasticache();
+        if (elasticache.getEndpoint() == null || elasticache.getEndpoint().isBlank()) {
+            log.info("Artifact cache: in-process tier only (no ElastiCache endpoint)");
+            return local;
+        }
+        String keySecret = cache.getEncryptionKeySecretArn();
+        SecretsService secretsService = secretsServiceProvider.getIfAvailable();
+        if (keySecret == null || keySecret.isBlank() || secretsService == null) {
+            log.warn("Artifact cache: Redis tier disabled - encryption-key-secret-arn or SecretsService missing");
+            return local;
+        }
+
+        String authSecret = elasticache.getAuthSecretArn();
+        char[] password = authSecret == null || authSecret.isBlank()
+                ? null : secretsService.getSecret(authSecret).toCharArray();
+        ArtifactCache redis = new RedisArtifactCache(
+                elasticache.getEndpoint(), elasticache.getPort(), elasticache.isSslEnabled(), password,
+                Duration.ofMillis(cache.getRemoteTimeoutMs()),
+                cache.getMaxEntryBytes() + EncryptedArtifactCache.OVERHEAD, cache.getRemoteTtlSeconds() * 1000);
+        log.info("Artifact cache: in-process + Redis tier at {}:{}", elasticache.getEndpoint(), elasticache.getPort());
+        return new TieredArtifactCache(local, new EncryptedArtifactCache(redis,
+                () -> new SecretKeySpec(Base64.getDecoder().decode(secretsService.getSecret(keySecret).trim()), "AES")));
     }
 }
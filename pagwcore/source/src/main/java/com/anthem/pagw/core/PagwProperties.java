@@ -17,6 +17,9 @@ public class PagwProperties {
     private Queues queues = new Queues();
     private Encryption encryption = new Encryption();
     private Outbox outbox = new Outbox();
+    private Idempotency idempotency = new Idempotency();
+    private EventTracking eventTracking = new EventTracking();
+    private Audit audit = new Audit();
 
     @Data
     public static class Aws {
@@ -27,11 +30,40 @@ public class PagwProperties {
         private Secrets secrets = new Secrets();
         private DynamoDb dynamodb = new DynamoDb();
         private Kms kms = new Kms();
+        private Elasticache elasticache = new Elasticache();
     }
 
     @Data
     public static class Sqs {
         private boolean enabled = true;
+        private SqsBatching batching = new SqsBatching();
+        private ClaimCheck claimCheck = new ClaimCheck();
+    }
+
+    /**
+     * S3 claim-check for oversized {@link com.anthem.pagw.core.model.PagwMessage} bodies
+     * (see {@link com.anthem.pagw.core.service.PagwMessageCodec}).
+     */
+    @Data
+    public static class ClaimCheck {
+        private boolean enabled = true;
+        /** Serialized messages above this size (UTF-8 bytes) are spilled to S3. SQS limit: 262144. */
+        private int thresholdBytes = 200 * 1024;
+        /** Bucket for spilled bodies; defaults to pagw.aws.s3.request-bucket, then the message's payload bucket. */
+        private String bucket;
+    }
+
+    /**
+     * Client-side batching of {@link com.anthem.pagw.core.service.SqsAsyncService}.
+     * Calls to the same queue are merged into SendMessageBatch / DeleteMessageBatch requests.
+     */
+    @Data
+    public static class SqsBatching {
+        private boolean enabled = true;
+        /** Flush as soon as this many entries are buffered (SQS limit: 10). */
+        private int maxBatchSize = 10;
+        /** Flush a partial batch this long after its first entry was buffered. */
+        private long maxLingerMs = 20;
     }
 
     @Data
@@ -49,8 +81,86 @@ public class PagwProperties {
          * Example: crln-pagw-dev-logz-nogbd-nophi-useast2
          */
         private String auditBucket;
+        private S3Compression compression = new S3Compression();
+        private S3Cache cache = new S3Cache();
+        private S3Transfer transfer = new S3Transfer();
+        private StageArtifacts stageArtifacts = new StageArtifacts();
+    }
+
+    /**
+     * Opt-in compression of text artifacts written by {@link com.anthem.pagw.core.service.S3Service}.
+     * Reads detect the codec from object metadata, so existing uncompressed objects stay readable.
+     */
+    @Data
+    public static class S3Compression {
+        private Codec codec = Codec.NONE;
+        /** Bodies smaller than this are stored as-is (gzip overhead outweighs the saving). */
+        private int minBytes = 1024;
+
+        public enum Codec {
+            NONE,
+            GZIP
+        }
     }
     
+    /**
+     * Read-through / write-through cache in front of {@link com.anthem.pagw.core.service.S3Service}
+     * (see {@link com.anthem.pagw.core.cache.ArtifactCache}). The in-process tier is always used when
+     * enabled; the Redis tier is added when {@code pagw.aws.elasticache.endpoint} and
+     * {@code encryption-key-secret-arn} are set.
+     */
+    @Data
+    public static class S3Cache {
+        private boolean enabled = false;
+        /** Objects larger than this (uncompressed) are never cached. */
+        private int maxEntryBytes = 1024 * 1024;
+        /** Total size of the in-process tier. */
+        private long localMaxBytes = 64L * 1024 * 1024;
+        /** Short, because another pod may overwrite a key this pod still holds. */
+        private long localTtlSeconds = 60;
+        private long remoteTtlSeconds = 900;
+        /** Redis command timeout; a slow cache falls through to S3. */
+        private long remoteTimeoutMs = 100;
+        /** Secrets Manager secret holding the base64 AES-256 key for Redis entries. */
+        private String encryptionKeySecretArn;
+    }
+
+    /**
+     * Multipart uploads and ranged downloads in {@link com.anthem.pagw.core.service.S3Service}.
+     * Bodies at or above {@code multipartThresholdBytes} are uploaded in parallel parts; every
+     * download fetches the first {@code partSizeBytes} and the rest in parallel ranges.
+     */
+    @Data
+    public static class S3Transfer {
+        /** Bodies (after compression) of at least this size use multipart upload. */
+        private long multipartThresholdBytes = 16L * 1024 * 1024;
+        /** Part and range size; S3 requires at least 5 MB for every part but the last. */
+        private int partSizeBytes = 8 * 1024 * 1024;
+        /**
+         * Parts/ranges in flight per process: the size of the one transfer pool shared by every upload
+         * and download in the JVM. Also bounds the part buffers held per upload ({@code concurrency + 1}).
+         */
+        private int concurrency = 4;
+    }
+
+    /**
+     * How pipeline stages store their artifacts (see {@link com.anthem.pagw.core.service.StageArtifactStore}).
+     * Readers handle both forms regardless of the mode, so deploy them before switching a writer to DELTA.
+     */
+    @Data
+    public static class StageArtifacts {
+        private Mode mode = Mode.FULL;
+        /** A delta is stored only if it is at most this fraction of the full artifact's size. */
+        private double maxDeltaRatio = 0.5;
+
+        public enum Mode {
+            /** Every stage writes a complete copy of its output. */
+            FULL,
+            /** Stages write a patch against the last full artifact when that is smaller. */
+            DELTA
+        }
+    }
+
     /**
      * S3 path utilities for consistent folder structure.
      * 
@@ -154,6 +264,11 @@ public class PagwProperties {
             return String.format("%s/%s/callbacks/%s.json", getMonthPartition(), pagwId, timestamp);
         }
         
+        /** Full message body spilled by the SQS claim-check (PagwMessageCodec) */
+        public static String message(String pagwId, String messageId) {
+            return String.format("%s/%s/messages/%s.json", getMonthPartition(), pagwId, messageId);
+        }
+        
         /** Request manifest/summary */
         public static String manifest(String pagwId) {
             return String.format("%s/%s/_manifest.json", getMonthPartition(), pagwId);
@@ -194,6 +309,16 @@ public class PagwProperties {
         }
     }
 
+    @Data
+    public static class Elasticache {
+        /** Primary endpoint of the Redis replication group; empty = no Redis. */
+        private String endpoint;
+        private int port = 6379;
+        private boolean sslEnabled = true;
+        /** Secrets Manager secret holding the Redis AUTH token. */
+        private String authSecretArn;
+    }
+
     @Data
     public static class Secrets {
         private boolean enabled = true;
@@ -204,6 +329,101 @@ public class PagwProperties {
     public static class DynamoDb {
         private boolean enabled = false;
         private String idempotencyTable = "pagw-idempotency";
+        private IdempotencyCache idempotencyCache = new IdempotencyCache();
+    }
+
+    /**
+     * Which {@link com.anthem.pagw.core.service.IdempotencyStore} backs duplicate detection.
+     */
+    @Data
+    public static class Idempotency {
+        private Store store = Store.DYNAMODB;
+        /** How long a key blocks duplicates (DynamoDB TTL attribute / Postgres expires_at). */
+        private long ttlSeconds = 86400;
+
+        public enum Store {
+            /** DynamoDB table (pagw.aws.dynamodb); fails open when DynamoDB is unavailable. */
+            DYNAMODB,
+            /** pagw.idempotency in Aurora, written in the caller's transaction. */
+            POSTGRES,
+            /** Process-local map; single instance only. */
+            MEMORY,
+            /** No duplicate detection. */
+            NONE
+        }
+    }
+
+    /**
+     * In-process near-cache and write batching of {@link com.anthem.pagw.core.service.IdempotencyService}.
+     */
+    @Data
+    public static class IdempotencyCache {
+        private boolean enabled = true;
+        private int maxEntries = 10_000;
+        /** How long keys acquired or seen completed here are answered without DynamoDB. */
+        private long ttlSeconds = 300;
+        /** How long "no result yet" is answered without DynamoDB (negative entries). */
+        private long negativeTtlMs = 2_000;
+        /** Coalesce completions of keys acquired here into BatchWriteItem requests (limit: 25 items). */
+        private boolean batchWrites = true;
+        /** Flush a partial batch this long after its first completion was buffered. */
+        private long maxLingerMs = 20;
+    }
+
+    /**
+     * Asynchronous event_tracker writes ({@link com.anthem.pagw.core.service.EventTrackerWriter}).
+     * Off by default: events are inserted in the caller's transaction.
+     */
+    @Data
+    public static class EventTracking {
+        /** Buffer events and insert them in batches on a writer thread, outside the caller's transaction. */
+        private boolean asyncWrites = false;
+        /** Events buffered before the overflow policy applies. */
+        private int bufferCapacity = 10_000;
+        /** Events per multi-row INSERT. */
+        private int flushSize = 500;
+        /** Flush a partial batch this long after its first event was buffered. */
+        private long flushIntervalMs = 100;
+        private Overflow overflow = Overflow.SYNC;
+        /** How long BLOCK waits for buffer space before dropping the event. */
+        private long offerTimeoutMs = 50;
+        /** How long a durable event (stage failure) waits for its batch before writing it itself. */
+        private long durableTimeoutMs = 2_000;
+
+        public enum Overflow {
+            /** Insert the event on the caller's thread, as without async writes. */
+            SYNC,
+            /** Wait up to offer-timeout-ms for space, then drop the event. */
+            BLOCK,
+            /** Drop the event and count it in pagw.events.writes.dropped. */
+            DROP
+        }
+    }
+
+    /**
+     * Spooled audit_log writes ({@link com.anthem.pagw.core.service.AuditSpoolWriter}).
+     * Off by default: audit events are inserted in the caller's transaction.
+     */
+    @Data
+    public static class Audit {
+        /** Append audit events to a local spool and drain it to audit_log in bulk. */
+        private boolean spool = false;
+        /**
+         * Spool segment files. Required with {@code spool}: a directory on a persistent volume, so a
+         * restarted pod drains what it spooled. One process per directory.
+         */
+        private String spoolDirectory;
+        /** Size of each memory-mapped segment file. */
+        private int segmentBytes = 16 * 1024 * 1024;
+        /** Seal a segment that is not full once its first event is this old, so it gets drained. */
+        private long sealAfterMs = 5_000;
+        /** fsync before logEvent returns (concurrent callers share one fsync); otherwise once per drain pass. */
+        private boolean fsyncOnAppend = true;
+        /** Audit events per INSERT. */
+        private int drainBatchSize = 500;
+        private long drainIntervalMs = 200;
+        /** Wait after a failed drain (database unavailable) before trying again. */
+        private long retryBackoffMs = 5_000;
     }
     
     @Data
@@ -250,6 +470,25 @@ public class PagwProperties {
                 "subscriber.identifier",
                 "provider.name"
         );
+        private DataKeyCache dataKeyCache = new DataKeyCache();
+        /** Plaintext bytes per segment of streamed (attachment / bundle) encryption. */
+        private int streamSegmentBytes = 64 * 1024;
+    }
+
+    /**
+     * Data-key reuse in {@link com.anthem.pagw.core.service.PhiEncryptionService}, per KMS key and
+     * encryption context. A key is regenerated once any of the limits is reached.
+     */
+    @Data
+    public static class DataKeyCache {
+        private boolean enabled = true;
+        /** Cached keys per direction (encrypt / decrypt), least recently used evicted first. */
+        private int maxEntries = 1_000;
+        private long maxAgeSeconds = 300;
+        /** Fields encrypted under one data key. */
+        private long maxMessages = 1_000;
+        /** Plaintext bytes encrypted under one data key. */
+        private long maxBytes = 64L * 1024 * 1024;
     }
     
     @Data
@@ -258,6 +497,106 @@ public class PagwProperties {
         private int batchSize = 50;
         private int maxRetries = 5;
         private int publishIntervalMs = 1000;
+        /**
+         * Publish each outbox entry to SQS right after the writing transaction commits.
+         * The scheduled publisher then only sweeps entries the fast path missed.
+         */
+        private boolean immediatePublish = true;
+        /**
+         * Minimum age of a PENDING entry before the scheduled publisher sweeps it.
+         * Gives the post-commit fast path time to publish first and avoids double sends.
+         */
+        private long sweepGraceMs = 5000;
+        /**
+         * How long a claimed (IN_FLIGHT) entry stays reserved for its publisher worker.
+         * Claims older than this are requeued by the reaper, e.g. after a pod crash mid-send.
+         */
+        private long claimTtlMs = 60000;
+        /** How often the reaper requeues expired claims. */
+        private long reaperIntervalMs = 15000;
+        /** Concurrent publish workers per pod, each claiming and sending its own hash bucket of pagwIds. */
+        private int publishWorkers = 4;
+        /** Max SendMessageBatch calls in flight per pod, shared by all workers. */
+        private int maxInFlight = 8;
+        private Partitioning partitioning = new Partitioning();
+        private Notify notify = new Notify();
+        private Retry retry = new Retry();
+        private Retention retention = new Retention();
+        
+        /**
+         * True when the outbox is split into hash partitions leased per pod
+         * instead of being published under one global ShedLock.
+         */
+        public boolean isPartitioned() {
+            return partitioning != null && partitioning.isEnabled() && partitioning.getCount() > 1;
+        }
+    }
+    
+    /**
+     * Retry lane for failed outbox entries.
+     * Failed entries wait in status FAILED until next_retry_at (exponential backoff with jitter)
+     * and are retried separately from fresh traffic; after max-retries they are parked.
+     */
+    @Data
+    public static class Retry {
+        private boolean enabled = true;
+        /** Max due retries claimed per retry cycle. */
+        private int batchSize = 20;
+        private long pollIntervalMs = 5000;
+        /** Upper bound on retried entries per second (per retry lane, i.e. cluster-wide). */
+        private int maxPerSecond = 10;
+        private long initialBackoffMs = 1000;
+        private long maxBackoffMs = 300000;
+        private double multiplier = 2.0;
+    }
+    
+    /**
+     * Daily range partitions of pagw.outbox (created_at, UTC) and partition-drop retention.
+     * Partitions are created {@code premake-days} ahead; partitions older than {@code retention-days}
+     * are detached (and dropped) once every row in them is COMPLETED.
+     */
+    @Data
+    public static class Retention {
+        private boolean enabled = true;
+        private int premakeDays = 7;
+        private int retentionDays = 7;
+        private long maintenanceIntervalMs = 3600000;
+        /** Drop detached partitions; when false they are kept as standalone tables for archiving. */
+        private boolean dropDetached = true;
+    }
+    
+    /**
+     * Postgres LISTEN/NOTIFY wakeup for the outbox publisher.
+     * An insert trigger on pagw.outbox notifies channel {@code pagw_outbox}; the publisher holds one
+     * listening connection and runs a publish cycle as soon as a notification arrives.
+     * The scheduled poll (publish-interval-ms) stays active as a slow fallback.
+     */
+    @Data
+    public static class Notify {
+        private boolean enabled = false;
+        /** Max time to block waiting for notifications before re-checking the connection. */
+        private int listenTimeoutMs = 10000;
+        /** Delay before retrying a wakeup that could not run because a cycle was in progress. */
+        private long busyRetryMs = 200;
+        /** Delay before reopening the LISTEN connection after it failed. */
+        private long reconnectDelayMs = 5000;
+    }
+    
+    /**
+     * Hash-partitioned outbox publishing.
+     * Entries are assigned to a partition by aggregate_id (pagwId), so all
+     * messages of one request stay on one partition and keep their order.
+     * Each publisher pod leases a fair share of partitions via pagw.outbox_partition_lease.
+     */
+    @Data
+    public static class Partitioning {
+        private boolean enabled = false;
+        /** Number of hash partitions. Must be the same on every pod. */
+        private int count = 16;
+        /** How long a lease stays valid without a heartbeat. */
+        private long leaseDurationMs = 30000;
+        /** Heartbeat / rebalance interval. Also used as hand-over grace for released partitions. */
+        private long heartbeatIntervalMs = 5000;
     }
     
     /**
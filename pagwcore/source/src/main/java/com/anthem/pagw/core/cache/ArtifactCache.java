@@ -0,0 +1,46 @@
+package com.anthem.pagw.core.cache;
+
+/**
+ * Cache of S3 object bodies, keyed by bucket and key, used by
+ * {@link com.anthem.pagw.core.service.S3Service} to serve inter-stage reads without a GET.
+ *
+ * <p>Bodies are the uncompressed object content. Arrays passed to {@link #put} and returned by
+ * {@link #get} are shared with the cache and must not be modified.</p>
+ *
+ * <p>Implementations never throw from {@link #get}/{@link #put}/{@link #evict}: a cache that is
+ * unavailable behaves like an empty one and S3 remains the source of truth.</p>
+ */
+public interface ArtifactCache extends AutoCloseable {
+
+    /** Cache that holds nothing (caching disabled). */
+    ArtifactCache NONE = new ArtifactCache() {
+        @Override
+        public byte[] get(String bucket, String key) {
+            return null;
+        }
+
+        @Override
+        public void put(String bucket, String key, byte[] body) {
+        }
+
+        @Override
+        public void evict(String bucket, String key) {
+        }
+    };
+
+    /**
+     * @return The cached body, or null on a miss
+     */
+    byte[] get(String bucket, String key);
+
+    /**
+     * Store a body; bodies above the configured size cap are ignored.
+     */
+    void put(String bucket, String key, byte[] body);
+
+    void evict(String bucket, String key);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,98 @@
+package com.anthem.pagw.core.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.function.Supplier;
+
+/**
+ * Encrypts bodies with AES-256-GCM before they reach a shared tier, so PHI is never stored in
+ * Redis in the clear.
+ *
+ * <p>Stored value: {@code version(1) | iv(12) | ciphertext+tag}. The bucket/key is bound as
+ * associated data, so an entry cannot be replayed under another key. Entries that fail to
+ * decrypt (e.g. after a key rotation) are treated as misses.</p>
+ */
+@Slf4j
+public class EncryptedArtifactCache implements ArtifactCache {
+
+    /** Bytes added to each body: version, IV and GCM tag. */
+    public static final int OVERHEAD = 1 + 12 + 16;
+
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final byte FORMAT_VERSION = 1;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final ArtifactCache delegate;
+    private final Supplier<SecretKey> key;
+
+    /**
+     * @param key Supplies the current AES-256 key; called per operation so rotations are picked up
+     */
+    public EncryptedArtifactCache(ArtifactCache delegate, Supplier<SecretKey> key) {
+        this.delegate = delegate;
+        this.key = key;
+    }
+
+    @Override
+    public byte[] get(String bucket, String key) {
+        byte[] stored = delegate.get(bucket, key);
+        if (stored == null) {
+            return null;
+        }
+        try {
+            if (stored.length < 1 + GCM_IV_LENGTH || stored[0] != FORMAT_VERSION) {
+                throw new IllegalStateException("Unknown cache entry format");
+            }
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, this.key.get(), new GCMParameterSpec(GCM_TAG_LENGTH, stored, 1, GCM_IV_LENGTH));
+            cipher.updateAAD(aad(bucket, key));
+            return cipher.doFinal(stored, 1 + GCM_IV_LENGTH, stored.length - 1 - GCM_IV_LENGTH);
+        } catch (Exception e) {
+            log.warn("Dropping undecryptable cache entry for s3://{}/{}: {}", bucket, key, e.getMessage());
+            delegate.evict(bucket, key);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String bucket, String key, byte[] body) {
+        try {
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            SECURE_RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, this.key.get(), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(aad(bucket, key));
+
+            byte[] stored = new byte[1 + GCM_IV_LENGTH + cipher.getOutputSize(body.length)];
+            stored[0] = FORMAT_VERSION;
+            System.arraycopy(iv, 0, stored, 1, GCM_IV_LENGTH);
+            cipher.doFinal(body, 0, body.length, stored, 1 + GCM_IV_LENGTH);
+            delegate.put(bucket, key, stored);
+        } catch (Exception e) {
+            // Never leave a stale entry behind a failed write-through
+            log.warn("Failed to encrypt cache entry for s3://{}/{}: {}", bucket, key, e.getMessage());
+            delegate.evict(bucket, key);
+        }
+    }
+
+    @Override
+    public void evict(String bucket, String key) {
+        delegate.evict(bucket, key);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private static byte[] aad(String bucket, String key) {
+        return (bucket + "/" + key).getBytes(StandardCharsets.UTF_8);
+    }
+}
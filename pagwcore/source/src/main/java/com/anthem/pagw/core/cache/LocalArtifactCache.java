@@ -0,0 +1,87 @@
+package com.anthem.pagw.core.cache;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-process LRU tier, bounded by total body bytes, with a per-entry size cap and TTL.
+ *
+ * <p>Entries live on the heap only and are never written to disk. Also serves as the in-memory
+ * stand-in for the Redis tier in tests.</p>
+ */
+public class LocalArtifactCache implements ArtifactCache {
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public LocalArtifactCache(long maxBytes, int maxEntryBytes, long ttlMillis) {
+        this(maxBytes, maxEntryBytes, ttlMillis, Clock.systemUTC());
+    }
+
+    LocalArtifactCache(long maxBytes, int maxEntryBytes, long ttlMillis, Clock clock) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized byte[] get(String bucket, String key) {
+        String id = id(bucket, key);
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= clock.millis()) {
+            remove(id);
+            return null;
+        }
+        return entry.body();
+    }
+
+    @Override
+    public synchronized void put(String bucket, String key, byte[] body) {
+        String id = id(bucket, key);
+        remove(id);
+        if (body == null || body.length > maxEntryBytes || body.length > maxBytes) {
+            return;
+        }
+        entries.put(id, new Entry(body, clock.millis() + ttlMillis));
+        totalBytes += body.length;
+
+        // Evict least recently used until the tier fits again
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().body().length;
+            eldest.remove();
+        }
+    }
+
+    @Override
+    public synchronized void evict(String bucket, String key) {
+        remove(id(bucket, key));
+    }
+
+    synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    private void remove(String id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            totalBytes -= removed.body().length;
+        }
+    }
+
+    private static String id(String bucket, String key) {
+        return bucket + "/" + key;
+    }
+
+    private record Entry(byte[] body, long expiresAt) {}
+}
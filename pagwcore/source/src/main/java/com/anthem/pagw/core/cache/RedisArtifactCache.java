@@ -0,0 +1,120 @@
+package com.anthem.pagw.core.cache;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Redis (ElastiCache) tier shared by all services, so an artifact written by one stage is read
+ * by the next without a GET.
+ *
+ * <p>Stores bodies as given - wrap in {@link EncryptedArtifactCache} for PHI. Entries expire after
+ * the configured TTL. Connection failures and command timeouts are logged and treated as
+ * misses; the connection is (re)established lazily, at most every {@value #RECONNECT_BACKOFF_MS} ms.</p>
+ */
+@Slf4j
+public class RedisArtifactCache implements ArtifactCache {
+
+    private static final String KEY_PREFIX = "pagw:artifact:";
+    private static final long RECONNECT_BACKOFF_MS = 30_000;
+
+    private final RedisClient client;
+    private final int maxEntryBytes;
+    private final long ttlMillis;
+    private volatile StatefulRedisConnection<String, byte[]> connection;
+    private volatile long nextConnectAttempt;
+
+    public RedisArtifactCache(String host, int port, boolean ssl, char[] password,
+                              Duration timeout, int maxEntryBytes, long ttlMillis) {
+        RedisURI.Builder uri = RedisURI.builder()
+                .withHost(host)
+                .withPort(port)
+                .withSsl(ssl)
+                .withTimeout(timeout);
+        if (password != null && password.length > 0) {
+            uri.withPassword(password);
+        }
+        this.client = RedisClient.create(uri.build());
+        this.maxEntryBytes = maxEntryBytes;
+        this.ttlMillis = ttlMillis;
+    }
+
+    @Override
+    public byte[] get(String bucket, String key) {
+        StatefulRedisConnection<String, byte[]> redis = connection();
+        if (redis == null) {
+            return null;
+        }
+        try {
+            return redis.sync().get(KEY_PREFIX + bucket + "/" + key);
+        } catch (Exception e) {
+            log.warn("Redis artifact cache GET failed for s3://{}/{}: {}", bucket, key, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String bucket, String key, byte[] body) {
+        if (body.length > maxEntryBytes) {
+            evict(bucket, key);
+            return;
+        }
+        StatefulRedisConnection<String, byte[]> redis = connection();
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.sync().set(KEY_PREFIX + bucket + "/" + key, body, SetArgs.Builder.px(ttlMillis));
+        } catch (Exception e) {
+            log.warn("Redis artifact cache SET failed for s3://{}/{}: {}", bucket, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(String bucket, String key) {
+        StatefulRedisConnection<String, byte[]> redis = connection();
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.sync().del(KEY_PREFIX + bucket + "/" + key);
+        } catch (Exception e) {
+            log.warn("Redis artifact cache DEL failed for s3://{}/{}: {}", bucket, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        StatefulRedisConnection<String, byte[]> redis = connection;
+        if (redis != null) {
+            redis.close();
+        }
+        client.shutdown();
+    }
+
+    private StatefulRedisConnection<String, byte[]> connection() {
+        StatefulRedisConnection<String, byte[]> redis = connection;
+        if (redis != null || System.currentTimeMillis() < nextConnectAttempt) {
+            return redis;
+        }
+        synchronized (this) {
+            if (connection == null && System.currentTimeMillis() >= nextConnectAttempt) {
+                try {
+                    connection = client.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+                    log.info("Redis artifact cache connected");
+                } catch (Exception e) {
+                    nextConnectAttempt = System.currentTimeMillis() + RECONNECT_BACKOFF_MS;
+                    log.warn("Redis artifact cache unavailable, retrying in {} ms: {}", RECONNECT_BACKOFF_MS, e.getMessage());
+                }
+            }
+            return connection;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.anthem.pagw.core.cache;
+
+/**
+ * Two-tier cache: a near (in-process) tier in front of a far (shared) tier.
+ *
+ * <p>Reads try near, then far, and promote far hits into near. Writes and evictions go to both.</p>
+ */
+public class TieredArtifactCache implements ArtifactCache {
+
+    private final ArtifactCache near;
+    private final ArtifactCache far;
+
+    public TieredArtifactCache(ArtifactCache near, ArtifactCache far) {
+        this.near = near;
+        this.far = far;
+    }
+
+    @Override
+    public byte[] get(String bucket, String key) {
+        byte[] body = near.get(bucket, key);
+        if (body != null) {
+            return body;
+        }
+        body = far.get(bucket, key);
+        if (body != null) {
+            near.put(bucket, key, body);
+        }
+        return body;
+    }
+
+    @Override
+    public void put(String bucket, String key, byte[] body) {
+        near.put(bucket, key, body);
+        far.put(bucket, key, body);
+    }
+
+    @Override
+    public void evict(String bucket, String key) {
+        near.evict(bucket, key);
+        far.evict(bucket, key);
+    }
+
+    @Override
+    public void close() {
+        near.close();
+        far.close();
+    }
+}
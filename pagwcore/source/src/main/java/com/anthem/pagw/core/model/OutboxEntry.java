@@ -26,16 +26,26 @@ public class OutboxEntry {
     private String payload;
     private String destinationQueue;
     
+    // Routing fields copied from the message at write time (publisher forwards payload as-is)
+    private String tenant;
+    private String pagwId;
+    private String messageId;
+    private String messageGroupId;
+    
     private OutboxStatus status;
     private int retryCount;
     private String lastError;
     
+    private String claimedBy;
+    private Instant claimExpiresAt;
+    
     private Instant createdAt;
     private Instant processedAt;
 
     public enum OutboxStatus {
         PENDING,
         PROCESSING,
+        IN_FLIGHT,
         COMPLETED,
         FAILED,
         DEAD_LETTER
@@ -40,6 +40,7 @@ public class PagwMessage {
     private String payload;  // For small inline payloads
     private PayloadPointer payloadPointer;  // Structured payload pointer
     private String parsedDataS3Path;  // S3 path to extracted FHIR data (ParsedFhirData JSON)
+    private PayloadPointer claimCheck;  // Set on pointer envelopes: full message body spilled to S3 (PagwMessageCodec)
     
     // Attachment info
     private Boolean hasAttachments;
@@ -0,0 +1,23 @@
+package com.anthem.pagw.core.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A pipeline artifact read through {@link com.anthem.pagw.core.service.StageArtifactStore}: its
+ * JSON plus what the store needs to write the next stage's output as a delta.
+ *
+ * @param bucket    Bucket the artifact was read from; the next stage writes to the same bucket
+ * @param key       Key the artifact was read from
+ * @param json      The artifact (reconstructed if it was stored as a delta); stages may modify it
+ * @param anchorKey Key of the full artifact deltas are taken against; {@code null} unless in DELTA mode
+ * @param anchor    Unmodified copy of the anchor artifact; {@code null} unless in DELTA mode
+ */
+public record StageArtifact(String bucket, String key, JsonNode json, String anchorKey, JsonNode anchor) {
+
+    /**
+     * An artifact that the next stage will store in full.
+     */
+    public static StageArtifact of(String bucket, String key, JsonNode json) {
+        return new StageArtifact(bucket, key, json, null, null);
+    }
+}
@@ -0,0 +1,128 @@
+package com.anthem.pagw.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Singular;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One pipeline stage transition: the request_tracker update, the event_tracker row and the
+ * outbox messages a listener writes together. Applied in a single statement by
+ * {@link com.anthem.pagw.core.service.StageTransitionService}.
+ *
+ * <p>Usage pattern:
+ * <pre>
+ * // Stage start
+ * stageTransitionService.apply(StageTransition.start(pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_START)
+ *         .tracker("PARSING", "request-parser")
+ *         .build());
+ *
+ * // Stage completion with the next hop
+ * stageTransitionService.apply(StageTransition.complete(pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_OK, durationMs)
+ *         .tracker("PARSED", "request-parser")
+ *         .send(BUSINESS_VALIDATOR_QUEUE, businessMessage)
+ *         .build());
+ *
+ * // Stage error
+ * stageTransitionService.apply(StageTransition.fail(pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_FAIL,
+ *                 "PARSE_EXCEPTION", errorMsg)
+ *         .trackerFailed("request-parser", "PARSE_EXCEPTION", errorMsg)
+ *         .build());
+ * </pre>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StageTransition {
+
+    private String pagwId;
+    private String tenant;
+
+    // event_tracker row (skipped when eventType is null)
+    private String stage;
+    private String eventType;
+    private String eventStatus;        // STARTED, SUCCESS, FAILURE
+    private Long durationMs;
+    private String metadata;           // JSON metadata (no PHI)
+    private String errorCode;
+    private String errorMessage;
+    private boolean retryable;
+    private Instant nextRetryAt;
+
+    // request_tracker update (skipped when trackerStatus is null)
+    private String trackerStatus;
+    private String lastStage;
+    private String nextStage;
+    private String trackerErrorCode;   // Set for error updates; next_stage is then left alone
+    private String trackerErrorMessage;
+    private boolean incrementRetryCount;
+
+    // Outbox messages written in the same statement
+    @Singular("outbound")
+    private List<Outbound> outbox;
+
+    /**
+     * An outbox message and its destination queue.
+     */
+    public record Outbound(String destinationQueue, PagwMessage message) {}
+
+    public static StageTransitionBuilder start(String pagwId, String tenant, String stage, String eventType) {
+        return event(pagwId, tenant, stage, eventType, EventTracker.STATUS_STARTED);
+    }
+
+    public static StageTransitionBuilder complete(String pagwId, String tenant, String stage, String eventType,
+                                                  long durationMs) {
+        return event(pagwId, tenant, stage, eventType, EventTracker.STATUS_SUCCESS).durationMs(durationMs);
+    }
+
+    public static StageTransitionBuilder fail(String pagwId, String tenant, String stage, String eventType,
+                                              String errorCode, String errorMessage) {
+        return event(pagwId, tenant, stage, eventType, EventTracker.STATUS_FAILURE)
+                .errorCode(errorCode)
+                .errorMessage(errorMessage);
+    }
+
+    /**
+     * Tracker and outbox only, without an event_tracker row.
+     */
+    public static StageTransitionBuilder of(String pagwId, String tenant) {
+        return builder().pagwId(pagwId).tenant(tenant);
+    }
+
+    private static StageTransitionBuilder event(String pagwId, String tenant, String stage, String eventType,
+                                                String eventStatus) {
+        return builder().pagwId(pagwId).tenant(tenant).stage(stage).eventType(eventType).eventStatus(eventStatus);
+    }
+
+    public boolean isFailure() {
+        return EventTracker.STATUS_FAILURE.equals(eventStatus);
+    }
+
+    public static class StageTransitionBuilder {
+
+        /** Same as {@code RequestTrackerService.updateStatus(pagwId, status, lastStage)}. */
+        public StageTransitionBuilder tracker(String status, String lastStage) {
+            return trackerStatus(status).lastStage(lastStage);
+        }
+
+        /** Same as {@code RequestTrackerService.updateStatus(pagwId, status, lastStage, errorCode, errorMsg)}. */
+        public StageTransitionBuilder trackerError(String status, String lastStage, String errorCode, String errorMsg) {
+            return trackerStatus(status).lastStage(lastStage).trackerErrorCode(errorCode).trackerErrorMessage(errorMsg);
+        }
+
+        /** Same as {@code RequestTrackerService.updateError(pagwId, errorCode, errorMsg, lastStage)}. */
+        public StageTransitionBuilder trackerFailed(String lastStage, String errorCode, String errorMsg) {
+            return trackerError("ERROR", lastStage, errorCode, errorMsg).incrementRetryCount(true);
+        }
+
+        /** Same as {@code OutboxService.writeOutbox(destinationQueue, message)}. */
+        public StageTransitionBuilder send(String destinationQueue, PagwMessage message) {
+            return outbound(new Outbound(destinationQueue, message));
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.anthem.pagw.core.service;
 import com.anthem.pagw.core.exception.PagwException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +16,10 @@ import java.util.UUID;
 /**
  * Service for audit logging PHI access and changes.
  * HIPAA-compliant audit trail.
+ *
+ * <p>With {@code pagw.audit.spool}, events are appended to a local spool by the
+ * {@link AuditSpoolWriter} and drained to audit_log in bulk, instead of being inserted in the
+ * caller's transaction.</p>
  */
 @Service
 public class AuditService {
@@ -21,9 +27,23 @@ public class AuditService {
     private static final Logger log = LoggerFactory.getLogger(AuditService.class);
     
     private final JdbcTemplate jdbcTemplate;
+    private final AuditSpoolWriter spoolWriter;
     
     public AuditService(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, (AuditSpoolWriter) null);
+    }
+    
+    @Autowired
+    public AuditService(JdbcTemplate jdbcTemplate, ObjectProvider<AuditSpoolWriter> spoolWriterProvider) {
+        this(jdbcTemplate, spoolWriterProvider.getIfAvailable());
+    }
+    
+    /**
+     * @param spoolWriter Local spool for audit events, or null to insert them in the caller's transaction
+     */
+    public AuditService(JdbcTemplate jdbcTemplate, AuditSpoolWriter spoolWriter) {
         this.jdbcTemplate = jdbcTemplate;
+        this.spoolWriter = spoolWriter;
     }
     
     /**
@@ -33,6 +53,13 @@ public class AuditService {
      */
     @Transactional
     public void logEvent(AuditEvent event) {
+        if (spoolWriter != null) {
+            UUID id = spoolWriter.append(event);
+            log.debug("Audit event spooled: id={}, type={}, resource={}/{}",
+                    id, event.eventType, event.resourceType, event.resourceId);
+            return;
+        }
+        
         String sql = """
             INSERT INTO audit_log (
                 id, event_timestamp, event_type, event_source,
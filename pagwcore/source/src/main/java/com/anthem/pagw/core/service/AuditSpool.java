@@ -0,0 +1,330 @@
+package com.anthem.pagw.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe local log of audit records: memory-mapped segment files of
+ * {@code [length][crc32][payload]} records.
+ *
+ * <p>An append is a copy into the mapped segment, so a record survives a JVM crash as soon as
+ * {@link #append} returns. {@link #sync} forces it to disk; callers syncing at the same time
+ * share one {@code msync}. Segments are sealed (forced and closed) when full, by
+ * {@link #sealOlderThan} once their first record reaches a given age, or by {@link #seal}; they are
+ * drained by the caller and then {@link #delete deleted}. Segments left by a previous process are
+ * sealed on open. A torn record at the end of a segment (crash mid-append) fails its CRC and ends
+ * the segment.</p>
+ *
+ * <p>One process per directory: the constructor takes an exclusive lock on
+ * {@code audit-spool.lock} and fails if another process (or another spool in this JVM) holds it,
+ * since two writers would reuse segment numbers and drain each other's segments.</p>
+ *
+ * <p>Not PHI-aware: callers decide what goes into a record.</p>
+ */
+public class AuditSpool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditSpool.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String REJECTED_FILE = "audit-rejected.jsonl";
+    private static final String LOCK_FILE = "audit-spool.lock";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final Object syncLock = new Object();
+    private final AtomicLong synced = new AtomicLong();
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    // Guarded by this
+    private final List<Path> sealed = new ArrayList<>();
+    private Segment active;
+    private long appended;
+    private long nextSegmentNo;
+
+    public AuditSpool(Path directory, int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IOException("Audit spool directory " + directory + " is in use by another process");
+        }
+        this.lock = acquired;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(AuditSpool::isSegment).sorted().forEach(sealed::add);
+        }
+        this.nextSegmentNo = sealed.isEmpty() ? 1 : segmentNo(sealed.get(sealed.size() - 1)) + 1;
+        if (!sealed.isEmpty()) {
+            log.info("Recovered {} audit spool segments from {}", sealed.size(), directory);
+        }
+    }
+
+    /**
+     * Append a record to the active segment.
+     *
+     * @return The record's position in the spool, for {@link #sync}
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        int size = HEADER_BYTES + payload.length;
+        if (active == null || active.buffer.remaining() < size) {
+            rotate(size);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        // Length last: a reader never sees a length whose payload has not been copied yet
+        int start = active.buffer.position();
+        try {
+            active.buffer.position(start + 4);
+            active.buffer.putInt((int) crc.getValue());
+            active.buffer.put(payload);
+            active.buffer.putInt(start, payload.length);
+        } catch (InternalError e) {
+            // A fault writing the mapping, e.g. no disk space left for the page
+            active.buffer.position(start);
+            throw new IOException("Failed to write audit spool segment " + active.path, e);
+        }
+        if (active.records++ == 0) {
+            active.firstAppendNanos = System.nanoTime();
+        }
+        return ++appended;
+    }
+
+    /**
+     * Force records up to {@code position} to disk. Returns at once if another caller's sync
+     * already covered them.
+     */
+    public void sync(long position) {
+        if (synced.get() >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced.get() >= position) {
+                return;
+            }
+            Segment segment;
+            int end;
+            long upTo;
+            synchronized (this) {
+                segment = active;
+                upTo = appended;
+                end = segment != null ? segment.buffer.position() : 0;
+            }
+            if (segment != null && end > segment.syncedTo) {
+                segment.buffer.force(segment.syncedTo, end - segment.syncedTo);
+                segment.syncedTo = end;
+            }
+            synced.accumulateAndGet(upTo, Math::max);
+        }
+    }
+
+    /** Force everything appended so far. */
+    public void sync() {
+        long position;
+        synchronized (this) {
+            position = appended;
+        }
+        sync(position);
+    }
+
+    /**
+     * Seal the active segment if it holds records, so the next drain picks them up.
+     */
+    public synchronized void seal() throws IOException {
+        if (active != null && active.records > 0) {
+            closeActive();
+        }
+    }
+
+    /**
+     * Seal the active segment if its first record was appended at least {@code ageMs} ago, so a
+     * segment that is not filling up is still drained within that time.
+     */
+    public synchronized void sealOlderThan(long ageMs) throws IOException {
+        if (active != null && active.records > 0
+                && System.nanoTime() - active.firstAppendNanos >= TimeUnit.MILLISECONDS.toNanos(ageMs)) {
+            closeActive();
+        }
+    }
+
+    /** Sealed segments, oldest first. */
+    public synchronized List<Path> sealedSegments() {
+        return List.copyOf(sealed);
+    }
+
+    /** Number of segment files, including the active one. */
+    public synchronized int segmentCount() {
+        return sealed.size() + (active != null ? 1 : 0);
+    }
+
+    /**
+     * Read the records of a sealed segment, up to its end or a torn record.
+     */
+    public List<byte[]> read(Path segment) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0) {
+                    break;
+                }
+                if (length > buffer.remaining()) {
+                    log.warn("Torn audit record at offset {} of {}", buffer.position() - HEADER_BYTES, segment);
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Torn audit record at offset {} of {}", buffer.position() - length - HEADER_BYTES, segment);
+                    break;
+                }
+                records.add(payload);
+            }
+        }
+        return records;
+    }
+
+    /** Delete a segment once its records are in the database. */
+    public synchronized void delete(Path segment) throws IOException {
+        Files.deleteIfExists(segment);
+        sealed.remove(segment);
+    }
+
+    /**
+     * Keep a record the database refused (e.g. a value longer than its column) next to the
+     * spool, one line per record, instead of retrying it forever.
+     */
+    public synchronized void reject(byte[] payload) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(REJECTED_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer line = ByteBuffer.allocate(payload.length + 1).put(payload).put((byte) '\n').flip();
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (active != null) {
+                if (active.records > 0) {
+                    closeActive();
+                } else {
+                    active.channel.close();
+                    Files.deleteIfExists(active.path);
+                    active = null;
+                }
+            }
+        } finally {
+            releaseLock();
+        }
+    }
+
+    /**
+     * Release the directory lock and leave the active segment as it is, as a crashed process
+     * would (tests).
+     */
+    synchronized void releaseLock() throws IOException {
+        if (lockChannel.isOpen()) {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    private void rotate(int recordSize) throws IOException {
+        if (active != null) {
+            closeActive();
+        }
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentNo++, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(segmentBytes, recordSize + HEADER_BYTES));
+            active = new Segment(path, channel, buffer);
+            syncDirectory();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private void closeActive() throws IOException {
+        active.buffer.force();
+        active.channel.close();
+        sealed.add(active.path);
+        synced.accumulateAndGet(appended, Math::max);
+        active = null;
+    }
+
+    /** Make a new segment's directory entry durable, so a crash cannot lose the whole file. */
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the segment contents are still forced
+            log.debug("Could not fsync spool directory {}", directory, e);
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNo(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int records;
+        private long firstAppendNanos;
+        private int syncedTo;   // Guarded by syncLock
+
+        private Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.util.JsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spooled audit_log sink ({@code pagw.audit.spool}): {@link AuditService#logEvent} appends the
+ * event to an {@link AuditSpool} on local disk and returns; a drainer thread inserts spooled
+ * events into audit_log in bulk. It drains sealed segments only: a segment is sealed when full or
+ * once its first event is {@code seal-after-ms} old, so a quiet spool does not rotate a segment
+ * file on every drain pass.
+ *
+ * <ul>
+ *   <li>With {@code fsync-on-append} the event is on disk before logEvent returns. Concurrent
+ *       callers share one fsync.</li>
+ *   <li>Each event gets its audit_log id and timestamp when it is logged. Segments are deleted
+ *       only after their events are committed, and the INSERT skips ids already present, so a
+ *       crash or a failed drain replays events without duplicating them (at-least-once).</li>
+ *   <li>While the database is unavailable events stay in the spool and the drain is retried
+ *       every {@code retry-backoff-ms}.</li>
+ *   <li>An event the database refuses outright (e.g. a value too long for its column) is moved to
+ *       {@code audit-rejected.jsonl} in the spool directory so it cannot block the rest.</li>
+ *   <li>If the spool cannot be written (disk full), the event is inserted on the caller's thread.</li>
+ * </ul>
+ *
+ * <p>Metrics: {@code pagw.audit.events{mode=spool|sync}}, {@code pagw.audit.written},
+ * {@code pagw.audit.rejected}, {@code pagw.audit.spool.segments}, {@code pagw.audit.spool.fsync}
+ * and {@code pagw.audit.drain} (latency).</p>
+ */
+public class AuditSpoolWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditSpoolWriter.class);
+
+    /** Events are spooled as JSON objects keyed by column name, so a batch is one jsonb array. */
+    private static final String INSERT_AUDIT_EVENTS = """
+        INSERT INTO audit_log (
+            id, event_timestamp, event_type, event_source,
+            actor_id, actor_type, actor_ip,
+            resource_type, resource_id, action_description,
+            correlation_id, trace_id, request_path,
+            phi_accessed, phi_fields_accessed, access_reason
+        )
+        SELECT r.id, r.event_timestamp, r.event_type, r.event_source,
+               r.actor_id, r.actor_type, r.actor_ip,
+               r.resource_type, r.resource_id, r.action_description,
+               r.correlation_id, r.trace_id, r.request_path,
+               COALESCE(r.phi_accessed, false), r.phi_fields_accessed, r.access_reason
+        FROM jsonb_to_recordset(?::jsonb) AS r(
+            id uuid, event_timestamp timestamptz, event_type text, event_source text,
+            actor_id text, actor_type text, actor_ip text,
+            resource_type text, resource_id text, action_description text,
+            correlation_id text, trace_id text, request_path text,
+            phi_accessed boolean, phi_fields_accessed text[], access_reason text
+        )
+        ON CONFLICT (id) DO NOTHING
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PagwProperties.Audit config;
+    private final AuditSpool spool;
+    private final Clock clock;
+    private final Object drainLock = new Object();
+    private final Thread drainerThread;
+    private volatile boolean closed;
+
+    private final Counter spooledEvents;
+    private final Counter syncEvents;
+    private final Counter writtenEvents;
+    private final Counter rejectedEvents;
+    private final Timer fsyncTimer;
+    private final Timer drainTimer;
+
+    public AuditSpoolWriter(JdbcTemplate jdbcTemplate, PagwProperties properties) {
+        this(jdbcTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    public AuditSpoolWriter(JdbcTemplate jdbcTemplate, PagwProperties properties, MeterRegistry meterRegistry) {
+        this(jdbcTemplate, properties.getAudit(), openSpool(properties.getAudit()), meterRegistry, Clock.systemUTC());
+    }
+
+    AuditSpoolWriter(JdbcTemplate jdbcTemplate, PagwProperties.Audit config, AuditSpool spool,
+                     MeterRegistry meterRegistry, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.spool = spool;
+        this.clock = clock;
+
+        this.spooledEvents = eventsCounter(meterRegistry, "spool");
+        this.syncEvents = eventsCounter(meterRegistry, "sync");
+        this.writtenEvents = Counter.builder("pagw.audit.written")
+                .description("Spooled audit events inserted into audit_log")
+                .register(meterRegistry);
+        this.rejectedEvents = Counter.builder("pagw.audit.rejected")
+                .description("Spooled audit events audit_log refused, kept in audit-rejected.jsonl")
+                .register(meterRegistry);
+        this.fsyncTimer = Timer.builder("pagw.audit.spool.fsync")
+                .description("Time logEvent waits for the spool to reach disk")
+                .register(meterRegistry);
+        this.drainTimer = Timer.builder("pagw.audit.drain")
+                .description("Latency of one bulk audit_log INSERT")
+                .register(meterRegistry);
+        Gauge.builder("pagw.audit.spool.segments", spool, AuditSpool::segmentCount)
+                .description("Spool segment files not yet drained")
+                .register(meterRegistry);
+
+        this.drainerThread = new Thread(this::run, "audit-spool-drainer");
+        this.drainerThread.setDaemon(true);
+        this.drainerThread.start();
+    }
+
+    /**
+     * Spool an audit event. Returns once it is on local disk (or, with
+     * {@code fsync-on-append=false}, in the page cache).
+     *
+     * @return The audit_log id of the event
+     */
+    public UUID append(AuditService.AuditEvent event) {
+        UUID id = UUID.randomUUID();
+        byte[] record = toRecord(id, event);
+        if (!closed) {
+            try {
+                long position = spool.append(record);
+                if (config.isFsyncOnAppend()) {
+                    fsyncTimer.record(() -> spool.sync(position));
+                }
+                spooledEvents.increment();
+                return id;
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Audit spool unavailable, inserting event directly: id={}, type={}", id, event.eventType, e);
+            }
+        }
+        insert(List.of(record));
+        syncEvents.increment();
+        return id;
+    }
+
+    /**
+     * Insert the events of sealed segments now, on the caller's thread, sealing the active segment
+     * first if it is {@code seal-after-ms} old. Events stay in the spool if the database is
+     * unavailable.
+     */
+    public void drain() throws IOException {
+        drain(false);
+    }
+
+    private void drain(boolean sealActive) throws IOException {
+        synchronized (drainLock) {
+            if (!config.isFsyncOnAppend()) {
+                spool.sync();
+            }
+            if (sealActive) {
+                spool.seal();
+            } else {
+                spool.sealOlderThan(config.getSealAfterMs());
+            }
+            for (Path segment : spool.sealedSegments()) {
+                List<byte[]> records = spool.read(segment);
+                for (int from = 0; from < records.size(); from += config.getDrainBatchSize()) {
+                    write(records.subList(from, Math.min(records.size(), from + config.getDrainBatchSize())));
+                }
+                spool.delete(segment);
+                log.debug("Drained {} audit events from {}", records.size(), segment.getFileName());
+            }
+        }
+    }
+
+    /**
+     * Stop the drainer, drain what is spooled and close the spool. Whatever cannot be written now
+     * is drained by the next process using the spool directory.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        drainerThread.interrupt();
+        try {
+            drainerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            drain(true);
+        } catch (Exception e) {
+            log.warn("Audit events left in spool at shutdown", e);
+        }
+        try {
+            spool.close();
+        } catch (IOException e) {
+            log.warn("Failed to close audit spool", e);
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                Thread.sleep(config.getDrainIntervalMs());
+                drain();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.warn("Audit drain failed, retrying in {}ms", config.getRetryBackoffMs(), e);
+                try {
+                    Thread.sleep(config.getRetryBackoffMs());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert a batch. If audit_log refuses it, insert its events one at a time and set aside the
+     * ones it still refuses; any other failure leaves the whole segment for the next drain.
+     */
+    private void write(List<byte[]> records) throws IOException {
+        try {
+            writtenEvents.increment(drainTimer.record(() -> insert(records)));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Bulk insert of {} audit events refused, inserting them one at a time", records.size(), e);
+            for (byte[] record : records) {
+                try {
+                    writtenEvents.increment(insert(List.of(record)));
+                } catch (DataIntegrityViolationException refused) {
+                    spool.reject(record);
+                    rejectedEvents.increment();
+                    log.error("Audit event refused by audit_log, kept in spool directory: {}",
+                            refused.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private int insert(List<byte[]> records) {
+        StringBuilder json = new StringBuilder("[");
+        for (byte[] record : records) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(new String(record, StandardCharsets.UTF_8));
+        }
+        return jdbcTemplate.update(INSERT_AUDIT_EVENTS, json.append(']').toString());
+    }
+
+    private byte[] toRecord(UUID id, AuditService.AuditEvent event) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id.toString());
+        row.put("event_timestamp", clock.instant());
+        row.put("event_type", event.eventType);
+        row.put("event_source", event.eventSource);
+        row.put("actor_id", event.actorId);
+        row.put("actor_type", event.actorType);
+        row.put("actor_ip", event.actorIp);
+        row.put("resource_type", event.resourceType);
+        row.put("resource_id", event.resourceId);
+        row.put("action_description", event.actionDescription);
+        row.put("correlation_id", event.correlationId);
+        row.put("trace_id", event.traceId);
+        row.put("request_path", event.requestPath);
+        row.put("phi_accessed", event.phiAccessed);
+        row.put("phi_fields_accessed", event.phiFieldsAccessed);
+        row.put("access_reason", event.accessReason);
+        try {
+            return JsonUtils.getObjectMapper().writeValueAsBytes(row);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize audit event", e);
+        }
+    }
+
+    private static AuditSpool openSpool(PagwProperties.Audit config) {
+        if (config.getSpoolDirectory() == null || config.getSpoolDirectory().isBlank()) {
+            throw new IllegalStateException(
+                    "pagw.audit.spool-directory must be set to a directory on a persistent volume when pagw.audit.spool=true");
+        }
+        try {
+            return new AuditSpool(Path.of(config.getSpoolDirectory()), config.getSegmentBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open audit spool " + config.getSpoolDirectory(), e);
+        }
+    }
+
+    private static Counter eventsCounter(MeterRegistry meterRegistry, String mode) {
+        return Counter.builder("pagw.audit.events")
+                .description("Audit events logged")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+}
@@ -4,6 +4,8 @@ import com.anthem.pagw.core.exception.PagwException;
 import com.anthem.pagw.core.model.EventTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,6 +32,11 @@ import java.util.Optional;
  * // Stage error
  * eventTrackerService.logStageError(pagwId, tenant, "PARSING", "PARSE_FAIL", "INVALID_BUNDLE", errorMsg);
  * </pre>
+ *
+ * <p>With {@code pagw.event-tracking.async-writes}, events are handed to the {@link EventTrackerWriter}
+ * instead of being inserted in the caller's transaction; inside a transaction they are buffered once
+ * it commits. Stage errors are written durably: in a transaction they are inserted with it, otherwise
+ * the caller waits for their batch.</p>
  */
 @Service
 public class EventTrackerService {
@@ -38,9 +45,23 @@ public class EventTrackerService {
     private static final String DEFAULT_TENANT = "UNKNOWN";
     
     private final JdbcTemplate jdbcTemplate;
+    private final EventTrackerWriter writer;
     
     public EventTrackerService(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, (EventTrackerWriter) null);
+    }
+    
+    @Autowired
+    public EventTrackerService(JdbcTemplate jdbcTemplate, ObjectProvider<EventTrackerWriter> writerProvider) {
+        this(jdbcTemplate, writerProvider.getIfAvailable());
+    }
+    
+    /**
+     * @param writer Asynchronous sink, or null to insert in the caller's transaction
+     */
+    public EventTrackerService(JdbcTemplate jdbcTemplate, EventTrackerWriter writer) {
         this.jdbcTemplate = jdbcTemplate;
+        this.writer = writer;
     }
     
     /**
@@ -72,21 +93,27 @@ public class EventTrackerService {
      * @param stage The pipeline stage
      * @param eventType The event type
      * @param metadata JSON metadata (no PHI)
-     * @return The sequence number assigned to this event
+     * @return The sequence number assigned to this event (0 if it was buffered for the async writer)
      */
     @Transactional
     public long logStageStart(String pagwId, String tenant, String stage, String eventType, String metadata) {
-        long sequenceNo = getNextSequenceNo(pagwId);
+        if (writer != null) {
+            Instant now = Instant.now();
+            writer.submit(event(pagwId, tenant, stage, eventType, EventTracker.STATUS_STARTED)
+                    .attempt(0).retryable(false).startedAt(now).metadata(metadata).createdAt(now).build());
+            return 0L;
+        }
         
         String sql = """
             INSERT INTO pagw.event_tracker (
                 tenant, pagw_id, stage, event_type, status,
-                sequence_no, attempt, retryable,
+                attempt, retryable,
                 started_at, metadata, created_at
-            ) VALUES (?, ?, ?, ?, 'STARTED', ?, 0, FALSE, NOW(), ?::jsonb, NOW())
+            ) VALUES (?, ?, ?, ?, 'STARTED', 0, FALSE, NOW(), ?::jsonb, NOW())
+            RETURNING sequence_no
             """;
         
-        jdbcTemplate.update(sql, safeTenant(tenant), pagwId, stage, eventType, sequenceNo, metadata);
+        long sequenceNo = insertEvent(sql, safeTenant(tenant), pagwId, stage, eventType, metadata);
         
         log.debug("Event logged: pagwId={}, stage={}, eventType={}, sequenceNo={}", 
                 pagwId, stage, eventType, sequenceNo);
@@ -118,22 +145,29 @@ public class EventTrackerService {
      * @param eventType The event type
      * @param durationMs The duration in milliseconds
      * @param metadata JSON metadata (no PHI)
-     * @return The sequence number assigned to this event
+     * @return The sequence number assigned to this event (0 if it was buffered for the async writer)
      */
     @Transactional
     public long logStageComplete(String pagwId, String tenant, String stage, String eventType, 
                                   long durationMs, String metadata) {
-        long sequenceNo = getNextSequenceNo(pagwId);
+        if (writer != null) {
+            Instant now = Instant.now();
+            writer.submit(event(pagwId, tenant, stage, eventType, EventTracker.STATUS_SUCCESS)
+                    .attempt(0).retryable(false).durationMs((int) durationMs).completedAt(now)
+                    .metadata(metadata).createdAt(now).build());
+            return 0L;
+        }
         
         String sql = """
             INSERT INTO pagw.event_tracker (
                 tenant, pagw_id, stage, event_type, status,
-                sequence_no, attempt, retryable,
+                attempt, retryable,
                 duration_ms, completed_at, metadata, created_at
-            ) VALUES (?, ?, ?, ?, 'SUCCESS', ?, 0, FALSE, ?, NOW(), ?::jsonb, NOW())
+            ) VALUES (?, ?, ?, ?, 'SUCCESS', 0, FALSE, ?, NOW(), ?::jsonb, NOW())
+            RETURNING sequence_no
             """;
         
-        jdbcTemplate.update(sql, safeTenant(tenant), pagwId, stage, eventType, sequenceNo, durationMs, metadata);
+        long sequenceNo = insertEvent(sql, safeTenant(tenant), pagwId, stage, eventType, durationMs, metadata);
         
         log.info("Stage completed: pagwId={}, stage={}, eventType={}, duration={}ms, sequenceNo={}", 
                 pagwId, stage, eventType, durationMs, sequenceNo);
@@ -174,18 +208,26 @@ public class EventTrackerService {
     @Transactional
     public long logStageError(String pagwId, String tenant, String stage, String eventType, 
                               String errorCode, String errorMessage, boolean retryable, Instant nextRetryAt) {
-        long sequenceNo = getNextSequenceNo(pagwId);
+        if (writer != null) {
+            // Retries are scheduled from failure events, so they are never buffered and lost
+            Instant now = Instant.now();
+            return writer.writeDurable(event(pagwId, tenant, stage, eventType, EventTracker.STATUS_FAILURE)
+                    .retryable(retryable).nextRetryAt(nextRetryAt).errorCode(errorCode).errorMessage(errorMessage)
+                    .completedAt(now).createdAt(now).build());
+        }
+        
         int attempt = getCurrentAttempt(pagwId, stage, eventType);
         
         String sql = """
             INSERT INTO pagw.event_tracker (
                 tenant, pagw_id, stage, event_type, status,
-                sequence_no, attempt, retryable, next_retry_at,
+                attempt, retryable, next_retry_at,
                 error_code, error_message, completed_at, created_at
-            ) VALUES (?, ?, ?, ?, 'FAILURE', ?, ?, ?, ?, ?, ?, NOW(), NOW())
+            ) VALUES (?, ?, ?, ?, 'FAILURE', ?, ?, ?, ?, ?, NOW(), NOW())
+            RETURNING sequence_no
             """;
         
-        jdbcTemplate.update(sql, safeTenant(tenant), pagwId, stage, eventType, sequenceNo, attempt, retryable,
+        long sequenceNo = insertEvent(sql, safeTenant(tenant), pagwId, stage, eventType, attempt, retryable,
                 nextRetryAt != null ? Timestamp.from(nextRetryAt) : null, errorCode, errorMessage);
         
         log.error("Stage failed: pagwId={}, stage={}, eventType={}, errorCode={}, retryable={}, attempt={}, sequenceNo={}", 
@@ -202,21 +244,27 @@ public class EventTrackerService {
      * @param stage The pipeline stage
      * @param eventType The event type
      * @param attempt The retry attempt number
-     * @return The sequence number assigned to this event
+     * @return The sequence number assigned to this event (0 if it was buffered for the async writer)
      */
     @Transactional
     public long logRetryAttempt(String pagwId, String tenant, String stage, String eventType, int attempt) {
-        long sequenceNo = getNextSequenceNo(pagwId);
+        if (writer != null) {
+            Instant now = Instant.now();
+            writer.submit(event(pagwId, tenant, stage, eventType, EventTracker.STATUS_RETRY)
+                    .attempt(attempt).retryable(true).startedAt(now).createdAt(now).build());
+            return 0L;
+        }
         
         String sql = """
             INSERT INTO pagw.event_tracker (
                 tenant, pagw_id, stage, event_type, status,
-                sequence_no, attempt, retryable,
+                attempt, retryable,
                 started_at, created_at
-            ) VALUES (?, ?, ?, ?, 'RETRY', ?, ?, TRUE, NOW(), NOW())
+            ) VALUES (?, ?, ?, ?, 'RETRY', ?, TRUE, NOW(), NOW())
+            RETURNING sequence_no
             """;
         
-        jdbcTemplate.update(sql, safeTenant(tenant), pagwId, stage, eventType, sequenceNo, attempt);
+        long sequenceNo = insertEvent(sql, safeTenant(tenant), pagwId, stage, eventType, attempt);
         
         log.info("Retry attempt: pagwId={}, stage={}, eventType={}, attempt={}, sequenceNo={}", 
                 pagwId, stage, eventType, attempt, sequenceNo);
@@ -238,7 +286,7 @@ public class EventTrackerService {
                    metadata, started_at, completed_at, created_at
             FROM pagw.event_tracker
             WHERE pagw_id = ?
-            ORDER BY sequence_no ASC
+            ORDER BY created_at ASC, sequence_no ASC
             """;
         
         return jdbcTemplate.query(sql, this::mapEventTracker, pagwId);
@@ -281,22 +329,32 @@ public class EventTrackerService {
         jdbcTemplate.update(sql, workerId, eventId);
     }
     
+    private EventTracker.EventTrackerBuilder event(String pagwId, String tenant, String stage, String eventType,
+                                                   String status) {
+        return EventTracker.builder()
+                .tenant(safeTenant(tenant))
+                .pagwId(pagwId)
+                .stage(stage)
+                .eventType(eventType)
+                .status(status);
+    }
+    
     /**
-     * Get the next sequence number for a request.
-     * This ensures monotonic ordering of events.
+     * Insert an event and return its sequence number.
+     * sequence_no defaults to nextval('pagw.event_tracker_sequence_no_seq'), so numbers
+     * increase in insert order without reading the timeline first, and concurrent
+     * stages of one request never collide.
      * 
-     * @param pagwId The PAGW request ID
-     * @return The next sequence number
+     * @param sql INSERT ... RETURNING sequence_no
+     * @param args The statement parameters
+     * @return The sequence number assigned to the event
      */
-    private long getNextSequenceNo(String pagwId) {
-        String sql = """
-            SELECT COALESCE(MAX(sequence_no), 0) + 1
-            FROM pagw.event_tracker
-            WHERE pagw_id = ?
-            """;
-        
-        Long nextSeq = jdbcTemplate.queryForObject(sql, Long.class, pagwId);
-        return nextSeq != null ? nextSeq : 1L;
+    private long insertEvent(String sql, Object... args) {
+        Long sequenceNo = jdbcTemplate.queryForObject(sql, Long.class, args);
+        if (sequenceNo == null) {
+            throw new IllegalStateException("No sequence number returned for event insert");
+        }
+        return sequenceNo;
     }
     
     /**
@@ -0,0 +1,529 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.model.EventTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous event_tracker sink ({@code pagw.event-tracking.async-writes}): events go into a
+ * bounded buffer and a writer thread inserts them with one multi-row INSERT per batch, on its own
+ * connection. Listeners no longer wait for observability inserts, and a failed insert no longer
+ * fails their transaction.
+ *
+ * <ul>
+ *   <li>An event logged inside a transaction is buffered only once that transaction commits: it
+ *       references the request's rows (foreign key on pagw_id), which the writer's connection cannot
+ *       see before then. Events of a rolled-back transaction are discarded with it.</li>
+ *   <li>A batch is written at {@code flush-size} events or {@code flush-interval-ms} after its first
+ *       event, whichever comes first.</li>
+ *   <li>Each event's {@code created_at} is the time it was logged. Sequence numbers are drawn for
+ *       the whole batch when it is flushed and assigned in buffer order, so they can trail events
+ *       inserted directly in the meantime (other pods, transactions); timelines order by
+ *       {@code created_at} and use {@code sequence_no} only to break ties.</li>
+ *   <li>{@link #writeDurable} events (stage failures, which drive retries) flush the buffer at once
+ *       and wait for their batch. If it does not land within {@code durable-timeout-ms}, the caller
+ *       inserts the event itself. Inside a transaction they are inserted on the caller's connection
+ *       straight away, together with the events deferred before them, so the caller never waits on
+ *       the writer while holding a connection.</li>
+ *   <li>A full buffer applies {@code overflow}: SYNC inserts on the caller's thread, BLOCK waits up to
+ *       {@code offer-timeout-ms}, DROP discards the event. After a commit the caller's connection can
+ *       no longer be written to, so deferred events that find the buffer full are dropped under SYNC.</li>
+ *   <li>If a batch fails, its events are retried one at a time so one bad row (e.g. an unknown
+ *       pagwId) does not lose the others.</li>
+ * </ul>
+ *
+ * <p>Metrics: {@code pagw.events.writes.pending}, {@code pagw.events.writes{mode=batch|sync}},
+ * {@code pagw.events.writes.dropped{reason=overflow|failed}} and {@code pagw.events.flush} (latency).</p>
+ */
+public class EventTrackerWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventTrackerWriter.class);
+
+    private static final int QUEUED = 0;
+    private static final int TAKEN = 1;
+    private static final int CANCELLED = 2;
+
+    private static final String NEXT_SEQUENCE_NOS = """
+        SELECT nextval('pagw.event_tracker_sequence_no_seq')
+        FROM generate_series(1, ?)
+        """;
+
+    /** One row per array element; a NULL sequence_no or attempt is filled in by the database. */
+    private static final String INSERT_EVENTS = """
+        INSERT INTO pagw.event_tracker (
+            tenant, pagw_id, stage, event_type, status,
+            sequence_no, attempt, retryable, next_retry_at,
+            duration_ms, error_code, error_message,
+            started_at, completed_at, metadata, created_at
+        )
+        SELECT o.tenant, o.pagw_id, o.stage, o.event_type, o.status,
+               COALESCE(o.sequence_no::bigint, nextval('pagw.event_tracker_sequence_no_seq')),
+               COALESCE(o.attempt::int, (SELECT COALESCE(MAX(e.attempt), 0) + 1 FROM pagw.event_tracker e
+                                         WHERE e.pagw_id = o.pagw_id AND e.stage = o.stage AND e.event_type = o.event_type)),
+               o.retryable::boolean, o.next_retry_at::timestamptz,
+               o.duration_ms::bigint, o.error_code, o.error_message,
+               o.started_at::timestamptz, o.completed_at::timestamptz, o.metadata::jsonb, o.created_at::timestamptz
+        FROM unnest(?::text[], ?::text[], ?::text[], ?::text[], ?::text[],
+                    ?::text[], ?::text[], ?::text[], ?::text[],
+                    ?::text[], ?::text[], ?::text[],
+                    ?::text[], ?::text[], ?::text[], ?::text[])
+             WITH ORDINALITY AS o(tenant, pagw_id, stage, event_type, status,
+                                  sequence_no, attempt, retryable, next_retry_at,
+                                  duration_ms, error_code, error_message,
+                                  started_at, completed_at, metadata, created_at, n)
+        ORDER BY o.n
+        RETURNING sequence_no
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PagwProperties.EventTracking config;
+    private final Clock clock;
+    private final BlockingQueue<Pending> buffer;
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    private final Counter batchWrites;
+    private final Counter syncWrites;
+    private final Counter droppedOverflow;
+    private final Counter droppedFailed;
+    private final Timer flushTimer;
+
+    public EventTrackerWriter(JdbcTemplate jdbcTemplate, PagwProperties properties) {
+        this(jdbcTemplate, properties.getEventTracking(), new SimpleMeterRegistry(), Clock.systemUTC());
+    }
+
+    public EventTrackerWriter(JdbcTemplate jdbcTemplate, PagwProperties properties, MeterRegistry meterRegistry) {
+        this(jdbcTemplate, properties.getEventTracking(), meterRegistry, Clock.systemUTC());
+    }
+
+    EventTrackerWriter(JdbcTemplate jdbcTemplate, PagwProperties.EventTracking config,
+                       MeterRegistry meterRegistry, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.clock = clock;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, config.getBufferCapacity()));
+
+        this.batchWrites = writesCounter(meterRegistry, "batch");
+        this.syncWrites = writesCounter(meterRegistry, "sync");
+        this.droppedOverflow = droppedCounter(meterRegistry, "overflow");
+        this.droppedFailed = droppedCounter(meterRegistry, "failed");
+        this.flushTimer = Timer.builder("pagw.events.flush")
+                .description("Latency of one batched event_tracker INSERT")
+                .register(meterRegistry);
+        Gauge.builder("pagw.events.writes.pending", buffer, BlockingQueue::size)
+                .description("Events buffered for the next batch")
+                .register(meterRegistry);
+
+        this.writerThread = new Thread(this::run, "event-tracker-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Buffer an event for the next batch. Its sequence number is assigned when the batch is written.
+     *
+     * @param event The event; {@code attempt == null} counts failures of the same stage/event type
+     * @return false if the event was dropped
+     */
+    public boolean submit(EventTracker event) {
+        stamp(event);
+        if (inTransaction()) {
+            if (closed || (buffer.remainingCapacity() == 0
+                    && config.getOverflow() == PagwProperties.EventTracking.Overflow.SYNC)) {
+                writeInTransaction(event);
+            } else {
+                deferred().add(event);
+            }
+            return true;
+        }
+        if (closed) {
+            writeSync(event);
+            return true;
+        }
+        return enqueue(new Pending(event, false), true);
+    }
+
+    /**
+     * Buffer an event, applying the overflow policy if the buffer is full.
+     *
+     * @param mayWriteSync Whether SYNC overflow may insert on the caller's connection
+     * @return false if the event was dropped
+     */
+    private boolean enqueue(Pending pending, boolean mayWriteSync) {
+        EventTracker event = pending.event;
+        if (buffer.offer(pending)) {
+            return true;
+        }
+        switch (config.getOverflow()) {
+            case SYNC -> {
+                if (mayWriteSync) {
+                    writeSync(event);
+                    return true;
+                }
+            }
+            case BLOCK -> {
+                try {
+                    if (buffer.offer(pending, config.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            case DROP -> { }
+        }
+        droppedOverflow.increment();
+        log.warn("Event buffer full, dropped event: pagwId={}, stage={}, eventType={}",
+                event.getPagwId(), event.getStage(), event.getEventType());
+        return false;
+    }
+
+    /**
+     * Write an event that must not be lost: it is flushed at once, behind the events already
+     * buffered, and the caller waits for its batch. If the batch does not land in time, or the
+     * buffer is full, the event is inserted on the caller's thread instead. Inside a transaction
+     * it is inserted on the caller's connection at once and commits with the transaction.
+     *
+     * @return The sequence number assigned to the event
+     */
+    public long writeDurable(EventTracker event) {
+        stamp(event);
+        if (inTransaction()) {
+            return writeInTransaction(event);
+        }
+        Pending pending = new Pending(event, true);
+        if (closed || !buffer.offer(pending)) {
+            return writeSync(event);
+        }
+        try {
+            return pending.result.get(config.getDurableTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.state.compareAndSet(QUEUED, CANCELLED)) {
+                log.warn("Durable event not flushed within {}ms, writing it directly: pagwId={}, eventType={}",
+                        config.getDurableTimeoutMs(), event.getPagwId(), event.getEventType());
+                return writeSync(event);
+            }
+            // Already in a batch being written: wait for that batch rather than insert it twice
+            return awaitBatch(pending);
+        } catch (ExecutionException e) {
+            return writeSync(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return pending.state.compareAndSet(QUEUED, CANCELLED) ? writeSync(event) : 0L;
+        }
+    }
+
+    /**
+     * Write every buffered event now, on the caller's thread (shutdown; tests).
+     */
+    public void flush() {
+        List<Pending> batch = new ArrayList<>();
+        while (!buffer.isEmpty()) {
+            drain(batch, config.getFlushSize());
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Stop the writer thread and write what is still buffered. Events submitted afterwards are
+     * inserted on the caller's thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    int pendingCount() {
+        return buffer.size();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(config.getFlushSize());
+        while (!closed) {
+            try {
+                Pending first = buffer.poll(config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                boolean durable = add(batch, first);
+                // Linger for a fuller batch unless a durable event is waiting on this one
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+                while (!durable && batch.size() < config.getFlushSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? buffer.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    durable = add(batch, next) | drain(batch, config.getFlushSize() - batch.size());
+                }
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // close(): write what this thread holds; close() flushes the rest
+                write(batch);
+                batch.clear();
+            } catch (Exception e) {
+                log.error("Event writer loop failed", e);
+                // Durable callers waiting on these fall back to writing them themselves
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Move up to {@code max} queued events into {@code batch}.
+     *
+     * @return whether a durable event was among them
+     */
+    private boolean drain(List<Pending> batch, int max) {
+        boolean durable = false;
+        Pending pending;
+        while (max-- > 0 && (pending = buffer.poll()) != null) {
+            durable |= add(batch, pending);
+        }
+        return durable;
+    }
+
+    /** Add an event unless its caller took it back; returns whether it is durable. */
+    private boolean add(List<Pending> batch, Pending pending) {
+        if (!pending.take()) {
+            return false;
+        }
+        batch.add(pending);
+        return pending.durable;
+    }
+
+    private void write(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            List<EventTracker> events = batch.stream().map(p -> p.event).toList();
+            assignSequenceNos(events);
+            flushTimer.record(() -> insert(events));
+            batchWrites.increment(batch.size());
+            for (Pending pending : batch) {
+                pending.result.complete(pending.event.getSequenceNo());
+            }
+            log.debug("Wrote {} events in one batch", batch.size());
+        } catch (Exception e) {
+            log.warn("Batched insert of {} events failed, writing them one at a time", batch.size(), e);
+            for (Pending pending : batch) {
+                try {
+                    pending.event.setSequenceNo(null);
+                    long sequenceNo = insert(List.of(pending.event)).get(0);
+                    batchWrites.increment();
+                    pending.result.complete(sequenceNo);
+                } catch (Exception rowFailure) {
+                    droppedFailed.increment();
+                    log.error("Dropped event: pagwId={}, stage={}, eventType={}", pending.event.getPagwId(),
+                            pending.event.getStage(), pending.event.getEventType(), rowFailure);
+                    pending.result.completeExceptionally(rowFailure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert an event on the caller's connection, in its transaction, behind the events deferred
+     * earlier in that transaction, so their sequence numbers keep the order they were logged in
+     * (which breaks ties between equal {@code created_at} in a timeline).
+     */
+    private long writeInTransaction(EventTracker event) {
+        List<EventTracker> events = new ArrayList<>(deferred());
+        deferred().clear();
+        events.add(event);
+        assignSequenceNos(events);
+        insert(events);
+        syncWrites.increment(events.size());
+        return event.getSequenceNo();
+    }
+
+    /** Hand an event deferred to the end of its transaction to the writer thread. */
+    private void enqueueCommitted(EventTracker event) {
+        if (closed) {
+            droppedOverflow.increment();
+            log.warn("Event writer closed, dropped event: pagwId={}, stage={}, eventType={}",
+                    event.getPagwId(), event.getStage(), event.getEventType());
+            return;
+        }
+        enqueue(new Pending(event, false), false);
+    }
+
+    /**
+     * Events logged in the current transaction and not yet written, queued when it commits.
+     */
+    @SuppressWarnings("unchecked")
+    private List<EventTracker> deferred() {
+        List<EventTracker> events = (List<EventTracker>) TransactionSynchronizationManager.getResource(this);
+        if (events != null) {
+            return events;
+        }
+        List<EventTracker> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                created.forEach(EventTrackerWriter.this::enqueueCommitted);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(EventTrackerWriter.this);
+                if (status != STATUS_COMMITTED && !created.isEmpty()) {
+                    log.debug("Discarded {} events of a rolled-back transaction", created.size());
+                }
+            }
+        });
+        return created;
+    }
+
+    private static boolean inTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive();
+    }
+
+    /** Draw one sequence number per event, assigned in list order. */
+    private void assignSequenceNos(List<EventTracker> events) {
+        List<Long> sequenceNos = new ArrayList<>(jdbcTemplate.queryForList(NEXT_SEQUENCE_NOS, Long.class, events.size()));
+        sequenceNos.sort(null);
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setSequenceNo(sequenceNos.get(i));
+        }
+    }
+
+    /** Insert on the caller's thread and connection (overflow SYNC, durable fallback, after close). */
+    private long writeSync(EventTracker event) {
+        event.setSequenceNo(null);
+        long sequenceNo = insert(List.of(event)).get(0);
+        syncWrites.increment();
+        return sequenceNo;
+    }
+
+    private List<Long> insert(List<EventTracker> events) {
+        List<Long> sequenceNos = jdbcTemplate.query(con -> prepareInsert(con, events),
+                (rs, rowNum) -> rs.getLong(1));
+        if (sequenceNos.size() != events.size()) {
+            throw new IllegalStateException("Inserted " + sequenceNos.size() + " of " + events.size() + " events");
+        }
+        return sequenceNos;
+    }
+
+    private PreparedStatement prepareInsert(Connection con, List<EventTracker> events) throws SQLException {
+        int n = events.size();
+        String[][] columns = new String[16][n];
+        for (int row = 0; row < n; row++) {
+            EventTracker e = events.get(row);
+            columns[0][row] = e.getTenant();
+            columns[1][row] = e.getPagwId();
+            columns[2][row] = e.getStage();
+            columns[3][row] = e.getEventType();
+            columns[4][row] = e.getStatus();
+            columns[5][row] = text(e.getSequenceNo());
+            columns[6][row] = text(e.getAttempt());
+            columns[7][row] = String.valueOf(Boolean.TRUE.equals(e.getRetryable()));
+            columns[8][row] = text(e.getNextRetryAt());
+            columns[9][row] = text(e.getDurationMs());
+            columns[10][row] = e.getErrorCode();
+            columns[11][row] = e.getErrorMessage();
+            columns[12][row] = text(e.getStartedAt());
+            columns[13][row] = text(e.getCompletedAt());
+            columns[14][row] = e.getMetadata();
+            columns[15][row] = text(e.getCreatedAt());
+        }
+        PreparedStatement ps = con.prepareStatement(INSERT_EVENTS);
+        for (int i = 0; i < columns.length; i++) {
+            ps.setArray(i + 1, con.createArrayOf("text", columns[i]));
+        }
+        return ps;
+    }
+
+    /** Event time is when it was logged, not when its batch reached the database. */
+    private void stamp(EventTracker event) {
+        if (event.getCreatedAt() == null) {
+            event.setCreatedAt(clock.instant());
+        }
+    }
+
+    private long awaitBatch(Pending pending) {
+        try {
+            return pending.result.get();
+        } catch (ExecutionException e) {
+            return writeSync(pending.event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0L;
+        }
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static Counter writesCounter(MeterRegistry meterRegistry, String mode) {
+        return Counter.builder("pagw.events.writes")
+                .description("Events written to event_tracker")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("pagw.events.writes.dropped")
+                .description("Events that were never written to event_tracker")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A buffered event. The writer takes it (QUEUED to TAKEN) or a durable caller that gave up
+     * waiting takes it back (QUEUED to CANCELLED), never both.
+     */
+    private static final class Pending {
+        private final EventTracker event;
+        private final boolean durable;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        private Pending(EventTracker event, boolean durable) {
+            this.event = Objects.requireNonNull(event);
+            this.durable = durable;
+        }
+
+        private boolean take() {
+            return state.compareAndSet(QUEUED, TAKEN);
+        }
+    }
+}
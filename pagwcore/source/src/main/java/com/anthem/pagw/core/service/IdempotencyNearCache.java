@@ -0,0 +1,92 @@
+package com.anthem.pagw.core.service;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-process LRU of idempotency keys this instance has seen recently, in front of DynamoDB.
+ *
+ * <p>Only states that cannot change behind this instance's back for the entry's lifetime are
+ * answered locally: keys it acquired itself, completed keys (completion is final until the
+ * DynamoDB TTL expires) and, for a short time, keys known to have no result yet.</p>
+ */
+final class IdempotencyNearCache {
+
+    enum State {
+        /** Acquired by this instance and not completed yet. */
+        PROCESSING,
+        /** Completed; {@link Entry#result()} is the stored result. */
+        COMPLETED,
+        /** No completed result in DynamoDB when last checked (negative entry). */
+        ABSENT
+    }
+
+    /**
+     * @param service   Service that acquired the key ({@code null} unless acquired here)
+     * @param createdAt Epoch second the key was acquired (0 unless acquired here)
+     */
+    record Entry(State state, String result, String service, long createdAt, long expiresAt) {}
+
+    private final int maxEntries;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    IdempotencyNearCache(int maxEntries, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyNearCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return The live entry for {@code key}, or {@code null}
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() <= clock.millis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    synchronized void processing(String key, String service, long createdAt, long ttlMillis) {
+        put(key, new Entry(State.PROCESSING, null, service, createdAt, clock.millis() + ttlMillis));
+    }
+
+    /**
+     * Record a completed key, keeping the acquisition details of a {@link State#PROCESSING} entry.
+     *
+     * @return The entry that was replaced, or {@code null}
+     */
+    synchronized Entry completed(String key, String result, long ttlMillis) {
+        Entry previous = get(key);
+        put(key, previous != null
+                ? new Entry(State.COMPLETED, result, previous.service(), previous.createdAt(), clock.millis() + ttlMillis)
+                : new Entry(State.COMPLETED, result, null, 0, clock.millis() + ttlMillis));
+        return previous;
+    }
+
+    synchronized void absent(String key, long ttlMillis) {
+        put(key, new Entry(State.ABSENT, null, null, 0, clock.millis() + ttlMillis));
+    }
+
+    synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void put(String key, Entry entry) {
+        if (maxEntries > 0) {
+            entries.put(key, entry);
+        }
+    }
+}
@@ -1,63 +1,167 @@
 package com.anthem.pagw.core.service;
 
 import com.anthem.pagw.core.PagwProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
-import java.time.Instant;
-import java.util.HashMap;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Service for idempotency checking using DynamoDB.
+ * Service for idempotency checking using DynamoDB (the {@code dynamodb} {@link IdempotencyStore}).
  * Prevents duplicate processing of the same request.
  * Note: This service is created as a @Bean in PagwCoreAutoConfiguration
  * and is only available when DynamoDB is enabled.
+ *
+ * <p>With {@code pagw.aws.dynamodb.idempotency-cache.enabled}, an {@link IdempotencyNearCache}
+ * answers replays of keys this instance acquired or saw completed, and briefly remembers keys
+ * without a result, without calling DynamoDB. Completions of keys acquired here are written
+ * back through {@code BatchWriteItem} ({@code batch-writes}): other instances see them up to
+ * {@code max-linger-ms} later, and until then treat the key as still processing.</p>
+ *
+ * <p>Metrics: {@code pagw.idempotency.cache{result=hit|miss}}, {@code pagw.idempotency.dynamodb{operation}}
+ * (latency), {@code pagw.idempotency.writes.pending} and {@code pagw.idempotency.writes.failed}.</p>
  */
 @Slf4j
-public class IdempotencyService {
+public class IdempotencyService implements IdempotencyStore, AutoCloseable {
+
+    /** DynamoDB limit on items per BatchWriteItem. */
+    static final int MAX_BATCH_SIZE = 25;
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+
+    private static final String PK = "pk";
+    private static final AttributeValue STATUS_PROCESSING = AttributeValue.fromS("PROCESSING");
+    private static final AttributeValue STATUS_COMPLETED = AttributeValue.fromS("COMPLETED");
+    private static final AttributeValueUpdate STATUS_COMPLETED_UPDATE = AttributeValueUpdate.builder()
+            .value(STATUS_COMPLETED)
+            .action(AttributeAction.PUT)
+            .build();
 
     private final DynamoDbClient dynamoDbClient;
     private final String tableName;
     private final long ttlSeconds;
+    private final PagwProperties.IdempotencyCache cacheConfig;
+    private final Clock clock;
+    private final IdempotencyNearCache nearCache;
+    private final ScheduledExecutorService flushScheduler;
+    private final Map<String, WriteRequest> pendingWrites = new LinkedHashMap<>();
+    private final Object flushLock = new Object();
+    private ScheduledFuture<?> lingerTask;
+    private volatile boolean closed;
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter failedWrites;
+    private final Timer putItemTimer;
+    private final Timer getItemTimer;
+    private final Timer updateItemTimer;
+    private final Timer deleteItemTimer;
+    private final Timer batchWriteItemTimer;
 
     public IdempotencyService(DynamoDbClient dynamoDbClient, PagwProperties properties) {
-        this.dynamoDbClient = dynamoDbClient;
-        this.tableName = properties.getAws().getDynamodb() != null 
-            ? properties.getAws().getDynamodb().getIdempotencyTable() 
-            : "pagw-idempotency";
-        this.ttlSeconds = 86400; // 24 hours
+        this(dynamoDbClient, properties, new SimpleMeterRegistry());
+    }
+
+    public IdempotencyService(DynamoDbClient dynamoDbClient, PagwProperties properties, MeterRegistry meterRegistry) {
+        this(dynamoDbClient,
+                properties.getAws().getDynamodb() != null
+                        ? properties.getAws().getDynamodb().getIdempotencyTable()
+                        : "pagw-idempotency",
+                properties.getIdempotency().getTtlSeconds(),
+                properties.getAws().getDynamodb() != null
+                        ? properties.getAws().getDynamodb().getIdempotencyCache()
+                        : new PagwProperties.IdempotencyCache(),
+                meterRegistry, Clock.systemUTC());
     }
 
     public IdempotencyService(DynamoDbClient dynamoDbClient, String tableName, long ttlSeconds) {
+        this(dynamoDbClient, tableName, ttlSeconds, new PagwProperties.IdempotencyCache(),
+                new SimpleMeterRegistry(), Clock.systemUTC());
+    }
+
+    IdempotencyService(DynamoDbClient dynamoDbClient, String tableName, long ttlSeconds,
+                       PagwProperties.IdempotencyCache cacheConfig, MeterRegistry meterRegistry, Clock clock) {
         this.dynamoDbClient = dynamoDbClient;
         this.tableName = tableName;
         this.ttlSeconds = ttlSeconds;
+        this.cacheConfig = cacheConfig;
+        this.clock = clock;
+        this.nearCache = cacheConfig.isEnabled()
+                ? new IdempotencyNearCache(cacheConfig.getMaxEntries(), clock) : null;
+        this.flushScheduler = nearCache != null && cacheConfig.isBatchWrites()
+                ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "idempotency-batch-flush");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+
+        this.cacheHits = Counter.builder("pagw.idempotency.cache")
+                .description("Idempotency lookups by near-cache outcome")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("pagw.idempotency.cache")
+                .description("Idempotency lookups by near-cache outcome")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.failedWrites = Counter.builder("pagw.idempotency.writes.failed")
+                .description("Batched completion writes DynamoDB did not accept")
+                .register(meterRegistry);
+        this.putItemTimer = dynamoDbTimer(meterRegistry, "putItem");
+        this.getItemTimer = dynamoDbTimer(meterRegistry, "getItem");
+        this.updateItemTimer = dynamoDbTimer(meterRegistry, "updateItem");
+        this.deleteItemTimer = dynamoDbTimer(meterRegistry, "deleteItem");
+        this.batchWriteItemTimer = dynamoDbTimer(meterRegistry, "batchWriteItem");
+        Gauge.builder("pagw.idempotency.writes.pending", this, IdempotencyService::pendingWriteCount)
+                .description("Completion writes buffered for the next BatchWriteItem")
+                .register(meterRegistry);
     }
 
     /**
      * Try to acquire a lock for processing. Returns true if this is a new request.
      */
+    @Override
     public boolean tryAcquire(String idempotencyKey, String serviceName) {
+        IdempotencyNearCache.Entry cached = nearCache != null ? nearCache.get(idempotencyKey) : null;
+        if (cached != null && cached.state() != IdempotencyNearCache.State.ABSENT) {
+            cacheHits.increment();
+            log.debug("Idempotency key already {} (near-cache): {}", cached.state(), idempotencyKey);
+            return false;
+        }
+        cacheMisses.increment();
+
         try {
-            long now = Instant.now().getEpochSecond();
+            long now = clock.instant().getEpochSecond();
             long ttl = now + ttlSeconds;
 
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put("pk", AttributeValue.builder().s(idempotencyKey).build());
-            item.put("service", AttributeValue.builder().s(serviceName).build());
-            item.put("status", AttributeValue.builder().s("PROCESSING").build());
-            item.put("createdAt", AttributeValue.builder().n(String.valueOf(now)).build());
-            item.put("ttl", AttributeValue.builder().n(String.valueOf(ttl)).build());
-
             PutItemRequest request = PutItemRequest.builder()
                     .tableName(tableName)
-                    .item(item)
+                    .item(Map.of(
+                            PK, AttributeValue.fromS(idempotencyKey),
+                            "service", AttributeValue.fromS(serviceName),
+                            "status", STATUS_PROCESSING,
+                            "createdAt", AttributeValue.fromN(String.valueOf(now)),
+                            "ttl", AttributeValue.fromN(String.valueOf(ttl))))
                     .conditionExpression("attribute_not_exists(pk)")
                     .build();
 
-            dynamoDbClient.putItem(request);
+            putItemTimer.record(() -> dynamoDbClient.putItem(request));
+            if (nearCache != null) {
+                nearCache.processing(idempotencyKey, serviceName, now, cacheTtlMillis());
+            }
             log.debug("Acquired idempotency lock for: {}", idempotencyKey);
             return true;
         } catch (ConditionalCheckFailedException e) {
@@ -73,32 +177,33 @@ public class IdempotencyService {
     /**
      * Mark the request as completed successfully.
      */
+    @Override
     public void markCompleted(String idempotencyKey, String result) {
-        try {
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("pk", AttributeValue.builder().s(idempotencyKey).build());
-
-            Map<String, AttributeValueUpdate> updates = new HashMap<>();
-            updates.put("status", AttributeValueUpdate.builder()
-                    .value(AttributeValue.builder().s("COMPLETED").build())
-                    .action(AttributeAction.PUT)
-                    .build());
-            updates.put("result", AttributeValueUpdate.builder()
-                    .value(AttributeValue.builder().s(result).build())
-                    .action(AttributeAction.PUT)
-                    .build());
-            updates.put("completedAt", AttributeValueUpdate.builder()
-                    .value(AttributeValue.builder().n(String.valueOf(Instant.now().getEpochSecond())).build())
-                    .action(AttributeAction.PUT)
-                    .build());
+        IdempotencyNearCache.Entry acquired = nearCache != null
+                ? nearCache.completed(idempotencyKey, result, cacheTtlMillis()) : null;
+        if (flushScheduler != null && !closed && acquired != null && acquired.service() != null) {
+            // Acquired here: the whole item is known, so it can go through BatchWriteItem as a put
+            enqueue(idempotencyKey, completedItem(idempotencyKey, result, acquired));
+            return;
+        }
 
+        try {
             UpdateItemRequest request = UpdateItemRequest.builder()
                     .tableName(tableName)
-                    .key(key)
-                    .attributeUpdates(updates)
+                    .key(Map.of(PK, AttributeValue.fromS(idempotencyKey)))
+                    .attributeUpdates(Map.of(
+                            "status", STATUS_COMPLETED_UPDATE,
+                            "result", AttributeValueUpdate.builder()
+                                    .value(AttributeValue.fromS(result))
+                                    .action(AttributeAction.PUT)
+                                    .build(),
+                            "completedAt", AttributeValueUpdate.builder()
+                                    .value(AttributeValue.fromN(String.valueOf(clock.instant().getEpochSecond())))
+                                    .action(AttributeAction.PUT)
+                                    .build()))
                     .build();
 
-            dynamoDbClient.updateItem(request);
+            updateItemTimer.record(() -> dynamoDbClient.updateItem(request));
             log.debug("Marked idempotency key as completed: {}", idempotencyKey);
         } catch (Exception e) {
             log.error("Failed to mark idempotency key as completed: {}", idempotencyKey, e);
@@ -108,17 +213,25 @@ public class IdempotencyService {
     /**
      * Mark the request as failed (allows retry).
      */
+    @Override
     public void markFailed(String idempotencyKey, String error) {
-        try {
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("pk", AttributeValue.builder().s(idempotencyKey).build());
+        if (nearCache != null) {
+            nearCache.remove(idempotencyKey);
+        }
+        // Drop a buffered completion and wait out an in-flight batch, so the delete is not overtaken
+        synchronized (flushLock) {
+            synchronized (pendingWrites) {
+                pendingWrites.remove(idempotencyKey);
+            }
+        }
 
+        try {
             DeleteItemRequest request = DeleteItemRequest.builder()
                     .tableName(tableName)
-                    .key(key)
+                    .key(Map.of(PK, AttributeValue.fromS(idempotencyKey)))
                     .build();
 
-            dynamoDbClient.deleteItem(request);
+            deleteItemTimer.record(() -> dynamoDbClient.deleteItem(request));
             log.debug("Removed failed idempotency key (allowing retry): {}", idempotencyKey);
         } catch (Exception e) {
             log.error("Failed to remove idempotency key: {}", idempotencyKey, e);
@@ -128,19 +241,44 @@ public class IdempotencyService {
     /**
      * Get the result of a previously completed request.
      */
+    @Override
     public String getResult(String idempotencyKey) {
-        try {
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("pk", AttributeValue.builder().s(idempotencyKey).build());
+        return getResult(idempotencyKey, true);
+    }
+
+    /**
+     * Get the result of a completed request, answering from the near-cache only if it holds the
+     * result: a remembered miss would hide another instance's completion for {@code negative-ttl-ms}.
+     */
+    @Override
+    public String pollResult(String idempotencyKey) {
+        return getResult(idempotencyKey, false);
+    }
+
+    private String getResult(String idempotencyKey, boolean trustMisses) {
+        IdempotencyNearCache.Entry cached = nearCache != null ? nearCache.get(idempotencyKey) : null;
+        if (cached != null && (trustMisses || cached.result() != null)) {
+            cacheHits.increment();
+            return cached.result();
+        }
+        cacheMisses.increment();
 
+        try {
             GetItemRequest request = GetItemRequest.builder()
                     .tableName(tableName)
-                    .key(key)
+                    .key(Map.of(PK, AttributeValue.fromS(idempotencyKey)))
                     .build();
 
-            GetItemResponse response = dynamoDbClient.getItem(request);
+            GetItemResponse response = getItemTimer.record(() -> dynamoDbClient.getItem(request));
             if (response.hasItem() && response.item().containsKey("result")) {
-                return response.item().get("result").s();
+                String result = response.item().get("result").s();
+                if (nearCache != null) {
+                    nearCache.completed(idempotencyKey, result, cacheTtlMillis());
+                }
+                return result;
+            }
+            if (nearCache != null && trustMisses) {
+                nearCache.absent(idempotencyKey, cacheConfig.getNegativeTtlMs());
             }
             return null;
         } catch (Exception e) {
@@ -150,16 +288,106 @@ public class IdempotencyService {
     }
 
     /**
-     * Check and set idempotency key (backwards compatibility alias for tryAcquire).
+     * Write every buffered completion now (shutdown; tests).
      */
-    public boolean checkAndSet(String idempotencyKey) {
-        return tryAcquire(idempotencyKey, "unknown");
+    public void flush() {
+        synchronized (flushLock) {
+            List<WriteRequest> batch;
+            synchronized (pendingWrites) {
+                if (lingerTask != null) {
+                    lingerTask.cancel(false);
+                    lingerTask = null;
+                }
+                batch = new ArrayList<>(pendingWrites.values());
+                pendingWrites.clear();
+            }
+            for (int from = 0; from < batch.size(); from += MAX_BATCH_SIZE) {
+                writeBatch(batch.subList(from, Math.min(from + MAX_BATCH_SIZE, batch.size())));
+            }
+        }
     }
 
-    /**
-     * Remove idempotency key (backwards compatibility alias for markFailed).
-     */
-    public void remove(String idempotencyKey) {
-        markFailed(idempotencyKey, "removed");
+    @Override
+    public void close() {
+        closed = true;
+        if (flushScheduler != null) {
+            flushScheduler.shutdown();
+        }
+        flush();
+    }
+
+    private void enqueue(String idempotencyKey, Map<String, AttributeValue> item) {
+        WriteRequest write = WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(item).build())
+                .build();
+        synchronized (pendingWrites) {
+            pendingWrites.put(idempotencyKey, write);
+            if (pendingWrites.size() >= MAX_BATCH_SIZE || cacheConfig.getMaxLingerMs() <= 0) {
+                flushScheduler.execute(this::flush);
+            } else if (lingerTask == null) {
+                lingerTask = flushScheduler.schedule(this::flush, cacheConfig.getMaxLingerMs(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void writeBatch(List<WriteRequest> writes) {
+        Map<String, List<WriteRequest>> unprocessed = Map.of(tableName, List.copyOf(writes));
+        for (int attempt = 1; ; attempt++) {
+            BatchWriteItemRequest request = BatchWriteItemRequest.builder().requestItems(unprocessed).build();
+            try {
+                unprocessed = batchWriteItemTimer.record(() -> dynamoDbClient.batchWriteItem(request)).unprocessedItems();
+            } catch (Exception e) {
+                log.error("Failed to write {} idempotency completions", request.requestItems().get(tableName).size(), e);
+                failedWrites.increment(request.requestItems().get(tableName).size());
+                return;
+            }
+            int remaining = unprocessed.getOrDefault(tableName, List.of()).size();
+            if (remaining == 0) {
+                log.debug("Wrote {} idempotency completions in one batch", writes.size());
+                return;
+            }
+            if (attempt >= MAX_BATCH_ATTEMPTS) {
+                log.error("DynamoDB left {} idempotency completions unprocessed after {} attempts", remaining, attempt);
+                failedWrites.increment(remaining);
+                return;
+            }
+            try {
+                // Unprocessed items mean the table is throttling: back off before retrying them
+                Thread.sleep(25L << attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedWrites.increment(remaining);
+                return;
+            }
+        }
+    }
+
+    private Map<String, AttributeValue> completedItem(String idempotencyKey, String result,
+                                                      IdempotencyNearCache.Entry acquired) {
+        return Map.of(
+                PK, AttributeValue.fromS(idempotencyKey),
+                "service", AttributeValue.fromS(acquired.service()),
+                "status", STATUS_COMPLETED,
+                "result", AttributeValue.fromS(result),
+                "createdAt", AttributeValue.fromN(String.valueOf(acquired.createdAt())),
+                "completedAt", AttributeValue.fromN(String.valueOf(clock.instant().getEpochSecond())),
+                "ttl", AttributeValue.fromN(String.valueOf(acquired.createdAt() + ttlSeconds)));
+    }
+
+    private long cacheTtlMillis() {
+        return cacheConfig.getTtlSeconds() * 1000;
+    }
+
+    private int pendingWriteCount() {
+        synchronized (pendingWrites) {
+            return pendingWrites.size();
+        }
+    }
+
+    private static Timer dynamoDbTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("pagw.idempotency.dynamodb")
+                .description("DynamoDB call latency of the idempotency store")
+                .tag("operation", operation)
+                .register(meterRegistry);
     }
 }
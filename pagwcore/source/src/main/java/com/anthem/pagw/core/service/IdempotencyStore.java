@@ -0,0 +1,68 @@
+package com.anthem.pagw.core.service;
+
+/**
+ * Storage for idempotency keys, selected with {@code pagw.idempotency.store}:
+ *
+ * <ul>
+ *   <li>{@code dynamodb} - {@link IdempotencyService} (default; needs {@code pagw.aws.dynamodb.enabled}).
+ *       Fails open when DynamoDB is unavailable.</li>
+ *   <li>{@code postgres} - {@link PostgresIdempotencyStore}: the key is written on the caller's
+ *       connection ({@link #joinsCallerTransaction}); acquired inside the request's transaction it
+ *       commits or rolls back with the request tracker row.</li>
+ *   <li>{@code memory} - {@link InMemoryIdempotencyStore}: single instance only (local, tests).</li>
+ *   <li>{@code none} - no store; callers skip the check.</li>
+ * </ul>
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Try to acquire a lock for processing. Returns true if this is a new request.
+     */
+    boolean tryAcquire(String idempotencyKey, String serviceName);
+
+    /**
+     * Whether keys are written on the caller's connection and so join its transaction. Callers
+     * should then acquire inside the transaction that writes the request: acquired on its own,
+     * the key autocommits and outlives a crash before the request is stored.
+     */
+    default boolean joinsCallerTransaction() {
+        return false;
+    }
+
+    /**
+     * Mark the request as completed successfully.
+     */
+    void markCompleted(String idempotencyKey, String result);
+
+    /**
+     * Mark the request as failed (allows retry).
+     */
+    void markFailed(String idempotencyKey, String error);
+
+    /**
+     * Get the result of a previously completed request, or {@code null}.
+     */
+    String getResult(String idempotencyKey);
+
+    /**
+     * {@link #getResult} for callers polling until another instance completes the key:
+     * a cached "no result yet" is not trusted, so a completion is seen on the next call.
+     */
+    default String pollResult(String idempotencyKey) {
+        return getResult(idempotencyKey);
+    }
+
+    /**
+     * Check and set idempotency key (backwards compatibility alias for tryAcquire).
+     */
+    default boolean checkAndSet(String idempotencyKey) {
+        return tryAcquire(idempotencyKey, "unknown");
+    }
+
+    /**
+     * Remove idempotency key (backwards compatibility alias for markFailed).
+     */
+    default void remove(String idempotencyKey) {
+        markFailed(idempotencyKey, "removed");
+    }
+}
@@ -0,0 +1,65 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-local {@link IdempotencyStore} for local runs and tests. Keys are not shared between
+ * instances and are lost on restart, so it must not back a multi-instance deployment.
+ */
+@Slf4j
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private record Entry(boolean completed, String result, long expiresAt) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final Clock clock;
+
+    public InMemoryIdempotencyStore(PagwProperties properties) {
+        this(properties.getIdempotency().getTtlSeconds() * 1000, Clock.systemUTC());
+    }
+
+    InMemoryIdempotencyStore(long ttlMillis, Clock clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String idempotencyKey, String serviceName) {
+        long now = clock.millis();
+        Entry processing = new Entry(false, null, now + ttlMillis);
+        Entry current = entries.compute(idempotencyKey,
+                (key, existing) -> existing == null || existing.expiresAt() <= now ? processing : existing);
+        boolean acquired = current == processing;
+        log.debug("Idempotency key {}: {}", acquired ? "acquired" : "already exists", idempotencyKey);
+        return acquired;
+    }
+
+    @Override
+    public void markCompleted(String idempotencyKey, String result) {
+        entries.computeIfPresent(idempotencyKey,
+                (key, existing) -> new Entry(true, result, existing.expiresAt()));
+    }
+
+    @Override
+    public void markFailed(String idempotencyKey, String error) {
+        entries.remove(idempotencyKey);
+    }
+
+    @Override
+    public String getResult(String idempotencyKey) {
+        Entry entry = entries.get(idempotencyKey);
+        return entry != null && entry.completed() && entry.expiresAt() > clock.millis() ? entry.result() : null;
+    }
+
+    /** Drop expired keys (the map is otherwise only pruned when a key is re-acquired). */
+    public void evictExpired() {
+        long now = clock.millis();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+    }
+}
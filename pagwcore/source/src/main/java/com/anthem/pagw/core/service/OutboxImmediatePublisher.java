@@ -0,0 +1,205 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.model.EventTracker;
+import com.anthem.pagw.core.model.OutboxEntry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Post-commit fast path for the transactional outbox.
+ *
+ * <p>{@link OutboxService#writeOutbox} publishes an {@link OutboxService.OutboxEntryWritten}
+ * event; this component receives it only after the surrounding transaction has committed
+ * and immediately sends the message to SQS, so a stage hop does not wait for the next
+ * poll of the scheduled outbox publisher.</p>
+ *
+ * <p>The listener thread never waits for SQS:</p>
+ * <ul>
+ *   <li>The row is claimed (IN_FLIGHT, {@code pagw.outbox.claim-ttl-ms} lease) in a short
+ *       transaction with {@code FOR UPDATE SKIP LOCKED}; if the publisher already holds it, the fast path skips it.
+ *       Every statement keys on {@code (id, created_at)}, so it touches only the row's daily partition</li>
+ *   <li>The message goes through {@link SqsAsyncService}, which merges concurrent sends to the
+ *       same queue into batch calls</li>
+ *   <li>On completion a small executor marks the row COMPLETED, or releases the claim back to
+ *       PENDING on failure so the scheduled publisher sweeps it after {@code pagw.outbox.sweep-grace-ms}</li>
+ *   <li>If the pod dies mid-send, the publisher's reaper requeues the expired claim</li>
+ * </ul>
+ */
+@Component
+public class OutboxImmediatePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxImmediatePublisher.class);
+    private static final int COMPLETION_THREADS = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqsService sqsService;
+    private final SqsAsyncService sqsAsyncService;
+    private final EventTrackerService eventTrackerService;
+    private final PagwProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor completionExecutor;
+    private final String claimOwner;
+    private final Map<String, String> queueUrlCache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OutboxImmediatePublisher(
+            JdbcTemplate jdbcTemplate,
+            SqsService sqsService,
+            SqsAsyncService sqsAsyncService,
+            EventTrackerService eventTrackerService,
+            PagwProperties properties,
+            PlatformTransactionManager transactionManager) {
+        this(jdbcTemplate, sqsService, sqsAsyncService, eventTrackerService, properties, transactionManager,
+                Executors.newFixedThreadPool(COMPLETION_THREADS, runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-immediate-complete");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    OutboxImmediatePublisher(
+            JdbcTemplate jdbcTemplate,
+            SqsService sqsService,
+            SqsAsyncService sqsAsyncService,
+            EventTrackerService eventTrackerService,
+            PagwProperties properties,
+            PlatformTransactionManager transactionManager,
+            Executor completionExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqsService = sqsService;
+        this.sqsAsyncService = sqsAsyncService;
+        this.eventTrackerService = eventTrackerService;
+        this.properties = properties;
+        // The committed transaction's resources are still bound in afterCommit - always use a new one
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.completionExecutor = completionExecutor;
+        this.claimOwner = properties.getApplicationId() + "/immediate";
+    }
+
+    /**
+     * Claim an outbox entry after its transaction committed and hand it to the async sender.
+     * Failures are logged only; the scheduled publisher is the safety net.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOutboxEntryWritten(OutboxService.OutboxEntryWritten event) {
+        if (!properties.getOutbox().isImmediatePublish()) {
+            return;
+        }
+
+        OutboxEntry entry = event.entry();
+        long startTime = System.currentTimeMillis();
+
+        try {
+            // Skip if the scheduled publisher already picked the row up
+            Integer claimed = transactionTemplate.execute(status -> jdbcTemplate.update("""
+                UPDATE outbox
+                SET status = 'IN_FLIGHT', claimed_by = ?, claim_expires_at = NOW() + (? * INTERVAL '1 millisecond')
+                WHERE (id, created_at) IN (
+                    SELECT id, created_at FROM outbox
+                    WHERE id = ?::uuid AND created_at = ? AND status = 'PENDING'
+                    FOR UPDATE SKIP LOCKED
+                )
+                """, claimOwner, properties.getOutbox().getClaimTtlMs(), entry.getId().toString(), createdAt(entry)));
+            if (claimed == null || claimed == 0) {
+                return;
+            }
+
+            // Send the stored payload as-is: it is already encoded (claim-check pointer for oversized messages)
+            String queueUrl = resolveQueueUrl(entry.getDestinationQueue());
+            sqsAsyncService.sendRawMessage(queueUrl, entry.getPayload(), entry.getMessageGroupId(), entry.getMessageId())
+                    .whenCompleteAsync((messageId, error) -> {
+                        if (error == null) {
+                            onPublished(event, startTime);
+                        } else {
+                            onPublishFailed(entry, error);
+                        }
+                    }, completionExecutor);
+        } catch (Exception e) {
+            onPublishFailed(entry, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (completionExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private void onPublished(OutboxService.OutboxEntryWritten event, long startTime) {
+        OutboxEntry entry = event.entry();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("""
+                UPDATE outbox SET status = 'COMPLETED', processed_at = NOW(), published_at = NOW(),
+                    claimed_by = NULL, claim_expires_at = NULL
+                WHERE id = ?::uuid AND created_at = ? AND status = 'IN_FLIGHT' AND claimed_by = ?
+                """, entry.getId().toString(), createdAt(entry), claimOwner));
+            log.debug("Outbox entry published immediately: id={}, destinationQueue={}", entry.getId(), entry.getDestinationQueue());
+        } catch (Exception e) {
+            // Sent but not marked: the reaper requeues the claim and the FIFO deduplication ID absorbs the re-send
+            log.warn("Failed to complete immediately published outbox entry: id={}, error={}", entry.getId(), e.getMessage());
+            return;
+        }
+
+        // Event tracking: PUBLISH_OK - separate transaction so a tracking failure never causes a re-send
+        try {
+            long duration = System.currentTimeMillis() - startTime;
+            String metadata = String.format("{\"destinationQueue\":\"%s\",\"retryCount\":0,\"path\":\"immediate\"}",
+                    entry.getDestinationQueue());
+            transactionTemplate.executeWithoutResult(status -> eventTrackerService.logStageComplete(
+                    entry.getAggregateId(), event.message().getTenant(),
+                    "OUTBOX_PUBLISHER", EventTracker.EVENT_PUBLISH_OK, duration, metadata));
+        } catch (Exception e) {
+            log.warn("Failed to log PUBLISH_OK for immediate publish: id={}, error={}", entry.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Release the claim so the scheduled publisher picks the entry up without waiting for the lease to expire.
+     */
+    private void onPublishFailed(OutboxEntry entry, Throwable error) {
+        log.warn("Immediate outbox publish failed, leaving for scheduled publisher: id={}, destinationQueue={}, error={}",
+                entry.getId(), entry.getDestinationQueue(), error.getMessage());
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("""
+                UPDATE outbox SET status = 'PENDING', claimed_by = NULL, claim_expires_at = NULL
+                WHERE id = ?::uuid AND created_at = ? AND status = 'IN_FLIGHT' AND claimed_by = ?
+                """, entry.getId().toString(), createdAt(entry), claimOwner));
+        } catch (Exception e) {
+            log.warn("Failed to release outbox claim, reaper will requeue it: id={}, error={}", entry.getId(), e.getMessage());
+        }
+    }
+
+    /** The entry's partition key: OutboxService inserts created_at from the entry. */
+    private static Timestamp createdAt(OutboxEntry entry) {
+        return Timestamp.from(entry.getCreatedAt());
+    }
+
+    /**
+     * Use full queue URLs directly; resolve queue names once via SQS and cache them.
+     */
+    private String resolveQueueUrl(String destinationQueue) {
+        if (destinationQueue != null && (destinationQueue.startsWith("http://") || destinationQueue.startsWith("https://"))) {
+            return destinationQueue;
+        }
+        return queueUrlCache.computeIfAbsent(destinationQueue, sqsService::getQueueUrl);
+    }
+}
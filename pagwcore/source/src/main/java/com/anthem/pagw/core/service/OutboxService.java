@@ -1,22 +1,42 @@
 package com.anthem.pagw.core.service;
 
+import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.OutboxEntry;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * Outbox Service for transactional outbox pattern.
  * Ensures atomic DB updates + event publishing.
+ * 
+ * <p>Entries are published on two paths:</p>
+ * <ul>
+ *   <li>Fast path: {@link OutboxImmediatePublisher} sends each entry right after the
+ *       writing transaction commits ({@code pagw.outbox.immediate-publish})</li>
+ *   <li>Safety net: the scheduled outbox publisher sweeps PENDING entries older than
+ *       {@code pagw.outbox.sweep-grace-ms}, e.g. after a crash between commit and send</li>
+ *   <li>Retry lane: FAILED entries are retried once {@code next_retry_at} has passed and
+ *       parked in pagw.outbox_parked after {@code pagw.outbox.max-retries}</li>
+ * </ul>
+ * 
+ * <p>pagw.outbox is range-partitioned by day on created_at; the statements here do not
+ * name partitions, and writeOutbox must keep setting created_at to the current time.</p>
  */
 @Service
 public class OutboxService {
@@ -24,9 +44,16 @@ public class OutboxService {
     private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
     
     private final JdbcTemplate jdbcTemplate;
+    private final PagwProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PagwMessageCodec messageCodec;
     
-    public OutboxService(JdbcTemplate jdbcTemplate) {
+    public OutboxService(JdbcTemplate jdbcTemplate, PagwProperties properties, ApplicationEventPublisher eventPublisher,
+                         PagwMessageCodec messageCodec) {
         this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.messageCodec = messageCodec;
     }
     
     /**
@@ -39,41 +66,75 @@ public class OutboxService {
      */
     @Transactional
     public OutboxEntry writeOutbox(String destinationQueue, PagwMessage message) {
-        UUID id = UUID.randomUUID();
-        String payload = JsonUtils.toJson(message);
+        OutboxEntry entry = newEntry(destinationQueue, message);
         
         String sql = """
-            INSERT INTO outbox (id, aggregate_type, aggregate_id, event_type, payload, destination_queue, status, retry_count, created_at)
-            VALUES (?::uuid, ?, ?, ?, ?::jsonb, ?, 'PENDING', 0, NOW())
+            INSERT INTO outbox (id, aggregate_type, aggregate_id, event_type, payload, destination_queue, status, retry_count, created_at,
+                                tenant, pagw_id, message_id, message_group_id)
+            VALUES (?::uuid, ?, ?, ?, ?::jsonb, ?, 'PENDING', 0, ?, ?, ?, ?, ?)
             """;
         
         jdbcTemplate.update(sql, 
-                id.toString(),
-                "PagwMessage",
-                message.getPagwId(),
-                message.getStage(),
-                payload,
-                destinationQueue
+                entry.getId().toString(),
+                entry.getAggregateType(),
+                entry.getAggregateId(),
+                entry.getEventType(),
+                entry.getPayload(),
+                entry.getDestinationQueue(),
+                Timestamp.from(entry.getCreatedAt()),
+                entry.getTenant(),
+                entry.getPagwId(),
+                entry.getMessageId(),
+                entry.getMessageGroupId()
         );
         
-        log.info("Outbox entry created: id={}, destinationQueue={}, pagwId={}", id, destinationQueue, message.getPagwId());
+        entryWritten(entry, message);
+        return entry;
+    }
+    
+    /**
+     * Build the row {@link #writeOutbox} inserts, without touching the database.
+     * Shared with {@link StageTransitionService}, which inserts it as part of a larger statement.
+     */
+    OutboxEntry newEntry(String destinationQueue, PagwMessage message) {
+        // Stored exactly as sent: oversized messages become an S3 claim-check pointer here
+        String payload = messageCodec.encode(message);
         
         return OutboxEntry.builder()
-                .id(id)
+                .id(UUID.randomUUID())
                 .aggregateType("PagwMessage")
                 .aggregateId(message.getPagwId())
                 .eventType(message.getStage())
                 .payload(payload)
                 .destinationQueue(destinationQueue)
+                .tenant(resolveTenant(message))
+                .pagwId(message.getPagwId())
+                .messageId(message.getMessageId())
+                .messageGroupId(message.getPagwId())
                 .status(OutboxEntry.OutboxStatus.PENDING)
                 .retryCount(0)
-                .createdAt(Instant.now())
+                // Inserted as created_at (microsecond column), so the fast path can key on it
+                .createdAt(Instant.now().truncatedTo(ChronoUnit.MICROS))
                 .build();
     }
     
+    /**
+     * Log an inserted entry and hand it to the post-commit fast path.
+     */
+    void entryWritten(OutboxEntry entry, PagwMessage message) {
+        log.info("Outbox entry created: id={}, destinationQueue={}, pagwId={}",
+                entry.getId(), entry.getDestinationQueue(), entry.getPagwId());
+        
+        // Delivered to OutboxImmediatePublisher only after the surrounding transaction commits
+        eventPublisher.publishEvent(new OutboxEntryWritten(entry, message));
+    }
+    
     /**
      * Fetch unpublished outbox entries for processing.
      * Uses FOR UPDATE SKIP LOCKED for concurrency safety.
+     * Entries younger than {@code pagw.outbox.sweep-grace-ms} are left to the post-commit fast path.
+     * The row locks end with this method's transaction; publishers that send after
+     * returning should use {@link #claimUnpublished(int, String, long)} instead.
      * 
      * @param limit Maximum entries to fetch
      * @return List of unpublished entries
@@ -81,34 +142,205 @@ public class OutboxService {
     @Transactional
     public List<OutboxEntry> fetchUnpublished(int limit) {
         String sql = """
-            SELECT id, aggregate_type, aggregate_id, event_type, payload, destination_queue, status, retry_count, last_error, created_at
+            SELECT id, aggregate_type, aggregate_id, event_type, payload, destination_queue, status, retry_count, last_error, created_at,
+                   tenant, pagw_id, message_id, message_group_id
+            FROM outbox
+            WHERE status = 'PENDING'
+              AND created_at < NOW() - (? * INTERVAL '1 millisecond')
+            ORDER BY created_at ASC
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+        
+        return jdbcTemplate.query(sql, this::mapOutboxEntry, getSweepGraceMs(), limit);
+    }
+    
+    /**
+     * Fetch unpublished outbox entries belonging to the given hash partitions.
+     * An entry's partition is derived from its aggregate_id (pagwId), so every
+     * message for one request always lands on the same partition and keeps its order.
+     * 
+     * @param limit Maximum entries to fetch
+     * @param partitionCount Total number of partitions
+     * @param partitions Partition numbers owned by the caller
+     * @return List of unpublished entries in the given partitions
+     */
+    @Transactional
+    public List<OutboxEntry> fetchUnpublished(int limit, int partitionCount, List<Integer> partitions) {
+        if (partitions == null || partitions.isEmpty()) {
+            return List.of();
+        }
+        
+        String sql = """
+            SELECT id, aggregate_type, aggregate_id, event_type, payload, destination_queue, status, retry_count, last_error, created_at,
+                   tenant, pagw_id, message_id, message_group_id
             FROM outbox
             WHERE status = 'PENDING'
+              AND mod(abs(hashtext(aggregate_id)::bigint), ?) = ANY(?)
+              AND created_at < NOW() - (? * INTERVAL '1 millisecond')
             ORDER BY created_at ASC
             LIMIT ?
             FOR UPDATE SKIP LOCKED
             """;
         
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            OutboxEntry entry = OutboxEntry.builder()
-                    .id(UUID.fromString(rs.getString("id")))
-                    .aggregateType(rs.getString("aggregate_type"))
-                    .aggregateId(rs.getString("aggregate_id"))
-                    .eventType(rs.getString("event_type"))
-                    .payload(rs.getString("payload"))
-                    .destinationQueue(rs.getString("destination_queue"))
-                    .status(OutboxEntry.OutboxStatus.valueOf(rs.getString("status")))
-                    .retryCount(rs.getInt("retry_count"))
-                    .lastError(rs.getString("last_error"))
-                    .build();
-            
-            Timestamp ts = rs.getTimestamp("created_at");
-            if (ts != null) {
-                entry.setCreatedAt(ts.toInstant());
-            }
-            
-            return entry;
-        }, limit);
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setInt(1, partitionCount);
+            ps.setArray(2, con.createArrayOf("integer", partitions.toArray()));
+            ps.setLong(3, getSweepGraceMs());
+            ps.setInt(4, limit);
+            return ps;
+        }, this::mapOutboxEntry);
+    }
+    
+    /**
+     * Atomically claim unpublished outbox entries for one publisher worker.
+     * 
+     * Unlike {@link #fetchUnpublished(int)}, whose row locks end with its transaction,
+     * claimed rows are moved to IN_FLIGHT with a lease ({@code claimed_by}, {@code claim_expires_at})
+     * in the same statement, so they stay reserved while the worker sends them and concurrent
+     * workers or pods never pick them up. Claims that are never completed are put back
+     * to PENDING by {@link #requeueExpiredClaims()}.
+     * 
+     * @param limit Maximum entries to claim
+     * @param claimedBy Identifier of the claiming node/worker
+     * @param claimTtlMs Claim lease duration in milliseconds
+     * @return Claimed entries, oldest first
+     */
+    @Transactional
+    public List<OutboxEntry> claimUnpublished(int limit, String claimedBy, long claimTtlMs) {
+        return claimUnpublished(limit, 1, 0, claimedBy, claimTtlMs, getSweepGraceMs());
+    }
+    
+    /**
+     * {@link #claimUnpublished(int, String, long)} for one of several concurrent workers, with an
+     * explicit minimum entry age instead of {@code pagw.outbox.sweep-grace-ms}.
+     * 
+     * Worker {@code bucket} only claims entries with {@code mod(abs(hashtext(aggregate_id)), bucketCount) = bucket},
+     * so all entries of one pagwId go through the same worker and keep their order.
+     * NOTIFY-woken cycles pass a grace of 0: the notification says rows were just committed,
+     * and waiting out the grace window would find none of them.
+     * 
+     * @param bucketCount Number of concurrent workers
+     * @param bucket This worker's bucket, {@code 0 <= bucket < bucketCount}
+     * @param graceMs Only claim entries older than this; 0 claims everything committed
+     */
+    @Transactional
+    public List<OutboxEntry> claimUnpublished(int limit, int bucketCount, int bucket, String claimedBy,
+                                              long claimTtlMs, long graceMs) {
+        String sql = """
+            UPDATE outbox
+            SET status = 'IN_FLIGHT', claimed_by = ?, claim_expires_at = NOW() + (? * INTERVAL '1 millisecond')
+            WHERE (id, created_at) IN (
+                SELECT id, created_at FROM outbox
+                WHERE status = 'PENDING'
+                  AND mod(abs(hashtext(aggregate_id)::bigint), ?) = ?
+                  AND created_at < NOW() - (? * INTERVAL '1 millisecond')
+                ORDER BY created_at ASC
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, aggregate_type, aggregate_id, event_type, payload, destination_queue, status, retry_count, last_error,
+                      claimed_by, claim_expires_at, created_at, tenant, pagw_id, message_id, message_group_id
+            """;
+        
+        List<OutboxEntry> claimed = jdbcTemplate.query(sql, this::mapClaimedEntry,
+                claimedBy, claimTtlMs, bucketCount, bucket, graceMs, limit);
+        return sortByCreatedAt(claimed);
+    }
+    
+    /**
+     * Atomically claim unpublished outbox entries belonging to the given hash partitions.
+     * See {@link #claimUnpublished(int, String, long)} and {@link #fetchUnpublished(int, int, List)}.
+     * 
+     * The caller's cached partition list may be stale (e.g. after a GC pause its leases expired
+     * and another pod took them over), so the statement only claims from partitions whose lease
+     * row is still held by {@code leaseOwner} and unexpired, and share-locks those rows so the
+     * lease cannot change hands until the claim commits.
+     * 
+     * @param limit Maximum entries to claim
+     * @param partitionCount Total number of partitions
+     * @param partitions Partition numbers owned by the caller
+     * @param leaseOwner Owner id the caller's partition leases are held under
+     * @param claimedBy Identifier of the claiming node/worker
+     * @param claimTtlMs Claim lease duration in milliseconds
+     * @return Claimed entries, oldest first
+     */
+    @Transactional
+    public List<OutboxEntry> claimUnpublished(int limit, int partitionCount, List<Integer> partitions,
+                                              String leaseOwner, String claimedBy, long claimTtlMs) {
+        return claimUnpublished(limit, partitionCount, partitions, leaseOwner, claimedBy, claimTtlMs, getSweepGraceMs());
+    }
+    
+    /**
+     * Partitioned claim with an explicit minimum entry age, see {@link #claimUnpublished(int, int, int, String, long, long)}.
+     * Concurrent workers of one pod pass disjoint subsets of its partitions.
+     */
+    @Transactional
+    public List<OutboxEntry> claimUnpublished(int limit, int partitionCount, List<Integer> partitions,
+                                              String leaseOwner, String claimedBy, long claimTtlMs, long graceMs) {
+        if (partitions == null || partitions.isEmpty()) {
+            return List.of();
+        }
+        
+        String sql = """
+            UPDATE outbox
+            SET status = 'IN_FLIGHT', claimed_by = ?, claim_expires_at = NOW() + (? * INTERVAL '1 millisecond')
+            WHERE (id, created_at) IN (
+                SELECT id, created_at FROM outbox
+                WHERE status = 'PENDING'
+                  AND mod(abs(hashtext(aggregate_id)::bigint), ?) IN (
+                      SELECT partition_no FROM pagw.outbox_partition_lease
+                      WHERE partition_no = ANY(?)
+                        AND owner_id = ?
+                        AND lease_until > NOW()
+                      FOR SHARE
+                  )
+                  AND created_at < NOW() - (? * INTERVAL '1 millisecond')
+                ORDER BY created_at ASC
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, aggregate_type, aggregate_id, event_type, payload, destination_queue, status, retry_count, last_error,
+                      claimed_by, claim_expires_at, created_at, tenant, pagw_id, message_id, message_group_id
+            """;
+        
+        List<OutboxEntry> claimed = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setString(1, claimedBy);
+            ps.setLong(2, claimTtlMs);
+            ps.setInt(3, partitionCount);
+            ps.setArray(4, con.createArrayOf("integer", partitions.toArray()));
+            ps.setString(5, leaseOwner);
+            ps.setLong(6, graceMs);
+            ps.setInt(7, limit);
+            return ps;
+        }, this::mapClaimedEntry);
+        return sortByCreatedAt(claimed);
+    }
+    
+    /**
+     * Put IN_FLIGHT entries whose claim has expired back to PENDING (claim reaper).
+     * Happens when a publisher worker or pod dies between claim and completion.
+     * Entries that had already failed before go back to the retry lane, not the hot path.
+     * 
+     * @return Number of entries requeued
+     */
+    @Transactional
+    public int requeueExpiredClaims() {
+        String sql = """
+            UPDATE outbox
+            SET status = CASE WHEN retry_count > 0 THEN 'FAILED' ELSE 'PENDING' END,
+                next_retry_at = CASE WHEN retry_count > 0 THEN NOW() ELSE next_retry_at END,
+                claimed_by = NULL, claim_expires_at = NULL
+            WHERE status = 'IN_FLIGHT' AND claim_expires_at < NOW()
+            """;
+        int requeued = jdbcTemplate.update(sql);
+        
+        if (requeued > 0) {
+            log.warn("Requeued expired outbox claims: count={}", requeued);
+        }
+        return requeued;
     }
     
     /**
@@ -118,7 +350,10 @@ public class OutboxService {
      */
     @Transactional
     public void markCompleted(UUID outboxId) {
-        String sql = "UPDATE outbox SET status = 'COMPLETED', processed_at = NOW() WHERE id = ?::uuid";
+        String sql = """
+            UPDATE outbox SET status = 'COMPLETED', processed_at = NOW(), claimed_by = NULL, claim_expires_at = NULL
+            WHERE id = ?::uuid
+            """;
         int updated = jdbcTemplate.update(sql, outboxId.toString());
         
         if (updated > 0) {
@@ -128,17 +363,161 @@ public class OutboxService {
         }
     }
     
+    /**
+     * Mark several claimed outbox entries as completed in one statement.
+     * Matching on created_at as well lets Postgres touch only the partitions holding the rows.
+     *
+     * @param entries Entries as returned by a claim (id and created_at)
+     * @return Number of entries updated
+     */
+    @Transactional
+    public int markCompleted(List<OutboxEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return 0;
+        }
+
+        String sql = """
+            UPDATE outbox SET status = 'COMPLETED', processed_at = NOW(), claimed_by = NULL, claim_expires_at = NULL
+            WHERE id = ANY(?) AND created_at = ANY(?)
+            """;
+        int updated = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("uuid", entries.stream().map(OutboxEntry::getId).toArray()));
+            ps.setArray(2, con.createArrayOf("timestamptz",
+                    entries.stream().map(entry -> Timestamp.from(entry.getCreatedAt())).toArray()));
+            return ps;
+        });
+
+        log.info("Outbox entries marked as completed: requested={}, updated={}", entries.size(), updated);
+        return updated;
+    }
+
     /**
      * Increment retry count and record error for failed publish.
+     * The entry is due for the retry lane immediately; prefer {@link #scheduleRetry} with a backoff.
      * 
      * @param outboxId The outbox entry ID
      * @param error The error message
      */
     @Transactional
     public void incrementRetry(UUID outboxId, String error) {
-        String sql = "UPDATE outbox SET retry_count = retry_count + 1, last_error = ?, status = 'FAILED' WHERE id = ?::uuid";
-        jdbcTemplate.update(sql, error, outboxId.toString());
-        log.warn("Outbox entry retry incremented: id={}, error={}", outboxId, error);
+        scheduleRetry(outboxId, error, 0);
+    }
+    
+    /**
+     * Record a failed publish and hand the entry to the retry lane.
+     * The entry stays FAILED (invisible to the PENDING hot path) until {@code next_retry_at}.
+     * 
+     * @param outboxId The outbox entry ID
+     * @param error The error message
+     * @param delayMs Backoff before the entry is due again
+     */
+    @Transactional
+    public void scheduleRetry(UUID outboxId, String error, long delayMs) {
+        scheduleRetry(outboxId, "id = ?::uuid", error, delayMs, outboxId.toString());
+    }
+    
+    /**
+     * {@link #scheduleRetry(UUID, String, long)} for a claimed entry, matched on its primary key
+     * (id, created_at) so only its partition is touched.
+     */
+    @Transactional
+    public void scheduleRetry(OutboxEntry entry, String error, long delayMs) {
+        scheduleRetry(entry.getId(), "id = ?::uuid AND created_at = ?", error, delayMs,
+                entry.getId().toString(), Timestamp.from(entry.getCreatedAt()));
+    }
+    
+    private void scheduleRetry(UUID outboxId, String where, String error, long delayMs, Object... key) {
+        String sql = """
+            UPDATE outbox SET retry_count = retry_count + 1, last_error = ?, status = 'FAILED',
+                next_retry_at = NOW() + (? * INTERVAL '1 millisecond'),
+                claimed_by = NULL, claim_expires_at = NULL
+            WHERE %s
+            """.formatted(where);
+        Object[] args = new Object[key.length + 2];
+        args[0] = error;
+        args[1] = delayMs;
+        System.arraycopy(key, 0, args, 2, key.length);
+        jdbcTemplate.update(sql, args);
+        log.warn("Outbox entry retry scheduled: id={}, delayMs={}, error={}", outboxId, delayMs, error);
+    }
+    
+    /**
+     * Atomically claim failed entries whose {@code next_retry_at} has passed (retry lane).
+     * Same claim semantics as {@link #claimUnpublished(int, String, long)}, served by idx_outbox_retry.
+     * 
+     * @param limit Maximum entries to claim
+     * @param claimedBy Identifier of the claiming node/worker
+     * @param claimTtlMs Claim lease duration in milliseconds
+     * @return Claimed entries, longest overdue first
+     */
+    @Transactional
+    public List<OutboxEntry> claimDueRetries(int limit, String claimedBy, long claimTtlMs) {
+        String sql = """
+            UPDATE outbox
+            SET status = 'IN_FLIGHT', claimed_by = ?, claim_expires_at = NOW() + (? * INTERVAL '1 millisecond')
+            WHERE (id, created_at) IN (
+                SELECT id, created_at FROM outbox
+                WHERE status = 'FAILED'
+                  AND next_retry_at <= NOW()
+                ORDER BY next_retry_at ASC
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, aggregate_type, aggregate_id, event_type, payload, destination_queue, status, retry_count, last_error,
+                      claimed_by, claim_expires_at, created_at, tenant, pagw_id, message_id, message_group_id
+            """;
+        
+        List<OutboxEntry> claimed = jdbcTemplate.query(sql, this::mapClaimedEntry, claimedBy, claimTtlMs, limit);
+        return sortByCreatedAt(claimed);
+    }
+    
+    /**
+     * Move an entry that exhausted its retries from the outbox to pagw.outbox_parked.
+     * 
+     * @param outboxId The outbox entry ID
+     * @param error The last error, stored with the parked entry
+     * @return true if the entry was parked, false if it no longer exists
+     */
+    @Transactional
+    public boolean parkEntry(UUID outboxId, String error) {
+        return parkEntry(outboxId, "id = ?::uuid", error, outboxId.toString());
+    }
+    
+    /**
+     * {@link #parkEntry(UUID, String)} for a claimed entry, matched on its primary key
+     * (id, created_at) so only its partition is touched.
+     */
+    @Transactional
+    public boolean parkEntry(OutboxEntry entry, String error) {
+        return parkEntry(entry.getId(), "id = ?::uuid AND created_at = ?", error,
+                entry.getId().toString(), Timestamp.from(entry.getCreatedAt()));
+    }
+    
+    private boolean parkEntry(UUID outboxId, String where, String error, Object... key) {
+        String sql = """
+            WITH moved AS (
+                DELETE FROM outbox WHERE %s
+                RETURNING id, tenant, aggregate_type, aggregate_id, event_type, destination_queue, payload,
+                          pagw_id, message_id, message_group_id, retry_count, created_at
+            )
+            INSERT INTO outbox_parked (id, tenant, aggregate_type, aggregate_id, event_type, destination_queue, payload,
+                                       pagw_id, message_id, message_group_id, retry_count, last_error, created_at, parked_at)
+            SELECT id, tenant, aggregate_type, aggregate_id, event_type, destination_queue, payload,
+                   pagw_id, message_id, message_group_id, retry_count, ?, created_at, NOW()
+            FROM moved
+            """.formatted(where);
+        Object[] args = new Object[key.length + 1];
+        System.arraycopy(key, 0, args, 0, key.length);
+        args[key.length] = error;
+        int parked = jdbcTemplate.update(sql, args);
+        
+        if (parked > 0) {
+            log.error("Outbox entry parked after exhausting retries: id={}, error={}", outboxId, error);
+        } else {
+            log.warn("Outbox entry not found for parking: id={}", outboxId);
+        }
+        return parked > 0;
     }
     
     /**
@@ -154,13 +533,95 @@ public class OutboxService {
     
     /**
      * Get count of entries with retries exceeding threshold (for alerting).
+     * Includes entries already moved to pagw.outbox_parked.
      * 
      * @param maxRetries Retry threshold
      * @return Number of stuck entries
      */
     public long getStuckEntriesCount(int maxRetries) {
-        String sql = "SELECT COUNT(*) FROM outbox WHERE status = 'FAILED' AND retry_count >= ?";
+        String sql = """
+            SELECT (SELECT COUNT(*) FROM outbox WHERE status = 'FAILED' AND retry_count >= ?)
+                 + (SELECT COUNT(*) FROM outbox_parked)
+            """;
         Long count = jdbcTemplate.queryForObject(sql, Long.class, maxRetries);
         return count != null ? count : 0;
     }
+    
+    /**
+     * Top-level tenant first, then meta.tenant; "UNKNOWN" keeps the NOT NULL column satisfied.
+     */
+    private String resolveTenant(PagwMessage message) {
+        String tenant = message.getTenant();
+        if (tenant == null && message.getMeta() != null) {
+            tenant = message.getMeta().getTenant();
+        }
+        return tenant != null ? tenant : "UNKNOWN";
+    }
+    
+    /**
+     * Minimum age of a PENDING entry before a scheduled sweep claims it.
+     * Sweep grace is only needed while the post-commit fast path is active.
+     */
+    public long getSweepGraceMs() {
+        PagwProperties.Outbox outbox = properties.getOutbox();
+        return outbox.isImmediatePublish() ? Math.max(0, outbox.getSweepGraceMs()) : 0;
+    }
+    
+    /**
+     * Published by {@link #writeOutbox} and handled after commit by {@link OutboxImmediatePublisher}.
+     * 
+     * @param entry The outbox entry that was written
+     * @param message The message it carries
+     */
+    public record OutboxEntryWritten(OutboxEntry entry, PagwMessage message) {}
+    
+    /**
+     * Map a row returned by a claim statement, including the claim columns.
+     */
+    private OutboxEntry mapClaimedEntry(ResultSet rs, int rowNum) throws SQLException {
+        OutboxEntry entry = mapOutboxEntry(rs, rowNum);
+        entry.setClaimedBy(rs.getString("claimed_by"));
+        Timestamp expires = rs.getTimestamp("claim_expires_at");
+        if (expires != null) {
+            entry.setClaimExpiresAt(expires.toInstant());
+        }
+        return entry;
+    }
+    
+    /**
+     * UPDATE ... RETURNING does not keep the sub-select order - restore created_at order.
+     */
+    private List<OutboxEntry> sortByCreatedAt(List<OutboxEntry> entries) {
+        List<OutboxEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(OutboxEntry::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        return sorted;
+    }
+    
+    /**
+     * Map ResultSet to OutboxEntry model.
+     */
+    private OutboxEntry mapOutboxEntry(ResultSet rs, int rowNum) throws SQLException {
+        OutboxEntry entry = OutboxEntry.builder()
+                .id(UUID.fromString(rs.getString("id")))
+                .aggregateType(rs.getString("aggregate_type"))
+                .aggregateId(rs.getString("aggregate_id"))
+                .eventType(rs.getString("event_type"))
+                .payload(rs.getString("payload"))
+                .destinationQueue(rs.getString("destination_queue"))
+                .tenant(rs.getString("tenant"))
+                .pagwId(rs.getString("pagw_id"))
+                .messageId(rs.getString("message_id"))
+                .messageGroupId(rs.getString("message_group_id"))
+                .status(OutboxEntry.OutboxStatus.valueOf(rs.getString("status")))
+                .retryCount(rs.getInt("retry_count"))
+                .lastError(rs.getString("last_error"))
+                .build();
+        
+        Timestamp ts = rs.getTimestamp("created_at");
+        if (ts != null) {
+            entry.setCreatedAt(ts.toInstant());
+        }
+        
+        return entry;
+    }
 }
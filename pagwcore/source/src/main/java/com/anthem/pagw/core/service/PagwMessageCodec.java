@@ -0,0 +1,126 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.model.PagwMessage;
+import com.anthem.pagw.core.util.JsonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes {@link PagwMessage} envelopes for SQS with an S3 claim-check for oversized bodies.
+ *
+ * <p>{@link #encode} measures the serialized message. Above
+ * {@code pagw.aws.sqs.claim-check.threshold-bytes} the full body is stored at
+ * {@link PagwProperties.S3Paths#message} and a pointer envelope is sent instead: the routing and
+ * tracing fields (pagwId, messageId, stage, tenant, ...) plus {@link PagwMessage#getClaimCheck()}.
+ * {@link #decode} on the receiving side loads the full body back, so listeners always see the
+ * original message.</p>
+ *
+ * <p>Spilled bodies live in the request folder and are removed with it; they are not deleted on
+ * receipt because SQS may redeliver the pointer.</p>
+ */
+@Slf4j
+@Service
+public class PagwMessageCodec {
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    private final S3Service s3Service;
+    private final PagwProperties properties;
+
+    public PagwMessageCodec(S3Service s3Service, PagwProperties properties) {
+        this.s3Service = s3Service;
+        this.properties = properties;
+    }
+
+    /**
+     * Serialize a message for SQS, spilling it to S3 if it exceeds the claim-check threshold.
+     *
+     * @return The message JSON, or a pointer envelope JSON
+     */
+    public String encode(PagwMessage message) {
+        String body = JsonUtils.toJson(message);
+        PagwProperties.ClaimCheck claimCheck = properties.getAws().getSqs().getClaimCheck();
+        if (!claimCheck.isEnabled() || message.getClaimCheck() != null) {
+            return body;
+        }
+
+        // A UTF-8 char is at most 3 bytes per UTF-16 unit: short bodies never need the byte count
+        if ((long) body.length() * 3 <= claimCheck.getThresholdBytes()) {
+            return body;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= claimCheck.getThresholdBytes()) {
+            return body;
+        }
+
+        String bucket = resolveBucket(claimCheck, message);
+        if (bucket == null || bucket.isBlank() || message.getPagwId() == null || message.getMessageId() == null) {
+            log.warn("Oversized message cannot be spilled to S3, sending inline: pagwId={}, bytes={}, bucket={}",
+                    message.getPagwId(), bytes.length, bucket);
+            return body;
+        }
+
+        String key = PagwProperties.S3Paths.message(message.getPagwId(), message.getMessageId());
+        s3Service.uploadBytes(bucket, key, bytes, CONTENT_TYPE);
+        log.info("Message body spilled to S3: pagwId={}, messageId={}, bytes={}, key={}",
+                message.getPagwId(), message.getMessageId(), bytes.length, key);
+
+        return JsonUtils.toJson(pointerEnvelope(message, bucket, key, bytes.length));
+    }
+
+    /**
+     * Parse a message received from SQS, loading the full body if it is a claim-check pointer.
+     */
+    public PagwMessage decode(String messageBody) {
+        PagwMessage message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+        PagwMessage.PayloadPointer pointer = message.getClaimCheck();
+        if (pointer == null) {
+            return message;
+        }
+
+        String fullBody = s3Service.downloadString(pointer.getS3Bucket(), pointer.getS3Key());
+        log.debug("Message body loaded from S3: pagwId={}, messageId={}, key={}",
+                message.getPagwId(), message.getMessageId(), pointer.getS3Key());
+        return JsonUtils.fromJson(fullBody, PagwMessage.class);
+    }
+
+    private String resolveBucket(PagwProperties.ClaimCheck claimCheck, PagwMessage message) {
+        if (claimCheck.getBucket() != null && !claimCheck.getBucket().isBlank()) {
+            return claimCheck.getBucket();
+        }
+        String requestBucket = properties.getAws().getS3().getRequestBucket();
+        if (requestBucket != null && !requestBucket.isBlank()) {
+            return requestBucket;
+        }
+        return message.getPayloadBucket();
+    }
+
+    /**
+     * Keep everything the outbox, event tracking and FIFO routing read from the envelope.
+     */
+    private PagwMessage pointerEnvelope(PagwMessage message, String bucket, String key, long contentLength) {
+        return PagwMessage.builder()
+                .messageId(message.getMessageId())
+                .pagwId(message.getPagwId())
+                .idempotencyKey(message.getIdempotencyKey())
+                .schemaVersion(message.getSchemaVersion())
+                .stage(message.getStage())
+                .eventType(message.getEventType())
+                .sourceService(message.getSourceService())
+                .targetService(message.getTargetService())
+                .tenant(message.getTenant())
+                .correlationId(message.getCorrelationId())
+                .attemptNumber(message.getAttemptNumber())
+                .createdAt(message.getCreatedAt())
+                .claimCheck(PagwMessage.PayloadPointer.builder()
+                        .s3Bucket(bucket)
+                        .s3Key(key)
+                        .contentType(CONTENT_TYPE)
+                        .contentLength(contentLength)
+                        .build())
+                .build();
+    }
+}
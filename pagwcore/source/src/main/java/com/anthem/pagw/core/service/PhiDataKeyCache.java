@@ -0,0 +1,180 @@
+package com.anthem.pagw.core.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bounded in-process cache of KMS data keys for {@link PhiEncryptionService}, after the
+ * AWS Encryption SDK caching cryptographic materials manager.
+ *
+ * <p>Encryption keys are partitioned by KMS key and encryption context, and a key is only
+ * reused while it stays within its age, message and byte limits; an entry that would exceed a
+ * limit is evicted and the caller asks KMS for a new one. Decryption keys are looked up by a
+ * SHA-256 of the encrypted data key plus KMS key and context, so a key is never handed out
+ * for a context KMS did not validate it against.</p>
+ *
+ * <p>Callers always get their own copy of a plaintext key and zero it after use; the cached
+ * copy is zeroed when its entry is evicted, expires or the cache is cleared.</p>
+ */
+final class PhiDataKeyCache {
+
+    /**
+     * @param plaintextKey Caller-owned copy of the data key; zero it after use
+     */
+    record Materials(byte[] plaintextKey, byte[] encryptedKey) {}
+
+    private static final class Entry {
+        private final byte[] plaintextKey;
+        private final byte[] encryptedKey;
+        private final long expiresAt;
+        private long messages;
+        private long bytes;
+
+        private Entry(byte[] plaintextKey, byte[] encryptedKey, long expiresAt) {
+            this.plaintextKey = plaintextKey.clone();
+            this.encryptedKey = encryptedKey;
+            this.expiresAt = expiresAt;
+        }
+
+        private void zero() {
+            Arrays.fill(plaintextKey, (byte) 0);
+        }
+    }
+
+    private final long maxAgeMillis;
+    private final long maxMessages;
+    private final long maxBytes;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry> encryptEntries;
+    private final LinkedHashMap<String, Entry> decryptEntries;
+
+    PhiDataKeyCache(int maxEntries, long maxAgeMillis, long maxMessages, long maxBytes, Clock clock) {
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+        this.encryptEntries = lru(maxEntries);
+        this.decryptEntries = lru(maxEntries);
+    }
+
+    /**
+     * Reuse the cached data key for this context, counting {@code plaintextBytes} against its limits.
+     *
+     * @return Materials to encrypt with, or {@code null} if KMS must generate a new key
+     */
+    synchronized Materials getForEncrypt(String keyId, Map<String, String> context, long plaintextBytes) {
+        String cacheKey = partition(keyId, context);
+        Entry entry = encryptEntries.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= clock.millis()
+                || entry.messages + 1 > maxMessages
+                || entry.bytes + plaintextBytes > maxBytes) {
+            encryptEntries.remove(cacheKey).zero();
+            return null;
+        }
+        entry.messages++;
+        entry.bytes += plaintextBytes;
+        return new Materials(entry.plaintextKey.clone(), entry.encryptedKey);
+    }
+
+    /**
+     * Cache a data key KMS just generated, counting its first use. A message that alone exceeds
+     * the byte limit is not cached.
+     */
+    synchronized void putForEncrypt(String keyId, Map<String, String> context, byte[] plaintextKey,
+                                    byte[] encryptedKey, long plaintextBytes) {
+        if (plaintextBytes > maxBytes || maxMessages < 1) {
+            return;
+        }
+        Entry entry = new Entry(plaintextKey, encryptedKey, clock.millis() + maxAgeMillis);
+        entry.messages = 1;
+        entry.bytes = plaintextBytes;
+        replace(encryptEntries, partition(keyId, context), entry);
+        // Data encrypted under this key is usually read back by this service with the same context
+        putForDecrypt(keyId, context, encryptedKey, plaintextKey);
+    }
+
+    /**
+     * @return Copy of the plaintext key for {@code encryptedKey} in this context, or {@code null}
+     */
+    synchronized byte[] getForDecrypt(String keyId, Map<String, String> context, byte[] encryptedKey) {
+        String cacheKey = digest(encryptedKey) + "|" + partition(keyId, context);
+        Entry entry = decryptEntries.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= clock.millis()) {
+            decryptEntries.remove(cacheKey).zero();
+            return null;
+        }
+        return entry.plaintextKey.clone();
+    }
+
+    synchronized void putForDecrypt(String keyId, Map<String, String> context, byte[] encryptedKey,
+                                    byte[] plaintextKey) {
+        String cacheKey = digest(encryptedKey) + "|" + partition(keyId, context);
+        replace(decryptEntries, cacheKey, new Entry(plaintextKey, encryptedKey, clock.millis() + maxAgeMillis));
+    }
+
+    /** Zero and drop every cached key. */
+    synchronized void clear() {
+        encryptEntries.values().forEach(Entry::zero);
+        encryptEntries.clear();
+        decryptEntries.values().forEach(Entry::zero);
+        decryptEntries.clear();
+    }
+
+    synchronized int size() {
+        return encryptEntries.size() + decryptEntries.size();
+    }
+
+    private static void replace(Map<String, Entry> entries, String cacheKey, Entry entry) {
+        Entry previous = entries.put(cacheKey, entry);
+        if (previous != null) {
+            previous.zero();
+        }
+    }
+
+    /**
+     * Unambiguous partition of KMS key and encryption context (length-prefixed, sorted by name).
+     */
+    private static String partition(String keyId, Map<String, String> context) {
+        StringBuilder partition = new StringBuilder().append(keyId.length()).append(':').append(keyId);
+        Map<String, String> sorted = context != null ? new TreeMap<>(context) : Map.of();
+        for (Map.Entry<String, String> pair : sorted.entrySet()) {
+            partition.append(';').append(pair.getKey().length()).append(':').append(pair.getKey())
+                    .append('=').append(pair.getValue().length()).append(':').append(pair.getValue());
+        }
+        return digest(partition.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static LinkedHashMap<String, Entry> lru(int maxEntries) {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    eldest.getValue().zero();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+}
@@ -2,21 +2,42 @@ package com.anthem.pagw.core.service;
 
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.exception.PagwException;
+import com.anthem.pagw.core.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.kms.KmsClient;
 import software.amazon.awssdk.services.kms.model.*;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -34,6 +55,17 @@ import java.util.Map;
  * - Audit trail via CloudTrail
  * - Performance (local encryption with DEK)
  * 
+ * Streams ({@link #encryptStream}, {@link #uploadEncrypted}) use a segmented AES-GCM format with
+ * constant memory per object and support ranged decryption ({@link #downloadDecryptedRange}).
+ * 
+ * Documents ({@link #encryptPhiFields}) carry one wrapped DEK in a versioned header and
+ * per-field AES-GCM values bound to their field path.
+ * 
+ * Data keys are reused per encryption context through a {@link PhiDataKeyCache}
+ * ({@code pagw.encryption.data-key-cache}), so the fields of one record cost one
+ * GenerateDataKey and one Decrypt instead of one per field. Metrics:
+ * {@code pagw.phi.kms.calls{operation}} and {@code pagw.phi.kms.calls.saved{operation}}.
+ * 
  * Note: This service is only available when KMS is enabled.
  * In local/dev environments, encryption can be disabled via configuration.
  */
@@ -47,13 +79,50 @@ public class PhiEncryptionService {
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 128;
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final ObjectMapper MAPPER = JsonUtils.getObjectMapper();
+    
+    /** Header field of a document encrypted by {@link #encryptPhiFields}. */
+    public static final String ENVELOPE_FIELD = "phiEnvelope";
+    static final int ENVELOPE_VERSION = 1;
+    private static final String ENVELOPE_ALGORITHM = "AES-256-GCM";
+    private static final String ENCRYPTED_SUFFIX = "_encrypted";
     
     private final KmsClient kmsClient;
     private final PagwProperties properties;
+    private final PhiDataKeyCache dataKeyCache;
+    
+    private final Counter generateDataKeyCalls;
+    private final Counter decryptCalls;
+    private final Counter generateDataKeyCallsSaved;
+    private final Counter decryptCallsSaved;
     
     public PhiEncryptionService(KmsClient kmsClient, PagwProperties properties) {
+        this(kmsClient, properties, new SimpleMeterRegistry(), Clock.systemUTC());
+    }
+    
+    @Autowired
+    public PhiEncryptionService(KmsClient kmsClient, PagwProperties properties,
+                                ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(kmsClient, properties, meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new), Clock.systemUTC());
+    }
+    
+    PhiEncryptionService(KmsClient kmsClient, PagwProperties properties, MeterRegistry meterRegistry, Clock clock) {
         this.kmsClient = kmsClient;
         this.properties = properties;
+        PagwProperties.DataKeyCache cacheConfig = properties.getEncryption().getDataKeyCache();
+        this.dataKeyCache = cacheConfig.isEnabled()
+                ? new PhiDataKeyCache(cacheConfig.getMaxEntries(), cacheConfig.getMaxAgeSeconds() * 1000,
+                        cacheConfig.getMaxMessages(), cacheConfig.getMaxBytes(), clock)
+                : null;
+        
+        this.generateDataKeyCalls = kmsCounter(meterRegistry, "pagw.phi.kms.calls", "generateDataKey",
+                "KMS calls made for PHI encryption");
+        this.decryptCalls = kmsCounter(meterRegistry, "pagw.phi.kms.calls", "decrypt",
+                "KMS calls made for PHI encryption");
+        this.generateDataKeyCallsSaved = kmsCounter(meterRegistry, "pagw.phi.kms.calls.saved", "generateDataKey",
+                "KMS calls answered by the PHI data-key cache");
+        this.decryptCallsSaved = kmsCounter(meterRegistry, "pagw.phi.kms.calls.saved", "decrypt",
+                "KMS calls answered by the PHI data-key cache");
     }
     
     /**
@@ -64,18 +133,11 @@ public class PhiEncryptionService {
      * @return EncryptedData containing encrypted data and encrypted DEK
      */
     public EncryptedData encrypt(String plaintext, Map<String, String> context) {
+        byte[] plaintextKey = null;
         try {
-            // Generate Data Encryption Key from KMS
-            GenerateDataKeyRequest dataKeyRequest = GenerateDataKeyRequest.builder()
-                    .keyId(properties.getKmsPhiKeyAlias())
-                    .keySpec(DataKeySpec.AES_256)
-                    .encryptionContext(context)
-                    .build();
-            
-            GenerateDataKeyResponse dataKeyResponse = kmsClient.generateDataKey(dataKeyRequest);
-            
-            byte[] plaintextKey = dataKeyResponse.plaintext().asByteArray();
-            byte[] encryptedKey = dataKeyResponse.ciphertextBlob().asByteArray();
+            byte[] plaintextBytes = plaintext.getBytes(StandardCharsets.UTF_8);
+            PhiDataKeyCache.Materials dataKey = generateDataKey(context, plaintextBytes.length);
+            plaintextKey = dataKey.plaintextKey();
             
             // Generate IV
             byte[] iv = new byte[GCM_IV_LENGTH];
@@ -87,10 +149,7 @@ public class PhiEncryptionService {
             GCMParameterSpec gcmSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.ENCRYPT_MODE, keySpec, gcmSpec);
             
-            byte[] encryptedData = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
-            
-            // Clear plaintext key from memory
-            java.util.Arrays.fill(plaintextKey, (byte) 0);
+            byte[] encryptedData = cipher.doFinal(plaintextBytes);
             
             // Combine IV + encrypted data
             byte[] combined = new byte[iv.length + encryptedData.length];
@@ -101,12 +160,17 @@ public class PhiEncryptionService {
             
             return new EncryptedData(
                     Base64.getEncoder().encodeToString(combined),
-                    Base64.getEncoder().encodeToString(encryptedKey)
+                    Base64.getEncoder().encodeToString(dataKey.encryptedKey())
             );
             
         } catch (Exception e) {
             log.error("Failed to encrypt PHI data", e);
             throw new PagwException("PHI_ENCRYPTION_FAILED", "Failed to encrypt PHI data", e);
+        } finally {
+            // Clear plaintext key from memory
+            if (plaintextKey != null) {
+                Arrays.fill(plaintextKey, (byte) 0);
+            }
         }
     }
     
@@ -118,37 +182,20 @@ public class PhiEncryptionService {
      * @return Decrypted plaintext
      */
     public String decrypt(EncryptedData encryptedData, Map<String, String> context) {
+        byte[] plaintextKey = null;
         try {
-            // Decrypt the DEK using KMS
-            DecryptRequest decryptRequest = DecryptRequest.builder()
-                    .ciphertextBlob(SdkBytes.fromByteArray(
-                            Base64.getDecoder().decode(encryptedData.getEncryptedKey())))
-                    .keyId(properties.getKmsPhiKeyAlias())
-                    .encryptionContext(context)
-                    .build();
-            
-            DecryptResponse decryptResponse = kmsClient.decrypt(decryptRequest);
-            byte[] plaintextKey = decryptResponse.plaintext().asByteArray();
+            plaintextKey = decryptDataKey(Base64.getDecoder().decode(encryptedData.getEncryptedKey()), context);
             
             // Decode the combined data (IV + encrypted data)
             byte[] combined = Base64.getDecoder().decode(encryptedData.getCiphertext());
             
-            // Extract IV and encrypted data
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            byte[] ciphertext = new byte[combined.length - GCM_IV_LENGTH];
-            System.arraycopy(combined, 0, iv, 0, iv.length);
-            System.arraycopy(combined, iv.length, ciphertext, 0, ciphertext.length);
-            
             // Decrypt data locally
             Cipher cipher = Cipher.getInstance(ALGORITHM);
             SecretKeySpec keySpec = new SecretKeySpec(plaintextKey, "AES");
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
+            GCMParameterSpec gcmSpec = new GCMParameterSpec(GCM_TAG_LENGTH, combined, 0, GCM_IV_LENGTH);
             cipher.init(Cipher.DECRYPT_MODE, keySpec, gcmSpec);
             
-            byte[] decryptedData = cipher.doFinal(ciphertext);
-            
-            // Clear plaintext key from memory
-            java.util.Arrays.fill(plaintextKey, (byte) 0);
+            byte[] decryptedData = cipher.doFinal(combined, GCM_IV_LENGTH, combined.length - GCM_IV_LENGTH);
             
             log.debug("PHI data decrypted successfully");
             
@@ -157,6 +204,21 @@ public class PhiEncryptionService {
         } catch (Exception e) {
             log.error("Failed to decrypt PHI data", e);
             throw new PagwException("PHI_DECRYPTION_FAILED", "Failed to decrypt PHI data", e);
+        } finally {
+            // Clear plaintext key from memory
+            if (plaintextKey != null) {
+                Arrays.fill(plaintextKey, (byte) 0);
+            }
+        }
+    }
+    
+    /**
+     * Zero and drop all cached data keys.
+     */
+    @PreDestroy
+    public void clearDataKeyCache() {
+        if (dataKeyCache != null) {
+            dataKeyCache.clear();
         }
     }
     
@@ -164,53 +226,382 @@ public class PhiEncryptionService {
      * Encrypt specific PHI fields in a JSON object.
      * This method encrypts individual fields while preserving the JSON structure.
      * 
+     * Document envelope format (version 1): every field at a listed path (any JSON type) is
+     * replaced by {@code <field>_encrypted}, the Base64 of IV + AES-256-GCM ciphertext of its JSON
+     * text, with a fresh IV per field and the field path as associated data, so a value cannot be
+     * moved to another path. All fields share one data key, wrapped once in the
+     * {@value #ENVELOPE_FIELD} header:
+     * <pre>
+     * "phiEnvelope": {"v": 1, "alg": "AES-256-GCM", "encryptedKey": "...", "fields": ["patient.name", ...]}
+     * </pre>
+     * 
      * @param jsonData Original JSON data
      * @param phiFields List of field paths to encrypt (e.g., "patient.name", "patient.ssn")
      * @param context Encryption context
      * @return JSON with specified PHI fields encrypted
      */
-    public String encryptPhiFields(String jsonData, java.util.List<String> phiFields, Map<String, String> context) {
+    public String encryptPhiFields(String jsonData, List<String> phiFields, Map<String, String> context) {
+        byte[] plaintextKey = null;
         try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            com.fasterxml.jackson.databind.JsonNode rootNode = mapper.readTree(jsonData);
+            JsonNode rootNode = MAPPER.readTree(jsonData);
+            if (!rootNode.isObject()) {
+                return jsonData;
+            }
+            ObjectNode root = (ObjectNode) rootNode;
+            if (root.has(ENVELOPE_FIELD)) {
+                throw new IllegalStateException("Document is already encrypted");
+            }
             
-            if (rootNode.isObject()) {
-                com.fasterxml.jackson.databind.node.ObjectNode objectNode = (com.fasterxml.jackson.databind.node.ObjectNode) rootNode;
-                
-                for (String fieldPath : phiFields) {
-                    encryptFieldAtPath(objectNode, fieldPath.split("\\."), 0, context);
+            // Serialize the fields first, so the data key is charged with their actual size
+            Map<String, byte[]> plaintexts = new LinkedHashMap<>();
+            long plaintextBytes = 0;
+            for (String fieldPath : phiFields) {
+                JsonNode value = fieldAt(root, fieldPath);
+                if (value != null && !value.isNull() && !plaintexts.containsKey(fieldPath)) {
+                    byte[] plaintext = MAPPER.writeValueAsBytes(value);
+                    plaintexts.put(fieldPath, plaintext);
+                    plaintextBytes += plaintext.length;
                 }
             }
+            if (plaintexts.isEmpty()) {
+                return jsonData;
+            }
             
-            return mapper.writeValueAsString(rootNode);
+            PhiDataKeyCache.Materials dataKey = generateDataKey(context, plaintextBytes);
+            plaintextKey = dataKey.plaintextKey();
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            SecretKeySpec keySpec = new SecretKeySpec(plaintextKey, "AES");
+            
+            ArrayNode encryptedFields = MAPPER.createArrayNode();
+            for (Map.Entry<String, byte[]> field : plaintexts.entrySet()) {
+                byte[] iv = new byte[GCM_IV_LENGTH];
+                SECURE_RANDOM.nextBytes(iv);
+                cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+                cipher.updateAAD(fieldAad(field.getKey()));
+                
+                // IV + ciphertext, written straight into one buffer
+                byte[] combined = new byte[GCM_IV_LENGTH + cipher.getOutputSize(field.getValue().length)];
+                System.arraycopy(iv, 0, combined, 0, GCM_IV_LENGTH);
+                cipher.doFinal(field.getValue(), 0, field.getValue().length, combined, GCM_IV_LENGTH);
+                
+                String[] path = field.getKey().split("\\.");
+                ObjectNode parent = parentAt(root, path);
+                String name = path[path.length - 1];
+                parent.remove(name);
+                parent.put(name + ENCRYPTED_SUFFIX, Base64.getEncoder().encodeToString(combined));
+                encryptedFields.add(field.getKey());
+            }
+            
+            ObjectNode envelope = root.putObject(ENVELOPE_FIELD);
+            envelope.put("v", ENVELOPE_VERSION);
+            envelope.put("alg", ENVELOPE_ALGORITHM);
+            envelope.put("encryptedKey", Base64.getEncoder().encodeToString(dataKey.encryptedKey()));
+            envelope.set("fields", encryptedFields);
+            
+            return MAPPER.writeValueAsString(root);
             
         } catch (Exception e) {
             log.error("Failed to encrypt PHI fields", e);
             throw new PagwException("PHI_FIELD_ENCRYPTION_FAILED", "Failed to encrypt PHI fields", e);
+        } finally {
+            if (plaintextKey != null) {
+                Arrays.fill(plaintextKey, (byte) 0);
+            }
         }
     }
     
-    private void encryptFieldAtPath(com.fasterxml.jackson.databind.node.ObjectNode node, 
-                                     String[] path, int index, Map<String, String> context) {
-        if (index >= path.length) return;
+    /**
+     * Decrypt PHI fields encrypted by {@link #encryptPhiFields}, with one KMS call at most.
+     * Fields not selected stay encrypted and listed in the envelope header.
+     * Documents in the earlier per-field format ({@code {ciphertext, encryptedKey}} objects,
+     * one data key each) are decrypted as well.
+     * 
+     * @param jsonData JSON with encrypted PHI fields
+     * @param phiFields Field paths to decrypt, or {@code null} for all
+     * @param context Encryption context (must match encryption context)
+     * @return JSON with the selected PHI fields restored
+     */
+    public String decryptPhiFields(String jsonData, @Nullable List<String> phiFields, Map<String, String> context) {
+        byte[] plaintextKey = null;
+        try {
+            JsonNode rootNode = MAPPER.readTree(jsonData);
+            if (!rootNode.isObject()) {
+                return jsonData;
+            }
+            ObjectNode root = (ObjectNode) rootNode;
+            JsonNode envelope = root.get(ENVELOPE_FIELD);
+            if (envelope == null) {
+                decryptPerFieldFormat(root,
+                        phiFields != null ? phiFields : properties.getEncryption().getPhiFields(), context);
+                return MAPPER.writeValueAsString(root);
+            }
+            if (envelope.path("v").asInt() != ENVELOPE_VERSION) {
+                throw new IllegalStateException("Unsupported PHI envelope version: " + envelope.path("v"));
+            }
+            
+            List<String> remaining = new ArrayList<>();
+            envelope.path("fields").forEach(field -> remaining.add(field.asText()));
+            List<String> selected = phiFields == null ? List.copyOf(remaining)
+                    : phiFields.stream().filter(remaining::contains).distinct().toList();
+            if (selected.isEmpty()) {
+                return jsonData;
+            }
+            
+            plaintextKey = decryptDataKey(Base64.getDecoder().decode(envelope.path("encryptedKey").asText()), context);
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            SecretKeySpec keySpec = new SecretKeySpec(plaintextKey, "AES");
+            
+            for (String fieldPath : selected) {
+                String[] path = fieldPath.split("\\.");
+                ObjectNode parent = parentAt(root, path);
+                String name = path[path.length - 1];
+                JsonNode encrypted = parent != null ? parent.get(name + ENCRYPTED_SUFFIX) : null;
+                if (encrypted == null || !encrypted.isTextual()) {
+                    throw new IllegalStateException("Encrypted field missing: " + fieldPath);
+                }
+                
+                byte[] combined = Base64.getDecoder().decode(encrypted.asText());
+                cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(GCM_TAG_LENGTH, combined, 0, GCM_IV_LENGTH));
+                cipher.updateAAD(fieldAad(fieldPath));
+                byte[] plaintext = cipher.doFinal(combined, GCM_IV_LENGTH, combined.length - GCM_IV_LENGTH);
+                
+                parent.remove(name + ENCRYPTED_SUFFIX);
+                parent.set(name, MAPPER.readTree(plaintext));
+                remaining.remove(fieldPath);
+            }
+            
+            if (remaining.isEmpty()) {
+                root.remove(ENVELOPE_FIELD);
+            } else {
+                ArrayNode fields = ((ObjectNode) envelope).putArray("fields");
+                remaining.forEach(fields::add);
+            }
+            return MAPPER.writeValueAsString(root);
+            
+        } catch (Exception e) {
+            log.error("Failed to decrypt PHI fields", e);
+            throw new PagwException("PHI_FIELD_DECRYPTION_FAILED", "Failed to decrypt PHI fields", e);
+        } finally {
+            if (plaintextKey != null) {
+                Arrays.fill(plaintextKey, (byte) 0);
+            }
+        }
+    }
+    
+    private void decryptPerFieldFormat(ObjectNode root, List<String> phiFields, Map<String, String> context) {
+        for (String fieldPath : phiFields) {
+            String[] path = fieldPath.split("\\.");
+            ObjectNode parent = parentAt(root, path);
+            String name = path[path.length - 1];
+            JsonNode encrypted = parent != null ? parent.get(name + ENCRYPTED_SUFFIX) : null;
+            if (encrypted != null && encrypted.isObject()) {
+                String plaintext = decrypt(new EncryptedData(
+                        encrypted.path("ciphertext").asText(), encrypted.path("encryptedKey").asText()), context);
+                parent.remove(name + ENCRYPTED_SUFFIX);
+                parent.put(name, plaintext);
+            }
+        }
+    }
+    
+    /**
+     * Encrypt a stream of any size (attachments, raw bundles) in the segmented AES-GCM format
+     * of {@link SegmentedAesGcm}, under a fresh data key wrapped in the stream header.
+     * Encryption happens as the returned stream is read, two segments at a time.
+     * 
+     * @param plaintext Stream to encrypt; closed with the returned stream
+     * @param context Encryption context
+     * @return Ciphertext stream
+     */
+    public InputStream encryptStream(InputStream plaintext, Map<String, String> context) {
+        byte[] plaintextKey = null;
+        try {
+            PhiDataKeyCache.Materials dataKey = generateDataKey(context, -1);
+            plaintextKey = dataKey.plaintextKey();
+            SegmentedAesGcm.Header header = SegmentedAesGcm.newHeader(
+                    properties.getEncryption().getStreamSegmentBytes(), dataKey.encryptedKey(), SECURE_RANDOM);
+            return SegmentedAesGcm.encrypt(plaintext, header, plaintextKey);
+        } catch (Exception e) {
+            log.error("Failed to start PHI stream encryption", e);
+            throw new PagwException("PHI_STREAM_ENCRYPTION_FAILED", "Failed to encrypt PHI stream", e);
+        } finally {
+            if (plaintextKey != null) {
+                Arrays.fill(plaintextKey, (byte) 0);
+            }
+        }
+    }
+    
+    /**
+     * Decrypt a stream written by {@link #encryptStream}. Segments are authenticated as they are
+     * read; a tampered or truncated stream fails with an {@link IOException} from {@code read}.
+     * 
+     * @param ciphertext Encrypted stream, positioned at its header; closed with the returned stream
+     * @param context Encryption context (must match encryption context)
+     * @return Plaintext stream
+     */
+    public InputStream decryptStream(InputStream ciphertext, Map<String, String> context) {
+        byte[] plaintextKey = null;
+        try {
+            SegmentedAesGcm.Header header = SegmentedAesGcm.readHeader(ciphertext);
+            plaintextKey = decryptDataKey(header.encryptedKey(), context);
+            return SegmentedAesGcm.decrypt(ciphertext, header, plaintextKey, 0, -1, 0, Long.MAX_VALUE);
+        } catch (Exception e) {
+            log.error("Failed to start PHI stream decryption", e);
+            throw new PagwException("PHI_STREAM_DECRYPTION_FAILED", "Failed to decrypt PHI stream", e);
+        } finally {
+            if (plaintextKey != null) {
+                Arrays.fill(plaintextKey, (byte) 0);
+            }
+        }
+    }
+    
+    /**
+     * Encrypt a stream into an S3 object ({@link S3Service#uploadStream} of unknown length, so
+     * parts are uploaded as they are encrypted).
+     */
+    public void uploadEncrypted(S3Service s3Service, String bucket, String key, InputStream plaintext,
+                                String contentType, Map<String, String> context) {
+        try (InputStream ciphertext = encryptStream(plaintext, context)) {
+            s3Service.uploadStream(bucket, key, ciphertext, contentType);
+        } catch (IOException e) {
+            throw new PagwException("PHI_STREAM_ENCRYPTION_FAILED", "Failed to encrypt PHI stream", e);
+        }
+    }
+    
+    /**
+     * Open an object written by {@link #uploadEncrypted} for streaming, decrypting reads.
+     * The caller must close the stream.
+     */
+    public InputStream downloadDecrypted(S3Service s3Service, String bucket, String key, Map<String, String> context) {
+        return decryptStream(s3Service.downloadStream(bucket, key), context);
+    }
+    
+    /**
+     * Decrypt {@code length} plaintext bytes from {@code offset} of an object written by
+     * {@link #uploadEncrypted}: one ranged GET for the header, one for the segments covering the range.
+     * The caller must close the stream.
+     */
+    public InputStream downloadDecryptedRange(S3Service s3Service, String bucket, String key,
+                                              long offset, long length, Map<String, String> context) {
+        byte[] plaintextKey = null;
+        try {
+            SegmentedAesGcm.Header header;
+            long objectSize;
+            try (ResponseInputStream<GetObjectResponse> head = s3Service.downloadRange(
+                    bucket, key, 0, SegmentedAesGcm.MAX_HEADER_LENGTH - 1)) {
+                header = SegmentedAesGcm.readHeader(head);
+                String contentRange = head.response().contentRange();
+                objectSize = Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1));
+            }
+            
+            long plaintextLength = header.plaintextLength(objectSize);
+            long end = length >= plaintextLength - offset ? plaintextLength : offset + length;
+            if (offset >= end) {
+                return InputStream.nullInputStream();
+            }
+            long segmentSize = header.segmentSize();
+            long first = offset / segmentSize;
+            long last = (end - 1) / segmentSize;
+            
+            plaintextKey = decryptDataKey(header.encryptedKey(), context);
+            InputStream segments = s3Service.downloadRange(bucket, key, header.segmentOffset(first),
+                    Math.min(header.segmentOffset(last + 1), objectSize) - 1);
+            return SegmentedAesGcm.decrypt(segments, header, plaintextKey, first,
+                    header.segmentCount(objectSize) - 1, offset - first * segmentSize, end - offset);
+        } catch (Exception e) {
+            log.error("Failed to decrypt range of s3://{}/{}", bucket, key, e);
+            throw new PagwException("PHI_STREAM_DECRYPTION_FAILED", "Failed to decrypt PHI stream", e);
+        } finally {
+            if (plaintextKey != null) {
+                Arrays.fill(plaintextKey, (byte) 0);
+            }
+        }
+    }
+    
+    /**
+     * Data key for {@code plaintextBytes} of data: from the cache, or generated by KMS.
+     * The caller zeroes the returned plaintext key.
+     */
+    private PhiDataKeyCache.Materials generateDataKey(Map<String, String> context, long plaintextBytes) {
+        String keyId = properties.getKmsPhiKeyAlias();
+        // Unknown size (streams): always a fresh key
+        boolean cacheable = dataKeyCache != null && plaintextBytes >= 0;
+        PhiDataKeyCache.Materials cached = cacheable
+                ? dataKeyCache.getForEncrypt(keyId, context, plaintextBytes) : null;
+        if (cached != null) {
+            generateDataKeyCallsSaved.increment();
+            return cached;
+        }
         
-        String field = path[index];
-        com.fasterxml.jackson.databind.JsonNode fieldNode = node.get(field);
+        // Generate Data Encryption Key from KMS
+        GenerateDataKeyRequest dataKeyRequest = GenerateDataKeyRequest.builder()
+                .keyId(keyId)
+                .keySpec(DataKeySpec.AES_256)
+                .encryptionContext(context)
+                .build();
         
-        if (fieldNode == null) return;
+        generateDataKeyCalls.increment();
+        GenerateDataKeyResponse dataKeyResponse = kmsClient.generateDataKey(dataKeyRequest);
         
-        if (index == path.length - 1) {
-            // Encrypt this field
-            if (fieldNode.isTextual()) {
-                EncryptedData encrypted = encrypt(fieldNode.asText(), context);
-                com.fasterxml.jackson.databind.node.ObjectNode encryptedNode = node.putObject(field + "_encrypted");
-                encryptedNode.put("ciphertext", encrypted.getCiphertext());
-                encryptedNode.put("encryptedKey", encrypted.getEncryptedKey());
-                node.remove(field);
-            }
-        } else if (fieldNode.isObject()) {
-            encryptFieldAtPath((com.fasterxml.jackson.databind.node.ObjectNode) fieldNode, path, index + 1, context);
+        byte[] plaintextKey = dataKeyResponse.plaintext().asByteArray();
+        byte[] encryptedKey = dataKeyResponse.ciphertextBlob().asByteArray();
+        if (cacheable) {
+            dataKeyCache.putForEncrypt(keyId, context, plaintextKey, encryptedKey, plaintextBytes);
         }
+        return new PhiDataKeyCache.Materials(plaintextKey, encryptedKey);
+    }
+    
+    /**
+     * Plaintext of a wrapped data key: from the cache, or decrypted by KMS. The caller zeroes it.
+     */
+    private byte[] decryptDataKey(byte[] encryptedKey, Map<String, String> context) {
+        String keyId = properties.getKmsPhiKeyAlias();
+        byte[] plaintextKey = dataKeyCache != null ? dataKeyCache.getForDecrypt(keyId, context, encryptedKey) : null;
+        if (plaintextKey != null) {
+            decryptCallsSaved.increment();
+            return plaintextKey;
+        }
+        
+        // Decrypt the DEK using KMS
+        DecryptRequest decryptRequest = DecryptRequest.builder()
+                .ciphertextBlob(SdkBytes.fromByteArray(encryptedKey))
+                .keyId(keyId)
+                .encryptionContext(context)
+                .build();
+        
+        decryptCalls.increment();
+        plaintextKey = kmsClient.decrypt(decryptRequest).plaintext().asByteArray();
+        if (dataKeyCache != null) {
+            dataKeyCache.putForDecrypt(keyId, context, encryptedKey, plaintextKey);
+        }
+        return plaintextKey;
+    }
+    
+    private static JsonNode fieldAt(ObjectNode root, String fieldPath) {
+        String[] path = fieldPath.split("\\.");
+        ObjectNode parent = parentAt(root, path);
+        return parent != null ? parent.get(path[path.length - 1]) : null;
+    }
+    
+    private static ObjectNode parentAt(ObjectNode root, String[] path) {
+        JsonNode node = root;
+        for (int i = 0; i < path.length - 1; i++) {
+            node = node.get(path[i]);
+            if (node == null || !node.isObject()) {
+                return null;
+            }
+        }
+        return (ObjectNode) node;
+    }
+    
+    private static byte[] fieldAad(String fieldPath) {
+        return ("pagw-phi-v" + ENVELOPE_VERSION + ":" + fieldPath).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static Counter kmsCounter(MeterRegistry meterRegistry, String name, String operation, String description) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .register(meterRegistry);
     }
     
     /**
@@ -0,0 +1,104 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * {@link IdempotencyStore} on the pagw.idempotency table in Aurora.
+ *
+ * <p>Statements run on the caller's connection ({@link #joinsCallerTransaction}). Acquired inside
+ * the transaction that writes the request tracker row, the key commits or rolls back with it:
+ * there is no second network hop and no fail-open window, and a crash before the commit leaves no
+ * key behind. A concurrent duplicate blocks on the key's unique index until the first transaction
+ * ends, then sees the key (commit) or acquires it (rollback). Acquired outside a transaction the
+ * key autocommits, and a crash before the request is stored leaves a PROCESSING key until
+ * {@code ttl-seconds}. Errors are not swallowed - a failed statement aborts the surrounding
+ * transaction anyway.</p>
+ *
+ * <p>Rows are not deleted when they expire; an expired key is taken over by the next acquire.</p>
+ */
+public class PostgresIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresIdempotencyStore.class);
+
+    /** Column default of pagw.idempotency.tenant; keys are not partitioned by tenant. */
+    static final String TENANT = "elevance";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlSeconds;
+
+    public PostgresIdempotencyStore(JdbcTemplate jdbcTemplate, PagwProperties properties) {
+        this(jdbcTemplate, properties.getIdempotency().getTtlSeconds());
+    }
+
+    public PostgresIdempotencyStore(JdbcTemplate jdbcTemplate, long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    @Override
+    public boolean joinsCallerTransaction() {
+        return true;
+    }
+
+    @Override
+    public boolean tryAcquire(String idempotencyKey, String serviceName) {
+        String sql = """
+            INSERT INTO idempotency (
+                tenant, idempotency_key, service, response_status, created_at, expires_at
+            ) VALUES (?, ?, ?, 'PROCESSING', NOW(), NOW() + ? * INTERVAL '1 second')
+            ON CONFLICT (tenant, idempotency_key) DO UPDATE SET
+                service = EXCLUDED.service,
+                response_status = EXCLUDED.response_status,
+                result = NULL,
+                completed_at = NULL,
+                created_at = EXCLUDED.created_at,
+                expires_at = EXCLUDED.expires_at
+            WHERE idempotency.expires_at < NOW()
+            """;
+
+        boolean acquired = jdbcTemplate.update(sql, TENANT, idempotencyKey, serviceName, ttlSeconds) > 0;
+        if (acquired) {
+            log.debug("Acquired idempotency lock for: {}", idempotencyKey);
+        } else {
+            log.debug("Idempotency key already exists: {}", idempotencyKey);
+        }
+        return acquired;
+    }
+
+    @Override
+    public void markCompleted(String idempotencyKey, String result) {
+        String sql = """
+            UPDATE idempotency
+            SET response_status = 'COMPLETED', result = ?, completed_at = NOW()
+            WHERE tenant = ? AND idempotency_key = ?
+            """;
+
+        jdbcTemplate.update(sql, result, TENANT, idempotencyKey);
+        log.debug("Marked idempotency key as completed: {}", idempotencyKey);
+    }
+
+    @Override
+    public void markFailed(String idempotencyKey, String error) {
+        String sql = "DELETE FROM idempotency WHERE tenant = ? AND idempotency_key = ?";
+
+        jdbcTemplate.update(sql, TENANT, idempotencyKey);
+        log.debug("Removed failed idempotency key (allowing retry): {}", idempotencyKey);
+    }
+
+    @Override
+    public String getResult(String idempotencyKey) {
+        String sql = """
+            SELECT result FROM idempotency
+            WHERE tenant = ? AND idempotency_key = ? AND expires_at > NOW()
+            """;
+
+        List<String> results = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getString("result"),
+                TENANT, idempotencyKey);
+        return results.isEmpty() ? null : results.get(0);
+    }
+}
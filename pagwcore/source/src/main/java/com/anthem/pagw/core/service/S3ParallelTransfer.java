@@ -0,0 +1,330 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel multipart uploads and ranged downloads for {@link S3Service}.
+ *
+ * <p>Parts and ranges of every transfer run on one pool of {@code concurrency} threads, so
+ * {@code concurrency} is a per-process limit that concurrent transfers share.</p>
+ *
+ * <p>Uploads split the body into parts and submit up to {@code concurrency} of them at once.
+ * Parts are read from the source only as permits free up, so at most {@code concurrency + 1}
+ * part buffers exist per upload and streams of unknown length never sit in the heap whole.
+ * A failed upload is aborted so no orphaned parts are left behind (and billed).</p>
+ *
+ * <p>Downloads GET the first part as a range, learn the object size from {@code Content-Range}
+ * and fetch the remaining ranges in parallel. Later ranges are pinned to the first response's
+ * ETag, so an overwrite during the download fails it instead of mixing two versions.</p>
+ */
+@Slf4j
+final class S3ParallelTransfer implements AutoCloseable {
+
+    /** S3's minimum size for every part but the last. */
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private final S3Client s3Client;
+    private final long multipartThreshold;
+    private final int partSize;
+    private final int concurrency;
+    private final ExecutorService executor;
+
+    S3ParallelTransfer(S3Client s3Client, PagwProperties.S3Transfer config) {
+        this.s3Client = s3Client;
+        if (config.getPartSizeBytes() < MIN_PART_SIZE) {
+            log.warn("pagw.aws.s3.transfer.part-size-bytes={} is below the S3 minimum - using {}",
+                    config.getPartSizeBytes(), MIN_PART_SIZE);
+        }
+        this.partSize = Math.max(config.getPartSizeBytes(), MIN_PART_SIZE);
+        this.multipartThreshold = Math.max(config.getMultipartThresholdBytes(), partSize);
+        this.concurrency = Math.max(1, config.getConcurrency());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "s3-transfer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    int partSize() {
+        return partSize;
+    }
+
+    boolean isMultipart(long length) {
+        return length >= multipartThreshold;
+    }
+
+    // ===== Uploads =====
+
+    /** {@code length} bytes of {@code array} starting at {@code offset}. */
+    record Part(byte[] array, int offset, int length) {}
+
+    @FunctionalInterface
+    interface PartSource {
+        /** The next part, or {@code null} once the body is exhausted. */
+        Part next() throws IOException;
+    }
+
+    /**
+     * Parts sliced from an in-memory body (no copying).
+     */
+    PartSource parts(byte[] body, int length) {
+        int[] position = {0};
+        return () -> {
+            if (position[0] >= length) {
+                return null;
+            }
+            int offset = position[0];
+            int size = Math.min(partSize, length - offset);
+            position[0] += size;
+            return new Part(body, offset, size);
+        };
+    }
+
+    /**
+     * Parts read from a stream, each into a fresh buffer. {@code first} (already read by the
+     * caller, e.g. to decide between a single PUT and multipart) is returned before the stream.
+     */
+    PartSource parts(Part first, InputStream in) {
+        boolean[] firstTaken = {first == null};
+        return () -> {
+            if (!firstTaken[0]) {
+                firstTaken[0] = true;
+                return first;
+            }
+            return readPart(in);
+        };
+    }
+
+    /**
+     * Read up to one part from a stream; a short part means the stream is exhausted.
+     *
+     * @return The part, or {@code null} if the stream was already at its end
+     */
+    Part readPart(InputStream in) throws IOException {
+        byte[] buffer = new byte[partSize];
+        int read = in.readNBytes(buffer, 0, partSize);
+        return read == 0 ? null : new Part(buffer, 0, read);
+    }
+
+    /**
+     * Upload a body as a multipart upload. Headers, metadata and server-side encryption are
+     * taken from {@code template}, so multipart objects look exactly like single-PUT ones.
+     *
+     * @return Number of parts uploaded
+     */
+    int upload(PutObjectRequest template, PartSource source) throws IOException {
+        String bucket = template.bucket();
+        String key = template.key();
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(template.contentType())
+                .contentEncoding(template.contentEncoding())
+                .metadata(template.metadata())
+                .serverSideEncryption(template.serverSideEncryption())
+                .ssekmsKeyId(template.ssekmsKeyId())
+                .build()).uploadId();
+
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<CompletedPart>> futures = new ArrayList<>();
+        try {
+            Part part;
+            while (failure.get() == null && (part = source.next()) != null) {
+                permits.acquire();
+                int partNumber = futures.size() + 1;
+                Part body = part;
+                futures.add(executor.submit(() -> {
+                    try {
+                        return uploadPart(bucket, key, uploadId, partNumber, body);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                        throw t;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            List<CompletedPart> completed = new ArrayList<>(futures.size());
+            for (Future<CompletedPart> future : futures) {
+                completed.add(await(future));
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                    .build());
+            return completed.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(bucket, key, uploadId, futures);
+            throw new InterruptedIOException("Interrupted uploading s3://" + bucket + "/" + key);
+        } catch (IOException | RuntimeException e) {
+            abort(bucket, key, uploadId, futures);
+            throw e;
+        }
+    }
+
+    private CompletedPart uploadPart(String bucket, String key, String uploadId, int partNumber, Part part) {
+        UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) part.length())
+                        .build(),
+                RequestBody.fromContentProvider(
+                        () -> new ByteArrayInputStream(part.array(), part.offset(), part.length()),
+                        part.length(), "application/octet-stream"));
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .build();
+    }
+
+    private void abort(String bucket, String key, String uploadId, List<Future<CompletedPart>> futures) {
+        futures.forEach(future -> future.cancel(true));
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (Exception e) {
+            // The bucket's AbortIncompleteMultipartUpload lifecycle rule cleans up eventually
+            log.warn("Failed to abort multipart upload {} for s3://{}/{}: {}", uploadId, bucket, key, e.getMessage());
+        }
+    }
+
+    // ===== Downloads =====
+
+    interface RangeSink {
+        /** Called once, before any {@link #write}, with the object's headers and total size. */
+        void begin(GetObjectResponse response, long size) throws IOException;
+
+        /**
+         * Consume {@code length} bytes from {@code in}, which start at {@code offset} in the
+         * object. Called concurrently for distinct ranges.
+         */
+        void write(long offset, InputStream in, long length) throws IOException;
+    }
+
+    /**
+     * Download an object with parallel ranged GETs.
+     *
+     * @return Headers of the first response (content type, encoding, metadata)
+     */
+    GetObjectResponse download(String bucket, String key, RangeSink sink) throws IOException {
+        GetObjectRequest request = GetObjectRequest.builder().bucket(bucket).key(key).build();
+
+        ResponseInputStream<GetObjectResponse> first;
+        try {
+            first = s3Client.getObject(request.toBuilder().range(range(0, partSize)).build());
+        } catch (S3Exception e) {
+            if (e.statusCode() != HTTP_RANGE_NOT_SATISFIABLE) {
+                throw e;
+            }
+            // Empty object: no byte range exists
+            first = s3Client.getObject(request);
+        }
+
+        GetObjectResponse response = first.response();
+        long firstLength = response.contentLength() != null ? response.contentLength() : 0;
+        long size = totalSize(response.contentRange(), firstLength);
+        try (InputStream in = first) {
+            sink.begin(response, size);
+            sink.write(0, in, firstLength);
+        }
+        if (size <= firstLength) {
+            return response;
+        }
+
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (long offset = firstLength; offset < size; offset += partSize) {
+                long start = offset;
+                long length = Math.min(partSize, size - offset);
+                futures.add(executor.submit(() -> {
+                    GetObjectRequest ranged = request.toBuilder()
+                            .range(range(start, length))
+                            .ifMatch(response.eTag())
+                            .build();
+                    try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(ranged)) {
+                        sink.write(start, in, length);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+        } catch (IOException | RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        log.debug("Downloaded s3://{}/{} in {} ranges ({} bytes)", bucket, key, futures.size() + 1, size);
+        return response;
+    }
+
+    private static String range(long offset, long length) {
+        return "bytes=" + offset + "-" + (offset + length - 1);
+    }
+
+    /** Total object size from a {@code Content-Range: bytes a-b/total} header. */
+    private static long totalSize(String contentRange, long contentLength) {
+        if (contentRange == null) {
+            // Whole object returned (range ignored or empty object)
+            return contentLength;
+        }
+        int slash = contentRange.lastIndexOf('/');
+        return Long.parseLong(contentRange.substring(slash + 1).trim());
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for S3 transfer");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("S3 transfer failed", cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
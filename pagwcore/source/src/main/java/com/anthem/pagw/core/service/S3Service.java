@@ -1,57 +1,112 @@
 package com.anthem.pagw.core.service;
 
 import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.cache.ArtifactCache;
+import com.anthem.pagw.core.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Service for S3 operations - upload, download, delete objects.
  * All uploads use server-side encryption (KMS or AES256) for PHI compliance.
+ *
+ * <p>JSON artifacts can be read and written without an intermediate {@code String}:
+ * {@link #downloadJson} parses straight from the response stream and {@link #uploadJson}
+ * serializes straight to UTF-8 bytes that are streamed into the request body.</p>
+ *
+ * <p>With {@code pagw.aws.s3.compression.codec=gzip}, JSON/XML/text bodies of at least
+ * {@code min-bytes} are gzipped on upload, tagged with {@code Content-Encoding} and the
+ * {@value #CODEC_METADATA} metadata entry, and inflated again by every download method.
+ * Objects without the tag are returned as stored, so compressed and uncompressed objects
+ * can coexist. {@link #uploadStream} is never compressed.</p>
+ *
+ * <p>With {@code pagw.aws.s3.cache.enabled}, uploads write the (uncompressed) body through to the
+ * {@link ArtifactCache} and downloads try it before S3, so the next stage usually reads the
+ * artifact the previous one just wrote without a GET. {@link #delete} and {@link #uploadStream}
+ * evict the key.</p>
+ *
+ * <p>Large bodies are moved in parallel (see {@code pagw.aws.s3.transfer}): uploads of at least
+ * {@code multipart-threshold-bytes} become multipart uploads and downloads fetch
+ * {@code part-size-bytes} ranges in parallel, at most {@code concurrency} parts/ranges at a time
+ * across all transfers in the process. Multipart uploads carry
+ * the same server-side encryption as single PUTs. {@link #downloadToFile} and the
+ * unknown-length {@link #uploadStream(String, String, InputStream, String)} keep large objects
+ * out of the heap.</p>
  */
 @Slf4j
 @Service
 public class S3Service {
 
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final String OCTET_STREAM_CONTENT_TYPE = "application/octet-stream";
+    /** User metadata key (x-amz-meta-pagw-codec) recording how the body was compressed. */
+    static final String CODEC_METADATA = "pagw-codec";
+    private static final String GZIP = "gzip";
+
     private final S3Client s3Client;
+    private final PagwProperties.S3Compression compression;
+    private final ArtifactCache artifactCache;
+    private final int cacheMaxEntryBytes;
+    private final S3ParallelTransfer transfer;
     private final boolean kmsEnabled;
     private final String kmsKeyId;
 
     public S3Service(
             S3Client s3Client,
+            PagwProperties properties,
+            ArtifactCache artifactCache,
             @Value("${pagw.encryption.kms-enabled:false}") boolean kmsEnabled,
             @Value("${pagw.encryption.kms-key-id:}") String kmsKeyId) {
         this.s3Client = s3Client;
+        this.compression = properties.getAws().getS3().getCompression();
+        this.artifactCache = artifactCache;
+        this.cacheMaxEntryBytes = properties.getAws().getS3().getCache().getMaxEntryBytes();
+        this.transfer = new S3ParallelTransfer(s3Client, properties.getAws().getS3().getTransfer());
         this.kmsEnabled = kmsEnabled;
         this.kmsKeyId = kmsKeyId;
 
         if (kmsEnabled && (kmsKeyId == null || kmsKeyId.isBlank())) {
             log.warn("KMS encryption enabled but no key ID provided - falling back to AES256");
         }
-        log.info("S3Service initialized: kmsEnabled={}, kmsKeyId={}",
+        log.info("S3Service initialized: kmsEnabled={}, kmsKeyId={}, compression={}",
                 kmsEnabled,
                 kmsKeyId != null && !kmsKeyId.isBlank()
                         ? kmsKeyId.substring(0, Math.min(8, kmsKeyId.length())) + "..."
-                        : "none");
+                        : "none",
+                compression.getCodec());
     }
 
     public void uploadString(String bucket, String key, String content, String contentType) {
         try {
-            PutObjectRequest.Builder requestBuilder = PutObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .contentType(contentType);
-
-            applyEncryption(requestBuilder);
-
-            s3Client.putObject(requestBuilder.build(), RequestBody.fromString(content, StandardCharsets.UTF_8));
-            log.debug("Uploaded string to s3://{}/{} (encrypted={})", bucket, key, getEncryptionType());
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            String codec = putBody(bucket, key, bytes, bytes.length, contentType);
+            cachePut(bucket, key, bytes, bytes.length);
+            log.debug("Uploaded string to s3://{}/{} (encrypted={}, codec={})", bucket, key, getEncryptionType(), codec);
         } catch (Exception e) {
             log.error("Failed to upload string to s3://{}/{}", bucket, key, e);
             throw new RuntimeException("Failed to upload to S3", e);
@@ -59,6 +114,19 @@ public class S3Service {
     }
 
     public void uploadBytes(String bucket, String key, byte[] content, String contentType) {
+        try {
+            String codec = putBody(bucket, key, content, content.length, contentType);
+            cachePut(bucket, key, content, content.length);
+            log.debug("Uploaded {} bytes to s3://{}/{} (encrypted={}, codec={})",
+                    content.length, bucket, key, getEncryptionType(), codec);
+        } catch (Exception e) {
+            log.error("Failed to upload bytes to s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("Failed to upload to S3", e);
+        }
+    }
+
+    public void uploadStream(String bucket, String key, InputStream inputStream,
+                             long contentLength, String contentType) {
         try {
             PutObjectRequest.Builder requestBuilder = PutObjectRequest.builder()
                     .bucket(bucket)
@@ -67,33 +135,143 @@ public class S3Service {
 
             applyEncryption(requestBuilder);
 
-            s3Client.putObject(requestBuilder.build(), RequestBody.fromBytes(content));
-            log.debug("Uploaded {} bytes to s3://{}/{} (encrypted={})", content.length, bucket, key, getEncryptionType());
+            if (transfer.isMultipart(contentLength)) {
+                transfer.upload(requestBuilder.build(), transfer.parts(null, inputStream));
+            } else {
+                s3Client.putObject(requestBuilder.contentLength(contentLength).build(),
+                        RequestBody.fromInputStream(inputStream, contentLength));
+            }
+            artifactCache.evict(bucket, key);
+            log.debug("Uploaded stream to s3://{}/{} (encrypted={})", bucket, key, getEncryptionType());
         } catch (Exception e) {
-            log.error("Failed to upload bytes to s3://{}/{}", bucket, key, e);
+            log.error("Failed to upload stream to s3://{}/{}", bucket, key, e);
             throw new RuntimeException("Failed to upload to S3", e);
         }
     }
 
-    public void uploadStream(String bucket, String key, InputStream inputStream,
-                             long contentLength, String contentType) {
+    /**
+     * Upload a stream of unknown length. A stream longer than one part is sent as a parallel
+     * multipart upload holding at most {@code concurrency + 1} parts in memory; a shorter one
+     * with a single PUT. Like the sized variant, it is never compressed.
+     */
+    public void uploadStream(String bucket, String key, InputStream inputStream, String contentType) {
         try {
             PutObjectRequest.Builder requestBuilder = PutObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
-                    .contentType(contentType)
-                    .contentLength(contentLength);
+                    .contentType(contentType);
 
             applyEncryption(requestBuilder);
 
-            s3Client.putObject(requestBuilder.build(), RequestBody.fromInputStream(inputStream, contentLength));
-            log.debug("Uploaded stream to s3://{}/{} (encrypted={})", bucket, key, getEncryptionType());
+            S3ParallelTransfer.Part first = transfer.readPart(inputStream);
+            if (first != null && first.length() == transfer.partSize()) {
+                int parts = transfer.upload(requestBuilder.build(), transfer.parts(first, inputStream));
+                log.debug("Uploaded stream to s3://{}/{} in {} parts (encrypted={})",
+                        bucket, key, parts, getEncryptionType());
+            } else {
+                byte[] content = first != null ? first.array() : new byte[0];
+                int length = first != null ? first.length() : 0;
+                s3Client.putObject(requestBuilder.contentLength((long) length).build(), RequestBody.fromContentProvider(
+                        () -> new ByteArrayInputStream(content, 0, length), length, OCTET_STREAM_CONTENT_TYPE));
+                log.debug("Uploaded stream to s3://{}/{} ({} bytes, encrypted={})",
+                        bucket, key, length, getEncryptionType());
+            }
+            artifactCache.evict(bucket, key);
         } catch (Exception e) {
             log.error("Failed to upload stream to s3://{}/{}", bucket, key, e);
             throw new RuntimeException("Failed to upload to S3", e);
         }
     }
 
+    /**
+     * Serialize a value with Jackson directly into the upload body (no intermediate String).
+     */
+    public void uploadJson(String bucket, String key, Object value) {
+        try {
+            OutputBuffer buffer = new OutputBuffer();
+            JsonUtils.getObjectMapper().writeValue(buffer, value);
+
+            String codec = putBody(bucket, key, buffer.array(), buffer.size(), JSON_CONTENT_TYPE);
+            cachePut(bucket, key, buffer.array(), buffer.size());
+            log.debug("Uploaded {} JSON bytes to s3://{}/{} (encrypted={}, codec={})",
+                    buffer.size(), bucket, key, getEncryptionType(), codec);
+        } catch (Exception e) {
+            log.error("Failed to upload JSON to s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("Failed to upload to S3", e);
+        }
+    }
+
+    /**
+     * Put the first {@code length} bytes of {@code body}, compressed if configured, as a
+     * multipart upload if it is large.
+     *
+     * @return The codec applied ("none" or "gzip")
+     */
+    private String putBody(String bucket, String key, byte[] body, int length, String contentType) throws IOException {
+        PutObjectRequest.Builder requestBuilder = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType);
+
+        String codec = "none";
+        if (shouldCompress(contentType, length)) {
+            OutputBuffer compressed = new OutputBuffer();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+                gzip.write(body, 0, length);
+            }
+            body = compressed.array();
+            length = compressed.size();
+            codec = GZIP;
+            requestBuilder
+                    .contentEncoding(GZIP)
+                    .metadata(Map.of(CODEC_METADATA, GZIP));
+        }
+
+        applyEncryption(requestBuilder);
+
+        if (transfer.isMultipart(length)) {
+            int parts = transfer.upload(requestBuilder.build(), transfer.parts(body, length));
+            log.debug("Uploaded {} bytes to s3://{}/{} in {} parts", length, bucket, key, parts);
+            return codec;
+        }
+
+        requestBuilder.contentLength((long) length);
+        byte[] content = body;
+        int contentLength = length;
+        s3Client.putObject(requestBuilder.build(), RequestBody.fromContentProvider(
+                () -> new ByteArrayInputStream(content, 0, contentLength), contentLength, contentType));
+        return codec;
+    }
+
+    /**
+     * Write a body through to the artifact cache (a copy: the caller's array may be reused).
+     */
+    private void cachePut(String bucket, String key, byte[] body, int length) {
+        if (artifactCache == ArtifactCache.NONE) {
+            return;
+        }
+        if (length > cacheMaxEntryBytes) {
+            artifactCache.evict(bucket, key);
+            return;
+        }
+        artifactCache.put(bucket, key, Arrays.copyOf(body, length));
+    }
+
+    private boolean shouldCompress(String contentType, int length) {
+        if (compression.getCodec() != PagwProperties.S3Compression.Codec.GZIP
+                || length < compression.getMinBytes() || contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        // Attachments (PDF, images) are already compressed
+        return type.contains("json") || type.contains("xml") || type.startsWith("text/");
+    }
+
+    private static boolean isCompressed(GetObjectResponse response) {
+        String codec = response.hasMetadata() ? response.metadata().get(CODEC_METADATA) : null;
+        return GZIP.equalsIgnoreCase(codec != null ? codec : response.contentEncoding());
+    }
+
     /**
      * Apply server-side encryption to the request.
      * Uses KMS if enabled and key ID provided, otherwise falls back to AES256.
@@ -117,28 +295,171 @@ public class S3Service {
 
     public String downloadString(String bucket, String key) {
         try {
+            return new String(getBody(bucket, key), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            log.error("Failed to download string from s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("Failed to download from S3", e);
+        }
+    }
+
+    public byte[] downloadBytes(String bucket, String key) {
+        try {
+            byte[] body = getBody(bucket, key);
+            // Cached arrays are shared; callers get their own copy
+            return artifactCache == ArtifactCache.NONE ? body : body.clone();
+        } catch (Exception e) {
+            log.error("Failed to download bytes from s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("Failed to download from S3", e);
+        }
+    }
+
+    /**
+     * Download an object to a file with parallel ranged GETs, without holding it in the heap.
+     * Compressed objects are inflated once downloaded.
+     *
+     * @return Size of the written file
+     */
+    public long downloadToFile(String bucket, String key, Path target) {
+        Path inflated = null;
+        try {
+            byte[] cached = artifactCache.get(bucket, key);
+            if (cached != null) {
+                Files.write(target, cached);
+                return cached.length;
+            }
+
+            GetObjectResponse response;
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                response = transfer.download(bucket, key, new FileSink(channel));
+            }
+            if (isCompressed(response)) {
+                inflated = Files.createTempFile(target.toAbsolutePath().getParent(), ".s3-", ".tmp");
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(target), 8192)) {
+                    Files.copy(in, inflated, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(inflated, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return Files.size(target);
+        } catch (Exception e) {
+            log.error("Failed to download s3://{}/{} to {}", bucket, key, target, e);
+            throw new RuntimeException("Failed to download from S3", e);
+        } finally {
+            if (inflated != null) {
+                try {
+                    Files.deleteIfExists(inflated);
+                } catch (IOException e) {
+                    log.warn("Failed to delete temp file {}", inflated);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get an object's body from the artifact cache, or from S3 (inflated if it was stored
+     * compressed) and cache it.
+     */
+    private byte[] getBody(String bucket, String key) throws IOException {
+        byte[] cached = artifactCache.get(bucket, key);
+        if (cached != null) {
+            log.debug("Artifact cache hit for s3://{}/{}", bucket, key);
+            return cached;
+        }
+
+        ArraySink sink = new ArraySink();
+        GetObjectResponse response = transfer.download(bucket, key, sink);
+        byte[] body = sink.body;
+        if (isCompressed(response)) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body), 8192)) {
+                body = in.readAllBytes();
+            }
+        }
+        if (artifactCache != ArtifactCache.NONE && body.length <= cacheMaxEntryBytes) {
+            artifactCache.put(bucket, key, body);
+        }
+        return body;
+    }
+
+    /**
+     * Open an object for streaming reads, inflating compressed objects on the fly. The caller
+     * must close the stream (it holds an HTTP connection from the client pool until then).
+     */
+    public ResponseInputStream<GetObjectResponse> downloadStream(String bucket, String key) {
+        try {
+            byte[] cached = artifactCache.get(bucket, key);
+            if (cached != null) {
+                log.debug("Artifact cache hit for s3://{}/{}", bucket, key);
+                return new ResponseInputStream<>(
+                        GetObjectResponse.builder().contentLength((long) cached.length).build(),
+                        AbortableInputStream.create(new ByteArrayInputStream(cached)));
+            }
+
             GetObjectRequest request = GetObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
                     .build();
 
-            return s3Client.getObjectAsBytes(request).asUtf8String();
+            ResponseInputStream<GetObjectResponse> object = s3Client.getObject(request);
+            if (!isCompressed(object.response())) {
+                return object;
+            }
+            try {
+                return new ResponseInputStream<>(object.response(),
+                        AbortableInputStream.create(new GZIPInputStream(object, 8192), object::abort));
+            } catch (IOException e) {
+                object.abort();
+                throw e;
+            }
         } catch (Exception e) {
-            log.error("Failed to download string from s3://{}/{}", bucket, key, e);
+            log.error("Failed to open stream for s3://{}/{}", bucket, key, e);
             throw new RuntimeException("Failed to download from S3", e);
         }
     }
 
-    public byte[] downloadBytes(String bucket, String key) {
+    /**
+     * Open bytes {@code start..endInclusive} of an object as stored (never inflated, never from
+     * the artifact cache). The response's {@code Content-Range} carries the object's total size.
+     * The caller must close the stream.
+     */
+    public ResponseInputStream<GetObjectResponse> downloadRange(String bucket, String key, long start, long endInclusive) {
         try {
             GetObjectRequest request = GetObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
+                    .range("bytes=" + start + "-" + endInclusive)
                     .build();
 
-            return s3Client.getObjectAsBytes(request).asByteArray();
+            return s3Client.getObject(request);
         } catch (Exception e) {
-            log.error("Failed to download bytes from s3://{}/{}", bucket, key, e);
+            log.error("Failed to open range {}-{} of s3://{}/{}", start, endInclusive, bucket, key, e);
+            throw new RuntimeException("Failed to download from S3", e);
+        }
+    }
+
+    /**
+     * Parse a JSON object straight from the response stream into a tree.
+     */
+    public JsonNode downloadJson(String bucket, String key) {
+        try (InputStream in = downloadStream(bucket, key)) {
+            return JsonUtils.getObjectMapper().readTree(in);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to read JSON from s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("Failed to download from S3", e);
+        }
+    }
+
+    /**
+     * Bind a JSON object straight from the response stream to a type.
+     */
+    public <T> T downloadJson(String bucket, String key, Class<T> type) {
+        try (InputStream in = downloadStream(bucket, key)) {
+            return JsonUtils.getObjectMapper().readValue(in, type);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to read JSON from s3://{}/{}", bucket, key, e);
             throw new RuntimeException("Failed to download from S3", e);
         }
     }
@@ -168,6 +489,7 @@ public class S3Service {
                     .build();
 
             s3Client.deleteObject(request);
+            artifactCache.evict(bucket, key);
             log.debug("Deleted s3://{}/{}", bucket, key);
         } catch (Exception e) {
             log.error("Failed to delete s3://{}/{}", bucket, key, e);
@@ -175,6 +497,11 @@ public class S3Service {
         }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        transfer.close();
+    }
+
     public String generateKey(String pagwId, String fileType, String extension) {
         if (pagwId == null || pagwId.length() < 2) {
             throw new IllegalArgumentException("pagwId must be at least 2 characters");
@@ -216,12 +543,94 @@ public class S3Service {
         return key;
     }
 
+    /**
+     * Store parsed FHIR data in S3, serialized straight from the object, and return the path.
+     */
+    public String putParsedData(String bucket, String tenant, String pagwId, Object parsedData) {
+        String key = PagwProperties.S3Paths.fhirExtracted(pagwId);
+        uploadJson(bucket, key, parsedData);
+        return key;
+    }
+
     /**
      * Retrieve parsed FHIR data from S3.
      */
     public String getParsedData(String bucket, String s3Path) {
         return downloadString(bucket, s3Path);
     }
+
+    /**
+     * Collects parallel ranges into one array.
+     */
+    private static final class ArraySink implements S3ParallelTransfer.RangeSink {
+
+        private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+        private byte[] body;
+
+        @Override
+        public void begin(GetObjectResponse response, long size) throws IOException {
+            if (size > MAX_ARRAY_SIZE) {
+                throw new IOException("Object of " + size + " bytes does not fit in memory - use downloadToFile");
+            }
+            body = new byte[(int) size];
+        }
+
+        @Override
+        public void write(long offset, InputStream in, long length) throws IOException {
+            if (in.readNBytes(body, (int) offset, (int) length) != length) {
+                throw new EOFException("Range at " + offset + " ended early");
+            }
+        }
+    }
+
+    /**
+     * Writes parallel ranges at their offsets in a file.
+     */
+    private static final class FileSink implements S3ParallelTransfer.RangeSink {
+
+        private final FileChannel channel;
+
+        FileSink(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void begin(GetObjectResponse response, long size) {
+        }
+
+        @Override
+        public void write(long offset, InputStream in, long length) throws IOException {
+            byte[] buffer = new byte[64 * 1024];
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, end - position));
+                if (read < 0) {
+                    throw new EOFException("Range at " + offset + " ended early");
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+            }
+        }
+    }
+
+    /**
+     * Output buffer whose content is handed to the SDK without copying the array.
+     */
+    private static final class OutputBuffer extends ByteArrayOutputStream {
+
+        OutputBuffer() {
+            super(8192);
+        }
+
+        /** The backing array; only the first {@link #size()} bytes are valid. */
+        byte[] array() {
+            return buf;
+        }
+    }
 }
 
 
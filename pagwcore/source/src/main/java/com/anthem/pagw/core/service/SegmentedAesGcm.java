@@ -0,0 +1,338 @@
+package com.anthem.pagw.core.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Segmented AES-256-GCM stream format (version 1) for objects too large to encrypt in memory,
+ * after the STREAM construction used by streaming AEADs.
+ *
+ * <pre>
+ * header  = "PGWE" | version (1) | segment size (int) | nonce prefix (7) | key length (short) | wrapped DEK
+ * segment = AES-GCM(DEK, nonce = prefix | segment index (int) | last (1 byte), aad = header)(plaintext) | tag (16)
+ * </pre>
+ *
+ * <p>Every segment but the last holds exactly {@code segment size} plaintext bytes; the last holds
+ * 0 to {@code segment size} bytes and is flagged in its nonce, so reordered, dropped or truncated
+ * segments fail authentication. The header is authenticated with every segment. Segment offsets
+ * follow from the header, so a range of plaintext can be decrypted from the segments covering it.</p>
+ *
+ * <p>Streams hold two segments at a time, whatever the object size.</p>
+ */
+final class SegmentedAesGcm {
+
+    static final int VERSION = 1;
+    static final int TAG_LENGTH = 16;
+    /** Enough to read any header in one ranged GET (KMS data-key blobs are a few hundred bytes). */
+    static final int MAX_HEADER_LENGTH = 4096;
+
+    private static final byte[] MAGIC = {'P', 'G', 'W', 'E'};
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int NONCE_LENGTH = 12;
+    private static final int FIXED_HEADER_LENGTH = MAGIC.length + 1 + 4 + NONCE_PREFIX_LENGTH + 2;
+
+    /**
+     * Parsed stream header; {@code bytes} is its encoded form (the associated data of every segment).
+     */
+    record Header(int segmentSize, byte[] noncePrefix, byte[] encryptedKey, byte[] bytes) {
+
+        int length() {
+            return bytes.length;
+        }
+
+        /** Ciphertext offset of segment {@code index}. */
+        long segmentOffset(long index) {
+            return bytes.length + index * (long) (segmentSize + TAG_LENGTH);
+        }
+
+        /** Number of segments of an object of {@code objectSize} ciphertext bytes. */
+        long segmentCount(long objectSize) {
+            long body = objectSize - bytes.length;
+            if (body < TAG_LENGTH) {
+                throw new IllegalArgumentException("Encrypted object is truncated");
+            }
+            return (body + segmentSize + TAG_LENGTH - 1) / (segmentSize + TAG_LENGTH);
+        }
+
+        /** Plaintext size of an object of {@code objectSize} ciphertext bytes. */
+        long plaintextLength(long objectSize) {
+            return objectSize - bytes.length - segmentCount(objectSize) * TAG_LENGTH;
+        }
+    }
+
+    private SegmentedAesGcm() {
+    }
+
+    static Header newHeader(int segmentSize, byte[] encryptedKey, SecureRandom random) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+        }
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        random.nextBytes(noncePrefix);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(FIXED_HEADER_LENGTH + encryptedKey.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(segmentSize);
+            out.write(noncePrefix);
+            out.writeShort(encryptedKey.length);
+            out.write(encryptedKey);
+            return new Header(segmentSize, noncePrefix, encryptedKey.clone(), bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read exactly the header from the start of an encrypted stream.
+     */
+    static Header readHeader(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] fixed = new byte[FIXED_HEADER_LENGTH];
+        data.readFully(fixed);
+        ByteBuffer buffer = ByteBuffer.wrap(fixed);
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a segmented AES-GCM stream");
+        }
+        int version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported stream version: " + version);
+        }
+        int segmentSize = buffer.getInt();
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        buffer.get(noncePrefix);
+        int keyLength = Short.toUnsignedInt(buffer.getShort());
+        if (segmentSize < 1 || FIXED_HEADER_LENGTH + keyLength > MAX_HEADER_LENGTH) {
+            throw new IOException("Corrupt stream header");
+        }
+        byte[] encryptedKey = new byte[keyLength];
+        data.readFully(encryptedKey);
+
+        byte[] bytes = Arrays.copyOf(fixed, FIXED_HEADER_LENGTH + keyLength);
+        System.arraycopy(encryptedKey, 0, bytes, FIXED_HEADER_LENGTH, keyLength);
+        return new Header(segmentSize, noncePrefix, encryptedKey, bytes);
+    }
+
+    /**
+     * Ciphertext (header, then segments) of {@code plaintext}. The key is copied; zero it after the call.
+     */
+    static InputStream encrypt(InputStream plaintext, Header header, byte[] key) {
+        return new EncryptingStream(plaintext, header, key);
+    }
+
+    /**
+     * Plaintext of the segments read from {@code ciphertext}, which must be positioned at the start
+     * of segment {@code firstSegment} (after the header).
+     *
+     * @param finalSegment Index of the object's last segment, or -1 to detect it from the end of the input
+     * @param skip         Plaintext bytes to drop from the start of {@code firstSegment}
+     * @param limit        Plaintext bytes to return at most ({@link Long#MAX_VALUE} for all)
+     */
+    static InputStream decrypt(InputStream ciphertext, Header header, byte[] key,
+                               long firstSegment, long finalSegment, long skip, long limit) {
+        return new DecryptingStream(ciphertext, header, key, firstSegment, finalSegment, skip, limit);
+    }
+
+    private static byte[] nonce(Header header, long index, boolean last) {
+        if (index > 0xFFFFFFFFL) {
+            throw new IllegalStateException("Too many segments");
+        }
+        byte[] nonce = new byte[NONCE_LENGTH];
+        System.arraycopy(header.noncePrefix(), 0, nonce, 0, NONCE_PREFIX_LENGTH);
+        ByteBuffer.wrap(nonce, NONCE_PREFIX_LENGTH, 5).putInt((int) index).put((byte) (last ? 1 : 0));
+        return nonce;
+    }
+
+    /** Fill {@code buffer} from {@code in}; fewer bytes than its length means the input ended. */
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        return in.readNBytes(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Pull-based base for both directions: produces one output segment at a time into {@code out}.
+     */
+    private abstract static class SegmentStream extends InputStream {
+
+        final InputStream in;
+        final Header header;
+        final Cipher cipher;
+        final SecretKeySpec keySpec;
+        byte[] out = new byte[0];
+        int outPosition;
+        int outLength;
+        boolean done;
+
+        SegmentStream(InputStream in, Header header, byte[] key) {
+            this.in = in;
+            this.header = header;
+            this.keySpec = new SecretKeySpec(key, "AES");
+            try {
+                this.cipher = Cipher.getInstance(ALGORITHM);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /** Produce the next segment into {@code out}; set {@code done} after the last one. */
+        abstract void nextSegment() throws IOException;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (outPosition == outLength) {
+                if (done) {
+                    return -1;
+                }
+                nextSegment();
+            }
+            int n = Math.min(len, outLength - outPosition);
+            System.arraycopy(out, outPosition, b, off, n);
+            outPosition += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class EncryptingStream extends SegmentStream {
+
+        private byte[] current;
+        private byte[] next;
+        private int currentLength = -1;
+        private long index;
+
+        private EncryptingStream(InputStream in, Header header, byte[] key) {
+            super(in, header, key);
+            this.current = new byte[header.segmentSize()];
+            this.next = new byte[header.segmentSize()];
+            this.out = header.bytes();
+            this.outLength = out.length;
+        }
+
+        @Override
+        void nextSegment() throws IOException {
+            if (currentLength < 0) {
+                currentLength = readFully(in, current);
+                out = new byte[header.segmentSize() + TAG_LENGTH];
+            }
+            // A full segment is the last one only if nothing follows it
+            int nextLength = currentLength == current.length ? readFully(in, next) : 0;
+            boolean last = nextLength == 0;
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(TAG_LENGTH * 8, nonce(header, index, last)));
+                cipher.updateAAD(header.bytes());
+                outLength = cipher.doFinal(current, 0, currentLength, out, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Failed to encrypt segment " + index, e);
+            }
+            outPosition = 0;
+            index++;
+            byte[] swap = current;
+            current = next;
+            next = swap;
+            currentLength = nextLength;
+            done = last;
+        }
+    }
+
+    private static final class DecryptingStream extends SegmentStream {
+
+        private final long finalSegment;
+        private byte[] current;
+        private byte[] next;
+        private int currentLength = -1;
+        private long index;
+        private long skip;
+        private long remaining;
+
+        private DecryptingStream(InputStream in, Header header, byte[] key,
+                                 long firstSegment, long finalSegment, long skip, long limit) {
+            super(in, header, key);
+            this.finalSegment = finalSegment;
+            this.index = firstSegment;
+            this.skip = skip;
+            this.remaining = limit;
+            this.current = new byte[header.segmentSize() + TAG_LENGTH];
+            this.next = new byte[header.segmentSize() + TAG_LENGTH];
+            this.out = new byte[header.segmentSize()];
+        }
+
+        @Override
+        void nextSegment() throws IOException {
+            if (currentLength < 0) {
+                currentLength = readFully(in, current);
+            }
+            if (currentLength == 0) {
+                // The input ended on a segment boundary: only valid where the caller's range ends
+                if (finalSegment < 0 || index <= finalSegment && remaining > 0) {
+                    throw new EOFException("Encrypted stream is truncated at segment " + index);
+                }
+                done = true;
+                return;
+            }
+            if (currentLength < TAG_LENGTH) {
+                throw new EOFException("Encrypted stream is truncated at segment " + index);
+            }
+
+            boolean last;
+            int nextLength = 0;
+            if (finalSegment >= 0) {
+                last = index == finalSegment;
+            } else {
+                nextLength = currentLength == current.length ? readFully(in, next) : 0;
+                last = nextLength == 0;
+            }
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(TAG_LENGTH * 8, nonce(header, index, last)));
+                cipher.updateAAD(header.bytes());
+                outLength = cipher.doFinal(current, 0, currentLength, out, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Segment " + index + " failed authentication", e);
+            }
+
+            outPosition = (int) Math.min(skip, outLength);
+            skip -= outPosition;
+            if (remaining < outLength - outPosition) {
+                outLength = outPosition + (int) remaining;
+            }
+            remaining -= outLength - outPosition;
+            index++;
+            done = last || remaining == 0;
+
+            if (finalSegment < 0) {
+                byte[] swap = current;
+                current = next;
+                next = swap;
+                currentLength = nextLength;
+            } else {
+                currentLength = -1;
+            }
+        }
+    }
+}
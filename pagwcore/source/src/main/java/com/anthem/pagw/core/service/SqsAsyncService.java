@@ -0,0 +1,304 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.model.PagwMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Non-blocking SQS operations on the {@link SqsAsyncClient} with client-side batching.
+ *
+ * <p>Concurrent {@link #sendMessage} / {@link #deleteMessage} calls to the same queue are
+ * buffered and merged into SendMessageBatch / DeleteMessageBatch requests. A buffer is flushed
+ * when it holds {@code pagw.aws.sqs.batching.max-batch-size} entries (max 10) or
+ * {@code max-linger-ms} after its first entry, whichever comes first; a send buffer is also
+ * flushed before an entry that would take it past the 256 KiB batch payload limit. Each call gets its own
+ * future, completed from its entry in the batch response; an entry rejected by SQS completes
+ * exceptionally with {@link SqsBatchEntryException}.</p>
+ *
+ * <p>Callbacks attached to the returned futures run on SDK threads - hand off blocking work
+ * (JDBC, synchronous AWS calls) with the {@code *Async} variants and an executor.</p>
+ *
+ * <p>FIFO order is kept within a batch. Two batches to the same queue may be in flight at the
+ * same time, so callers needing strict order within a message group must wait for the previous
+ * send of that group (the pipeline sends one message per pagwId at a time).</p>
+ */
+@Slf4j
+@Service
+public class SqsAsyncService {
+
+    private final SqsAsyncClient sqsAsyncClient;
+    private final PagwMessageCodec messageCodec;
+    private final PagwProperties.SqsBatching batching;
+    private final ScheduledExecutorService flushScheduler;
+    private final Map<String, BatchBuffer<SendMessageBatchRequestEntry, String>> sendBuffers = new ConcurrentHashMap<>();
+    private final Map<String, BatchBuffer<DeleteMessageBatchRequestEntry, Void>> deleteBuffers = new ConcurrentHashMap<>();
+
+    public SqsAsyncService(SqsAsyncClient sqsAsyncClient, PagwMessageCodec messageCodec, PagwProperties properties) {
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.messageCodec = messageCodec;
+        this.batching = properties.getAws().getSqs().getBatching();
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sqs-batch-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Send a message; FIFO group and deduplication IDs are derived as in {@link SqsService#sendMessage}.
+     * Oversized messages are spilled to S3 by {@link PagwMessageCodec} before buffering.
+     *
+     * @return Future of the SQS message ID
+     */
+    public CompletableFuture<String> sendMessage(String queueUrl, PagwMessage message) {
+        String body;
+        try {
+            body = messageCodec.encode(message);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to serialize SQS message", e));
+        }
+        return sendRawMessage(queueUrl, body, message.getPagwId(), message.getMessageId());
+    }
+
+    /**
+     * Send an already-serialized body. Group and deduplication IDs are only applied for FIFO queues.
+     *
+     * @return Future of the SQS message ID
+     */
+    public CompletableFuture<String> sendRawMessage(String queueUrl, String messageBody, String groupId, String deduplicationId) {
+        SendMessageBatchRequestEntry.Builder entry = SendMessageBatchRequestEntry.builder().messageBody(messageBody);
+        if (isFifoQueue(queueUrl)) {
+            entry.messageGroupId(groupId);
+            entry.messageDeduplicationId(deduplicationId);
+        }
+        return sendBuffers.computeIfAbsent(queueUrl, url -> new BatchBuffer<>(url, this::flushSends, SqsService::payloadBytes))
+                .add(entry.build());
+    }
+
+    /**
+     * Delete a received message.
+     *
+     * @return Future completed once SQS confirmed the delete
+     */
+    public CompletableFuture<Void> deleteMessage(String queueUrl, String receiptHandle) {
+        DeleteMessageBatchRequestEntry entry = DeleteMessageBatchRequestEntry.builder()
+                .receiptHandle(receiptHandle)
+                .build();
+        return deleteBuffers.computeIfAbsent(queueUrl, url -> new BatchBuffer<>(url, this::flushDeletes, entry -> 0))
+                .add(entry);
+    }
+
+    /**
+     * Send everything still buffered (shutdown; tests).
+     */
+    public void flushAll() {
+        sendBuffers.values().forEach(BatchBuffer::flush);
+        deleteBuffers.values().forEach(BatchBuffer::flush);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAll();
+        flushScheduler.shutdown();
+    }
+
+    private void flushSends(String queueUrl, List<Pending<SendMessageBatchRequestEntry, String>> batch) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        Map<String, CompletableFuture<String>> futuresById = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            String id = Integer.toString(i);
+            entries.add(batch.get(i).entry().toBuilder().id(id).build());
+            futuresById.put(id, batch.get(i).future());
+        }
+
+        call(() -> sqsAsyncClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(entries)
+                .build()))
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        failAll(queueUrl, "send", futuresById.values(), error);
+                        return;
+                    }
+                    response.successful().forEach(ok -> futuresById.remove(ok.id()).complete(ok.messageId()));
+                    completeFailed(queueUrl, response.failed(), futuresById);
+                    log.debug("Batch sent to {}: entries={}, failed={}", queueUrl, entries.size(), response.failed().size());
+                });
+    }
+
+    private void flushDeletes(String queueUrl, List<Pending<DeleteMessageBatchRequestEntry, Void>> batch) {
+        List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        Map<String, CompletableFuture<Void>> futuresById = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            String id = Integer.toString(i);
+            entries.add(batch.get(i).entry().toBuilder().id(id).build());
+            futuresById.put(id, batch.get(i).future());
+        }
+
+        call(() -> sqsAsyncClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(entries)
+                .build()))
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        failAll(queueUrl, "delete", futuresById.values(), error);
+                        return;
+                    }
+                    response.successful().forEach(ok -> futuresById.remove(ok.id()).complete(null));
+                    completeFailed(queueUrl, response.failed(), futuresById);
+                    log.debug("Batch deleted from {}: entries={}, failed={}", queueUrl, entries.size(), response.failed().size());
+                });
+    }
+
+    /**
+     * Turn a synchronous exception from the SDK (e.g. request validation) into a failed future.
+     */
+    private static <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request) {
+        try {
+            return request.get();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <R> void completeFailed(String queueUrl, List<BatchResultErrorEntry> failed,
+                                    Map<String, CompletableFuture<R>> futuresById) {
+        for (BatchResultErrorEntry failure : failed) {
+            log.warn("Batch entry failed on {}: code={}, senderFault={}", queueUrl, failure.code(), failure.senderFault());
+            CompletableFuture<R> future = futuresById.remove(failure.id());
+            if (future != null) {
+                future.completeExceptionally(new SqsBatchEntryException(failure.code(), failure.message(), failure.senderFault()));
+            }
+        }
+        // Every entry is listed as successful or failed; never leave a caller waiting if one is not
+        futuresById.values().forEach(future -> future.completeExceptionally(
+                new IllegalStateException("No result for batch entry on queue " + queueUrl)));
+    }
+
+    private <R> void failAll(String queueUrl, String operation, Iterable<CompletableFuture<R>> futures, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        log.error("Failed to {} message batch on queue: {}", operation, queueUrl, cause);
+        RuntimeException failure = new RuntimeException("Failed to " + operation + " SQS message batch", cause);
+        futures.forEach(future -> future.completeExceptionally(failure));
+    }
+
+    private boolean isFifoQueue(String queueUrl) {
+        return queueUrl != null && queueUrl.endsWith(".fifo");
+    }
+
+    /**
+     * SQS rejected a single entry of a batch call.
+     */
+    public static class SqsBatchEntryException extends RuntimeException {
+
+        private final String code;
+        private final boolean senderFault;
+
+        public SqsBatchEntryException(String code, String message, boolean senderFault) {
+            super(code + ": " + message);
+            this.code = code;
+            this.senderFault = senderFault;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        /** True if the request was invalid (retrying the same entry will not help). */
+        public boolean isSenderFault() {
+            return senderFault;
+        }
+    }
+
+    private record Pending<E, R>(E entry, CompletableFuture<R> future) {}
+
+    /**
+     * Per-queue buffer. Entries are drained under the lock; the batch call itself is made outside it.
+     */
+    private final class BatchBuffer<E, R> {
+
+        private final String queueUrl;
+        private final BiConsumer<String, List<Pending<E, R>>> flusher;
+        private final ToIntFunction<E> payloadBytes;
+        private List<Pending<E, R>> pending = new ArrayList<>();
+        private int pendingBytes;
+        private ScheduledFuture<?> lingerTask;
+
+        BatchBuffer(String queueUrl, BiConsumer<String, List<Pending<E, R>>> flusher, ToIntFunction<E> payloadBytes) {
+            this.queueUrl = queueUrl;
+            this.flusher = flusher;
+            this.payloadBytes = payloadBytes;
+        }
+
+        CompletableFuture<R> add(E entry) {
+            CompletableFuture<R> future = new CompletableFuture<>();
+            List<Pending<E, R>> full = null;
+            List<Pending<E, R>> ready = null;
+            int maxBatchSize = batching.isEnabled()
+                    ? Math.max(1, Math.min(batching.getMaxBatchSize(), SqsService.MAX_BATCH_SIZE)) : 1;
+            int bytes = payloadBytes.applyAsInt(entry);
+
+            synchronized (this) {
+                if (!pending.isEmpty() && pendingBytes + bytes > SqsService.MAX_BATCH_BYTES) {
+                    // Send what is buffered; this entry starts the next batch
+                    full = drain();
+                }
+                pending.add(new Pending<>(entry, future));
+                pendingBytes += bytes;
+                if (pending.size() >= maxBatchSize || batching.getMaxLingerMs() <= 0) {
+                    ready = drain();
+                } else if (pending.size() == 1) {
+                    lingerTask = flushScheduler.schedule(this::flush, batching.getMaxLingerMs(), TimeUnit.MILLISECONDS);
+                }
+            }
+
+            if (full != null) {
+                flusher.accept(queueUrl, full);
+            }
+            if (ready != null) {
+                flusher.accept(queueUrl, ready);
+            }
+            return future;
+        }
+
+        void flush() {
+            List<Pending<E, R>> ready;
+            synchronized (this) {
+                ready = drain();
+            }
+            if (!ready.isEmpty()) {
+                flusher.accept(queueUrl, ready);
+            }
+        }
+
+        private List<Pending<E, R>> drain() {
+            if (lingerTask != null) {
+                lingerTask.cancel(false);
+                lingerTask = null;
+            }
+            List<Pending<E, R>> ready = pending;
+            pending = new ArrayList<>();
+            pendingBytes = 0;
+            return ready;
+        }
+    }
+}
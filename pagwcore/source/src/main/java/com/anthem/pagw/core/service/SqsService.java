@@ -1,30 +1,43 @@
 package com.anthem.pagw.core.service;
 
 import com.anthem.pagw.core.model.PagwMessage;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
  * Service for SQS operations - send, receive, delete messages.
+ * {@link PagwMessage} bodies are serialized by {@link PagwMessageCodec} (S3 claim-check for oversized messages).
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SqsService {
 
+    /** SQS limit for entries per SendMessageBatch / DeleteMessageBatch call. */
+    static final int MAX_BATCH_SIZE = 10;
+
+    /** SQS limit for the bodies plus message attributes of all entries of one SendMessageBatch call. */
+    public static final int MAX_BATCH_BYTES = 256 * 1024;
+
     private final SqsClient sqsClient;
-    private final ObjectMapper objectMapper;
+    private final SqsAsyncClient sqsAsyncClient;
+    private final PagwMessageCodec messageCodec;
 
     public String sendMessage(String queueUrl, PagwMessage message) {
         try {
-            String messageBody = objectMapper.writeValueAsString(message);
+            String messageBody = messageCodec.encode(message);
             
             SendMessageRequest.Builder requestBuilder = SendMessageRequest.builder()
                     .queueUrl(queueUrl)
@@ -45,6 +58,172 @@ public class SqsService {
         }
     }
 
+    /**
+     * Send already-serialized message bodies as-is with SendMessageBatch on the {@link SqsAsyncClient}
+     * (max 10 entries and 256 KiB per API call). Used by the outbox publisher to forward stored
+     * payloads without a deserialize/serialize round-trip. Group and deduplication IDs are only
+     * applied for FIFO queues.
+     *
+     * <p>All chunks are sent concurrently. Partial failures are reported per entry: every
+     * caller-supplied ID ends up either in {@link BatchSendResult#successfulIds()} or in
+     * {@link BatchSendResult#failedIds()}, and if a whole batch call fails all entries of that
+     * chunk are reported as failed. The future never completes exceptionally.</p>
+     *
+     * @param queueUrl Target queue URL
+     * @param messagesById Raw messages keyed by caller ID (alphanumeric, hyphen, underscore; max 80 chars)
+     * @return Per-entry outcome
+     */
+    public CompletableFuture<BatchSendResult> sendRawMessageBatchAsync(String queueUrl, Map<String, RawMessage> messagesById) {
+        List<String> successfulIds = new ArrayList<>();
+        Map<String, String> failedIds = new LinkedHashMap<>();
+        if (messagesById.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchSendResult(successfulIds, failedIds));
+        }
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (List<SendMessageBatchRequestEntry> chunk : chunks(toBatchEntries(queueUrl, messagesById))) {
+            chunks.add(sendChunkAsync(queueUrl, chunk, successfulIds, failedIds));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    log.debug("Async batch sent to {}: successful={}, failed={}", queueUrl, successfulIds.size(), failedIds.size());
+                    return new BatchSendResult(successfulIds, failedIds);
+                });
+    }
+
+    private List<SendMessageBatchRequestEntry> toBatchEntries(String queueUrl, Map<String, RawMessage> messagesById) {
+        boolean fifo = isFifoQueue(queueUrl);
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(messagesById.size());
+
+        for (Map.Entry<String, RawMessage> e : messagesById.entrySet()) {
+            SendMessageBatchRequestEntry.Builder entryBuilder = SendMessageBatchRequestEntry.builder()
+                    .id(e.getKey())
+                    .messageBody(e.getValue().body());
+            if (fifo) {
+                entryBuilder.messageGroupId(e.getValue().messageGroupId());
+                entryBuilder.messageDeduplicationId(e.getValue().deduplicationId());
+            }
+            entries.add(entryBuilder.build());
+        }
+        return entries;
+    }
+
+    /**
+     * Split entries into SendMessageBatch calls of at most {@link #MAX_BATCH_SIZE} entries and
+     * {@link #MAX_BATCH_BYTES}, keeping order. An entry over the byte limit on its own is sent
+     * alone, so only that entry is rejected.
+     */
+    static List<List<SendMessageBatchRequestEntry>> chunks(List<SendMessageBatchRequestEntry> entries) {
+        List<List<SendMessageBatchRequestEntry>> chunks = new ArrayList<>();
+        List<SendMessageBatchRequestEntry> chunk = new ArrayList<>();
+        int chunkBytes = 0;
+        for (SendMessageBatchRequestEntry entry : entries) {
+            int bytes = payloadBytes(entry);
+            if (!chunk.isEmpty() && (chunk.size() == MAX_BATCH_SIZE || chunkBytes + bytes > MAX_BATCH_BYTES)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkBytes = 0;
+            }
+            chunk.add(entry);
+            chunkBytes += bytes;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Bytes of an entry counted against {@link #MAX_BATCH_BYTES}: the UTF-8 body plus the name,
+     * data type and value of each message attribute.
+     */
+    public static int payloadBytes(SendMessageBatchRequestEntry entry) {
+        int bytes = utf8Length(entry.messageBody());
+        for (Map.Entry<String, MessageAttributeValue> attribute : entry.messageAttributes().entrySet()) {
+            MessageAttributeValue value = attribute.getValue();
+            bytes += utf8Length(attribute.getKey()) + utf8Length(value.dataType()) + utf8Length(value.stringValue());
+            if (value.binaryValue() != null) {
+                bytes += value.binaryValue().asByteArrayUnsafe().length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * UTF-8 encoded length of a string without encoding it.
+     */
+    public static int utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private CompletableFuture<Void> sendChunkAsync(String queueUrl, List<SendMessageBatchRequestEntry> chunk,
+                                                   List<String> successfulIds, Map<String, String> failedIds) {
+        CompletableFuture<SendMessageBatchResponse> call;
+        try {
+            call = sqsAsyncClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(chunk)
+                    .build());
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        // Chunks complete on SDK threads - the shared result collections are guarded by successfulIds
+        return call.handle((response, error) -> {
+            synchronized (successfulIds) {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    log.error("Failed to send message batch to queue: {}", queueUrl, cause);
+                    chunk.forEach(entry -> failedIds.put(entry.id(), cause.getMessage()));
+                    return null;
+                }
+                response.successful().forEach(ok -> successfulIds.add(ok.id()));
+                for (BatchResultErrorEntry failure : response.failed()) {
+                    failedIds.put(failure.id(), failure.code() + ": " + failure.message());
+                    log.warn("Batch entry failed on {}: id={}, code={}, senderFault={}",
+                            queueUrl, failure.id(), failure.code(), failure.senderFault());
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Outcome of {@link #sendRawMessageBatchAsync}.
+     *
+     * @param successfulIds Caller IDs accepted by SQS
+     * @param failedIds Caller IDs that were not sent, with the error
+     */
+    public record BatchSendResult(List<String> successfulIds, Map<String, String> failedIds) {}
+
+    /**
+     * Pre-serialized message body with its FIFO attributes (ignored for standard queues).
+     *
+     * @param body Message body sent unchanged
+     * @param messageGroupId FIFO message group ID
+     * @param deduplicationId FIFO deduplication ID
+     */
+    public record RawMessage(String body, String messageGroupId, String deduplicationId) {}
+
     /**
      * Check if a queue URL is for a FIFO queue.
      */
@@ -0,0 +1,183 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.model.StageArtifact;
+import com.anthem.pagw.core.util.JsonDelta;
+import com.anthem.pagw.core.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Reads and writes the claim artifacts that pipeline stages hand to each other (parsed ->
+ * validated -> enriched -> canonical).
+ *
+ * <p>With {@code pagw.aws.s3.stage-artifacts.mode=delta}, a stage's output is stored as a
+ * manifest holding a {@link JsonDelta} against the last full artifact in the chain (the
+ * <em>anchor</em>) instead of a complete copy:</p>
+ *
+ * <pre>
+ * {"pagwArtifact":"delta","version":1,"base":{"key":".../request/parsed.json","sha256":"9f2c..."},"ops":[...]}
+ * </pre>
+ *
+ * <p>{@code base.sha256} is the SHA-256 of the anchor's JSON as the delta was taken against it. A
+ * read fails if the anchor found under the key no longer matches (rewritten by a retry or a
+ * replay), rather than applying the operations to a different document.</p>
+ *
+ * <p>Deltas are always taken against the anchor, never against another delta, so a read costs at
+ * most two GETs (the manifest and the anchor, which the artifact cache usually serves). When a
+ * delta would exceed {@code max-delta-ratio} of the full artifact, the stage writes the full
+ * artifact instead, which then becomes the anchor for later stages - chains compact themselves.
+ * Reads reconstruct deltas in every mode.</p>
+ *
+ * <p>Anchors live in the same bucket and request folder as the deltas that reference them and must be
+ * retained as long as those deltas are.</p>
+ */
+@Slf4j
+@Service
+public class StageArtifactStore {
+
+    static final String MANIFEST_FIELD = "pagwArtifact";
+    private static final String MANIFEST_PREFIX = "{\"" + MANIFEST_FIELD + "\"";
+    private static final String DELTA = "delta";
+    private static final int FORMAT_VERSION = 1;
+
+    private final S3Service s3Service;
+    private final PagwProperties.StageArtifacts config;
+
+    public StageArtifactStore(S3Service s3Service, PagwProperties properties) {
+        this.s3Service = s3Service;
+        this.config = properties.getAws().getS3().getStageArtifacts();
+    }
+
+    /**
+     * Read an artifact, reconstructing it if it was stored as a delta.
+     */
+    public StageArtifact read(String bucket, String key) {
+        JsonNode stored = s3Service.downloadJson(bucket, key);
+        if (isManifest(stored)) {
+            return reconstruct(bucket, key, stored);
+        }
+        if (config.getMode() != PagwProperties.StageArtifacts.Mode.DELTA) {
+            return StageArtifact.of(bucket, key, stored);
+        }
+        // Stages may modify the tree they are given; keep the anchor pristine for the diff
+        return new StageArtifact(bucket, key, stored, key, stored.deepCopy());
+    }
+
+    /**
+     * Read an artifact as JSON text, for stages that pass it on verbatim.
+     */
+    public String readString(String bucket, String key) {
+        String stored = s3Service.getObject(bucket, key);
+        if (stored == null || !stored.startsWith(MANIFEST_PREFIX)) {
+            return stored;
+        }
+        return JsonUtils.toJson(reconstruct(bucket, key, JsonUtils.parseJson(stored)).json());
+    }
+
+    /**
+     * Store the output of the stage that read {@code input}, as a delta against the input's
+     * anchor if that is enabled and pays off, otherwise in full.
+     */
+    public void write(StageArtifact input, String key, Object value) {
+        String bucket = input.bucket();
+        if (config.getMode() != PagwProperties.StageArtifacts.Mode.DELTA
+                || input.anchor() == null || key.equals(input.anchorKey())) {
+            s3Service.uploadJson(bucket, key, value);
+            return;
+        }
+
+        JsonNode target = JsonUtils.getObjectMapper().valueToTree(value);
+        ObjectNode manifest = JsonUtils.getObjectMapper().createObjectNode();
+        manifest.put(MANIFEST_FIELD, DELTA);
+        manifest.put("version", FORMAT_VERSION);
+        manifest.putObject("base")
+                .put("key", input.anchorKey())
+                .put("sha256", sha256(input.anchor()));
+        manifest.set("ops", JsonDelta.diff(input.anchor(), target));
+
+        long deltaBytes = serializedSize(manifest);
+        long fullBytes = serializedSize(target);
+        if (deltaBytes > fullBytes * config.getMaxDeltaRatio()) {
+            // Too much changed: store in full, which re-anchors the chain
+            s3Service.uploadJson(bucket, key, target);
+            log.debug("Stored s3://{}/{} in full ({} bytes; delta would be {} bytes)", bucket, key, fullBytes, deltaBytes);
+            return;
+        }
+        s3Service.uploadJson(bucket, key, manifest);
+        log.debug("Stored s3://{}/{} as a delta of {} ({} bytes instead of {})",
+                bucket, key, input.anchorKey(), deltaBytes, fullBytes);
+    }
+
+    private StageArtifact reconstruct(String bucket, String key, JsonNode manifest) {
+        int version = manifest.path("version").asInt();
+        if (!DELTA.equals(manifest.path(MANIFEST_FIELD).asText()) || version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported artifact manifest at s3://" + bucket + "/" + key
+                    + ": " + manifest.path(MANIFEST_FIELD).asText() + " v" + version);
+        }
+        String anchorKey = manifest.path("base").path("key").asText();
+        JsonNode anchor = s3Service.downloadJson(bucket, anchorKey);
+        if (isManifest(anchor)) {
+            throw new IllegalStateException("Delta s3://" + bucket + "/" + key + " is anchored on another delta");
+        }
+        String expected = manifest.path("base").path("sha256").asText();
+        String actual = sha256(anchor);
+        if (!actual.equals(expected)) {
+            throw new IllegalStateException("Anchor s3://" + bucket + "/" + anchorKey + " of delta s3://" + bucket + "/" + key
+                    + " has changed since the delta was written (sha256 " + actual + ", expected " + expected + ")");
+        }
+
+        JsonNode pristine = config.getMode() == PagwProperties.StageArtifacts.Mode.DELTA ? anchor.deepCopy() : null;
+        JsonNode json = JsonDelta.apply(anchor, manifest.path("ops"));
+        log.debug("Reconstructed s3://{}/{} from {} and {} operations", bucket, key, anchorKey, manifest.path("ops").size());
+        return pristine == null
+                ? StageArtifact.of(bucket, key, json)
+                : new StageArtifact(bucket, key, json, anchorKey, pristine);
+    }
+
+    private static boolean isManifest(JsonNode node) {
+        return node != null && node.isObject() && node.has(MANIFEST_FIELD);
+    }
+
+    private static String sha256(JsonNode node) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(JsonUtils.getObjectMapper().writeValueAsBytes(node)));
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Failed to hash artifact", e);
+        }
+    }
+
+    private static long serializedSize(JsonNode node) {
+        CountingOutputStream out = new CountingOutputStream();
+        try {
+            JsonUtils.getObjectMapper().writeValue(out, node);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize artifact", e);
+        }
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
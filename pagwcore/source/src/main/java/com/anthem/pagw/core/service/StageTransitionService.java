@@ -0,0 +1,294 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.model.EventTracker;
+import com.anthem.pagw.core.model.OutboxEntry;
+import com.anthem.pagw.core.model.StageTransition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Applies a {@link StageTransition} - request_tracker update, event_tracker insert and outbox
+ * writes - in one data-modifying CTE, so a stage costs one round trip at start and one at the
+ * end instead of a call (or two) per service.
+ *
+ * <p>The statement is composed from the parts the transition uses:</p>
+ * <pre>
+ * WITH tracker    AS (UPDATE request_tracker ... RETURNING pagw_id),
+ *      event      AS (INSERT INTO pagw.event_tracker ... RETURNING sequence_no),
+ *      outbox_rows AS (INSERT INTO outbox ... SELECT ... FROM unnest(...))
+ * SELECT (SELECT sequence_no FROM event), (SELECT count(*) FROM tracker)
+ * </pre>
+ *
+ * <p>Rows are written with the same values as {@link RequestTrackerService#updateStatus},
+ * {@link EventTrackerService} and {@link OutboxService#writeOutbox}, and outbox entries still go
+ * to the post-commit fast path. Call it inside the listener's transaction.</p>
+ *
+ * <p>With an {@link EventTrackerWriter} ({@code pagw.event-tracking.async-writes}) the event row is
+ * left out of the statement and handed to the writer, which buffers it once the transaction
+ * commits; failures are inserted in the transaction before {@code apply} returns.</p>
+ */
+@Service
+public class StageTransitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(StageTransitionService.class);
+    private static final String DEFAULT_TENANT = "UNKNOWN";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxService outboxService;
+    private final EventTrackerWriter writer;
+
+    public StageTransitionService(JdbcTemplate jdbcTemplate, OutboxService outboxService) {
+        this(jdbcTemplate, outboxService, (EventTrackerWriter) null);
+    }
+
+    @Autowired
+    public StageTransitionService(JdbcTemplate jdbcTemplate, OutboxService outboxService,
+                                  ObjectProvider<EventTrackerWriter> writerProvider) {
+        this(jdbcTemplate, outboxService, writerProvider.getIfAvailable());
+    }
+
+    /**
+     * @param writer Asynchronous event sink, or null to insert events in the transition statement
+     */
+    public StageTransitionService(JdbcTemplate jdbcTemplate, OutboxService outboxService, EventTrackerWriter writer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxService = outboxService;
+        this.writer = writer;
+    }
+
+    /**
+     * Outcome of a transition.
+     *
+     * @param sequenceNo Sequence number of the event row (0 if the transition had no event, or the
+     *                   event was buffered for the async writer)
+     * @param trackerUpdated Whether a request_tracker row was updated
+     * @param outbox The outbox entries written, in the order they were added
+     */
+    public record Result(long sequenceNo, boolean trackerUpdated, List<OutboxEntry> outbox) {
+
+        public List<UUID> outboxIds() {
+            return outbox.stream().map(OutboxEntry::getId).toList();
+        }
+    }
+
+    /**
+     * Apply a stage transition in a single statement.
+     *
+     * @param transition The tracker update, event and outbox messages to write
+     * @return Event sequence number and outbox entries
+     */
+    @Transactional
+    public Result apply(StageTransition transition) {
+        boolean hasTracker = transition.getTrackerStatus() != null;
+        boolean hasEvent = transition.getEventType() != null;
+        long bufferedSequenceNo = 0;
+        if (hasEvent && writer != null) {
+            bufferedSequenceNo = writeAsync(transition);
+            hasEvent = false;
+        }
+        List<OutboxEntry> entries = new ArrayList<>(transition.getOutbox().size());
+        for (StageTransition.Outbound outbound : transition.getOutbox()) {
+            entries.add(outboxService.newEntry(outbound.destinationQueue(), outbound.message()));
+        }
+        if (!hasTracker && !hasEvent && entries.isEmpty()) {
+            return new Result(bufferedSequenceNo, false, List.of());
+        }
+
+        boolean withEvent = hasEvent;
+        String sql = buildSql(transition, hasTracker, withEvent, !entries.isEmpty());
+        Result result = jdbcTemplate.query(
+                con -> prepare(con, sql, transition, hasTracker, withEvent, entries),
+                rs -> {
+                    rs.next();
+                    return new Result(withEvent ? rs.getLong(1) : bufferedSequenceNo, rs.getLong(2) > 0,
+                            List.copyOf(entries));
+                });
+
+        if (hasTracker && !result.trackerUpdated()) {
+            log.warn("Request not found for status update: pagwId={}", transition.getPagwId());
+        }
+        if (transition.getEventType() != null) {
+            log.info("Stage transition: pagwId={}, stage={}, eventType={}, status={}, trackerStatus={}, outbox={}, sequenceNo={}",
+                    transition.getPagwId(), transition.getStage(), transition.getEventType(),
+                    transition.getEventStatus(), transition.getTrackerStatus(), entries.size(), result.sequenceNo());
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            outboxService.entryWritten(entries.get(i), transition.getOutbox().get(i).message());
+        }
+        return result;
+    }
+
+    /**
+     * Hand the transition's event to the writer: failures wait for their batch, other events are
+     * buffered.
+     *
+     * @return The event's sequence number, or 0 if it was buffered
+     */
+    private long writeAsync(StageTransition transition) {
+        String eventStatus = transition.getEventStatus() != null
+                ? transition.getEventStatus() : EventTracker.STATUS_SUCCESS;
+        boolean started = EventTracker.STATUS_STARTED.equals(eventStatus);
+        Instant now = Instant.now();
+        EventTracker event = EventTracker.builder()
+                .tenant(safeTenant(transition.getTenant()))
+                .pagwId(transition.getPagwId())
+                .stage(transition.getStage())
+                .eventType(transition.getEventType())
+                .status(eventStatus)
+                .attempt(transition.isFailure() ? null : 0)
+                .retryable(transition.isRetryable())
+                .nextRetryAt(transition.getNextRetryAt())
+                .durationMs(transition.getDurationMs() != null ? transition.getDurationMs().intValue() : null)
+                .errorCode(transition.getErrorCode())
+                .errorMessage(transition.getErrorMessage())
+                .startedAt(started ? now : null)
+                .completedAt(started ? null : now)
+                .metadata(transition.getMetadata())
+                .createdAt(now)
+                .build();
+        if (transition.isFailure()) {
+            return writer.writeDurable(event);
+        }
+        writer.submit(event);
+        return 0L;
+    }
+
+    /**
+     * Compose the CTE; parameters are bound in the same order by {@link #prepare}.
+     */
+    private String buildSql(StageTransition transition, boolean hasTracker, boolean hasEvent, boolean hasOutbox) {
+        List<String> parts = new ArrayList<>();
+        if (hasTracker) {
+            boolean error = transition.getTrackerErrorCode() != null;
+            parts.add("""
+                tracker AS (
+                    UPDATE request_tracker
+                    SET status = ?, last_stage = ?, %s%s updated_at = NOW()
+                    WHERE pagw_id = ?
+                    RETURNING pagw_id
+                )""".formatted(
+                    error ? "last_error_code = ?, last_error_msg = ?," : "next_stage = ?,",
+                    transition.isIncrementRetryCount() ? " retry_count = retry_count + 1," : ""));
+        }
+        if (hasEvent) {
+            // sequence_no comes from its column default (pagw.event_tracker_sequence_no_seq).
+            // Failures count attempts per stage/event type, like EventTrackerService.logStageError
+            String attempt = transition.isFailure()
+                    ? """
+                      (SELECT COALESCE(MAX(attempt), 0) + 1 FROM pagw.event_tracker
+                       WHERE pagw_id = ? AND stage = ? AND event_type = ?)"""
+                    : "0";
+            parts.add("""
+                event AS (
+                    INSERT INTO pagw.event_tracker (
+                        tenant, pagw_id, stage, event_type, status,
+                        attempt, retryable, next_retry_at,
+                        duration_ms, error_code, error_message,
+                        started_at, completed_at, metadata, created_at
+                    )
+                    VALUES (?, ?, ?, ?, ?,
+                            %s, ?, ?,
+                            ?, ?, ?,
+                            CASE WHEN ? = 'STARTED' THEN NOW() END, CASE WHEN ? = 'STARTED' THEN NULL ELSE NOW() END,
+                            ?::jsonb, NOW())
+                    RETURNING sequence_no
+                )""".formatted(attempt));
+        }
+        if (hasOutbox) {
+            parts.add("""
+                outbox_rows AS (
+                    INSERT INTO outbox (id, aggregate_type, aggregate_id, event_type, payload, destination_queue, status, retry_count, created_at,
+                                        tenant, pagw_id, message_id, message_group_id)
+                    SELECT o.id::uuid, 'PagwMessage', o.pagw_id, o.event_type, o.payload::jsonb, o.destination_queue, 'PENDING', 0,
+                           o.created_at::timestamptz, o.tenant, o.pagw_id, o.message_id, o.pagw_id
+                    FROM unnest(?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[])
+                         AS o(id, pagw_id, event_type, payload, destination_queue, tenant, message_id, created_at)
+                )""");
+        }
+        return "WITH " + String.join(",\n", parts) + "\nSELECT "
+                + (hasEvent ? "(SELECT sequence_no FROM event)" : "0") + ", "
+                + (hasTracker ? "(SELECT count(*) FROM tracker)" : "0");
+    }
+
+    private PreparedStatement prepare(Connection con, String sql, StageTransition transition,
+                                      boolean hasTracker, boolean hasEvent, List<OutboxEntry> entries) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        int i = 1;
+        if (hasTracker) {
+            ps.setString(i++, transition.getTrackerStatus());
+            ps.setString(i++, transition.getLastStage());
+            if (transition.getTrackerErrorCode() != null) {
+                ps.setString(i++, transition.getTrackerErrorCode());
+                ps.setString(i++, transition.getTrackerErrorMessage());
+            } else {
+                ps.setString(i++, transition.getNextStage());
+            }
+            ps.setString(i++, transition.getPagwId());
+        }
+        if (hasEvent) {
+            String pagwId = transition.getPagwId();
+            String eventStatus = transition.getEventStatus() != null
+                    ? transition.getEventStatus() : EventTracker.STATUS_SUCCESS;
+            ps.setString(i++, safeTenant(transition.getTenant()));
+            ps.setString(i++, pagwId);
+            ps.setString(i++, transition.getStage());
+            ps.setString(i++, transition.getEventType());
+            ps.setString(i++, eventStatus);
+            if (transition.isFailure()) {
+                ps.setString(i++, pagwId);
+                ps.setString(i++, transition.getStage());
+                ps.setString(i++, transition.getEventType());
+            }
+            ps.setBoolean(i++, transition.isRetryable());
+            ps.setTimestamp(i++, transition.getNextRetryAt() != null ? Timestamp.from(transition.getNextRetryAt()) : null);
+            if (transition.getDurationMs() != null) {
+                ps.setLong(i++, transition.getDurationMs());
+            } else {
+                ps.setNull(i++, Types.BIGINT);
+            }
+            ps.setString(i++, transition.getErrorCode());
+            ps.setString(i++, transition.getErrorMessage());
+            ps.setString(i++, eventStatus);
+            ps.setString(i++, eventStatus);
+            ps.setString(i++, transition.getMetadata());
+        }
+        if (!entries.isEmpty()) {
+            int n = entries.size();
+            String[][] columns = new String[8][n];
+            for (int row = 0; row < n; row++) {
+                OutboxEntry entry = entries.get(row);
+                columns[0][row] = entry.getId().toString();
+                columns[1][row] = entry.getPagwId();
+                columns[2][row] = entry.getEventType();
+                columns[3][row] = entry.getPayload();
+                columns[4][row] = entry.getDestinationQueue();
+                columns[5][row] = entry.getTenant();
+                columns[6][row] = entry.getMessageId();
+                columns[7][row] = entry.getCreatedAt().toString();
+            }
+            for (String[] column : columns) {
+                ps.setArray(i++, con.createArrayOf("text", column));
+            }
+        }
+        return ps;
+    }
+
+    private String safeTenant(String tenant) {
+        return (tenant != null && !tenant.isBlank()) ? tenant : DEFAULT_TENANT;
+    }
+}
@@ -0,0 +1,165 @@
+package com.anthem.pagw.core.util;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural delta between two JSON documents, in JSON Patch (RFC 6902) form.
+ *
+ * <p>{@link #diff} emits {@code remove}, {@code add}, {@code replace} and {@code copy} operations.
+ * Objects are diffed member by member; arrays and scalars that differ are replaced whole. A
+ * container in the target that also appears anywhere in the base (e.g. the claim a stage wraps
+ * in its own result object) becomes a {@code copy} instead of a second copy of its content.</p>
+ *
+ * <p>Unlike RFC 6902, every {@code copy.from} refers to the <em>original</em> base document,
+ * not to the document as modified by earlier operations, so the order of copies never matters.
+ * Only {@link #apply} should be used to apply a delta produced by {@link #diff}.</p>
+ */
+public final class JsonDelta {
+
+    /** Smaller containers are cheaper to inline than to reference by path. */
+    private static final int MIN_COPY_NODES = 8;
+
+    private JsonDelta() {
+    }
+
+    /**
+     * Operations that turn {@code base} into {@code target}. Neither document is modified;
+     * operation values share nodes with {@code target}.
+     */
+    public static ArrayNode diff(JsonNode base, JsonNode target) {
+        Map<JsonNode, String> containers = new HashMap<>();
+        index(base, "", containers);
+        ArrayNode ops = JsonUtils.getObjectMapper().createArrayNode();
+        diff(base, target, "", containers, ops);
+        return ops;
+    }
+
+    /**
+     * Apply operations from {@link #diff} to {@code base}, which is modified in place.
+     *
+     * @return The patched document (a different node if the root was replaced)
+     * @throws IllegalArgumentException if an operation does not fit the document
+     */
+    public static JsonNode apply(JsonNode base, JsonNode ops) {
+        // Resolve copy sources before anything is modified
+        List<JsonNode> copies = new ArrayList<>();
+        for (JsonNode op : ops) {
+            if ("copy".equals(op.path("op").asText())) {
+                JsonNode source = base.at(op.path("from").asText());
+                if (source.isMissingNode()) {
+                    throw new IllegalArgumentException("copy from missing path: " + op.path("from").asText());
+                }
+                copies.add(source.deepCopy());
+            }
+        }
+
+        JsonNode root = base;
+        Iterator<JsonNode> copied = copies.iterator();
+        for (JsonNode op : ops) {
+            String path = op.path("path").asText();
+            switch (op.path("op").asText()) {
+                case "remove" -> parent(root, path).remove(name(path));
+                case "add", "replace" -> root = set(root, path, op.get("value"));
+                case "copy" -> root = set(root, path, copied.next());
+                default -> throw new IllegalArgumentException("Unsupported operation: " + op.path("op").asText());
+            }
+        }
+        return root;
+    }
+
+    private static void diff(JsonNode base, JsonNode target, String path,
+                             Map<JsonNode, String> containers, ArrayNode ops) {
+        if (base.equals(target)) {
+            return;
+        }
+        if (base.isObject() && target.isObject()) {
+            Iterator<String> names = base.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!target.has(name)) {
+                    ops.addObject().put("op", "remove").put("path", path + "/" + escape(name));
+                }
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = target.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String childPath = path + "/" + escape(field.getKey());
+                JsonNode baseChild = base.get(field.getKey());
+                if (baseChild != null) {
+                    diff(baseChild, field.getValue(), childPath, containers, ops);
+                } else {
+                    write(ops, "add", childPath, field.getValue(), containers);
+                }
+            }
+            return;
+        }
+        write(ops, "replace", path, target, containers);
+    }
+
+    private static void write(ArrayNode ops, String op, String path, JsonNode value, Map<JsonNode, String> containers) {
+        String from = value.isContainerNode() ? containers.get(value) : null;
+        if (from != null) {
+            ops.addObject().put("op", "copy").put("from", from).put("path", path);
+        } else {
+            ops.addObject().put("op", op).put("path", path).set("value", value);
+        }
+    }
+
+    /**
+     * Record the path of every container worth copying.
+     *
+     * @return Number of nodes in the subtree
+     */
+    private static int index(JsonNode node, String path, Map<JsonNode, String> containers) {
+        int count = 1;
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                count += index(field.getValue(), path + "/" + escape(field.getKey()), containers);
+            }
+        } else if (node.isArray()) {
+            for (int i = 0; i < node.size(); i++) {
+                count += index(node.get(i), path + "/" + i, containers);
+            }
+        }
+        if (node.isContainerNode() && count >= MIN_COPY_NODES) {
+            containers.putIfAbsent(node, path);
+        }
+        return count;
+    }
+
+    private static JsonNode set(JsonNode root, String path, JsonNode value) {
+        if (path.isEmpty()) {
+            return value;
+        }
+        parent(root, path).set(name(path), value);
+        return root;
+    }
+
+    /** The object holding the member at {@code path} (diff only emits object members). */
+    private static ObjectNode parent(JsonNode root, String path) {
+        JsonNode parent = root.at(JsonPointer.compile(path).head());
+        if (!parent.isObject()) {
+            throw new IllegalArgumentException("No object at parent of " + path);
+        }
+        return (ObjectNode) parent;
+    }
+
+    private static String name(String path) {
+        return JsonPointer.compile(path).last().getMatchingProperty();
+    }
+
+    private static String escape(String name) {
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -25,4 +25,26 @@ class PagwPropertiesTest {
         assertEquals("pagw", props.getDatabase().getName());
         assertEquals("pagw", props.getDatabase().getSchema());
     }
+
+    @Test
+    void testOutboxPartitioningDefaults() {
+        PagwProperties props = new PagwProperties();
+        
+        assertFalse(props.getOutbox().isPartitioned());
+        
+        props.getOutbox().getPartitioning().setEnabled(true);
+        assertTrue(props.getOutbox().isPartitioned());
+        
+        props.getOutbox().getPartitioning().setCount(1);
+        assertFalse(props.getOutbox().isPartitioned());
+    }
+    
+    @Test
+    void testOutboxClaimDefaults() {
+        PagwProperties props = new PagwProperties();
+        
+        assertEquals(60000, props.getOutbox().getClaimTtlMs());
+        assertEquals(4, props.getOutbox().getPublishWorkers());
+        assertEquals(8, props.getOutbox().getMaxInFlight());
+    }
 }
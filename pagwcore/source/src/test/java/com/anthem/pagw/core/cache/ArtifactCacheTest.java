@@ -0,0 +1,145 @@
+package com.anthem.pagw.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the artifact cache tiers. {@link LocalArtifactCache} stands in for Redis.
+ */
+class ArtifactCacheTest {
+
+    private static final String BUCKET = "pagw-request";
+    private static final String KEY = "202512/PAGW-20251225-00001-TEST1234/request/parsed.json";
+    private static final byte[] BODY = "{\"patient\":\"Jane Doe\",\"memberId\":\"M123\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testLocalCacheEvictsLeastRecentlyUsedByBytes() {
+        LocalArtifactCache cache = new LocalArtifactCache(250, 100, 60_000);
+
+        cache.put(BUCKET, "a", new byte[100]);
+        cache.put(BUCKET, "b", new byte[100]);
+        cache.get(BUCKET, "a");
+        cache.put(BUCKET, "c", new byte[100]);
+
+        assertNotNull(cache.get(BUCKET, "a"));
+        assertNull(cache.get(BUCKET, "b"));
+        assertNotNull(cache.get(BUCKET, "c"));
+        assertEquals(200, cache.sizeBytes());
+    }
+
+    @Test
+    void testLocalCacheSkipsOversizedEntriesAndDropsStaleValue() {
+        LocalArtifactCache cache = new LocalArtifactCache(1000, 100, 60_000);
+
+        cache.put(BUCKET, KEY, new byte[10]);
+        cache.put(BUCKET, KEY, new byte[101]);
+
+        assertNull(cache.get(BUCKET, KEY));
+        assertEquals(0, cache.sizeBytes());
+    }
+
+    @Test
+    void testLocalCacheExpiresEntries() {
+        MutableClock clock = new MutableClock();
+        LocalArtifactCache cache = new LocalArtifactCache(1000, 100, 60_000, clock);
+
+        cache.put(BUCKET, KEY, BODY);
+        clock.advance(59_999);
+        assertArrayEquals(BODY, cache.get(BUCKET, KEY));
+        clock.advance(1);
+        assertNull(cache.get(BUCKET, KEY));
+        assertEquals(0, cache.sizeBytes());
+    }
+
+    @Test
+    void testTieredCachePromotesFarHits() {
+        LocalArtifactCache near = new LocalArtifactCache(1000, 1000, 60_000);
+        LocalArtifactCache far = new LocalArtifactCache(1000, 1000, 60_000);
+        TieredArtifactCache cache = new TieredArtifactCache(near, far);
+
+        far.put(BUCKET, KEY, BODY);
+        assertArrayEquals(BODY, cache.get(BUCKET, KEY));
+        assertArrayEquals(BODY, near.get(BUCKET, KEY));
+
+        cache.evict(BUCKET, KEY);
+        assertNull(near.get(BUCKET, KEY));
+        assertNull(far.get(BUCKET, KEY));
+    }
+
+    @Test
+    void testEncryptedCacheStoresCiphertextAndRoundTrips() {
+        LocalArtifactCache shared = new LocalArtifactCache(1000, 1000, 60_000);
+        EncryptedArtifactCache cache = new EncryptedArtifactCache(shared, () -> key(1));
+
+        cache.put(BUCKET, KEY, BODY);
+
+        byte[] stored = shared.get(BUCKET, KEY);
+        assertEquals(BODY.length + EncryptedArtifactCache.OVERHEAD, stored.length);
+        assertFalse(new String(stored, StandardCharsets.ISO_8859_1).contains("Jane Doe"));
+        assertArrayEquals(BODY, cache.get(BUCKET, KEY));
+    }
+
+    @Test
+    void testEncryptedCacheTreatsWrongKeyAsMiss() {
+        LocalArtifactCache shared = new LocalArtifactCache(1000, 1000, 60_000);
+        new EncryptedArtifactCache(shared, () -> key(1)).put(BUCKET, KEY, BODY);
+
+        assertNull(new EncryptedArtifactCache(shared, () -> key(2)).get(BUCKET, KEY));
+        assertNull(shared.get(BUCKET, KEY));
+    }
+
+    @Test
+    void testEncryptedCacheRejectsEntryReplayedUnderAnotherKey() {
+        LocalArtifactCache shared = new LocalArtifactCache(1000, 1000, 60_000);
+        EncryptedArtifactCache cache = new EncryptedArtifactCache(shared, () -> key(1));
+
+        cache.put(BUCKET, KEY, BODY);
+        shared.put(BUCKET, "other.json", shared.get(BUCKET, KEY));
+
+        assertNull(cache.get(BUCKET, "other.json"));
+    }
+
+    private static SecretKey key(int seed) {
+        byte[] bytes = new byte[32];
+        Arrays.fill(bytes, (byte) seed);
+        return new SecretKeySpec(bytes, "AES");
+    }
+
+    private static class MutableClock extends Clock {
+        private long millis = 1_000_000;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
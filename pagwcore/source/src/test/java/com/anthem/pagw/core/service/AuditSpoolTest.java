@@ -0,0 +1,141 @@
+package com.anthem.pagw.core.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for AuditSpool (memory-mapped audit segments).
+ */
+class AuditSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSealedSegmentReadsBackInAppendOrder() throws Exception {
+        try (AuditSpool spool = new AuditSpool(directory, 4096)) {
+            long first = spool.append(bytes("{\"id\":1}"));
+            long second = spool.append(bytes("{\"id\":2}"));
+            spool.sync(second);
+            spool.seal();
+
+            assertEquals(1, first);
+            List<Path> segments = spool.sealedSegments();
+            assertEquals(1, segments.size());
+            assertEquals(List.of("{\"id\":1}", "{\"id\":2}"), text(spool.read(segments.get(0))));
+
+            spool.delete(segments.get(0));
+            assertTrue(spool.sealedSegments().isEmpty());
+            assertFalse(Files.exists(segments.get(0)));
+        }
+    }
+
+    @Test
+    void testFullSegmentRotates() throws Exception {
+        try (AuditSpool spool = new AuditSpool(directory, 64)) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(bytes("{\"record\":\"" + i + "-padding-padding\"}"));
+            }
+            spool.seal();
+
+            List<Path> segments = spool.sealedSegments();
+            assertTrue(segments.size() > 1);
+            int records = 0;
+            for (Path segment : segments) {
+                records += spool.read(segment).size();
+            }
+            assertEquals(5, records);
+        }
+    }
+
+    @Test
+    void testSegmentsOfAPreviousProcessAreRecovered() throws Exception {
+        AuditSpool crashed = new AuditSpool(directory, 4096);
+        crashed.append(bytes("{\"id\":1}"));
+        // No seal or close: the process died with the segment active
+        crashed.releaseLock();
+
+        try (AuditSpool spool = new AuditSpool(directory, 4096)) {
+            List<Path> segments = spool.sealedSegments();
+            assertEquals(1, segments.size());
+            assertEquals(List.of("{\"id\":1}"), text(spool.read(segments.get(0))));
+
+            spool.append(bytes("{\"id\":2}"));
+            spool.seal();
+            assertEquals(2, spool.sealedSegments().size());
+        }
+    }
+
+    @Test
+    void testTornRecordEndsTheSegment() throws Exception {
+        Path segment;
+        try (AuditSpool spool = new AuditSpool(directory, 4096)) {
+            spool.append(bytes("{\"id\":1}"));
+            spool.append(bytes("{\"id\":2}"));
+            spool.seal();
+            segment = spool.sealedSegments().get(0);
+        }
+        // Corrupt the second record's payload, as a crash mid-append would
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(8 + "{\"id\":1}".length() + 8);
+            file.write('X');
+        }
+
+        try (AuditSpool spool = new AuditSpool(directory, 4096)) {
+            assertEquals(List.of("{\"id\":1}"), text(spool.read(segment)));
+        }
+    }
+
+    @Test
+    void testDirectoryInUseIsRefused() throws Exception {
+        try (AuditSpool spool = new AuditSpool(directory, 4096)) {
+            IOException e = assertThrows(IOException.class, () -> new AuditSpool(directory, 4096));
+            assertTrue(e.getMessage().contains("in use"));
+        }
+
+        // Released on close
+        new AuditSpool(directory, 4096).close();
+    }
+
+    @Test
+    void testOnlySegmentsPastTheAgeAreSealed() throws Exception {
+        try (AuditSpool spool = new AuditSpool(directory, 4096)) {
+            spool.sealOlderThan(0);
+            assertEquals(0, spool.segmentCount());
+
+            spool.append(bytes("{\"id\":1}"));
+            spool.sealOlderThan(60_000);
+            assertTrue(spool.sealedSegments().isEmpty());
+
+            spool.sealOlderThan(0);
+            assertEquals(1, spool.sealedSegments().size());
+        }
+    }
+
+    @Test
+    void testRejectedRecordsAreKeptOutsideTheSegments() throws Exception {
+        try (AuditSpool spool = new AuditSpool(directory, 4096)) {
+            spool.reject(bytes("{\"id\":1}"));
+
+            assertEquals("{\"id\":1}\n", Files.readString(directory.resolve("audit-rejected.jsonl")));
+            assertTrue(spool.sealedSegments().isEmpty());
+        }
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> text(List<byte[]> records) {
+        return records.stream().map(record -> new String(record, StandardCharsets.UTF_8)).toList();
+    }
+}
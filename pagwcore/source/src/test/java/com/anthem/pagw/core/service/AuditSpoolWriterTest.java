@@ -0,0 +1,204 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test suite for AuditSpoolWriter (spooled, bulk audit_log writes).
+ */
+class AuditSpoolWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private PagwProperties.Audit config;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditSpool spool;
+    private AuditSpoolWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        config = new PagwProperties.Audit();
+        config.setSpool(true);
+        config.setSpoolDirectory(directory.toString());
+        // Drained explicitly by the tests, including the active segment
+        config.setDrainIntervalMs(60_000);
+        config.setSealAfterMs(0);
+        meterRegistry = new SimpleMeterRegistry();
+        spool = new AuditSpool(directory, config.getSegmentBytes());
+
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenAnswer(invocation -> rows(invocation.getArgument(1)).size());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void testEventsAreSpooledAndDrainedInOneInsert() throws Exception {
+        writer = newWriter();
+
+        UUID first = writer.append(event("REQUEST-1"));
+        writer.append(event("REQUEST-2"));
+        writer.append(event("REQUEST-3"));
+        verifyNoInteractions(jdbcTemplate);
+
+        writer.drain();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(sql.capture(), json.capture());
+        assertTrue(sql.getValue().contains("jsonb_to_recordset"));
+        assertTrue(sql.getValue().contains("ON CONFLICT (id) DO NOTHING"));
+        JsonNode rows = rows(json.getValue());
+        assertEquals(3, rows.size());
+        assertEquals(first.toString(), rows.get(0).get("id").asText());
+        assertEquals("REQUEST-1", rows.get(0).get("resource_id").asText());
+        assertEquals("memberId", rows.get(0).get("phi_fields_accessed").get(0).asText());
+        assertEquals(0, spool.segmentCount());
+        assertEquals(3.0, meterRegistry.counter("pagw.audit.written").count());
+        assertEquals(3.0, meterRegistry.counter("pagw.audit.events", "mode", "spool").count());
+    }
+
+    @Test
+    void testFailedDrainReplaysTheSameEvents() throws Exception {
+        doThrow(new CannotGetJdbcConnectionException("database unavailable"))
+                .doAnswer(invocation -> rows(invocation.getArgument(1)).size())
+                .when(jdbcTemplate).update(anyString(), any(Object[].class));
+        writer = newWriter();
+
+        UUID id = writer.append(event("REQUEST-1"));
+        assertThrows(CannotGetJdbcConnectionException.class, () -> writer.drain());
+        assertEquals(1, spool.sealedSegments().size());
+
+        writer.drain();
+
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).update(anyString(), json.capture());
+        // Same id both times: audit_log skips it if the first attempt had committed
+        assertEquals(id.toString(), rows(json.getAllValues().get(1)).get(0).get("id").asText());
+        assertEquals(0, spool.segmentCount());
+    }
+
+    @Test
+    void testRefusedEventIsSetAsideWithoutBlockingTheOthers() throws Exception {
+        doAnswer(invocation -> {
+            JsonNode rows = rows(invocation.getArgument(1));
+            if (rows.size() > 1 || "TOO-LONG".equals(rows.get(0).get("resource_id").asText())) {
+                throw new DataIntegrityViolationException("value too long for type character varying(50)");
+            }
+            return rows.size();
+        }).when(jdbcTemplate).update(anyString(), any(Object[].class));
+        writer = newWriter();
+
+        writer.append(event("REQUEST-1"));
+        writer.append(event("TOO-LONG"));
+        writer.drain();
+
+        assertEquals(1.0, meterRegistry.counter("pagw.audit.written").count());
+        assertEquals(1.0, meterRegistry.counter("pagw.audit.rejected").count());
+        assertTrue(Files.readString(directory.resolve("audit-rejected.jsonl")).contains("TOO-LONG"));
+        assertEquals(0, spool.segmentCount());
+    }
+
+    @Test
+    void testDrainSplitsSegmentsIntoBatches() throws Exception {
+        config.setDrainBatchSize(2);
+        writer = newWriter();
+
+        for (int i = 0; i < 5; i++) {
+            writer.append(event("REQUEST-" + i));
+        }
+        writer.drain();
+
+        verify(jdbcTemplate, times(3)).update(anyString(), any(Object[].class));
+        assertEquals(5.0, meterRegistry.counter("pagw.audit.written").count());
+    }
+
+    @Test
+    void testDrainLeavesAYoungActiveSegmentAlone() throws Exception {
+        config.setSealAfterMs(60_000);
+        writer = newWriter();
+
+        writer.append(event("REQUEST-1"));
+        writer.drain();
+        writer.drain();
+
+        verifyNoInteractions(jdbcTemplate);
+        assertTrue(spool.sealedSegments().isEmpty());
+        assertEquals(1, spool.segmentCount());
+
+        // Shutdown drains it regardless of age
+        writer.close();
+        verify(jdbcTemplate).update(anyString(), any(Object[].class));
+        assertEquals(0, spool.segmentCount());
+    }
+
+    @Test
+    void testSpoolDirectoryMustBeSet() {
+        PagwProperties properties = new PagwProperties();
+        properties.getAudit().setSpool(true);
+
+        assertThrows(IllegalStateException.class, () -> new AuditSpoolWriter(jdbcTemplate, properties));
+    }
+
+    @Test
+    void testEventsAfterCloseAreInsertedDirectly() {
+        writer = newWriter();
+        writer.close();
+
+        writer.append(event("REQUEST-1"));
+
+        verify(jdbcTemplate).update(anyString(), any(Object[].class));
+        assertEquals(1.0, meterRegistry.counter("pagw.audit.events", "mode", "sync").count());
+    }
+
+    private AuditSpoolWriter newWriter() {
+        return new AuditSpoolWriter(jdbcTemplate, config, spool, meterRegistry, Clock.systemUTC());
+    }
+
+    private static JsonNode rows(String json) throws Exception {
+        return JsonUtils.getObjectMapper().readTree(json);
+    }
+
+    private static AuditService.AuditEvent event(String pagwId) {
+        AuditService.AuditEvent event = new AuditService.AuditEvent();
+        event.eventType = "ACCESS";
+        event.eventSource = "pagwcore";
+        event.actorId = "request-parser";
+        event.actorType = "SERVICE";
+        event.resourceType = "REQUEST";
+        event.resourceId = pagwId;
+        event.actionDescription = "PHI data accessed";
+        event.phiAccessed = true;
+        event.phiFieldsAccessed = List.of("memberId");
+        event.accessReason = "Request processing";
+        return event;
+    }
+}
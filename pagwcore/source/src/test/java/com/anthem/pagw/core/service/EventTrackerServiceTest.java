@@ -43,8 +43,8 @@ class EventTrackerServiceTest {
     
     @Test
     void testLogStageStart() {
-        // Mock sequence number query
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        // Mock the insert returning its sequence number
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(1L);
         
         // Execute
@@ -57,25 +57,28 @@ class EventTrackerServiceTest {
         ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
         
-        // One update call (sequence number query is queryForObject, not update)
-        verify(jdbcTemplate, times(1)).update(sqlCaptor.capture(), argsCaptor.capture());
+        // One statement: the insert returns its sequence number, nothing is read first
+        verify(jdbcTemplate, times(1)).queryForObject(sqlCaptor.capture(), eq(Long.class), argsCaptor.capture());
         
         // Verify insert SQL contains expected fields
         String insertSql = sqlCaptor.getValue();
         assertTrue(insertSql.contains("INSERT INTO pagw.event_tracker"));
-        assertTrue(insertSql.contains("sequence_no"));
+        assertTrue(insertSql.contains("RETURNING sequence_no"));
+        assertFalse(insertSql.contains("MAX(sequence_no)"));
         assertTrue(insertSql.contains("STARTED"));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
         
         // Verify parameters
         Object[] insertArgs = argsCaptor.getValue();
         assertEquals(TENANT, insertArgs[0]);
         assertEquals(PAGW_ID, insertArgs[1]);
-        assertEquals(EventTracker.EVENT_PARSE_START, insertArgs[2]);
+        assertEquals(STAGE, insertArgs[2]);
+        assertEquals(EventTracker.EVENT_PARSE_START, insertArgs[3]);
     }
     
     @Test
     void testLogStageStartWithMetadata() {
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(2L);
         
         String metadata = "{\"s3Key\":\"test.json\"}";
@@ -86,15 +89,15 @@ class EventTrackerServiceTest {
         assertEquals(2L, sequenceNo);
         
         ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
-        verify(jdbcTemplate, times(1)).update(anyString(), argsCaptor.capture());
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), argsCaptor.capture());
         
         Object[] insertArgs = argsCaptor.getValue();
-        assertEquals(metadata, insertArgs[5]); // Last parameter should be metadata
+        assertEquals(metadata, insertArgs[4]); // Last parameter should be metadata
     }
     
     @Test
     void testLogStageStart_WithNullTenant_ShouldUseUnknown() {
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(1L);
         
         // Call with null tenant
@@ -104,7 +107,7 @@ class EventTrackerServiceTest {
         assertEquals(1L, sequenceNo);
         
         ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
-        verify(jdbcTemplate, times(1)).update(anyString(), argsCaptor.capture());
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), argsCaptor.capture());
         
         Object[] insertArgs = argsCaptor.getValue();
         assertEquals("UNKNOWN", insertArgs[0], "Null tenant should be replaced with UNKNOWN");
@@ -112,7 +115,7 @@ class EventTrackerServiceTest {
     
     @Test
     void testLogStageStart_WithBlankTenant_ShouldUseUnknown() {
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(1L);
         
         // Call with blank tenant
@@ -122,7 +125,7 @@ class EventTrackerServiceTest {
         assertEquals(1L, sequenceNo);
         
         ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
-        verify(jdbcTemplate, times(1)).update(anyString(), argsCaptor.capture());
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), argsCaptor.capture());
         
         Object[] insertArgs = argsCaptor.getValue();
         assertEquals("UNKNOWN", insertArgs[0], "Blank tenant should be replaced with UNKNOWN");
@@ -130,7 +133,7 @@ class EventTrackerServiceTest {
 
     @Test
     void testLogStageComplete() {
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(3L);
         
         long durationMs = 1250L;
@@ -141,15 +144,15 @@ class EventTrackerServiceTest {
         assertEquals(3L, sequenceNo);
         
         ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
-        verify(jdbcTemplate, times(1)).update(anyString(), argsCaptor.capture());
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), argsCaptor.capture());
         
         Object[] insertArgs = argsCaptor.getValue();
-        assertEquals(durationMs, insertArgs[5]); // duration_ms parameter
+        assertEquals(durationMs, insertArgs[4]); // duration_ms parameter
     }
     
     @Test
     void testLogStageCompleteWithMetadata() {
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(4L);
         
         String metadata = "{\"resourceCount\":10}";
@@ -159,12 +162,12 @@ class EventTrackerServiceTest {
                 PAGW_ID, TENANT, STAGE, EventTracker.EVENT_PARSE_OK, durationMs, metadata);
         
         assertEquals(4L, sequenceNo);
-        verify(jdbcTemplate, times(1)).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), any(Object[].class));
     }
     
     @Test
     void testLogStageError() {
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(5L);
         when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), anyString(), anyString(), anyString()))
                 .thenReturn(0);
@@ -178,17 +181,17 @@ class EventTrackerServiceTest {
         assertEquals(5L, sequenceNo);
         
         ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
-        verify(jdbcTemplate, times(1)).update(anyString(), argsCaptor.capture());
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), argsCaptor.capture());
         
         Object[] insertArgs = argsCaptor.getValue();
-        assertEquals(errorCode, insertArgs[8]);
-        assertEquals(errorMessage, insertArgs[9]);
-        assertFalse((Boolean) insertArgs[6]); // retryable = false
+        assertEquals(errorCode, insertArgs[7]);
+        assertEquals(errorMessage, insertArgs[8]);
+        assertFalse((Boolean) insertArgs[5]); // retryable = false
     }
     
     @Test
     void testLogStageErrorWithRetry() {
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(6L);
         when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), anyString(), anyString(), anyString()))
                 .thenReturn(1); // Second attempt
@@ -202,17 +205,17 @@ class EventTrackerServiceTest {
         assertEquals(6L, sequenceNo);
         
         ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
-        verify(jdbcTemplate, times(1)).update(anyString(), argsCaptor.capture());
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), argsCaptor.capture());
         
         Object[] insertArgs = argsCaptor.getValue();
-        assertEquals(1, insertArgs[5]); // attempt = 1
-        assertTrue((Boolean) insertArgs[6]); // retryable = true
-        assertNotNull(insertArgs[7]); // next_retry_at
+        assertEquals(1, insertArgs[4]); // attempt = 1
+        assertTrue((Boolean) insertArgs[5]); // retryable = true
+        assertNotNull(insertArgs[6]); // next_retry_at
     }
     
     @Test
     void testLogRetryAttempt() {
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(7L);
         
         int attempt = 2;
@@ -225,13 +228,13 @@ class EventTrackerServiceTest {
         ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
         
-        verify(jdbcTemplate, times(1)).update(sqlCaptor.capture(), argsCaptor.capture());
+        verify(jdbcTemplate, times(1)).queryForObject(sqlCaptor.capture(), eq(Long.class), argsCaptor.capture());
         
         String insertSql = sqlCaptor.getValue();
         assertTrue(insertSql.contains("RETRY"));
         
         Object[] insertArgs = argsCaptor.getValue();
-        assertEquals(attempt, insertArgs[5]);
+        assertEquals(attempt, insertArgs[4]);
     }
     
     @Test
@@ -310,7 +313,7 @@ class EventTrackerServiceTest {
     @Test
     void testSequenceNumberIncrement() {
         // Simulate multiple events for same request
-        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
                 .thenReturn(1L, 2L, 3L);
         
         long seq1 = eventTrackerService.logStageStart(PAGW_ID, TENANT, STAGE, EventTracker.EVENT_PARSE_START);
@@ -321,12 +324,13 @@ class EventTrackerServiceTest {
         assertEquals(2L, seq2);
         assertEquals(3L, seq3);
         
-        // Verify sequence query was called 3 times
+        // Verify each number came back from its own insert, with no read of the timeline
         verify(jdbcTemplate, times(3)).queryForObject(
-                contains("MAX(sequence_no)"), 
+                contains("RETURNING sequence_no"), 
                 eq(Long.class), 
-                eq(PAGW_ID)
+                any(Object[].class)
         );
+        verify(jdbcTemplate, never()).queryForObject(contains("MAX(sequence_no)"), eq(Long.class), any(Object[].class));
     }
     
     @Test
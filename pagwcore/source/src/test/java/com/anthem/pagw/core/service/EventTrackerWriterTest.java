@@ -0,0 +1,341 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.model.EventTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test suite for EventTrackerWriter (batched event_tracker inserts).
+ */
+class EventTrackerWriterTest {
+
+    private static final String PAGW_ID = "PAGW-20251225-00001-TEST1234";
+
+    private JdbcTemplate jdbcTemplate;
+    private PagwProperties.EventTracking config;
+    private SimpleMeterRegistry meterRegistry;
+    private EventTrackerWriter writer;
+
+    /** Rows of each INSERT, as the 16 text[] columns bound to it. */
+    private final List<List<Object[]>> inserts = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextSequenceNo = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        config = new PagwProperties.EventTracking();
+        config.setAsyncWrites(true);
+        meterRegistry = new SimpleMeterRegistry();
+
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class)))
+                .thenAnswer(invocation -> nextSequenceNos(invocation.getArgument(2)));
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> insert(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void testEventsAreWrittenInOneInsertInSubmitOrder() throws Exception {
+        config.setFlushSize(3);
+        config.setFlushIntervalMs(60_000);
+        writer = newWriter();
+
+        assertTrue(writer.submit(event("PARSE_START", EventTracker.STATUS_STARTED)));
+        assertTrue(writer.submit(event("PARSE_OK", EventTracker.STATUS_SUCCESS)));
+        assertTrue(writer.submit(event("VAL_START", EventTracker.STATUS_STARTED)));
+
+        await(() -> inserts.size() == 1);
+        List<Object[]> columns = inserts.get(0);
+        assertArrayEquals(new Object[]{"PARSE_START", "PARSE_OK", "VAL_START"}, columns.get(3));
+        assertArrayEquals(new Object[]{"101", "102", "103"}, columns.get(5));
+        assertEquals(3.0, meterRegistry.counter("pagw.events.writes", "mode", "batch").count());
+    }
+
+    @Test
+    void testDurableEventFlushesWithoutWaitingForTheInterval() {
+        config.setFlushIntervalMs(60_000);
+        writer = newWriter();
+
+        writer.submit(event("PARSE_START", EventTracker.STATUS_STARTED));
+        long sequenceNo = writer.writeDurable(event("PARSE_FAIL", EventTracker.STATUS_FAILURE));
+
+        // Written by the writer thread, behind the event buffered before it
+        assertEquals(102L, sequenceNo);
+        assertEquals(0.0, meterRegistry.counter("pagw.events.writes", "mode", "sync").count());
+        assertEquals(2.0, meterRegistry.counter("pagw.events.writes", "mode", "batch").count());
+        // Failures count attempts in the database
+        Object[] attempts = inserts.get(inserts.size() - 1).get(6);
+        assertNull(attempts[attempts.length - 1]);
+    }
+
+    @Test
+    void testDropOverflowDiscardsEventsWhenTheBufferIsFull() throws Exception {
+        config.setBufferCapacity(1);
+        config.setFlushSize(1);
+        config.setOverflow(PagwProperties.EventTracking.Overflow.DROP);
+        CountDownLatch release = blockFirstBatch();
+        writer = newWriter();
+
+        writer.submit(event("PARSE_START", EventTracker.STATUS_STARTED));
+        await(() -> writer.pendingCount() == 0);
+        assertTrue(writer.submit(event("PARSE_OK", EventTracker.STATUS_SUCCESS)));
+        assertFalse(writer.submit(event("VAL_START", EventTracker.STATUS_STARTED)));
+
+        release.countDown();
+        await(() -> inserts.size() == 2);
+        assertEquals(1.0, meterRegistry.counter("pagw.events.writes.dropped", "reason", "overflow").count());
+    }
+
+    @Test
+    void testSyncOverflowInsertsOnTheCallersThread() throws Exception {
+        config.setBufferCapacity(1);
+        config.setFlushSize(1);
+        config.setOverflow(PagwProperties.EventTracking.Overflow.SYNC);
+        CountDownLatch release = blockFirstBatch();
+        writer = newWriter();
+
+        writer.submit(event("PARSE_START", EventTracker.STATUS_STARTED));
+        await(() -> writer.pendingCount() == 0);
+        writer.submit(event("PARSE_OK", EventTracker.STATUS_SUCCESS));
+        assertTrue(writer.submit(event("VAL_START", EventTracker.STATUS_STARTED)));
+
+        // Written before the blocked batch, with a sequence number from the column default
+        assertEquals(1, inserts.size());
+        assertArrayEquals(new Object[]{null}, inserts.get(0).get(5));
+        assertEquals(1.0, meterRegistry.counter("pagw.events.writes", "mode", "sync").count());
+        release.countDown();
+    }
+
+    @Test
+    void testFailedBatchIsRetriedOneRowAtATime() throws Exception {
+        config.setFlushSize(2);
+        config.setFlushIntervalMs(60_000);
+        doAnswer(invocation -> {
+                    List<Long> sequenceNos = insert(invocation.getArgument(0));
+                    List<Object[]> columns = inserts.get(inserts.size() - 1);
+                    if (columns.get(0).length > 1 || "UNKNOWN-ID".equals(columns.get(1)[0])) {
+                        throw new DataIntegrityViolationException("violates foreign key constraint");
+                    }
+                    return sequenceNos;
+                }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+        writer = newWriter();
+
+        EventTracker bad = event("PARSE_OK", EventTracker.STATUS_SUCCESS);
+        bad.setPagwId("UNKNOWN-ID");
+        writer.submit(event("PARSE_START", EventTracker.STATUS_STARTED));
+        writer.submit(bad);
+
+        await(() -> meterRegistry.counter("pagw.events.writes.dropped", "reason", "failed").count() == 1.0);
+        assertEquals(3, inserts.size());
+        assertEquals(1.0, meterRegistry.counter("pagw.events.writes", "mode", "batch").count());
+    }
+
+    @Test
+    void testCloseWritesBufferedEvents() {
+        config.setFlushIntervalMs(60_000);
+        config.setFlushSize(100);
+        writer = newWriter();
+
+        writer.submit(event("PARSE_START", EventTracker.STATUS_STARTED));
+        writer.submit(event("PARSE_OK", EventTracker.STATUS_SUCCESS));
+        writer.close();
+
+        assertEquals(2, inserts.stream().mapToInt(columns -> columns.get(0).length).sum());
+        assertEquals(0, writer.pendingCount());
+    }
+
+    @Test
+    void testEventsInATransactionAreQueuedOnlyAfterCommit() throws Exception {
+        config.setFlushSize(1);
+        writer = newWriter();
+        beginTransaction();
+
+        assertTrue(writer.submit(event("PARSE_START", EventTracker.STATUS_STARTED)));
+        Thread.sleep(50);
+        assertEquals(0, writer.pendingCount());
+        assertTrue(inserts.isEmpty());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        await(() -> inserts.size() == 1);
+        assertArrayEquals(new Object[]{"PARSE_START"}, inserts.get(0).get(3));
+        assertNull(TransactionSynchronizationManager.getResource(writer));
+    }
+
+    @Test
+    void testEventsOfARolledBackTransactionAreDiscarded() throws Exception {
+        config.setFlushSize(1);
+        writer = newWriter();
+        beginTransaction();
+
+        writer.submit(event("PARSE_START", EventTracker.STATUS_STARTED));
+        writer.submit(event("PARSE_OK", EventTracker.STATUS_SUCCESS));
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        writer.flush();
+
+        assertTrue(inserts.isEmpty());
+        assertEquals(0, writer.pendingCount());
+        assertNull(TransactionSynchronizationManager.getResource(writer));
+    }
+
+    @Test
+    void testDurableEventInATransactionIsInsertedWithItBehindEarlierEvents() throws Exception {
+        config.setFlushIntervalMs(60_000);
+        writer = newWriter();
+        beginTransaction();
+
+        writer.submit(event("PARSE_START", EventTracker.STATUS_STARTED));
+        long sequenceNo = writer.writeDurable(event("PARSE_FAIL", EventTracker.STATUS_FAILURE));
+
+        // Inserted on the caller's connection, without waiting for the writer thread
+        assertEquals(1, inserts.size());
+        assertArrayEquals(new Object[]{"PARSE_START", "PARSE_FAIL"}, inserts.get(0).get(3));
+        assertArrayEquals(new Object[]{"101", "102"}, inserts.get(0).get(5));
+        assertEquals(102L, sequenceNo);
+        assertEquals(2.0, meterRegistry.counter("pagw.events.writes", "mode", "sync").count());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        writer.flush();
+        assertEquals(1, inserts.size());
+    }
+
+    @Test
+    void testBufferedEventKeepsItsLoggingTimeBehindALaterDurableEvent() throws Exception {
+        config.setFlushIntervalMs(60_000);
+        config.setFlushSize(100);
+        writer = newWriter();
+
+        // Stage A's completion waits in the buffer...
+        writer.submit(event("PARSE_OK", EventTracker.STATUS_SUCCESS));
+        Thread.sleep(5);
+        // ...while stage B already fails in its own transaction for the same request
+        beginTransaction();
+        writer.writeDurable(event("VAL_FAIL", EventTracker.STATUS_FAILURE));
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clear();
+        writer.flush();
+
+        assertEquals(2, inserts.size());
+        List<Object[]> failure = inserts.get(0);
+        List<Object[]> completion = inserts.get(1);
+        assertArrayEquals(new Object[]{"VAL_FAIL"}, failure.get(3));
+        assertArrayEquals(new Object[]{"PARSE_OK"}, completion.get(3));
+        assertArrayEquals(new Object[]{PAGW_ID}, completion.get(1));
+        // The flushed event draws the higher sequence number but keeps the earlier created_at,
+        // which is what getTimeline orders by
+        assertTrue(Long.parseLong((String) completion.get(5)[0]) > Long.parseLong((String) failure.get(5)[0]));
+        assertTrue(Instant.parse((String) completion.get(15)[0]).isBefore(Instant.parse((String) failure.get(15)[0])));
+    }
+
+    private EventTrackerWriter newWriter() {
+        return new EventTrackerWriter(jdbcTemplate, config, meterRegistry, Clock.systemUTC());
+    }
+
+    private static void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    /**
+     * Hold the writer thread in its first batch until the returned latch is released.
+     */
+    private CountDownLatch blockFirstBatch() {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch entered = new CountDownLatch(1);
+        doAnswer(invocation -> {
+                    if (entered.getCount() > 0) {
+                        entered.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                    }
+                    return nextSequenceNos(invocation.getArgument(2));
+                }).when(jdbcTemplate).queryForList(anyString(), eq(Long.class), any(Object[].class));
+        return release;
+    }
+
+    private List<Long> nextSequenceNos(int count) {
+        List<Long> sequenceNos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sequenceNos.add(nextSequenceNo.incrementAndGet());
+        }
+        return sequenceNos;
+    }
+
+    private List<Long> insert(PreparedStatementCreator creator) throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        List<Object[]> columns = new ArrayList<>();
+        when(connection.createArrayOf(eq("text"), any(Object[].class))).thenAnswer(invocation -> {
+            columns.add(invocation.getArgument(1));
+            return mock(Array.class);
+        });
+        creator.createPreparedStatement(connection);
+        inserts.add(columns);
+
+        List<Long> sequenceNos = new ArrayList<>();
+        for (Object sequenceNo : columns.get(5)) {
+            sequenceNos.add(sequenceNo != null ? Long.parseLong((String) sequenceNo) : nextSequenceNo.incrementAndGet());
+        }
+        return sequenceNos;
+    }
+
+    private static EventTracker event(String eventType, String status) {
+        return EventTracker.builder()
+                .tenant("elevance")
+                .pagwId(PAGW_ID)
+                .stage("PARSING")
+                .eventType(eventType)
+                .status(status)
+                .attempt(EventTracker.STATUS_FAILURE.equals(status) ? null : 0)
+                .retryable(false)
+                .build();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 5s");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test suite for IdempotencyService (near-cache and batched completion writes).
+ */
+class IdempotencyServiceTest {
+
+    private static final String TABLE = "pagw-idempotency";
+
+    private DynamoDbClient dynamoDbClient;
+    private PagwProperties.IdempotencyCache config;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = mock(DynamoDbClient.class);
+        config = new PagwProperties.IdempotencyCache();
+        config.setMaxLingerMs(60_000);
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    void testReplaysOfCompletedKeysAreAnsweredLocally() {
+        service = newService();
+
+        assertTrue(service.tryAcquire("key-1", "orchestrator"));
+        service.markCompleted("key-1", "{\"status\":\"approved\"}");
+
+        assertFalse(service.tryAcquire("key-1", "orchestrator"));
+        assertEquals("{\"status\":\"approved\"}", service.getResult("key-1"));
+        verify(dynamoDbClient, times(1)).putItem(any(PutItemRequest.class));
+        verify(dynamoDbClient, never()).getItem(any(GetItemRequest.class));
+        verify(dynamoDbClient, never()).updateItem(any(UpdateItemRequest.class));
+        assertEquals(2, meterRegistry.get("pagw.idempotency.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testMissingResultsAreCachedForTheNegativeTtl() {
+        service = newService();
+
+        assertNull(service.getResult("key-2"));
+        assertNull(service.getResult("key-2"));
+        verify(dynamoDbClient, times(1)).getItem(any(GetItemRequest.class));
+
+        clock.advance(config.getNegativeTtlMs());
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder()
+                .item(Map.of("pk", AttributeValue.fromS("key-2"), "result", AttributeValue.fromS("done")))
+                .build());
+
+        assertEquals("done", service.getResult("key-2"));
+        assertEquals("done", service.getResult("key-2"));
+        verify(dynamoDbClient, times(2)).getItem(any(GetItemRequest.class));
+        assertEquals(2, meterRegistry.get("pagw.idempotency.dynamodb").tag("operation", "getItem").timer().count());
+    }
+
+    @Test
+    void testPollingIgnoresCachedMisses() {
+        service = newService();
+
+        assertNull(service.getResult("key-3"));
+        // Another instance completes the key within the negative TTL
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder()
+                .item(Map.of("pk", AttributeValue.fromS("key-3"), "result", AttributeValue.fromS("done")))
+                .build());
+
+        assertNull(service.getResult("key-3"));
+        assertEquals("done", service.pollResult("key-3"));
+        assertEquals("done", service.pollResult("key-3"));
+        verify(dynamoDbClient, times(2)).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    void testCompletionsAreCoalescedIntoOneBatchWrite() {
+        service = newService();
+        for (int i = 0; i < 3; i++) {
+            service.tryAcquire("key-" + i, "orchestrator");
+            service.markCompleted("key-" + i, "result-" + i);
+        }
+        assertEquals(3.0, meterRegistry.get("pagw.idempotency.writes.pending").gauge().value());
+
+        service.flush();
+
+        ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+        verify(dynamoDbClient, times(1)).batchWriteItem(captor.capture());
+        List<WriteRequest> writes = captor.getValue().requestItems().get(TABLE);
+        assertEquals(3, writes.size());
+        Map<String, AttributeValue> item = writes.get(0).putRequest().item();
+        assertEquals("key-0", item.get("pk").s());
+        assertEquals("COMPLETED", item.get("status").s());
+        assertEquals("orchestrator", item.get("service").s());
+        assertEquals("result-0", item.get("result").s());
+        assertNotNull(item.get("ttl"));
+        verify(dynamoDbClient, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void testUnprocessedItemsAreRetried() {
+        service = newService();
+        service.tryAcquire("key-1", "orchestrator");
+        service.markCompleted("key-1", "result");
+        WriteRequest write = WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(Map.of("pk", AttributeValue.fromS("key-1"))).build())
+                .build();
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().unprocessedItems(Map.of(TABLE, List.of(write))).build())
+                .thenReturn(BatchWriteItemResponse.builder().build());
+
+        service.flush();
+
+        verify(dynamoDbClient, times(2)).batchWriteItem(any(BatchWriteItemRequest.class));
+        assertEquals(0, meterRegistry.get("pagw.idempotency.writes.failed").counter().count());
+    }
+
+    @Test
+    void testMarkFailedDropsBufferedCompletionAndAllowsRetry() {
+        service = newService();
+        service.tryAcquire("key-1", "orchestrator");
+        service.markCompleted("key-1", "result");
+
+        service.markFailed("key-1", "boom");
+        service.flush();
+
+        verify(dynamoDbClient, never()).batchWriteItem(any(BatchWriteItemRequest.class));
+        verify(dynamoDbClient).deleteItem(any(DeleteItemRequest.class));
+        assertTrue(service.tryAcquire("key-1", "orchestrator"));
+        verify(dynamoDbClient, times(2)).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    void testDuplicateFromAnotherInstanceIsNotCached() {
+        service = newService();
+        when(dynamoDbClient.putItem(any(PutItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("exists").build());
+
+        assertFalse(service.tryAcquire("key-1", "orchestrator"));
+        assertFalse(service.tryAcquire("key-1", "orchestrator"));
+
+        verify(dynamoDbClient, times(2)).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    void testDisabledCacheWritesCompletionsSynchronously() {
+        config.setEnabled(false);
+        service = newService();
+
+        service.tryAcquire("key-1", "orchestrator");
+        service.markCompleted("key-1", "result");
+        service.getResult("key-1");
+
+        verify(dynamoDbClient).updateItem(any(UpdateItemRequest.class));
+        verify(dynamoDbClient).getItem(any(GetItemRequest.class));
+        verify(dynamoDbClient, never()).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    private IdempotencyService newService() {
+        return new IdempotencyService(dynamoDbClient, TABLE, 86400, config, meterRegistry, clock);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-12-25T00:00:00Z");
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
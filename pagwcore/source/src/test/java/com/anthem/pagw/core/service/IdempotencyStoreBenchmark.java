@@ -0,0 +1,129 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.net.URI;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Per-request latency of the {@link IdempotencyStore} implementations.
+ *
+ * <p>A request is what the orchestrator does: acquire a new key inside a transaction, then
+ * complete it. A replay is a second acquire of a completed key. DynamoDB runs against LocalStack
+ * (near-cache on and off); Postgres runs against the docker-compose database with the V008
+ * migration applied, each request in its own transaction. Not a unit test - start
+ * {@code docker-compose.infra.yml} and run it from the module directory:</p>
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.anthem.pagw.core.service.IdempotencyStoreBenchmark \
+ *     -Dexec.args="2000"
+ * </pre>
+ *
+ * Arguments: requests (default 2000), JDBC URL (default docker-compose Postgres),
+ * DynamoDB endpoint (default {@code http://localhost:4566}).
+ */
+public class IdempotencyStoreBenchmark {
+
+    private static final int WARMUP = 200;
+    private static final String TABLE = "pagw-idempotency-bench";
+
+    public static void main(String[] args) {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        String jdbcUrl = args.length > 1 ? args[1] : "jdbc:postgresql://localhost:5432/pagw?currentSchema=pagw";
+        String dynamoEndpoint = args.length > 2 ? args[2] : "http://localhost:4566";
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(jdbcUrl, "pagw", "pagw123");
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        DynamoDbClient dynamoDbClient = DynamoDbClient.builder()
+                .endpointOverride(URI.create(dynamoEndpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .build();
+        createTable(dynamoDbClient);
+
+        PagwProperties.IdempotencyCache noCache = new PagwProperties.IdempotencyCache();
+        noCache.setEnabled(false);
+        IdempotencyService dynamoDb = new IdempotencyService(dynamoDbClient, TABLE, 3600);
+        IdempotencyService dynamoDbNoCache = new IdempotencyService(dynamoDbClient, TABLE, 3600, noCache,
+                new SimpleMeterRegistry(), Clock.systemUTC());
+
+        System.out.printf("%-22s %10s %10s %10s %10s%n", "store", "req p50us", "req p99us", "replay p50", "replay p99");
+        report("memory", run(new InMemoryIdempotencyStore(new PagwProperties()), null, requests));
+        report("dynamodb", run(dynamoDb, null, requests));
+        report("dynamodb (no cache)", run(dynamoDbNoCache, null, requests));
+        report("postgres (in tx)", run(new PostgresIdempotencyStore(new JdbcTemplate(dataSource), 3600), transaction, requests));
+
+        dynamoDb.close();
+        dynamoDbNoCache.close();
+        dynamoDbClient.close();
+    }
+
+    private static long[][] run(IdempotencyStore store, TransactionTemplate transaction, int requests) {
+        long[] requestNanos = new long[requests];
+        long[] replayNanos = new long[requests];
+        for (int i = -WARMUP; i < requests; i++) {
+            String key = UUID.randomUUID().toString();
+            long start = System.nanoTime();
+            Runnable request = () -> {
+                if (!store.tryAcquire(key, "bench")) {
+                    throw new IllegalStateException("New key not acquired: " + key);
+                }
+                store.markCompleted(key, "{\"status\":\"queued\"}");
+            };
+            if (transaction != null) {
+                transaction.executeWithoutResult(status -> request.run());
+            } else {
+                request.run();
+            }
+            long acquired = System.nanoTime();
+            if (store.tryAcquire(key, "bench")) {
+                throw new IllegalStateException("Replay acquired: " + key);
+            }
+            long replayed = System.nanoTime();
+            if (i >= 0) {
+                requestNanos[i] = acquired - start;
+                replayNanos[i] = replayed - acquired;
+            }
+        }
+        return new long[][] {requestNanos, replayNanos};
+    }
+
+    private static void report(String store, long[][] nanos) {
+        System.out.printf("%-22s %10.0f %10.0f %10.0f %10.0f%n", store,
+                percentile(nanos[0], 50), percentile(nanos[0], 99),
+                percentile(nanos[1], 50), percentile(nanos[1], 99));
+    }
+
+    private static double percentile(long[] nanos, int percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1000.0;
+    }
+
+    private static void createTable(DynamoDbClient dynamoDbClient) {
+        try {
+            dynamoDbClient.createTable(CreateTableRequest.builder()
+                    .tableName(TABLE)
+                    .attributeDefinitions(AttributeDefinition.builder()
+                            .attributeName("pk").attributeType(ScalarAttributeType.S).build())
+                    .keySchema(KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build())
+                    .billingMode(BillingMode.PAY_PER_REQUEST)
+                    .build());
+        } catch (ResourceInUseException e) {
+            // Created by an earlier run
+        }
+    }
+}
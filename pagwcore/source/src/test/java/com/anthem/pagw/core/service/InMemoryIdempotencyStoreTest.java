@@ -0,0 +1,84 @@
+package com.anthem.pagw.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for InMemoryIdempotencyStore.
+ */
+class InMemoryIdempotencyStoreTest {
+
+    private static final long TTL_MILLIS = 60_000;
+
+    private MutableClock clock;
+    private InMemoryIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        store = new InMemoryIdempotencyStore(TTL_MILLIS, clock);
+    }
+
+    @Test
+    void testSecondAcquireIsRejectedUntilFailed() {
+        assertTrue(store.tryAcquire("key-1", "orchestrator"));
+        assertFalse(store.tryAcquire("key-1", "orchestrator"));
+        assertFalse(store.checkAndSet("key-1"));
+
+        store.remove("key-1");
+
+        assertTrue(store.tryAcquire("key-1", "orchestrator"));
+    }
+
+    @Test
+    void testResultIsReturnedOnlyOnceCompleted() {
+        store.tryAcquire("key-1", "orchestrator");
+        assertNull(store.getResult("key-1"));
+
+        store.markCompleted("key-1", "result");
+
+        assertEquals("result", store.getResult("key-1"));
+        assertNull(store.getResult("unknown"));
+    }
+
+    @Test
+    void testExpiredKeysCanBeAcquiredAgain() {
+        store.tryAcquire("key-1", "orchestrator");
+        store.markCompleted("key-1", "result");
+
+        clock.advance(TTL_MILLIS);
+
+        assertNull(store.getResult("key-1"));
+        assertTrue(store.tryAcquire("key-1", "orchestrator"));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-12-25T00:00:00Z");
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
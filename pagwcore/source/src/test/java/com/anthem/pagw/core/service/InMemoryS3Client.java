@@ -0,0 +1,200 @@
+package com.anthem.pagw.core.service;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-memory {@link S3Client} for S3Service tests: keeps the stored bytes and the
+ * headers/metadata a real bucket would return on GET, honours {@code Range}/{@code If-Match},
+ * and assembles multipart uploads.
+ */
+class InMemoryS3Client implements S3Client {
+
+    record StoredObject(byte[] body, PutObjectRequest request) {}
+
+    private record Upload(CreateMultipartUploadRequest request, Map<Integer, byte[]> parts) {}
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final AtomicInteger gets = new AtomicInteger();
+    private final AtomicInteger completedUploads = new AtomicInteger();
+    private final AtomicInteger abortedUploads = new AtomicInteger();
+    private volatile int failPartNumber = -1;
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        objects.put(request.bucket() + "/" + request.key(), new StoredObject(read(body), request));
+        return PutObjectResponse.builder().build();
+    }
+
+    @Override
+    public ResponseBytes<GetObjectResponse> getObjectAsBytes(GetObjectRequest request) {
+        StoredObject object = get(request);
+        return ResponseBytes.fromByteArray(response(object).build(), object.body());
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+        StoredObject object = get(request);
+        if (request.ifMatch() != null && !request.ifMatch().equals(eTag(object.body()))) {
+            throw (S3Exception) S3Exception.builder().statusCode(412).message("Precondition Failed").build();
+        }
+        byte[] body = object.body();
+        GetObjectResponse.Builder response = response(object);
+        if (request.range() != null) {
+            ranges.add(request.range());
+            if (body.length == 0) {
+                throw (S3Exception) S3Exception.builder().statusCode(416).message("InvalidRange").build();
+            }
+            String[] bounds = request.range().substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Math.min(Integer.parseInt(bounds[1]), body.length - 1);
+            response.contentRange("bytes " + start + "-" + end + "/" + body.length)
+                    .contentLength((long) end - start + 1);
+            body = Arrays.copyOfRange(body, start, end + 1);
+        }
+        return new ResponseInputStream<>(response.build(),
+                AbortableInputStream.create(new ByteArrayInputStream(body)));
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        objects.remove(request.bucket() + "/" + request.key());
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new Upload(request, new ConcurrentSkipListMap<>()));
+        return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        if (request.partNumber() == failPartNumber) {
+            throw (S3Exception) S3Exception.builder().statusCode(500).message("InternalError").build();
+        }
+        byte[] bytes = read(body);
+        uploads.get(request.uploadId()).parts().put(request.partNumber(), bytes);
+        return UploadPartResponse.builder().eTag(eTag(bytes)).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Upload upload = uploads.remove(request.uploadId());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            byte[] bytes = upload.parts().get(part.partNumber());
+            if (!eTag(bytes).equals(part.eTag())) {
+                throw S3Exception.builder().message("InvalidPart " + part.partNumber()).build();
+            }
+            body.writeBytes(bytes);
+        }
+        CreateMultipartUploadRequest create = upload.request();
+        objects.put(request.bucket() + "/" + request.key(), new StoredObject(body.toByteArray(),
+                PutObjectRequest.builder()
+                        .bucket(create.bucket())
+                        .key(create.key())
+                        .contentType(create.contentType())
+                        .contentEncoding(create.contentEncoding())
+                        .metadata(create.metadata())
+                        .serverSideEncryption(create.serverSideEncryption())
+                        .ssekmsKeyId(create.ssekmsKeyId())
+                        .build()));
+        completedUploads.incrementAndGet();
+        return CompleteMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(request.uploadId());
+        abortedUploads.incrementAndGet();
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    StoredObject stored(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    /** Number of GET calls served. */
+    int gets() {
+        return gets.get();
+    }
+
+    /** {@code Range} headers of ranged GETs, in arrival order. */
+    List<String> ranges() {
+        return ranges;
+    }
+
+    int completedUploads() {
+        return completedUploads.get();
+    }
+
+    int abortedUploads() {
+        return abortedUploads.get();
+    }
+
+    /** Make every upload of the given part number fail. */
+    void failPart(int partNumber) {
+        this.failPartNumber = partNumber;
+    }
+
+    private StoredObject get(GetObjectRequest request) {
+        gets.incrementAndGet();
+        StoredObject object = objects.get(request.bucket() + "/" + request.key());
+        if (object == null) {
+            throw NoSuchKeyException.builder().message("No such key: " + request.key()).build();
+        }
+        return object;
+    }
+
+    private static GetObjectResponse.Builder response(StoredObject object) {
+        return GetObjectResponse.builder()
+                .contentType(object.request().contentType())
+                .contentEncoding(object.request().contentEncoding())
+                .contentLength((long) object.body().length)
+                .eTag(eTag(object.body()))
+                .metadata(object.request().metadata());
+    }
+
+    private static String eTag(byte[] body) {
+        return "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return "s3";
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,121 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.model.OutboxEntry;
+import com.anthem.pagw.core.model.PagwMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test suite for OutboxImmediatePublisher (post-commit outbox fast path).
+ */
+class OutboxImmediatePublisherTest {
+
+    private static final String QUEUE_URL = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-request-parser.fifo";
+    private static final String PAGW_ID = "PAGW-20251225-00001-TEST1234";
+
+    private JdbcTemplate jdbcTemplate;
+    private SqsService sqsService;
+    private SqsAsyncService sqsAsyncService;
+    private EventTrackerService eventTrackerService;
+    private PagwProperties properties;
+    private OutboxImmediatePublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        sqsService = mock(SqsService.class);
+        sqsAsyncService = mock(SqsAsyncService.class);
+        eventTrackerService = mock(EventTrackerService.class);
+        properties = new PagwProperties();
+        // Completion callbacks run inline
+        publisher = new OutboxImmediatePublisher(jdbcTemplate, sqsService, sqsAsyncService, eventTrackerService,
+                properties, mock(PlatformTransactionManager.class), Runnable::run);
+    }
+
+    @Test
+    void testPublishesAndCompletesClaimedEntry() {
+        OutboxService.OutboxEntryWritten event = event();
+        String id = event.entry().getId().toString();
+        when(jdbcTemplate.update(contains("'IN_FLIGHT', claimed_by"), eq("pagw/immediate"), anyLong(), eq(id),
+                eq(createdAt(event)))).thenReturn(1);
+        when(sqsAsyncService.sendRawMessage(QUEUE_URL, "{}", PAGW_ID, event.message().getMessageId()))
+                .thenReturn(CompletableFuture.completedFuture("msg-1"));
+
+        publisher.onOutboxEntryWritten(event);
+
+        verify(sqsAsyncService).sendRawMessage(QUEUE_URL, "{}", PAGW_ID, event.message().getMessageId());
+        verify(jdbcTemplate).update(contains("status = 'COMPLETED'"), eq(id), eq(createdAt(event)), eq("pagw/immediate"));
+        verifyNoInteractions(sqsService);
+    }
+
+    @Test
+    void testSkipsEntryAlreadyHeldByScheduledPublisher() {
+        when(jdbcTemplate.update(contains("'IN_FLIGHT', claimed_by"), any(), any(), any(), any())).thenReturn(0);
+
+        publisher.onOutboxEntryWritten(event());
+
+        verifyNoInteractions(sqsAsyncService);
+        verify(jdbcTemplate, never()).update(contains("COMPLETED"), any(), any(), any());
+    }
+
+    @Test
+    void testDoesNotCompleteBeforeSendFinishes() {
+        OutboxService.OutboxEntryWritten event = event();
+        when(jdbcTemplate.update(contains("'IN_FLIGHT', claimed_by"), any(), any(), any(), any())).thenReturn(1);
+        CompletableFuture<String> send = new CompletableFuture<>();
+        when(sqsAsyncService.sendRawMessage(QUEUE_URL, "{}", PAGW_ID, event.message().getMessageId())).thenReturn(send);
+
+        publisher.onOutboxEntryWritten(event);
+        verify(jdbcTemplate, never()).update(contains("COMPLETED"), any(), any(), any());
+
+        send.complete("msg-1");
+        verify(jdbcTemplate).update(contains("status = 'COMPLETED'"), eq(event.entry().getId().toString()),
+                eq(createdAt(event)), eq("pagw/immediate"));
+    }
+
+    @Test
+    void testSendFailureReleasesClaim() {
+        OutboxService.OutboxEntryWritten event = event();
+        String id = event.entry().getId().toString();
+        when(jdbcTemplate.update(contains("'IN_FLIGHT', claimed_by"), any(), any(), any(), any())).thenReturn(1);
+        when(sqsAsyncService.sendRawMessage(anyString(), anyString(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Failed to send SQS message batch")));
+
+        publisher.onOutboxEntryWritten(event);
+
+        verify(jdbcTemplate).update(contains("SET status = 'PENDING'"), eq(id), eq(createdAt(event)), eq("pagw/immediate"));
+        verify(jdbcTemplate, never()).update(contains("COMPLETED"), any(), any(), any());
+        verifyNoInteractions(eventTrackerService);
+    }
+
+    @Test
+    void testDisabledDoesNothing() {
+        properties.getOutbox().setImmediatePublish(false);
+
+        publisher.onOutboxEntryWritten(event());
+
+        verifyNoInteractions(jdbcTemplate, sqsService, sqsAsyncService, eventTrackerService);
+    }
+
+    private OutboxService.OutboxEntryWritten event() {
+        PagwMessage message = PagwMessage.createWithS3Pointer(PAGW_ID, "REQUEST_PARSER",
+                "bucket", "202512/PAGW-20251225-00001-TEST1234/request/raw.json");
+        OutboxEntry entry = OutboxEntry.create("PagwMessage", message.getPagwId(), message.getStage(), "{}", QUEUE_URL);
+        entry.setMessageGroupId(message.getPagwId());
+        entry.setMessageId(message.getMessageId());
+        return new OutboxService.OutboxEntryWritten(entry, message);
+    }
+
+    private static Timestamp createdAt(OutboxService.OutboxEntryWritten event) {
+        return Timestamp.from(event.entry().getCreatedAt());
+    }
+}
@@ -0,0 +1,111 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.model.PagwMessage;
+import com.anthem.pagw.core.util.JsonUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test suite for PagwMessageCodec (SQS claim-check).
+ */
+class PagwMessageCodecTest {
+
+    private static final String PAGW_ID = "PAGW-20251225-00001-TEST1234";
+
+    private S3Service s3Service;
+    private PagwProperties properties;
+    private PagwMessageCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        s3Service = mock(S3Service.class);
+        properties = new PagwProperties();
+        properties.getAws().getS3().setRequestBucket("pagw-request");
+        properties.getAws().getSqs().getClaimCheck().setThresholdBytes(1024);
+        codec = new PagwMessageCodec(s3Service, properties);
+    }
+
+    @Test
+    void testSmallMessageIsSentInline() {
+        PagwMessage message = message("small");
+
+        String body = codec.encode(message);
+
+        assertEquals(JsonUtils.toJson(message), body);
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void testOversizedMessageIsSpilledToS3() {
+        PagwMessage message = message("x".repeat(2048));
+
+        String body = codec.encode(message);
+
+        ArgumentCaptor<byte[]> bytes = ArgumentCaptor.forClass(byte[].class);
+        verify(s3Service).uploadBytes(eq("pagw-request"), endsWith("/" + PAGW_ID + "/messages/" + message.getMessageId() + ".json"),
+                bytes.capture(), eq("application/json"));
+        assertEquals(JsonUtils.toJson(message), new String(bytes.getValue(), StandardCharsets.UTF_8));
+
+        PagwMessage pointer = JsonUtils.fromJson(body, PagwMessage.class);
+        assertTrue(body.length() < 1024);
+        assertNull(pointer.getPayload());
+        assertEquals(PAGW_ID, pointer.getPagwId());
+        assertEquals(message.getMessageId(), pointer.getMessageId());
+        assertEquals("elevance", pointer.getTenant());
+        assertEquals("pagw-request", pointer.getClaimCheck().getS3Bucket());
+        assertEquals(bytes.getValue().length, pointer.getClaimCheck().getContentLength());
+    }
+
+    @Test
+    void testMultiByteCharactersAreMeasuredInBytes() {
+        // 400 chars, but 1200 UTF-8 bytes
+        PagwMessage message = message("€".repeat(400));
+
+        codec.encode(message);
+
+        verify(s3Service).uploadBytes(anyString(), anyString(), any(byte[].class), anyString());
+    }
+
+    @Test
+    void testDisabledClaimCheckSendsInline() {
+        properties.getAws().getSqs().getClaimCheck().setEnabled(false);
+
+        codec.encode(message("x".repeat(2048)));
+
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void testDecodeRehydratesPointerEnvelope() {
+        PagwMessage message = message("x".repeat(2048));
+        String pointer = codec.encode(message);
+        when(s3Service.downloadString(eq("pagw-request"), anyString())).thenReturn(JsonUtils.toJson(message));
+
+        PagwMessage decoded = codec.decode(pointer);
+
+        assertEquals(message.getPayload(), decoded.getPayload());
+        assertNull(decoded.getClaimCheck());
+    }
+
+    @Test
+    void testDecodePlainMessageDoesNotTouchS3() {
+        PagwMessage decoded = codec.decode(JsonUtils.toJson(message("small")));
+
+        assertEquals("small", decoded.getPayload());
+        verifyNoInteractions(s3Service);
+    }
+
+    private PagwMessage message(String payload) {
+        PagwMessage message = PagwMessage.create(PAGW_ID, "PARSE", "orchestrator", payload);
+        message.setTenant("elevance");
+        return message;
+    }
+}
@@ -0,0 +1,321 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.cache.ArtifactCache;
+import com.anthem.pagw.core.exception.PagwException;
+import com.anthem.pagw.core.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyRequest;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PhiEncryptionServiceTest {
+
+    private static final Map<String, String> CONTEXT = Map.of("pagwId", "PAGW-1", "tenant", "ANTHEM");
+    private static final String RECORD = "{\"resourceType\":\"Bundle\",\"patient\":{\"name\":\"Jane Doe\","
+            + "\"birthDate\":\"1970-01-01\",\"address\":{\"line\":[\"1 Main St\"],\"city\":\"Richmond\"}}}";
+    private static final List<String> FIELDS = List.of("patient.name", "patient.birthDate", "patient.address");
+
+    private KmsClient kmsClient;
+    private PagwProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private final AtomicInteger keysIssued = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        kmsClient = mock(KmsClient.class);
+        properties = new PagwProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+        // Fake KMS: the "encrypted" key is a marker byte followed by the key itself
+        when(kmsClient.generateDataKey(any(GenerateDataKeyRequest.class))).thenAnswer(invocation -> {
+            byte[] key = new byte[32];
+            key[0] = (byte) keysIssued.incrementAndGet();
+            byte[] blob = new byte[33];
+            blob[0] = 'K';
+            System.arraycopy(key, 0, blob, 1, 32);
+            return GenerateDataKeyResponse.builder()
+                    .plaintext(SdkBytes.fromByteArray(key))
+                    .ciphertextBlob(SdkBytes.fromByteArray(blob))
+                    .build();
+        });
+        when(kmsClient.decrypt(any(DecryptRequest.class))).thenAnswer(invocation -> {
+            byte[] blob = invocation.<DecryptRequest>getArgument(0).ciphertextBlob().asByteArray();
+            byte[] key = new byte[32];
+            System.arraycopy(blob, 1, key, 0, 32);
+            return DecryptResponse.builder().plaintext(SdkBytes.fromByteArray(key)).build();
+        });
+    }
+
+    @Test
+    void fieldsOfOneRecordShareOneDataKey() throws Exception {
+        PhiEncryptionService service = service();
+
+        String encrypted = service.encryptPhiFields(RECORD, FIELDS, CONTEXT);
+
+        assertFalse(encrypted.contains("Jane Doe"));
+        assertFalse(encrypted.contains("Main St"));
+        verify(kmsClient, times(1)).generateDataKey(any(GenerateDataKeyRequest.class));
+        JsonNode envelope = JsonUtils.getObjectMapper().readTree(encrypted).get(PhiEncryptionService.ENVELOPE_FIELD);
+        assertEquals(1, envelope.get("v").asInt());
+        assertEquals(3, envelope.get("fields").size());
+    }
+
+    @Test
+    void documentRoundTripsWithOneKmsDecrypt() throws Exception {
+        String encrypted = service().encryptPhiFields(RECORD, FIELDS, CONTEXT);
+
+        // A reader without the cached key unwraps the document's DEK once for all fields
+        String decrypted = service().decryptPhiFields(encrypted, null, CONTEXT);
+
+        assertEquals(JsonUtils.getObjectMapper().readTree(RECORD), JsonUtils.getObjectMapper().readTree(decrypted));
+        verify(kmsClient, times(1)).decrypt(any(DecryptRequest.class));
+    }
+
+    @Test
+    void selectedFieldsAreDecryptedAndTheRestStayEncrypted() throws Exception {
+        String encrypted = service().encryptPhiFields(RECORD, FIELDS, CONTEXT);
+
+        JsonNode partial = JsonUtils.getObjectMapper().readTree(
+                service().decryptPhiFields(encrypted, List.of("patient.name"), CONTEXT));
+
+        assertEquals("Jane Doe", partial.at("/patient/name").asText());
+        assertTrue(partial.at("/patient/birthDate").isMissingNode());
+        assertTrue(partial.at("/patient/address_encrypted").isTextual());
+        assertEquals(2, partial.get(PhiEncryptionService.ENVELOPE_FIELD).get("fields").size());
+    }
+
+    @Test
+    void encryptedValueCannotBeMovedToAnotherField() throws Exception {
+        ObjectNode encrypted = (ObjectNode) JsonUtils.getObjectMapper().readTree(
+                service().encryptPhiFields(RECORD, FIELDS, CONTEXT));
+        ObjectNode patient = (ObjectNode) encrypted.get("patient");
+        patient.set("birthDate_encrypted", patient.get("name_encrypted"));
+
+        PagwException error = assertThrows(PagwException.class,
+                () -> service().decryptPhiFields(encrypted.toString(), List.of("patient.birthDate"), CONTEXT));
+        assertEquals("PHI_FIELD_DECRYPTION_FAILED", error.getErrorCode());
+    }
+
+    @Test
+    void perFieldFormatIsStillDecrypted() throws Exception {
+        PhiEncryptionService service = service();
+        PhiEncryptionService.EncryptedData name = service.encrypt("Jane Doe", CONTEXT);
+        String legacy = "{\"patient\":{\"name_encrypted\":{\"ciphertext\":\"" + name.getCiphertext()
+                + "\",\"encryptedKey\":\"" + name.getEncryptedKey() + "\"}}}";
+
+        JsonNode decrypted = JsonUtils.getObjectMapper().readTree(
+                service.decryptPhiFields(legacy, List.of("patient.name"), CONTEXT));
+
+        assertEquals("Jane Doe", decrypted.at("/patient/name").asText());
+    }
+
+    @Test
+    void decryptOfCachedKeyDoesNotCallKms() {
+        PhiEncryptionService service = service();
+        PhiEncryptionService.EncryptedData first = service.encrypt("Jane Doe", CONTEXT);
+        PhiEncryptionService.EncryptedData second = service.encrypt("1970-01-01", CONTEXT);
+
+        assertEquals("Jane Doe", service.decrypt(first, CONTEXT));
+        assertEquals("1970-01-01", service.decrypt(second, CONTEXT));
+        verify(kmsClient, never()).decrypt(any(DecryptRequest.class));
+
+        // Another instance (no cache yet) decrypts both fields with a single KMS Decrypt
+        PhiEncryptionService reader = service();
+        assertEquals("Jane Doe", reader.decrypt(first, CONTEXT));
+        assertEquals("1970-01-01", reader.decrypt(second, CONTEXT));
+        verify(kmsClient, times(1)).decrypt(any(DecryptRequest.class));
+    }
+
+    @Test
+    void dataKeyIsPartitionedByEncryptionContext() {
+        PhiEncryptionService service = service();
+        PhiEncryptionService.EncryptedData first = service.encrypt("Jane Doe", CONTEXT);
+        PhiEncryptionService.EncryptedData other = service.encrypt("John Roe", Map.of("pagwId", "PAGW-2", "tenant", "ANTHEM"));
+
+        assertNotEquals(first.getEncryptedKey(), other.getEncryptedKey());
+        verify(kmsClient, times(2)).generateDataKey(any(GenerateDataKeyRequest.class));
+
+        // A cached key is not handed out for a context it was not issued for
+        service.decrypt(first, Map.of("pagwId", "PAGW-2", "tenant", "ANTHEM"));
+        verify(kmsClient, times(1)).decrypt(any(DecryptRequest.class));
+    }
+
+    @Test
+    void dataKeyIsRegeneratedAtMessageAndAgeLimits() {
+        properties.getEncryption().getDataKeyCache().setMaxMessages(2);
+        PhiEncryptionService service = service();
+
+        service.encrypt("a", CONTEXT);
+        service.encrypt("b", CONTEXT);
+        service.encrypt("c", CONTEXT);
+        verify(kmsClient, times(2)).generateDataKey(any(GenerateDataKeyRequest.class));
+
+        clock.advance(Duration.ofSeconds(properties.getEncryption().getDataKeyCache().getMaxAgeSeconds()));
+        service.encrypt("d", CONTEXT);
+        verify(kmsClient, times(3)).generateDataKey(any(GenerateDataKeyRequest.class));
+    }
+
+    @Test
+    void disabledCacheCallsKmsPerField() {
+        properties.getEncryption().getDataKeyCache().setEnabled(false);
+        PhiEncryptionService service = service();
+
+        PhiEncryptionService.EncryptedData first = service.encrypt("Jane Doe", CONTEXT);
+        service.encrypt("1970-01-01", CONTEXT);
+        service.decrypt(first, CONTEXT);
+
+        verify(kmsClient, times(2)).generateDataKey(any(GenerateDataKeyRequest.class));
+        verify(kmsClient, times(1)).decrypt(any(DecryptRequest.class));
+    }
+
+    @Test
+    void clearZeroesCachedKeys() {
+        PhiDataKeyCache cache = new PhiDataKeyCache(10, 60_000, 100, 1024, clock);
+        byte[] key = new byte[] {1, 2, 3};
+        cache.putForEncrypt("alias/k", CONTEXT, key, new byte[] {9}, 1);
+        PhiDataKeyCache.Materials materials = cache.getForEncrypt("alias/k", CONTEXT, 1);
+
+        cache.clear();
+
+        assertArrayEquals(new byte[] {1, 2, 3}, materials.plaintextKey(), "callers own their copy");
+        assertEquals(0, cache.size());
+        assertNull(cache.getForDecrypt("alias/k", CONTEXT, new byte[] {9}));
+    }
+
+    @Test
+    void streamRoundTripsAtSegmentBoundaries() throws Exception {
+        properties.getEncryption().setStreamSegmentBytes(1024);
+        PhiEncryptionService service = service();
+
+        for (int size : new int[] {0, 1, 1023, 1024, 1025, 4096, 10_000}) {
+            byte[] plaintext = bytes(size);
+            byte[] ciphertext = service.encryptStream(new ByteArrayInputStream(plaintext), CONTEXT).readAllBytes();
+            try (InputStream decrypted = service.decryptStream(new ByteArrayInputStream(ciphertext), CONTEXT)) {
+                assertArrayEquals(plaintext, decrypted.readAllBytes(), "size " + size);
+            }
+        }
+    }
+
+    @Test
+    void everyStreamGetsAFreshDataKey() throws Exception {
+        PhiEncryptionService service = service();
+
+        service.encryptStream(new ByteArrayInputStream(bytes(10)), CONTEXT).readAllBytes();
+        service.encryptStream(new ByteArrayInputStream(bytes(10)), CONTEXT).readAllBytes();
+
+        verify(kmsClient, times(2)).generateDataKey(any(GenerateDataKeyRequest.class));
+    }
+
+    @Test
+    void tamperedOrTruncatedStreamFailsToDecrypt() throws Exception {
+        properties.getEncryption().setStreamSegmentBytes(1024);
+        PhiEncryptionService service = service();
+        byte[] ciphertext = service.encryptStream(new ByteArrayInputStream(bytes(3000)), CONTEXT).readAllBytes();
+
+        byte[] tampered = ciphertext.clone();
+        tampered[tampered.length - 100] ^= 1;
+        assertThrows(IOException.class,
+                () -> service.decryptStream(new ByteArrayInputStream(tampered), CONTEXT).readAllBytes());
+
+        // Dropping the final segment leaves a valid-looking stream ending on a segment boundary
+        byte[] truncated = Arrays.copyOf(ciphertext, ciphertext.length - (3000 - 2048) - SegmentedAesGcm.TAG_LENGTH);
+        assertThrows(IOException.class,
+                () -> service.decryptStream(new ByteArrayInputStream(truncated), CONTEXT).readAllBytes());
+    }
+
+    @Test
+    void rangedReadFetchesOnlyTheCoveringSegments() throws Exception {
+        properties.getEncryption().setStreamSegmentBytes(1024);
+        PhiEncryptionService service = service();
+        InMemoryS3Client s3Client = new InMemoryS3Client();
+        S3Service s3Service = new S3Service(s3Client, properties, ArtifactCache.NONE, false, "");
+        byte[] plaintext = bytes(10_000);
+
+        service.uploadEncrypted(s3Service, "pagw-attachments", "scan.pdf",
+                new ByteArrayInputStream(plaintext), "application/pdf", CONTEXT);
+
+        try (InputStream in = service.downloadDecrypted(s3Service, "pagw-attachments", "scan.pdf", CONTEXT)) {
+            assertArrayEquals(plaintext, in.readAllBytes());
+        }
+        try (InputStream in = service.downloadDecryptedRange(s3Service, "pagw-attachments", "scan.pdf", 2000, 100, CONTEXT)) {
+            assertArrayEquals(Arrays.copyOfRange(plaintext, 2000, 2100), in.readAllBytes());
+        }
+        // Header probe, then segment 1 only (bytes 1024-2047 of the plaintext)
+        List<String> ranges = s3Client.ranges();
+        assertEquals(2, ranges.size());
+        String segments = ranges.get(1);
+        long start = Long.parseLong(segments.substring("bytes=".length(), segments.indexOf('-')));
+        long end = Long.parseLong(segments.substring(segments.indexOf('-') + 1));
+        assertEquals(1024 + SegmentedAesGcm.TAG_LENGTH, end - start + 1);
+
+        // The tail of the object, past its end, and across the final partial segment
+        try (InputStream in = service.downloadDecryptedRange(s3Service, "pagw-attachments", "scan.pdf", 9000, 5000, CONTEXT)) {
+            assertArrayEquals(Arrays.copyOfRange(plaintext, 9000, 10_000), in.readAllBytes());
+        }
+    }
+
+    private static byte[] bytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private PhiEncryptionService service() {
+        return new PhiEncryptionService(kmsClient, properties, meterRegistry, clock);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.util.JsonUtils;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyRequest;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of the per-field PHI format ({@code {ciphertext, encryptedKey}} per field, one
+ * data key each) against the document envelope of {@link PhiEncryptionService#encryptPhiFields},
+ * on a record with the default {@code pagw.encryption.phi-fields}.
+ *
+ * <p>KMS is simulated with a fixed per-call latency ({@code kmsLatencyMs}), so the figures are
+ * local crypto and JSON cost plus that latency per call. The data-key cache is off, so every
+ * document needs its own KMS calls. Document size and KMS calls per operation are printed at the
+ * end of each trial. Not a unit test - run it from the module directory:</p>
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.anthem.pagw.core.service.PhiEnvelopeBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhiEnvelopeBenchmark {
+
+    @Param({"per-field", "envelope"})
+    public String format;
+
+    @Param({"5"})
+    public long kmsLatencyMs;
+
+    private FakeKms kms;
+    private PhiEncryptionService service;
+    private List<String> fields;
+    private String record;
+    private String encrypted;
+    private int next;
+    private long operations;
+    private long kmsCalls;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PhiEnvelopeBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PagwProperties properties = new PagwProperties();
+        properties.getEncryption().getDataKeyCache().setEnabled(false);
+        fields = properties.getEncryption().getPhiFields();
+        record = record();
+        kms = new FakeKms(kmsLatencyMs);
+        service = new PhiEncryptionService(kms, properties, new SimpleMeterRegistry(), Clock.systemUTC());
+        encrypted = encrypt(context(-1));
+    }
+
+    @Benchmark
+    public String encrypt() {
+        long before = kms.calls.get();
+        String document = encrypt(context(next++));
+        kmsCalls += kms.calls.get() - before;
+        operations++;
+        return document;
+    }
+
+    @Benchmark
+    public String decrypt() {
+        long before = kms.calls.get();
+        String document = "per-field".equals(format)
+                ? service.decryptPhiFields(encrypted, fields, context(-1))
+                : service.decryptPhiFields(encrypted, null, context(-1));
+        kmsCalls += kms.calls.get() - before;
+        operations++;
+        return document;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n%s: record %d bytes, document %d bytes, %d PHI fields, %.1f KMS calls/op%n",
+                format, record.getBytes(StandardCharsets.UTF_8).length, encrypted.getBytes(StandardCharsets.UTF_8).length,
+                fields.size(), kmsCalls / (double) Math.max(1, operations));
+    }
+
+    private String encrypt(Map<String, String> context) {
+        return "per-field".equals(format)
+                ? perFieldEncrypt(service, record, fields, context)
+                : service.encryptPhiFields(record, fields, context);
+    }
+
+    /**
+     * The format {@code encryptPhiFields} wrote before the envelope: each field replaced by
+     * {@code <field>_encrypted: {ciphertext, encryptedKey}}.
+     */
+    private static String perFieldEncrypt(PhiEncryptionService service, String record, List<String> fields,
+                                          Map<String, String> context) {
+        try {
+            ObjectNode root = (ObjectNode) JsonUtils.getObjectMapper().readTree(record);
+            for (String field : fields) {
+                String[] path = field.split("\\.");
+                ObjectNode parent = (ObjectNode) root.get(path[0]);
+                String value = parent.get(path[1]).asText();
+                PhiEncryptionService.EncryptedData encrypted = service.encrypt(value, context);
+                ObjectNode encryptedNode = parent.putObject(path[1] + "_encrypted");
+                encryptedNode.put("ciphertext", encrypted.getCiphertext());
+                encryptedNode.put("encryptedKey", encrypted.getEncryptedKey());
+                parent.remove(path[1]);
+            }
+            return JsonUtils.getObjectMapper().writeValueAsString(root);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> context(int i) {
+        return Map.of("pagwId", "PAGW-BENCH-" + i, "tenant", "ANTHEM");
+    }
+
+    private static String record() {
+        return """
+            {"resourceType":"Bundle","type":"collection",
+             "patient":{"name":"Jane Q. Doe","birthDate":"1970-01-01","identifier":"MRN-0012345678",
+                        "address":"1234 Main Street, Apt 5, Richmond, VA 23219","telecom":"+1-804-555-0100"},
+             "subscriber":{"name":"John R. Doe","identifier":"SUB-987654321"},
+             "provider":{"name":"Richmond Family Practice","npi":"1234567890"}}
+            """;
+    }
+
+    /**
+     * KMS stand-in: the wrapped key is the key itself behind a marker byte; each call waits the configured latency.
+     */
+    private static final class FakeKms implements KmsClient {
+        private final SecureRandom random = new SecureRandom();
+        private final long latencyNanos;
+        private final AtomicLong calls = new AtomicLong();
+
+        private FakeKms(long latencyMs) {
+            this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMs);
+        }
+
+        @Override
+        public GenerateDataKeyResponse generateDataKey(GenerateDataKeyRequest request) {
+            call();
+            byte[] key = new byte[32];
+            random.nextBytes(key);
+            byte[] blob = new byte[33];
+            blob[0] = 'K';
+            System.arraycopy(key, 0, blob, 1, 32);
+            return GenerateDataKeyResponse.builder()
+                    .plaintext(SdkBytes.fromByteArray(key))
+                    .ciphertextBlob(SdkBytes.fromByteArray(blob))
+                    .build();
+        }
+
+        @Override
+        public DecryptResponse decrypt(DecryptRequest request) {
+            call();
+            byte[] blob = request.ciphertextBlob().asByteArray();
+            return DecryptResponse.builder()
+                    .plaintext(SdkBytes.fromByteArray(Arrays.copyOfRange(blob, 1, blob.length)))
+                    .build();
+        }
+
+        private void call() {
+            calls.incrementAndGet();
+            LockSupport.parkNanos(latencyNanos);
+        }
+
+        @Override
+        public String serviceName() {
+            return "kms";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.anthem.pagw.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test suite for PostgresIdempotencyStore.
+ */
+class PostgresIdempotencyStoreTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PostgresIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        store = new PostgresIdempotencyStore(jdbcTemplate, 3600);
+    }
+
+    @Test
+    void testAcquireInsertsOrTakesOverExpiredKey() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+
+        assertTrue(store.tryAcquire("key-1", "orchestrator"));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(sql.capture(),
+                eq(PostgresIdempotencyStore.TENANT), eq("key-1"), eq("orchestrator"), eq(3600L));
+        assertTrue(sql.getValue().contains("ON CONFLICT (tenant, idempotency_key) DO UPDATE"));
+        assertTrue(sql.getValue().contains("WHERE idempotency.expires_at < NOW()"));
+    }
+
+    @Test
+    void testLiveKeyIsNotAcquired() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(0);
+
+        assertFalse(store.checkAndSet("key-1"));
+    }
+
+    @Test
+    void testDatabaseErrorsAreNotSwallowed() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThrows(DataAccessException.class,
+                () -> store.tryAcquire("key-1", "orchestrator"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetResultReadsLiveRowsOnly() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of("result"))
+                .thenReturn(List.of());
+
+        assertEquals("result", store.getResult("key-1"));
+        assertNull(store.getResult("key-2"));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).query(sql.capture(), any(RowMapper.class), any(Object[].class));
+        assertTrue(sql.getValue().contains("expires_at > NOW()"));
+    }
+
+    @Test
+    void testMarkFailedDeletesKey() {
+        store.markFailed("key-1", "boom");
+
+        verify(jdbcTemplate).update(startsWith("DELETE FROM idempotency"),
+                eq(PostgresIdempotencyStore.TENANT), eq("key-1"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.cache.ArtifactCache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Bytes on the wire and per-hop latency of S3 artifact compression on the {@code test/fixtures} bundles.
+ *
+ * <p>One hop is what a pipeline stage does with an artifact: the previous stage PUTs it and the
+ * next stage GETs it. Each hop runs through {@link S3Service} against an in-memory bucket, so the
+ * figures are serialization + codec cost; the transfer column adds the time to move the bytes
+ * at the given throughput. Not a unit test - run it from the module directory:</p>
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.anthem.pagw.core.service.S3CompressionBenchmark \
+ *     -Dexec.args="../../test/fixtures 50"
+ * </pre>
+ *
+ * Arguments: fixtures directory (default {@code ../../test/fixtures}), throughput in MB/s (default 50).
+ */
+public class S3CompressionBenchmark {
+
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1000;
+    private static final String BUCKET = "pagw-bench";
+
+    public static void main(String[] args) throws IOException {
+        Path fixtures = Paths.get(args.length > 0 ? args[0] : "../../test/fixtures");
+        double megabytesPerSecond = args.length > 1 ? Double.parseDouble(args[1]) : 50;
+
+        List<Path> bundles;
+        try (Stream<Path> files = Files.list(fixtures)) {
+            bundles = files.filter(f -> f.toString().endsWith(".json")).sorted().toList();
+        }
+
+        System.out.printf("%-46s %-5s %9s %9s %9s %11s %11s%n",
+                "bundle", "codec", "bytes/hop", "ratio", "put us", "get us", "hop us");
+        for (Path bundle : bundles) {
+            String json = Files.readString(bundle, StandardCharsets.UTF_8);
+            for (PagwProperties.S3Compression.Codec codec : PagwProperties.S3Compression.Codec.values()) {
+                Result result = run(json, codec);
+                double transferUs = 2 * result.storedBytes() / (megabytesPerSecond * 1_000_000) * 1_000_000;
+                System.out.printf("%-46s %-5s %9d %9.2f %9.1f %11.1f %11.1f%n",
+                        bundle.getFileName(), codec.name().toLowerCase(), 2 * result.storedBytes(),
+                        (double) json.getBytes(StandardCharsets.UTF_8).length / result.storedBytes(),
+                        result.putMicros(), result.getMicros(),
+                        result.putMicros() + result.getMicros() + transferUs);
+            }
+        }
+        System.out.printf("%nbytes/hop = PUT + GET body bytes; hop us = put + get + transfer at %.0f MB/s%n",
+                megabytesPerSecond);
+    }
+
+    private static Result run(String json, PagwProperties.S3Compression.Codec codec) {
+        PagwProperties properties = new PagwProperties();
+        properties.getAws().getS3().getCompression().setCodec(codec);
+        InMemoryS3Client s3Client = new InMemoryS3Client();
+        S3Service s3Service = new S3Service(s3Client, properties, ArtifactCache.NONE, false, "");
+        String key = "202512/PAGW-BENCH/request/parsed.json";
+
+        for (int i = 0; i < WARMUP; i++) {
+            s3Service.putObject(BUCKET, key, json);
+            s3Service.downloadJson(BUCKET, key);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            s3Service.putObject(BUCKET, key, json);
+        }
+        long putNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            s3Service.downloadJson(BUCKET, key);
+        }
+        long getNanos = System.nanoTime() - start;
+
+        return new Result(s3Client.stored(BUCKET, key).body().length,
+                putNanos / 1000.0 / ITERATIONS, getNanos / 1000.0 / ITERATIONS);
+    }
+
+    private record Result(long storedBytes, double putMicros, double getMicros) {}
+}
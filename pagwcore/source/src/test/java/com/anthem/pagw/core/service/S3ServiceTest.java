@@ -0,0 +1,246 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.cache.ArtifactCache;
+import com.anthem.pagw.core.cache.LocalArtifactCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.model.ServerSideEncryption;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for S3Service artifact compression, caching and parallel transfers.
+ */
+class S3ServiceTest {
+
+    private static final String BUCKET = "pagw-request";
+    private static final String KEY = "202512/PAGW-20251225-00001-TEST1234/request/parsed.json";
+    private static final String ATTACHMENT_KEY = "202512/PAGW-20251225-00001-TEST1234/attachments/scan.pdf";
+    private static final int PART = S3ParallelTransfer.MIN_PART_SIZE;
+
+    private InMemoryS3Client s3Client;
+    private PagwProperties properties;
+    private S3Service s3Service;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        properties = new PagwProperties();
+        properties.getAws().getS3().getCompression().setCodec(PagwProperties.S3Compression.Codec.GZIP);
+        s3Service = new S3Service(s3Client, properties, ArtifactCache.NONE, false, "");
+    }
+
+    @Test
+    void testLargeJsonIsStoredGzippedAndReadBackTransparently() {
+        String json = claimJson(200);
+
+        s3Service.putObject(BUCKET, KEY, json);
+
+        InMemoryS3Client.StoredObject stored = s3Client.stored(BUCKET, KEY);
+        assertEquals("gzip", stored.request().contentEncoding());
+        assertEquals("gzip", stored.request().metadata().get(S3Service.CODEC_METADATA));
+        assertTrue(stored.body().length < json.length() / 2);
+        assertEquals(json, s3Service.getObject(BUCKET, KEY));
+        assertEquals(json, new String(s3Service.downloadBytes(BUCKET, KEY), StandardCharsets.UTF_8));
+        assertEquals(json, s3Service.getParsedData(BUCKET, KEY));
+    }
+
+    @Test
+    void testStreamingReadsInflateCompressedObjects() throws Exception {
+        s3Service.uploadJson(BUCKET, KEY, Map.of("claimId", "CLM-001", "lines", claimJson(100)));
+
+        JsonNode tree = s3Service.downloadJson(BUCKET, KEY);
+        assertEquals("CLM-001", tree.path("claimId").asText());
+        try (InputStream in = s3Service.downloadStream(BUCKET, KEY)) {
+            assertEquals('{', in.read());
+        }
+    }
+
+    @Test
+    void testSmallBodiesAreStoredUncompressed() {
+        s3Service.putObject(BUCKET, KEY, "{\"claimId\":\"CLM-001\"}");
+
+        InMemoryS3Client.StoredObject stored = s3Client.stored(BUCKET, KEY);
+        assertNull(stored.request().contentEncoding());
+        assertEquals("{\"claimId\":\"CLM-001\"}", new String(stored.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testBinaryAttachmentsAreStoredUncompressed() {
+        byte[] pdf = new byte[4096];
+
+        s3Service.uploadBytes(BUCKET, "attachments/a.pdf", pdf, "application/pdf");
+
+        assertNull(s3Client.stored(BUCKET, "attachments/a.pdf").request().contentEncoding());
+        assertArrayEquals(pdf, s3Service.downloadBytes(BUCKET, "attachments/a.pdf"));
+    }
+
+    @Test
+    void testUncompressedObjectsStayReadableWhenCompressionIsEnabled() {
+        String json = claimJson(200);
+        properties.getAws().getS3().getCompression().setCodec(PagwProperties.S3Compression.Codec.NONE);
+        new S3Service(s3Client, properties, ArtifactCache.NONE, false, "").putObject(BUCKET, KEY, json);
+
+        assertNull(s3Client.stored(BUCKET, KEY).request().contentEncoding());
+        assertEquals(json, s3Service.getObject(BUCKET, KEY));
+        assertEquals(200, s3Service.downloadJson(BUCKET, KEY).path("lines").size());
+    }
+
+    @Test
+    void testArtifactCacheServesReadsAfterWriteThrough() {
+        String json = claimJson(200);
+        s3Service = new S3Service(s3Client, properties, new LocalArtifactCache(1 << 20, 1 << 20, 60_000), false, "");
+
+        s3Service.putObject(BUCKET, KEY, json);
+
+        assertEquals(json, s3Service.getObject(BUCKET, KEY));
+        assertEquals(200, s3Service.downloadJson(BUCKET, KEY).path("lines").size());
+        assertEquals(0, s3Client.gets());
+    }
+
+    @Test
+    void testArtifactCacheIsFilledOnMissAndEvictedOnDelete() {
+        String json = claimJson(200);
+        s3Service.putObject(BUCKET, KEY, json);
+        s3Service = new S3Service(s3Client, properties, new LocalArtifactCache(1 << 20, 1 << 20, 60_000), false, "");
+
+        s3Service.getObject(BUCKET, KEY);
+        s3Service.getObject(BUCKET, KEY);
+        assertEquals(1, s3Client.gets());
+
+        byte[] copy = s3Service.downloadBytes(BUCKET, KEY);
+        copy[0] = 'x';
+        assertEquals(json, s3Service.getObject(BUCKET, KEY));
+
+        s3Service.delete(BUCKET, KEY);
+        assertThrows(RuntimeException.class, () -> s3Service.getObject(BUCKET, KEY));
+    }
+
+    @Test
+    void testLargeBodiesUseParallelMultipartUploadWithEncryption() {
+        S3Service service = transferService("kms-key-1");
+        byte[] pdf = randomBytes(2 * PART + 1234);
+
+        service.uploadBytes(BUCKET, ATTACHMENT_KEY, pdf, "application/pdf");
+
+        InMemoryS3Client.StoredObject stored = s3Client.stored(BUCKET, ATTACHMENT_KEY);
+        assertEquals(1, s3Client.completedUploads());
+        assertArrayEquals(pdf, stored.body());
+        assertEquals("application/pdf", stored.request().contentType());
+        assertEquals(ServerSideEncryption.AWS_KMS, stored.request().serverSideEncryption());
+        assertEquals("kms-key-1", stored.request().ssekmsKeyId());
+    }
+
+    @Test
+    void testUnknownLengthStreamIsUploadedInParts() {
+        S3Service service = transferService("");
+        byte[] pdf = randomBytes(3 * PART);
+
+        service.uploadStream(BUCKET, ATTACHMENT_KEY, new ByteArrayInputStream(pdf), "application/pdf");
+
+        assertEquals(1, s3Client.completedUploads());
+        assertArrayEquals(pdf, s3Client.stored(BUCKET, ATTACHMENT_KEY).body());
+        assertEquals(ServerSideEncryption.AES256,
+                s3Client.stored(BUCKET, ATTACHMENT_KEY).request().serverSideEncryption());
+    }
+
+    @Test
+    void testShortUnknownLengthStreamUsesSinglePut() {
+        S3Service service = transferService("");
+        byte[] pdf = randomBytes(1000);
+
+        service.uploadStream(BUCKET, ATTACHMENT_KEY, new ByteArrayInputStream(pdf), "application/pdf");
+
+        assertEquals(0, s3Client.completedUploads());
+        assertArrayEquals(pdf, s3Client.stored(BUCKET, ATTACHMENT_KEY).body());
+    }
+
+    @Test
+    void testFailedPartAbortsMultipartUpload() {
+        S3Service service = transferService("");
+        s3Client.failPart(2);
+
+        assertThrows(RuntimeException.class, () -> service.uploadStream(
+                BUCKET, ATTACHMENT_KEY, new ByteArrayInputStream(randomBytes(3 * PART)), "application/pdf"));
+
+        assertEquals(1, s3Client.abortedUploads());
+        assertNull(s3Client.stored(BUCKET, ATTACHMENT_KEY));
+    }
+
+    @Test
+    void testLargeDownloadsUseParallelRanges() {
+        S3Service service = transferService("");
+        byte[] pdf = randomBytes(2 * PART + 10);
+        service.uploadBytes(BUCKET, ATTACHMENT_KEY, pdf, "application/pdf");
+
+        assertArrayEquals(pdf, service.downloadBytes(BUCKET, ATTACHMENT_KEY));
+        assertEquals(List.of("bytes=0-" + (PART - 1)), s3Client.ranges().subList(0, 1));
+        assertTrue(s3Client.ranges().containsAll(List.of(
+                "bytes=" + PART + "-" + (2 * PART - 1),
+                "bytes=" + 2 * PART + "-" + (2 * PART + 9))));
+    }
+
+    @Test
+    void testDownloadToFileInflatesCompressedObjects(@TempDir Path dir) throws Exception {
+        String json = claimJson(200);
+        S3Service service = transferService("");
+        service.putObject(BUCKET, KEY, json);
+        byte[] pdf = randomBytes(PART + 10);
+        service.uploadBytes(BUCKET, ATTACHMENT_KEY, pdf, "application/pdf");
+
+        Path jsonFile = dir.resolve("parsed.json");
+        Path pdfFile = dir.resolve("scan.pdf");
+        assertEquals(json.length(), service.downloadToFile(BUCKET, KEY, jsonFile));
+        assertEquals(pdf.length, service.downloadToFile(BUCKET, ATTACHMENT_KEY, pdfFile));
+
+        assertEquals(json, Files.readString(jsonFile));
+        assertArrayEquals(pdf, Files.readAllBytes(pdfFile));
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testEmptyObjectsDownload() {
+        s3Service.uploadBytes(BUCKET, ATTACHMENT_KEY, new byte[0], "application/pdf");
+
+        assertEquals(0, s3Service.downloadBytes(BUCKET, ATTACHMENT_KEY).length);
+    }
+
+    private S3Service transferService(String kmsKeyId) {
+        properties.getAws().getS3().getTransfer().setPartSizeBytes(PART);
+        properties.getAws().getS3().getTransfer().setMultipartThresholdBytes(PART);
+        properties.getAws().getS3().getTransfer().setConcurrency(3);
+        return new S3Service(s3Client, properties, ArtifactCache.NONE, !kmsKeyId.isEmpty(), kmsKeyId);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String claimJson(int lines) {
+        StringBuilder json = new StringBuilder("{\"claimId\":\"CLM-001\",\"lines\":[");
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"sequence\":").append(i)
+                    .append(",\"procedureCode\":\"27447\",\"diagnosisCode\":\"M17.11\",\"quantity\":1}");
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,183 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test suite for SqsAsyncService (client-side SQS batching).
+ */
+class SqsAsyncServiceTest {
+
+    private static final String QUEUE_URL = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-request-parser.fifo";
+
+    private SqsAsyncClient sqsAsyncClient;
+    private PagwProperties properties;
+    private SqsAsyncService service;
+
+    @BeforeEach
+    void setUp() {
+        sqsAsyncClient = mock(SqsAsyncClient.class);
+        properties = new PagwProperties();
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer(invocation -> {
+            SendMessageBatchRequest request = invocation.getArgument(0);
+            List<SendMessageBatchResultEntry> successful = new ArrayList<>();
+            request.entries().forEach(e -> successful.add(SendMessageBatchResultEntry.builder()
+                    .id(e.id()).messageId("msg-" + e.messageBody()).build()));
+            return CompletableFuture.completedFuture(SendMessageBatchResponse.builder().successful(successful).build());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testFullBatchFlushesImmediatelyInOneCall() throws Exception {
+        properties.getAws().getSqs().getBatching().setMaxLingerMs(60_000);
+        service = new SqsAsyncService(sqsAsyncClient, new PagwMessageCodec(mock(S3Service.class), properties), properties);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(service.sendRawMessage(QUEUE_URL, "body" + i, "PAGW-1", "dedup-" + i));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("msg-body" + i, futures.get(i).get(1, TimeUnit.SECONDS));
+        }
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient, times(1)).sendMessageBatch(captor.capture());
+        assertEquals(10, captor.getValue().entries().size());
+        assertEquals("PAGW-1", captor.getValue().entries().get(0).messageGroupId());
+        assertEquals("dedup-0", captor.getValue().entries().get(0).messageDeduplicationId());
+    }
+
+    @Test
+    void testPartialBatchFlushesAfterLinger() throws Exception {
+        properties.getAws().getSqs().getBatching().setMaxLingerMs(20);
+        service = new SqsAsyncService(sqsAsyncClient, new PagwMessageCodec(mock(S3Service.class), properties), properties);
+
+        CompletableFuture<String> first = service.sendRawMessage(QUEUE_URL, "a", "PAGW-1", "d1");
+        CompletableFuture<String> second = service.sendRawMessage(QUEUE_URL, "b", "PAGW-2", "d2");
+
+        assertEquals("msg-a", first.get(1, TimeUnit.SECONDS));
+        assertEquals("msg-b", second.get(1, TimeUnit.SECONDS));
+        verify(sqsAsyncClient, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    void testLargeEntriesFlushBeforeTheBatchByteLimit() throws Exception {
+        properties.getAws().getSqs().getBatching().setMaxLingerMs(60_000);
+        service = new SqsAsyncService(sqsAsyncClient, new PagwMessageCodec(mock(S3Service.class), properties), properties);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(service.sendRawMessage(QUEUE_URL, i + "x".repeat(100 * 1024), "PAGW-1", "dedup-" + i));
+        }
+
+        // The third entry would exceed 256 KiB, so the first two went out without waiting for the linger
+        futures.get(0).get(1, TimeUnit.SECONDS);
+        futures.get(1).get(1, TimeUnit.SECONDS);
+        assertFalse(futures.get(2).isDone());
+
+        service.flushAll();
+
+        futures.get(2).get(1, TimeUnit.SECONDS);
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient, times(2)).sendMessageBatch(captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).entries().size());
+        assertEquals(1, captor.getAllValues().get(1).entries().size());
+        for (SendMessageBatchRequest request : captor.getAllValues()) {
+            assertTrue(request.entries().stream().mapToInt(SqsService::payloadBytes).sum() <= SqsService.MAX_BATCH_BYTES);
+        }
+    }
+
+    @Test
+    void testStandardQueueOmitsFifoAttributes() throws Exception {
+        properties.getAws().getSqs().getBatching().setEnabled(false);
+        service = new SqsAsyncService(sqsAsyncClient, new PagwMessageCodec(mock(S3Service.class), properties), properties);
+
+        service.sendRawMessage("https://sqs.us-east-2.amazonaws.com/123/pagw-queue-dlq", "a", "PAGW-1", "d1")
+                .get(1, TimeUnit.SECONDS);
+
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient).sendMessageBatch(captor.capture());
+        assertNull(captor.getValue().entries().get(0).messageGroupId());
+        assertNull(captor.getValue().entries().get(0).messageDeduplicationId());
+    }
+
+    @Test
+    void testRejectedEntryFailsOnlyItsOwnFuture() {
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                SendMessageBatchResponse.builder()
+                        .successful(SendMessageBatchResultEntry.builder().id("0").messageId("msg-a").build())
+                        .failed(BatchResultErrorEntry.builder().id("1").code("InvalidParameterValue")
+                                .message("too large").senderFault(true).build())
+                        .build()));
+        properties.getAws().getSqs().getBatching().setMaxBatchSize(2);
+        service = new SqsAsyncService(sqsAsyncClient, new PagwMessageCodec(mock(S3Service.class), properties), properties);
+
+        CompletableFuture<String> ok = service.sendRawMessage(QUEUE_URL, "a", "PAGW-1", "d1");
+        CompletableFuture<String> rejected = service.sendRawMessage(QUEUE_URL, "b", "PAGW-2", "d2");
+
+        assertEquals("msg-a", ok.join());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        SqsAsyncService.SqsBatchEntryException cause = assertInstanceOf(SqsAsyncService.SqsBatchEntryException.class, e.getCause());
+        assertEquals("InvalidParameterValue", cause.getCode());
+        assertTrue(cause.isSenderFault());
+    }
+
+    @Test
+    void testBatchCallFailureFailsEveryFuture() {
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(SqsException.builder().message("throttled").build()));
+        properties.getAws().getSqs().getBatching().setMaxBatchSize(2);
+        service = new SqsAsyncService(sqsAsyncClient, new PagwMessageCodec(mock(S3Service.class), properties), properties);
+
+        CompletableFuture<String> first = service.sendRawMessage(QUEUE_URL, "a", "PAGW-1", "d1");
+        CompletableFuture<String> second = service.sendRawMessage(QUEUE_URL, "b", "PAGW-2", "d2");
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+
+    @Test
+    void testDeletesAreBatchedPerQueue() throws Exception {
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                DeleteMessageBatchResponse.builder()
+                        .successful(DeleteMessageBatchResultEntry.builder().id("0").build(),
+                                DeleteMessageBatchResultEntry.builder().id("1").build())
+                        .build()));
+        properties.getAws().getSqs().getBatching().setMaxLingerMs(60_000);
+        service = new SqsAsyncService(sqsAsyncClient, new PagwMessageCodec(mock(S3Service.class), properties), properties);
+
+        CompletableFuture<Void> first = service.deleteMessage(QUEUE_URL, "receipt-1");
+        CompletableFuture<Void> second = service.deleteMessage(QUEUE_URL, "receipt-2");
+        assertFalse(first.isDone());
+
+        service.flushAll();
+
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+        ArgumentCaptor<DeleteMessageBatchRequest> captor = ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+        verify(sqsAsyncClient).deleteMessageBatch(captor.capture());
+        assertEquals("receipt-2", captor.getValue().entries().get(1).receiptHandle());
+    }
+}
@@ -0,0 +1,87 @@
+package com.anthem.pagw.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test suite for SqsService batch sends.
+ */
+class SqsServiceTest {
+
+    private static final String QUEUE_URL = "https://sqs.us-east-2.amazonaws.com/123/pagw-queue-request-parser";
+
+    private SqsAsyncClient sqsAsyncClient;
+    private SqsService service;
+
+    @BeforeEach
+    void setUp() {
+        sqsAsyncClient = mock(SqsAsyncClient.class);
+        service = new SqsService(mock(SqsClient.class), sqsAsyncClient, mock(PagwMessageCodec.class));
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer(invocation -> {
+            SendMessageBatchRequest request = invocation.getArgument(0);
+            List<SendMessageBatchResultEntry> successful = new ArrayList<>();
+            request.entries().forEach(e -> successful.add(SendMessageBatchResultEntry.builder()
+                    .id(e.id()).messageId("msg-" + e.id()).build()));
+            return CompletableFuture.completedFuture(SendMessageBatchResponse.builder().successful(successful).build());
+        });
+    }
+
+    @Test
+    void testLargeEntriesAreSplitBelowTheBatchByteLimit() {
+        Map<String, SqsService.RawMessage> messages = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            messages.put("e" + i, new SqsService.RawMessage("x".repeat(100 * 1024), "PAGW-1", "d" + i));
+        }
+
+        SqsService.BatchSendResult result = service.sendRawMessageBatchAsync(QUEUE_URL, messages).join();
+
+        assertEquals(5, result.successfulIds().size());
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient, times(3)).sendMessageBatch(captor.capture());
+        for (SendMessageBatchRequest request : captor.getAllValues()) {
+            int bytes = request.entries().stream().mapToInt(SqsService::payloadBytes).sum();
+            assertTrue(bytes <= SqsService.MAX_BATCH_BYTES, "batch of " + bytes + " bytes");
+        }
+        assertEquals(List.of(2, 2, 1), captor.getAllValues().stream().map(r -> r.entries().size()).toList());
+    }
+
+    @Test
+    void testSmallEntriesAreSplitByCount() {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            entries.add(SendMessageBatchRequestEntry.builder().id("e" + i).messageBody("{}").build());
+        }
+
+        assertEquals(List.of(10, 10, 5), SqsService.chunks(entries).stream().map(List::size).toList());
+    }
+
+    @Test
+    void testMessageAttributesCountTowardsTheLimit() {
+        SendMessageBatchRequestEntry entry = SendMessageBatchRequestEntry.builder()
+                .id("e1")
+                .messageBody("é")
+                .messageAttributes(Map.of(
+                        "tenant", MessageAttributeValue.builder().dataType("String").stringValue("elevance").build(),
+                        "blob", MessageAttributeValue.builder().dataType("Binary")
+                                .binaryValue(SdkBytes.fromByteArray(new byte[16])).build()))
+                .build();
+
+        // body 2 + "tenant" 6 + "String" 6 + "elevance" 8 + "blob" 4 + "Binary" 6 + 16
+        assertEquals(48, SqsService.payloadBytes(entry));
+    }
+}
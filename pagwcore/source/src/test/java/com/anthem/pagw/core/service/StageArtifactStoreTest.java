@@ -0,0 +1,136 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.cache.ArtifactCache;
+import com.anthem.pagw.core.model.StageArtifact;
+import com.anthem.pagw.core.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for StageArtifactStore delta storage.
+ */
+class StageArtifactStoreTest {
+
+    private static final String BUCKET = "pagw-request";
+    private static final String PAGW_ID = "PAGW-20251225-00001-TEST1234";
+
+    private InMemoryS3Client s3Client;
+    private PagwProperties properties;
+    private S3Service s3Service;
+    private StageArtifactStore store;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        properties = new PagwProperties();
+        properties.getAws().getS3().getStageArtifacts().setMode(PagwProperties.StageArtifacts.Mode.DELTA);
+        s3Service = new S3Service(s3Client, properties, ArtifactCache.NONE, false, "");
+        store = new StageArtifactStore(s3Service, properties);
+        s3Service.uploadJson(BUCKET, PagwProperties.S3Paths.parsed(PAGW_ID), claim(200));
+    }
+
+    @Test
+    void testFullModeWritesCompleteCopies() {
+        properties.getAws().getS3().getStageArtifacts().setMode(PagwProperties.StageArtifacts.Mode.FULL);
+        StageArtifact parsed = store.read(BUCKET, PagwProperties.S3Paths.parsed(PAGW_ID));
+
+        store.write(parsed, PagwProperties.S3Paths.validated(PAGW_ID), validationResult(parsed.json()));
+
+        assertNull(parsed.anchor());
+        assertFalse(stored(PagwProperties.S3Paths.validated(PAGW_ID)).contains(StageArtifactStore.MANIFEST_FIELD));
+    }
+
+    @Test
+    void testStagesStoreDeltasAnchoredOnLastFullArtifact() {
+        String parsedKey = PagwProperties.S3Paths.parsed(PAGW_ID);
+        String validatedKey = PagwProperties.S3Paths.validated(PAGW_ID);
+        String enrichedKey = PagwProperties.S3Paths.enriched(PAGW_ID);
+
+        // Validator wraps the claim in its result
+        StageArtifact parsed = store.read(BUCKET, parsedKey);
+        Map<String, Object> validated = validationResult(parsed.json());
+        store.write(parsed, validatedKey, validated);
+
+        // Enricher adds members to the tree it was given
+        StageArtifact validatedArtifact = store.read(BUCKET, validatedKey);
+        ObjectNode enriched = (ObjectNode) validatedArtifact.json();
+        enriched.putObject("eligibilityData").put("status", "ACTIVE");
+        store.write(validatedArtifact, enrichedKey, enriched);
+
+        String parsedBody = stored(parsedKey);
+        String validatedBody = stored(validatedKey);
+        String enrichedBody = stored(enrichedKey);
+        assertTrue(validatedBody.length() < parsedBody.length() / 10);
+        assertTrue(enrichedBody.length() < parsedBody.length() / 10);
+        assertTrue(enrichedBody.contains("\"key\":\"" + parsedKey + "\""));
+
+        assertEquals(JsonUtils.getObjectMapper().valueToTree(validated), store.read(BUCKET, validatedKey).json());
+        JsonNode expected = enriched.deepCopy();
+        assertEquals(expected, store.read(BUCKET, enrichedKey).json());
+        assertEquals(expected, JsonUtils.parseJson(store.readString(BUCKET, enrichedKey)));
+    }
+
+    @Test
+    void testLargeChangesAreStoredInFull() {
+        String canonicalKey = PagwProperties.S3Paths.canonical(PAGW_ID);
+        StageArtifact parsed = store.read(BUCKET, PagwProperties.S3Paths.parsed(PAGW_ID));
+
+        store.write(parsed, canonicalKey, Map.of("x12", "ISA*00*".repeat(500)));
+
+        assertFalse(stored(canonicalKey).contains(StageArtifactStore.MANIFEST_FIELD));
+        StageArtifact canonical = store.read(BUCKET, canonicalKey);
+        assertEquals(canonicalKey, canonical.anchorKey());
+    }
+
+    @Test
+    void testRewrittenAnchorFailsTheDeltaRead() {
+        String parsedKey = PagwProperties.S3Paths.parsed(PAGW_ID);
+        String validatedKey = PagwProperties.S3Paths.validated(PAGW_ID);
+        StageArtifact parsed = store.read(BUCKET, parsedKey);
+        store.write(parsed, validatedKey, validationResult(parsed.json()));
+        assertTrue(stored(validatedKey).contains("\"sha256\""));
+
+        // A replay of the parser rewrites the anchor after the delta was taken
+        ObjectNode replayed = (ObjectNode) claim(200);
+        replayed.put("claimId", "CLM-002");
+        s3Service.uploadJson(BUCKET, parsedKey, replayed);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> store.read(BUCKET, validatedKey));
+        assertTrue(e.getMessage().contains(parsedKey));
+        assertThrows(IllegalStateException.class, () -> store.readString(BUCKET, validatedKey));
+    }
+
+    @Test
+    void testReadStringReturnsFullArtifactsUnchanged() {
+        String parsedKey = PagwProperties.S3Paths.parsed(PAGW_ID);
+
+        assertEquals(stored(parsedKey), store.readString(BUCKET, parsedKey));
+    }
+
+    private String stored(String key) {
+        return new String(s3Client.stored(BUCKET, key).body(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> validationResult(JsonNode claim) {
+        return Map.of("pagwId", PAGW_ID, "valid", true, "errors", new Object[0], "validatedData", claim);
+    }
+
+    private static JsonNode claim(int lines) {
+        ObjectNode claim = JsonUtils.getObjectMapper().createObjectNode();
+        claim.put("claimId", "CLM-001");
+        claim.putObject("patient").put("memberId", "M123").put("name", "Jane Doe");
+        var array = claim.putArray("lines");
+        for (int i = 0; i < lines; i++) {
+            array.addObject().put("sequence", i).put("procedureCode", "27447").put("diagnosisCode", "M17.11");
+        }
+        return claim;
+    }
+}
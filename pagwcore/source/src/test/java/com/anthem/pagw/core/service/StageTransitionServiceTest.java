@@ -0,0 +1,185 @@
+package com.anthem.pagw.core.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.model.EventTracker;
+import com.anthem.pagw.core.model.PagwMessage;
+import com.anthem.pagw.core.model.StageTransition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test suite for StageTransitionService: every transition is one JDBC call.
+ */
+class StageTransitionServiceTest {
+
+    private static final String PAGW_ID = "PAGW-20251225-00001-TEST1234";
+    private static final String TENANT = "elevance";
+
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private StageTransitionService service;
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        PagwProperties properties = new PagwProperties();
+        OutboxService outboxService = new OutboxService(jdbcTemplate, properties, eventPublisher,
+                new PagwMessageCodec(mock(S3Service.class), properties));
+        service = new StageTransitionService(jdbcTemplate, outboxService);
+
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(connection.createArrayOf(eq("text"), any())).thenReturn(mock(Array.class));
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(7L);
+        when(resultSet.getLong(2)).thenReturn(1L);
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+                    return invocation.<ResultSetExtractor<?>>getArgument(1).extractData(resultSet);
+                });
+    }
+
+    @Test
+    void stageStartIsOneStatement() throws Exception {
+        StageTransitionService.Result result = service.apply(
+                StageTransition.start(PAGW_ID, TENANT, "PARSER", EventTracker.EVENT_PARSE_START)
+                        .tracker("PARSING", "request-parser")
+                        .build());
+
+        String sql = execute();
+        assertEquals(7L, result.sequenceNo());
+        assertTrue(result.trackerUpdated());
+        assertTrue(sql.contains("UPDATE request_tracker"));
+        assertTrue(sql.contains("INSERT INTO pagw.event_tracker"));
+        assertFalse(sql.contains("INSERT INTO outbox"));
+        assertTrue(sql.contains("RETURNING sequence_no"));
+        assertFalse(sql.contains("MAX(sequence_no)"));
+        verify(statement).setString(1, "PARSING");
+        verify(statement).setString(2, "request-parser");
+        verify(statement).setString(9, "STARTED");
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void stageCompletionWritesTrackerEventAndOutboxTogether() throws Exception {
+        StageTransitionService.Result result = service.apply(
+                StageTransition.complete(PAGW_ID, TENANT, "PARSER", EventTracker.EVENT_PARSE_OK, 120)
+                        .tracker("PARSED", "request-parser")
+                        .metadata("{\"attachmentCount\":0}")
+                        .send("validator-queue", message("BUSINESS_VALIDATOR"))
+                        .send("attachment-queue", message("ATTACHMENT_HANDLER"))
+                        .build());
+
+        String sql = execute();
+        assertTrue(sql.contains("INSERT INTO outbox"));
+        assertTrue(sql.contains("unnest("));
+        ArgumentCaptor<Object[]> columns = ArgumentCaptor.forClass(Object[].class);
+        verify(connection, times(8)).createArrayOf(eq("text"), columns.capture());
+        assertEquals(2, result.outboxIds().size());
+        assertEquals("validator-queue", result.outbox().get(0).getDestinationQueue());
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        OutboxService.OutboxEntryWritten first = (OutboxService.OutboxEntryWritten) events.getAllValues().get(0);
+        assertEquals(result.outboxIds().get(0), first.entry().getId());
+        // created_at is bound from the entry, which the fast path keys its updates on
+        assertEquals(first.entry().getCreatedAt().toString(), columns.getAllValues().get(7)[0]);
+    }
+
+    @Test
+    void stageFailureCountsAttemptsAndRecordsTrackerError() throws Exception {
+        service.apply(StageTransition.fail(PAGW_ID, TENANT, "PARSER", EventTracker.EVENT_PARSE_FAIL,
+                        "PARSE_EXCEPTION", "boom")
+                .trackerFailed("request-parser", "PARSE_EXCEPTION", "boom")
+                .retryable(true)
+                .build());
+
+        String sql = execute();
+        assertTrue(sql.contains("last_error_code = ?"));
+        assertTrue(sql.contains("retry_count = retry_count + 1"));
+        assertFalse(sql.contains("next_stage"));
+        assertTrue(sql.contains("MAX(attempt)"));
+    }
+
+    @Test
+    void asyncWriterTakesTheEventOutOfTheStatement() throws Exception {
+        EventTrackerWriter writer = mock(EventTrackerWriter.class);
+        when(writer.writeDurable(any(EventTracker.class))).thenReturn(42L);
+        PagwProperties properties = new PagwProperties();
+        service = new StageTransitionService(jdbcTemplate, new OutboxService(jdbcTemplate, properties, eventPublisher,
+                new PagwMessageCodec(mock(S3Service.class), properties)), writer);
+
+        StageTransitionService.Result started = service.apply(
+                StageTransition.start(PAGW_ID, TENANT, "PARSER", EventTracker.EVENT_PARSE_START)
+                        .tracker("PARSING", "request-parser")
+                        .build());
+        StageTransitionService.Result failed = service.apply(
+                StageTransition.fail(PAGW_ID, TENANT, "PARSER", EventTracker.EVENT_PARSE_FAIL, "PARSE_EXCEPTION", "boom")
+                        .build());
+
+        assertEquals(0L, started.sequenceNo());
+        assertEquals(42L, failed.sequenceNo());
+        ArgumentCaptor<EventTracker> buffered = ArgumentCaptor.forClass(EventTracker.class);
+        verify(writer).submit(buffered.capture());
+        assertEquals(EventTracker.STATUS_STARTED, buffered.getValue().getStatus());
+        assertNotNull(buffered.getValue().getStartedAt());
+        ArgumentCaptor<EventTracker> durable = ArgumentCaptor.forClass(EventTracker.class);
+        verify(writer).writeDurable(durable.capture());
+        assertNull(durable.getValue().getAttempt());
+
+        // Only the tracker update reaches the statement
+        String sql = execute();
+        assertTrue(sql.contains("UPDATE request_tracker"));
+        assertFalse(sql.contains("INSERT INTO pagw.event_tracker"));
+    }
+
+    @Test
+    void emptyTransitionTouchesNothing() {
+        StageTransitionService.Result result = service.apply(StageTransition.of(PAGW_ID, TENANT).build());
+
+        assertEquals(0L, result.sequenceNo());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * Check the transition was a single JDBC call and return its SQL.
+     */
+    private String execute() throws Exception {
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+        verifyNoMoreInteractions(jdbcTemplate);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        return sql.getValue();
+    }
+
+    private static PagwMessage message(String stage) {
+        return PagwMessage.builder()
+                .messageId(stage + "-1")
+                .pagwId(PAGW_ID)
+                .tenant(TENANT)
+                .stage(stage)
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.anthem.pagw.core.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonDeltaTest {
+
+    private static final String CLAIM = """
+            {"patient":{"id":"p1","name":{"given":["Jane"],"family":"Doe"},"dob":"1980-01-01"},
+             "lines":[{"seq":1,"code":"27447"},{"seq":2,"code":"99213"}],
+             "a/b":1,"t~x":null}""";
+
+    @Test
+    void testAddedMembersOnly() {
+        JsonNode base = JsonUtils.parseJson(CLAIM);
+        ObjectNode target = base.deepCopy();
+        target.putObject("eligibilityData").put("status", "ACTIVE");
+
+        ArrayNode ops = JsonDelta.diff(base, target);
+
+        assertEquals(1, ops.size());
+        assertEquals("add", ops.get(0).get("op").asText());
+        assertEquals("/eligibilityData", ops.get(0).get("path").asText());
+        assertEquals(target, JsonDelta.apply(base.deepCopy(), ops));
+    }
+
+    @Test
+    void testWrappedBaseBecomesCopy() {
+        JsonNode base = JsonUtils.parseJson(CLAIM);
+        ObjectNode target = JsonUtils.getObjectMapper().createObjectNode();
+        target.put("valid", true);
+        target.set("validatedData", base.deepCopy());
+
+        ArrayNode ops = JsonDelta.diff(base, target);
+
+        assertTrue(ops.toString().contains("{\"op\":\"copy\",\"from\":\"\",\"path\":\"/validatedData\"}"));
+        assertFalse(ops.toString().contains("Jane"));
+        assertEquals(target, JsonDelta.apply(base.deepCopy(), ops));
+    }
+
+    @Test
+    void testRemovedAndReplacedMembersWithEscapedNames() {
+        JsonNode base = JsonUtils.parseJson(CLAIM);
+        ObjectNode target = base.deepCopy();
+        target.remove("a/b");
+        target.put("t~x", 5);
+        ((ArrayNode) target.get("lines")).remove(0);
+        ((ObjectNode) target.get("patient")).put("dob", "1980-02-02");
+
+        assertEquals(target, JsonDelta.apply(base.deepCopy(), JsonDelta.diff(base, target)));
+    }
+
+    @Test
+    void testRootReplacement() {
+        JsonNode base = JsonUtils.parseJson(CLAIM);
+        JsonNode target = JsonUtils.parseJson("[1,2]");
+
+        assertEquals(target, JsonDelta.apply(base.deepCopy(), JsonDelta.diff(base, target)));
+    }
+
+    @Test
+    void testIdenticalDocumentsHaveNoOperations() {
+        JsonNode base = JsonUtils.parseJson(CLAIM);
+
+        assertEquals(0, JsonDelta.diff(base, base.deepCopy()).size());
+    }
+}
@@ -5,11 +5,12 @@ import com.anthem.pagw.connector.model.ApiResponse;
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.RequestTrackerService;
 import com.anthem.pagw.core.service.S3Service;
-import com.anthem.pagw.core.util.JsonUtils;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,23 +39,26 @@ public class ApiConnectorListener {
 
     private final ExternalApiClient externalApiClient;
     private final S3Service s3Service;
+    private final StageArtifactStore artifactStore;
     private final RequestTrackerService trackerService;
-    private final EventTrackerService eventTrackerService;
-    private final OutboxService outboxService;
+    private final StageTransitionService stageTransitionService;
+    private final PagwMessageCodec messageCodec;
     private final String callbackQueueName;
 
     public ApiConnectorListener(
             ExternalApiClient externalApiClient,
             S3Service s3Service,
+            StageArtifactStore artifactStore,
             RequestTrackerService trackerService,
-            EventTrackerService eventTrackerService,
-            OutboxService outboxService,
+            StageTransitionService stageTransitionService,
+            PagwMessageCodec messageCodec,
             @Value("${pagw.aws.sqs.callback-handler-queue}") String callbackQueueName) {
         this.externalApiClient = externalApiClient;
         this.s3Service = s3Service;
+        this.artifactStore = artifactStore;
         this.trackerService = trackerService;
-        this.eventTrackerService = eventTrackerService;
-        this.outboxService = outboxService;
+        this.stageTransitionService = stageTransitionService;
+        this.messageCodec = messageCodec;
         this.callbackQueueName = callbackQueueName;
     }
 
@@ -70,21 +74,21 @@ public class ApiConnectorListener {
         long startTime = System.currentTimeMillis();
         
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
             tenant = message.getTenant();
             
             log.info("Received message for API submission: pagwId={}, targetSystem={}", 
                     pagwId, message.getTargetSystem());
             
-            // Event tracking: API_CON_START
-            eventTrackerService.logStageStart(pagwId, tenant, "API_CONNECTOR", EventTracker.EVENT_API_CON_START, null);
-            
-            // Update tracker status
-            trackerService.updateStatus(pagwId, "SUBMITTING", "api-connector");
+            // Tracker SUBMITTING + event API_CON_START (one statement)
+            stageTransitionService.apply(
+                    StageTransition.start(pagwId, tenant, "API_CONNECTOR", EventTracker.EVENT_API_CON_START)
+                            .tracker("SUBMITTING", "api-connector")
+                            .build());
             
             // Fetch converted payload from S3
-            String convertedPayload = s3Service.getObject(
+            String convertedPayload = artifactStore.readString(
                     message.getPayloadBucket(), 
                     message.getPayloadKey()
             );
@@ -98,19 +102,12 @@ public class ApiConnectorListener {
             
             // Store API response in S3 using standardized path
             String responseKey = PagwProperties.S3Paths.payerResponse(pagwId);
-            s3Service.putObject(
+            s3Service.uploadJson(
                     message.getPayloadBucket(),
                     responseKey,
-                    JsonUtils.toJson(apiResponse)
+                    apiResponse
             );
             
-            // Update tracker based on response type
-            if (apiResponse.isAsync()) {
-                trackerService.updateStatus(pagwId, "AWAITING_CALLBACK", "api-connector");
-            } else {
-                trackerService.updateStatus(pagwId, "SUBMITTED", "api-connector");
-            }
-            
             // Update external reference in tracker
             trackerService.updateExternalReference(pagwId, apiResponse.getExternalId());
             
@@ -132,16 +129,16 @@ public class ApiConnectorListener {
                     .createdAt(Instant.now())
                     .build();
             
-            // Write to outbox - always route to callback-handler
-            outboxService.writeOutbox(callbackQueueName, callbackMessage);
-            
-            // Event tracking: API_CON_OK
+            // Tracker by response type + event API_CON_OK + outbox to callback-handler (one statement)
             long duration = System.currentTimeMillis() - startTime;
             String metadata = String.format("{\"targetSystem\":\"%s\",\"externalId\":\"%s\",\"isAsync\":%b,\"status\":\"%s\"}",
                 message.getTargetSystem(), apiResponse.getExternalId(), apiResponse.isAsync(), apiResponse.getStatus());
-            eventTrackerService.logStageComplete(
-                pagwId, tenant, "API_CONNECTOR", EventTracker.EVENT_API_CON_OK, duration, metadata
-            );
+            stageTransitionService.apply(
+                    StageTransition.complete(pagwId, tenant, "API_CONNECTOR", EventTracker.EVENT_API_CON_OK, duration)
+                            .metadata(metadata)
+                            .tracker(apiResponse.isAsync() ? "AWAITING_CALLBACK" : "SUBMITTED", "api-connector")
+                            .send(callbackQueueName, callbackMessage)
+                            .build());
             
             log.info("API submission complete: pagwId={}, externalId={}, async={}, routedTo=callback-handler", 
                     pagwId, apiResponse.getExternalId(), apiResponse.isAsync());
@@ -150,14 +147,14 @@ public class ApiConnectorListener {
             log.error("API connector error: pagwId={}", pagwId, e);
             
             if (pagwId != null) {
-                // Event tracking: API_CON_ERROR (exception)
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "API_CONNECTOR", EventTracker.EVENT_API_CON_ERROR,
-                    "API_CONNECTOR_EXCEPTION", e.getMessage(), true, java.time.Instant.now().plusSeconds(300)
-                );
-                
-                trackerService.updateError(pagwId, "API_CONNECTOR_ERROR", 
-                        e.getMessage(), "api-connector");
+                // Event API_CON_ERROR (exception) + tracker error (one statement)
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "API_CONNECTOR", EventTracker.EVENT_API_CON_ERROR,
+                                        "API_CONNECTOR_EXCEPTION", e.getMessage())
+                                .retryable(true)
+                                .nextRetryAt(Instant.now().plusSeconds(300))
+                                .trackerFailed("api-connector", "API_CONNECTOR_ERROR", e.getMessage())
+                                .build());
             }
             
             throw new RuntimeException("API connector failed: " + pagwId, e);
@@ -2,11 +2,14 @@ package com.anthem.pagw.connector.listener;
 
 import com.anthem.pagw.connector.client.ExternalApiClient;
 import com.anthem.pagw.connector.model.ApiResponse;
+import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.RequestTrackerService;
 import com.anthem.pagw.core.service.S3Service;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.core.util.JsonUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +19,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,10 +42,7 @@ class ApiConnectorListenerTest {
     private RequestTrackerService trackerService;
 
     @Mock
-    private EventTrackerService eventTrackerService;
-
-    @Mock
-    private OutboxService outboxService;
+    private StageTransitionService stageTransitionService;
 
     private ApiConnectorListener listener;
 
@@ -52,9 +53,10 @@ class ApiConnectorListenerTest {
         listener = new ApiConnectorListener(
                 externalApiClient,
                 s3Service,
+                new StageArtifactStore(s3Service, new PagwProperties()),
                 trackerService,
-                eventTrackerService,
-                outboxService,
+                stageTransitionService,
+                new PagwMessageCodec(s3Service, new PagwProperties()),
                 CALLBACK_QUEUE
         );
     }
@@ -91,13 +93,14 @@ class ApiConnectorListenerTest {
         listener.handleMessage(JsonUtils.toJson(message), pagwId);
 
         // Then
-        verify(trackerService).updateStatus(pagwId, "SUBMITTING", "api-connector");
         verify(s3Service).getObject("pagw-request-dev", "canonical/PAGW-12345.json");
         verify(externalApiClient).submitToExternalSystem("CLAIMS_PRO", convertedPayload, message);
-        verify(s3Service).putObject(eq("pagw-request-dev"), contains("payer_raw.json"), anyString());
-        verify(trackerService).updateStatus(pagwId, "SUBMITTED", "api-connector");
+        verify(s3Service).uploadJson(eq("pagw-request-dev"), contains("payer_raw.json"), any());
         verify(trackerService).updateExternalReference(pagwId, "EXT-12345");
-        verify(outboxService).writeOutbox(eq(CALLBACK_QUEUE), any(PagwMessage.class));
+        List<StageTransition> transitions = transitions(2);
+        assertEquals("SUBMITTING", transitions.get(0).getTrackerStatus());
+        assertEquals("SUBMITTED", transitions.get(1).getTrackerStatus());
+        assertEquals(CALLBACK_QUEUE, transitions.get(1).getOutbox().get(0).destinationQueue());
     }
 
     @Test
@@ -126,13 +129,12 @@ class ApiConnectorListenerTest {
         listener.handleMessage(JsonUtils.toJson(message), pagwId);
 
         // Then
-        verify(trackerService).updateStatus(pagwId, "AWAITING_CALLBACK", "api-connector");
         verify(trackerService).updateExternalReference(pagwId, "CARELON-999");
+        StageTransition completion = transitions(2).get(1);
+        assertEquals("AWAITING_CALLBACK", completion.getTrackerStatus());
+        assertEquals(CALLBACK_QUEUE, completion.getOutbox().get(0).destinationQueue());
         
-        ArgumentCaptor<PagwMessage> messageCaptor = ArgumentCaptor.forClass(PagwMessage.class);
-        verify(outboxService).writeOutbox(eq(CALLBACK_QUEUE), messageCaptor.capture());
-        
-        PagwMessage capturedMessage = messageCaptor.getValue();
+        PagwMessage capturedMessage = completion.getOutbox().get(0).message();
         assertTrue(capturedMessage.getIsAsyncResponse());
         assertEquals("CARELON-999", capturedMessage.getExternalReferenceId());
     }
@@ -156,9 +158,11 @@ class ApiConnectorListenerTest {
                 listener.handleMessage(JsonUtils.toJson(message), pagwId)
         );
 
-        verify(trackerService).updateStatus(pagwId, "SUBMITTING", "api-connector");
-        verify(trackerService).updateError(eq(pagwId), eq("API_CONNECTOR_ERROR"),
-                anyString(), eq("api-connector"));
+        List<StageTransition> transitions = transitions(2);
+        assertEquals("SUBMITTING", transitions.get(0).getTrackerStatus());
+        assertTrue(transitions.get(1).isFailure());
+        assertEquals("API_CONNECTOR_ERROR", transitions.get(1).getTrackerErrorCode());
+        assertEquals("api-connector", transitions.get(1).getLastStage());
     }
 
     @Test
@@ -183,9 +187,11 @@ class ApiConnectorListenerTest {
                 listener.handleMessage(JsonUtils.toJson(message), pagwId)
         );
 
-        verify(trackerService).updateStatus(pagwId, "SUBMITTING", "api-connector");
-        verify(trackerService).updateError(eq(pagwId), eq("API_CONNECTOR_ERROR"),
-                anyString(), eq("api-connector"));
+        List<StageTransition> transitions = transitions(2);
+        assertEquals("SUBMITTING", transitions.get(0).getTrackerStatus());
+        assertTrue(transitions.get(1).isFailure());
+        assertEquals("API_CONNECTOR_ERROR", transitions.get(1).getTrackerErrorCode());
+        assertEquals("api-connector", transitions.get(1).getLastStage());
     }
 
     @Test
@@ -216,15 +222,14 @@ class ApiConnectorListenerTest {
         when(s3Service.getObject(anyString(), anyString())).thenReturn(convertedPayload);
         when(externalApiClient.submitToExternalSystem(anyString(), anyString(), any())).thenReturn(apiResponse);
 
-        ArgumentCaptor<PagwMessage> messageCaptor = ArgumentCaptor.forClass(PagwMessage.class);
-
         // When
         listener.handleMessage(JsonUtils.toJson(message), pagwId);
 
         // Then
-        verify(outboxService).writeOutbox(eq(CALLBACK_QUEUE), messageCaptor.capture());
+        StageTransition.Outbound outbound = transitions(2).get(1).getOutbox().get(0);
+        assertEquals(CALLBACK_QUEUE, outbound.destinationQueue());
 
-        PagwMessage capturedMessage = messageCaptor.getValue();
+        PagwMessage capturedMessage = outbound.message();
         assertEquals(pagwId, capturedMessage.getPagwId());
         assertEquals("CALLBACK_HANDLER", capturedMessage.getStage());
         assertEquals("ANTHEM", capturedMessage.getTenant());
@@ -259,13 +264,13 @@ class ApiConnectorListenerTest {
 
         ArgumentCaptor<String> bucketCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object> dataCaptor = ArgumentCaptor.forClass(Object.class);
 
         // When
         listener.handleMessage(JsonUtils.toJson(message), pagwId);
 
         // Then
-        verify(s3Service).putObject(bucketCaptor.capture(), keyCaptor.capture(), dataCaptor.capture());
+        verify(s3Service).uploadJson(bucketCaptor.capture(), keyCaptor.capture(), dataCaptor.capture());
 
         assertEquals("pagw-request-dev", bucketCaptor.getValue());
         assertTrue(keyCaptor.getValue().contains("payer_raw.json"));
@@ -280,9 +285,10 @@ class ApiConnectorListenerTest {
         ApiConnectorListener customListener = new ApiConnectorListener(
                 externalApiClient,
                 s3Service,
+                new StageArtifactStore(s3Service, new PagwProperties()),
                 trackerService,
-                eventTrackerService,
-                outboxService,
+                stageTransitionService,
+                new PagwMessageCodec(s3Service, new PagwProperties()),
                 customQueue
         );
 
@@ -309,6 +315,12 @@ class ApiConnectorListenerTest {
         customListener.handleMessage(JsonUtils.toJson(message), pagwId);
 
         // Then
-        verify(outboxService).writeOutbox(eq(customQueue), any(PagwMessage.class));
+        assertEquals(customQueue, transitions(2).get(1).getOutbox().get(0).destinationQueue());
+    }
+
+    private List<StageTransition> transitions(int expected) {
+        ArgumentCaptor<StageTransition> captor = ArgumentCaptor.forClass(StageTransition.class);
+        verify(stageTransitionService, times(expected)).apply(captor.capture());
+        return captor.getAllValues();
     }
 }
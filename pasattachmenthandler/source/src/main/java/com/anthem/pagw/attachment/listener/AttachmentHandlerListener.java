@@ -5,10 +5,11 @@ import com.anthem.pagw.attachment.service.AttachmentHandlerService;
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.RequestTrackerService;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.S3Service;
-import com.anthem.pagw.core.util.JsonUtils;
+import com.anthem.pagw.core.service.StageTransitionService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,18 +36,18 @@ public class AttachmentHandlerListener {
 
     private final AttachmentHandlerService attachmentService;
     private final S3Service s3Service;
-    private final RequestTrackerService trackerService;
-    private final EventTrackerService eventTrackerService;
+    private final StageTransitionService stageTransitionService;
+    private final PagwMessageCodec messageCodec;
 
     public AttachmentHandlerListener(
             AttachmentHandlerService attachmentService,
             S3Service s3Service,
-            RequestTrackerService trackerService,
-            EventTrackerService eventTrackerService) {
+            StageTransitionService stageTransitionService,
+            PagwMessageCodec messageCodec) {
         this.attachmentService = attachmentService;
         this.s3Service = s3Service;
-        this.trackerService = trackerService;
-        this.eventTrackerService = eventTrackerService;
+        this.stageTransitionService = stageTransitionService;
+        this.messageCodec = messageCodec;
     }
 
     @SqsListener(value = "${pagw.aws.sqs.attachment-handler-queue}")
@@ -61,21 +62,21 @@ public class AttachmentHandlerListener {
         long startTime = System.currentTimeMillis();
         
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
             tenant = message.getTenant();
             
             log.info("Received message for attachment processing: pagwId={}, attachmentCount={}", 
                     pagwId, message.getAttachmentCount());
             
-            // Event tracking: ATTACH_START
-            eventTrackerService.logStageStart(pagwId, tenant, "ATTACHMENT_HANDLER", EventTracker.EVENT_ATTACH_START, null);
-            
-            // Update tracker status
-            trackerService.updateStatus(pagwId, "PROCESSING_ATTACHMENTS", "attachment-handler");
+            // Event tracking: ATTACH_START, with the tracker status
+            stageTransitionService.apply(
+                    StageTransition.start(pagwId, tenant, "ATTACHMENT_HANDLER", EventTracker.EVENT_ATTACH_START)
+                            .tracker("PROCESSING_ATTACHMENTS", "attachment-handler")
+                            .build());
             
             // Fetch parsed data from S3
-            String parsedData = s3Service.getObject(
+            JsonNode parsedData = s3Service.downloadJson(
                     message.getPayloadBucket(), 
                     message.getPayloadKey()
             );
@@ -91,22 +92,21 @@ public class AttachmentHandlerListener {
             
             // Store attachment metadata in S3 using standardized path
             String attachmentKey = PagwProperties.S3Paths.attachmentMeta(pagwId);
-            s3Service.putObject(
+            s3Service.uploadJson(
                     message.getPayloadBucket(),
                     attachmentKey,
-                    JsonUtils.toJson(new AttachmentResult(pagwId, processedAttachments))
+                    new AttachmentResult(pagwId, processedAttachments)
             );
             
-            // Update tracker - attachment processing is complete (parallel path ends here)
-            trackerService.updateStatus(pagwId, "ATTACHMENTS_PROCESSED", "attachment-handler");
-            
-            // Event tracking: ATTACH_OK
+            // Event tracking: ATTACH_OK - attachment processing is complete (parallel path ends here)
             long duration = System.currentTimeMillis() - startTime;
             String metadata = String.format("{\"attachmentCount\":%d}",
                 processedAttachments.size());
-            eventTrackerService.logStageComplete(
-                pagwId, tenant, "ATTACHMENT_HANDLER", EventTracker.EVENT_ATTACH_OK, duration, metadata
-            );
+            stageTransitionService.apply(
+                    StageTransition.complete(pagwId, tenant, "ATTACHMENT_HANDLER", EventTracker.EVENT_ATTACH_OK, duration)
+                            .metadata(metadata)
+                            .tracker("ATTACHMENTS_PROCESSED", "attachment-handler")
+                            .build());
             
             log.info("Attachment processing complete: pagwId={}, attachmentCount={} (parallel path complete, main flow continues independently)", 
                     pagwId, processedAttachments.size());
@@ -118,13 +118,14 @@ public class AttachmentHandlerListener {
         } catch (Exception e) {
             log.error("Error processing attachments: pagwId={}", pagwId, e);
             if (pagwId != null) {
-                // Event tracking: ATTACH_FAIL (exception)
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "ATTACHMENT_HANDLER", EventTracker.EVENT_ATTACH_FAIL,
-                    "ATTACHMENT_EXCEPTION", e.getMessage(), true, java.time.Instant.now().plusSeconds(300)
-                );
-                
-                trackerService.updateError(pagwId, "ATTACHMENT_ERROR", e.getMessage(), "attachment-handler");
+                // Event tracking: ATTACH_FAIL (exception), with the tracker error
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "ATTACHMENT_HANDLER", EventTracker.EVENT_ATTACH_FAIL,
+                                        "ATTACHMENT_EXCEPTION", e.getMessage())
+                                .retryable(true)
+                                .nextRetryAt(java.time.Instant.now().plusSeconds(300))
+                                .trackerFailed("attachment-handler", "ATTACHMENT_ERROR", e.getMessage())
+                                .build());
             }
             throw new RuntimeException("Failed to process attachments", e);
         }
@@ -68,10 +68,27 @@ public class AttachmentHandlerService {
      * @return List of processed attachment info
      */
     public List<AttachmentInfo> processAttachments(String parsedData, PagwMessage message) {
+        JsonNode data;
+        try {
+            data = JsonUtils.parseJson(parsedData);
+        } catch (Exception e) {
+            log.error("Attachment processing error: pagwId={}", message.getPagwId(), e);
+            return new ArrayList<>();
+        }
+        return processAttachments(data, message);
+    }
+
+    /**
+     * Process all attachments in an already parsed claim tree (as streamed from S3).
+     * 
+     * @param data The parsed claim data
+     * @param message The PAGW message context
+     * @return List of processed attachment info
+     */
+    public List<AttachmentInfo> processAttachments(JsonNode data, PagwMessage message) {
         List<AttachmentInfo> processedAttachments = new ArrayList<>();
         
         try {
-            JsonNode data = JsonUtils.parseJson(parsedData);
             JsonNode attachments = data.path("attachments");
             
             if (!attachments.isArray()) {
@@ -3,11 +3,11 @@ package com.anthem.pagw.validator.listener;
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
-import com.anthem.pagw.core.service.RequestTrackerService;
-import com.anthem.pagw.core.service.S3Service;
-import com.anthem.pagw.core.util.JsonUtils;
+import com.anthem.pagw.core.model.StageArtifact;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.validator.model.ValidationResult;
 import com.anthem.pagw.validator.service.BusinessValidatorService;
 import io.awspring.cloud.sqs.annotation.SqsListener;
@@ -33,22 +33,19 @@ public class BusinessValidatorListener {
     private static final String ERROR_QUEUE = "dev-PAGW-pagw-response-builder-queue.fifo";
 
     private final BusinessValidatorService validatorService;
-    private final S3Service s3Service;
-    private final RequestTrackerService trackerService;
-    private final EventTrackerService eventTrackerService;
-    private final OutboxService outboxService;
+    private final StageArtifactStore artifactStore;
+    private final StageTransitionService stageTransitionService;
+    private final PagwMessageCodec messageCodec;
 
     public BusinessValidatorListener(
             BusinessValidatorService validatorService,
-            S3Service s3Service,
-            RequestTrackerService trackerService,
-            EventTrackerService eventTrackerService,
-            OutboxService outboxService) {
+            StageArtifactStore artifactStore,
+            StageTransitionService stageTransitionService,
+            PagwMessageCodec messageCodec) {
         this.validatorService = validatorService;
-        this.s3Service = s3Service;
-        this.trackerService = trackerService;
-        this.eventTrackerService = eventTrackerService;
-        this.outboxService = outboxService;
+        this.artifactStore = artifactStore;
+        this.stageTransitionService = stageTransitionService;
+        this.messageCodec = messageCodec;
     }
 
     @SqsListener(value = "${pagw.aws.sqs.business-validator-queue}")
@@ -63,52 +60,36 @@ public class BusinessValidatorListener {
         long startTime = System.currentTimeMillis();
         
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
             tenant = message.getTenant();
             
             log.info("Received message for validation: pagwId={}, stage={}", 
                     pagwId, message.getStage());
             
-            // Event tracking: VAL_START
-            eventTrackerService.logStageStart(pagwId, tenant, "VALIDATOR", EventTracker.EVENT_VAL_START, null);
+            // Event tracking: VAL_START, with the tracker status
+            stageTransitionService.apply(
+                    StageTransition.start(pagwId, tenant, "VALIDATOR", EventTracker.EVENT_VAL_START)
+                            .tracker("VALIDATING", "business-validator")
+                            .build());
             
-            // Update tracker status
-            trackerService.updateStatus(pagwId, "VALIDATING", "business-validator");
-            
-            // Fetch enriched data from S3
-            String enrichedData = s3Service.getObject(
+            // Fetch parsed data from S3
+            StageArtifact parsed = artifactStore.read(
                     message.getPayloadBucket(), 
                     message.getPayloadKey()
             );
             
             // Run business validation
-            ValidationResult result = validatorService.validate(enrichedData, message);
+            ValidationResult result = validatorService.validate(parsed.json(), message);
             
             // Store validation result using standardized path
             String validationKey = PagwProperties.S3Paths.validated(pagwId);
-            s3Service.putObject(
-                    message.getPayloadBucket(),
-                    validationKey,
-                    JsonUtils.toJson(result)
-            );
+            artifactStore.write(parsed, validationKey, result);
             
             if (!result.isValid()) {
                 log.warn("Validation failed for pagwId={}: {} errors", 
                         pagwId, result.getErrors().size());
                 
-                // Event tracking: VAL_FAIL
-                String errorDetails = result.getSummary();
-                String metadata = String.format("{\"errorCount\":%d,\"warningCount\":%d}",
-                    result.getErrors().size(), result.getWarnings().size());
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "VALIDATOR", EventTracker.EVENT_VAL_FAIL,
-                    "VALIDATION_FAILED", errorDetails, false, null
-                );
-                
-                trackerService.updateStatus(pagwId, "VALIDATION_FAILED", "business-validator",
-                        "VALIDATION_ERROR", result.getSummary());
-                
                 // Send to response builder for error response
                 PagwMessage errorMessage = PagwMessage.builder()
                         .messageId(UUID.randomUUID().toString())
@@ -124,7 +105,18 @@ public class BusinessValidatorListener {
                         .createdAt(Instant.now())
                         .build();
                 
-                outboxService.writeOutbox(ERROR_QUEUE, errorMessage);
+                // Event tracking: VAL_FAIL, with the tracker error and the error response hop
+                String errorDetails = result.getSummary();
+                String metadata = String.format("{\"errorCount\":%d,\"warningCount\":%d}",
+                    result.getErrors().size(), result.getWarnings().size());
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "VALIDATOR", EventTracker.EVENT_VAL_FAIL,
+                                        "VALIDATION_FAILED", errorDetails)
+                                .metadata(metadata)
+                                .trackerError("VALIDATION_FAILED", "business-validator",
+                                        "VALIDATION_ERROR", result.getSummary())
+                                .send(ERROR_QUEUE, errorMessage)
+                                .build());
                 return;
             }
             
@@ -141,19 +133,16 @@ public class BusinessValidatorListener {
                     .createdAt(Instant.now())
                     .build();
             
-            // Write to outbox
-            outboxService.writeOutbox(NEXT_QUEUE, nextMessage);
-            
-            // Update tracker
-            trackerService.updateStatus(pagwId, "VALIDATED", "business-validator");
-            
-            // Event tracking: VAL_OK
+            // Event tracking: VAL_OK, with the tracker status and the outbox write
             long duration = System.currentTimeMillis() - startTime;
             String metadata = String.format("{\"errorCount\":0,\"warningCount\":%d}",
                 result.getWarnings().size());
-            eventTrackerService.logStageComplete(
-                pagwId, tenant, "VALIDATOR", EventTracker.EVENT_VAL_OK, duration, metadata
-            );
+            stageTransitionService.apply(
+                    StageTransition.complete(pagwId, tenant, "VALIDATOR", EventTracker.EVENT_VAL_OK, duration)
+                            .metadata(metadata)
+                            .tracker("VALIDATED", "business-validator")
+                            .send(NEXT_QUEUE, nextMessage)
+                            .build());
             
             log.info("Validation complete: pagwId={}, valid={}, warnings={}", 
                     pagwId, result.isValid(), result.getWarnings().size());
@@ -161,14 +150,14 @@ public class BusinessValidatorListener {
         } catch (Exception e) {
             log.error("Error processing message: pagwId={}", pagwId, e);
             if (pagwId != null) {
-                // Event tracking: VAL_FAIL (exception)
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "VALIDATOR", EventTracker.EVENT_VAL_FAIL,
-                    "VALIDATION_EXCEPTION", e.getMessage(), true, Instant.now().plusSeconds(300)
-                );
-                
-                trackerService.updateStatus(pagwId, "VALIDATION_ERROR", "business-validator",
-                        "EXCEPTION", e.getMessage());
+                // Event tracking: VAL_FAIL (exception), with the tracker error
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "VALIDATOR", EventTracker.EVENT_VAL_FAIL,
+                                        "VALIDATION_EXCEPTION", e.getMessage())
+                                .retryable(true)
+                                .nextRetryAt(Instant.now().plusSeconds(300))
+                                .trackerError("VALIDATION_ERROR", "business-validator", "EXCEPTION", e.getMessage())
+                                .build());
             }
             throw new RuntimeException("Failed to process message", e);
         }
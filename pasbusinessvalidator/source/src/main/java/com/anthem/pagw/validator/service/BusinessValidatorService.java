@@ -37,14 +37,31 @@ public class BusinessValidatorService {
      * @return ValidationResult with errors and warnings
      */
     public ValidationResult validate(String claimData, PagwMessage message) {
+        JsonNode data;
+        try {
+            data = JsonUtils.parseJson(claimData);
+        } catch (Exception e) {
+            ValidationResult result = new ValidationResult();
+            result.setPagwId(message.getPagwId());
+            return validationFailed(result, new ArrayList<>(), message, e);
+        }
+        return validate(data, message);
+    }
+
+    /**
+     * Validate an already parsed claim tree (as streamed from S3).
+     * 
+     * @param data The claim data
+     * @param message The PAGW message context
+     * @return ValidationResult with errors and warnings
+     */
+    public ValidationResult validate(JsonNode data, PagwMessage message) {
         ValidationResult result = new ValidationResult();
         result.setPagwId(message.getPagwId());
         List<ValidationError> errors = new ArrayList<>();
         List<ValidationWarning> warnings = new ArrayList<>();
         
         try {
-            JsonNode data = JsonUtils.parseJson(claimData);
-            
             // Run all validation rules
             for (ValidationRule rule : validationRules) {
                 if (rule.isApplicable(data, message)) {
@@ -73,16 +90,22 @@ public class BusinessValidatorService {
             }
             
         } catch (Exception e) {
-            log.error("Validation error: pagwId={}", message.getPagwId(), e);
-            errors.add(new ValidationError("PARSE_ERROR", "Failed to parse claim data: " + e.getMessage(), "root"));
-            result.setErrors(errors);
-            result.setValid(false);
-            result.setSummary("Failed to parse claim data");
+            validationFailed(result, errors, message, e);
         }
         
         return result;
     }
 
+    private ValidationResult validationFailed(ValidationResult result, List<ValidationError> errors,
+                                              PagwMessage message, Exception e) {
+        log.error("Validation error: pagwId={}", message.getPagwId(), e);
+        errors.add(new ValidationError("PARSE_ERROR", "Failed to parse claim data: " + e.getMessage(), "root"));
+        result.setErrors(errors);
+        result.setValid(false);
+        result.setSummary("Failed to parse claim data");
+        return result;
+    }
+
     private void validateRequiredFields(JsonNode data, List<ValidationError> errors) {
         // Check required claim fields
         String[] requiredFields = {"pagwId", "claimId", "claimType", "patientReference", "providerReference"};
@@ -1,21 +1,26 @@
 package com.anthem.pagw.validator.listener;
 
+import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
-import com.anthem.pagw.core.service.RequestTrackerService;
+import com.anthem.pagw.core.model.StageArtifact;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.S3Service;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.core.util.JsonUtils;
 import com.anthem.pagw.validator.model.ValidationError;
 import com.anthem.pagw.validator.model.ValidationResult;
 import com.anthem.pagw.validator.service.BusinessValidatorService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
@@ -27,7 +32,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
- * Test class for BusinessValidatorListener EventTrackerService integration.
+ * Test class for BusinessValidatorListener stage transitions (tracker, events and outbox).
  */
 @ExtendWith(MockitoExtension.class)
 class BusinessValidatorListenerTest {
@@ -41,16 +46,13 @@ class BusinessValidatorListenerTest {
     private BusinessValidatorService validatorService;
 
     @Mock
-    private S3Service s3Service;
+    private StageArtifactStore artifactStore;
 
     @Mock
-    private RequestTrackerService trackerService;
+    private StageTransitionService stageTransitionService;
 
-    @Mock
-    private EventTrackerService eventTrackerService;
-
-    @Mock
-    private OutboxService outboxService;
+    @Spy
+    private PagwMessageCodec messageCodec = new PagwMessageCodec(mock(S3Service.class), new PagwProperties());
 
     @InjectMocks
     private BusinessValidatorListener listener;
@@ -77,59 +79,44 @@ class BusinessValidatorListenerTest {
     @Test
     void testValidationSuccess_LogsVAL_START_and_VAL_OK() {
         // Arrange
-        String claimData = "{\"pagwId\":\"" + PAGW_ID + "\",\"claimId\":\"CLM-001\"}";
+        JsonNode claimData = JsonUtils.parseJson("{\"pagwId\":\"" + PAGW_ID + "\",\"claimId\":\"CLM-001\"}");
         ValidationResult result = new ValidationResult();
         result.setPagwId(PAGW_ID);
         result.setValid(true);
         result.setWarnings(new ArrayList<>());
         
-        when(s3Service.getObject(BUCKET, PAYLOAD_KEY)).thenReturn(claimData);
+        when(artifactStore.read(BUCKET, PAYLOAD_KEY)).thenReturn(StageArtifact.of(BUCKET, PAYLOAD_KEY, claimData));
         when(validatorService.validate(claimData, testMessage)).thenReturn(result);
         
         // Act
         listener.handleMessage(messageBody, PAGW_ID);
         
+        List<StageTransition> transitions = transitions(2);
+
         // Assert - VAL_START event logged
-        ArgumentCaptor<String> eventTypeCaptor = ArgumentCaptor.forClass(String.class);
-        verify(eventTrackerService).logStageStart(
-                eq(PAGW_ID), 
-                eq(TENANT), 
-                eq("VALIDATOR"), 
-                eventTypeCaptor.capture(), 
-                isNull()
-        );
-        assertEquals(EventTracker.EVENT_VAL_START, eventTypeCaptor.getValue());
+        StageTransition start = transitions.get(0);
+        assertEquals(PAGW_ID, start.getPagwId());
+        assertEquals(TENANT, start.getTenant());
+        assertEquals("VALIDATOR", start.getStage());
+        assertEquals(EventTracker.EVENT_VAL_START, start.getEventType());
+        assertEquals(EventTracker.STATUS_STARTED, start.getEventStatus());
         
         // Assert - VAL_OK event logged
-        ArgumentCaptor<String> completeEventCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<Long> durationCaptor = ArgumentCaptor.forClass(Long.class);
-        ArgumentCaptor<String> metadataCaptor = ArgumentCaptor.forClass(String.class);
-        
-        verify(eventTrackerService).logStageComplete(
-                eq(PAGW_ID),
-                eq(TENANT),
-                eq("VALIDATOR"),
-                completeEventCaptor.capture(),
-                durationCaptor.capture(),
-                metadataCaptor.capture()
-        );
-        
-        assertEquals(EventTracker.EVENT_VAL_OK, completeEventCaptor.getValue());
-        assertTrue(durationCaptor.getValue() >= 0);
-        assertTrue(metadataCaptor.getValue().contains("\"errorCount\":0"));
-        assertTrue(metadataCaptor.getValue().contains("\"warningCount\":0"));
+        StageTransition complete = transitions.get(1);
+        assertEquals(EventTracker.EVENT_VAL_OK, complete.getEventType());
+        assertEquals(EventTracker.STATUS_SUCCESS, complete.getEventStatus());
+        assertTrue(complete.getDurationMs() >= 0);
+        assertTrue(complete.getMetadata().contains("\"errorCount\":0"));
+        assertTrue(complete.getMetadata().contains("\"warningCount\":0"));
         
         // Verify no error events logged
-        verify(eventTrackerService, never()).logStageError(
-                anyString(), anyString(), anyString(), anyString(), 
-                anyString(), anyString(), anyBoolean(), any()
-        );
+        assertTrue(transitions.stream().noneMatch(StageTransition::isFailure));
     }
 
     @Test
     void testValidationSuccess_WithWarnings() {
         // Arrange
-        String claimData = "{\"pagwId\":\"" + PAGW_ID + "\"}";
+        JsonNode claimData = JsonUtils.parseJson("{\"pagwId\":\"" + PAGW_ID + "\"}");
         ValidationResult result = new ValidationResult();
         result.setPagwId(PAGW_ID);
         result.setValid(true);
@@ -137,31 +124,24 @@ class BusinessValidatorListenerTest {
                 new com.anthem.pagw.validator.model.ValidationWarning("WARN_001", "Missing optional field", "optionalField")
         ));
         
-        when(s3Service.getObject(BUCKET, PAYLOAD_KEY)).thenReturn(claimData);
+        when(artifactStore.read(BUCKET, PAYLOAD_KEY)).thenReturn(StageArtifact.of(BUCKET, PAYLOAD_KEY, claimData));
         when(validatorService.validate(claimData, testMessage)).thenReturn(result);
         
         // Act
         listener.handleMessage(messageBody, PAGW_ID);
         
         // Assert - metadata includes warning count
-        ArgumentCaptor<String> metadataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(eventTrackerService).logStageComplete(
-                eq(PAGW_ID),
-                eq(TENANT),
-                eq("VALIDATOR"),
-                eq(EventTracker.EVENT_VAL_OK),
-                anyLong(),
-                metadataCaptor.capture()
-        );
-        
-        String metadata = metadataCaptor.getValue();
+        StageTransition complete = transitions(2).get(1);
+        assertEquals(EventTracker.EVENT_VAL_OK, complete.getEventType());
+        
+        String metadata = complete.getMetadata();
         assertTrue(metadata.contains("\"warningCount\":1"));
     }
 
     @Test
     void testValidationFailure_LogsVAL_FAIL() {
         // Arrange
-        String claimData = "{\"pagwId\":\"" + PAGW_ID + "\"}";
+        JsonNode claimData = JsonUtils.parseJson("{\"pagwId\":\"" + PAGW_ID + "\"}");
         ValidationResult result = new ValidationResult();
         result.setPagwId(PAGW_ID);
         result.setValid(false);
@@ -172,48 +152,41 @@ class BusinessValidatorListenerTest {
         result.setWarnings(new ArrayList<>());
         result.setSummary("2 validation errors: Missing required field: claimId");
         
-        when(s3Service.getObject(BUCKET, PAYLOAD_KEY)).thenReturn(claimData);
+        when(artifactStore.read(BUCKET, PAYLOAD_KEY)).thenReturn(StageArtifact.of(BUCKET, PAYLOAD_KEY, claimData));
         when(validatorService.validate(claimData, testMessage)).thenReturn(result);
         
         // Act
         listener.handleMessage(messageBody, PAGW_ID);
         
+        List<StageTransition> transitions = transitions(2);
+
         // Assert - VAL_START logged
-        verify(eventTrackerService).logStageStart(
-                eq(PAGW_ID), eq(TENANT), eq("VALIDATOR"), 
-                eq(EventTracker.EVENT_VAL_START), isNull()
-        );
+        assertEquals(EventTracker.EVENT_VAL_START, transitions.get(0).getEventType());
         
         // Assert - VAL_FAIL logged (non-retryable)
-        ArgumentCaptor<String> errorCodeCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> errorMessageCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<Boolean> retryableCaptor = ArgumentCaptor.forClass(Boolean.class);
-        
-        verify(eventTrackerService).logStageError(
-                eq(PAGW_ID),
-                eq(TENANT),
-                eq("VALIDATOR"),
-                eq(EventTracker.EVENT_VAL_FAIL),
-                errorCodeCaptor.capture(),
-                errorMessageCaptor.capture(),
-                retryableCaptor.capture(),
-                isNull()
-        );
-        
-        assertEquals("VALIDATION_FAILED", errorCodeCaptor.getValue());
-        assertTrue(errorMessageCaptor.getValue().contains("validation errors"));
-        assertFalse(retryableCaptor.getValue()); // Not retryable
+        StageTransition failure = transitions.get(1);
+        assertEquals(EventTracker.EVENT_VAL_FAIL, failure.getEventType());
+        assertTrue(failure.isFailure());
+        assertEquals("VALIDATION_FAILED", failure.getErrorCode());
+        assertTrue(failure.getErrorMessage().contains("validation errors"));
+        assertFalse(failure.isRetryable()); // Not retryable
+        assertNull(failure.getNextRetryAt());
+        
+        // Assert - tracker error and error response written with the event
+        assertEquals("VALIDATION_FAILED", failure.getTrackerStatus());
+        assertEquals("VALIDATION_ERROR", failure.getTrackerErrorCode());
+        assertEquals(1, failure.getOutbox().size());
+        assertEquals("RESPONSE_BUILDER", failure.getOutbox().get(0).message().getStage());
+        assertEquals("VALIDATION_FAILED", failure.getOutbox().get(0).message().getErrorCode());
         
         // Assert - VAL_OK NOT logged
-        verify(eventTrackerService, never()).logStageComplete(
-                anyString(), anyString(), anyString(), anyString(), anyLong(), anyString()
-        );
+        assertTrue(transitions.stream().noneMatch(t -> EventTracker.EVENT_VAL_OK.equals(t.getEventType())));
     }
 
     @Test
     void testValidationFailure_WithWarnings() {
         // Arrange
-        String claimData = "{\"pagwId\":\"" + PAGW_ID + "\"}";
+        JsonNode claimData = JsonUtils.parseJson("{\"pagwId\":\"" + PAGW_ID + "\"}");
         ValidationResult result = new ValidationResult();
         result.setPagwId(PAGW_ID);
         result.setValid(false);
@@ -226,29 +199,24 @@ class BusinessValidatorListenerTest {
         ));
         result.setSummary("1 validation errors: Invalid date format");
         
-        when(s3Service.getObject(BUCKET, PAYLOAD_KEY)).thenReturn(claimData);
+        when(artifactStore.read(BUCKET, PAYLOAD_KEY)).thenReturn(StageArtifact.of(BUCKET, PAYLOAD_KEY, claimData));
         when(validatorService.validate(claimData, testMessage)).thenReturn(result);
         
         // Act
         listener.handleMessage(messageBody, PAGW_ID);
         
         // Assert - VAL_FAIL event logged
-        verify(eventTrackerService).logStageError(
-                eq(PAGW_ID),
-                eq(TENANT),
-                eq("VALIDATOR"),
-                eq(EventTracker.EVENT_VAL_FAIL),
-                eq("VALIDATION_FAILED"),
-                anyString(),
-                eq(false),
-                isNull()
-        );
+        StageTransition failure = transitions(2).get(1);
+        assertEquals(EventTracker.EVENT_VAL_FAIL, failure.getEventType());
+        assertEquals("VALIDATION_FAILED", failure.getErrorCode());
+        assertFalse(failure.isRetryable());
+        assertTrue(failure.getMetadata().contains("\"warningCount\":2"));
     }
 
     @Test
     void testValidationException_LogsVAL_FAIL_Retryable() {
         // Arrange
-        when(s3Service.getObject(BUCKET, PAYLOAD_KEY)).thenThrow(new RuntimeException("S3 connection timeout"));
+        when(artifactStore.read(BUCKET, PAYLOAD_KEY)).thenThrow(new RuntimeException("S3 connection timeout"));
         
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -257,117 +225,94 @@ class BusinessValidatorListenerTest {
         
         assertEquals("Failed to process message", exception.getMessage());
         
+        List<StageTransition> transitions = transitions(2);
+
         // Assert - VAL_START logged
-        verify(eventTrackerService).logStageStart(
-                eq(PAGW_ID), eq(TENANT), eq("VALIDATOR"), 
-                eq(EventTracker.EVENT_VAL_START), isNull()
-        );
+        assertEquals(EventTracker.EVENT_VAL_START, transitions.get(0).getEventType());
         
         // Assert - VAL_FAIL logged with retry enabled
-        ArgumentCaptor<Boolean> retryableCaptor = ArgumentCaptor.forClass(Boolean.class);
-        ArgumentCaptor<Instant> nextRetryCaptor = ArgumentCaptor.forClass(Instant.class);
-        
-        verify(eventTrackerService).logStageError(
-                eq(PAGW_ID),
-                eq(TENANT),
-                eq("VALIDATOR"),
-                eq(EventTracker.EVENT_VAL_FAIL),
-                eq("VALIDATION_EXCEPTION"),
-                contains("S3 connection timeout"),
-                retryableCaptor.capture(),
-                nextRetryCaptor.capture()
-        );
-        
-        assertTrue(retryableCaptor.getValue()); // Retryable
-        assertNotNull(nextRetryCaptor.getValue()); // Next retry time set
-        
-        // Verify tracker service updated with error
-        verify(trackerService).updateStatus(
-                eq(PAGW_ID),
-                eq("VALIDATION_ERROR"),
-                eq("business-validator"),
-                eq("EXCEPTION"),
-                contains("S3 connection timeout")
-        );
+        StageTransition failure = transitions.get(1);
+        assertEquals(EventTracker.EVENT_VAL_FAIL, failure.getEventType());
+        assertEquals("VALIDATION_EXCEPTION", failure.getErrorCode());
+        assertTrue(failure.getErrorMessage().contains("S3 connection timeout"));
+        assertTrue(failure.isRetryable()); // Retryable
+        assertNotNull(failure.getNextRetryAt()); // Next retry time set
+        
+        // Verify tracker updated with error in the same transition
+        assertEquals("VALIDATION_ERROR", failure.getTrackerStatus());
+        assertEquals("business-validator", failure.getLastStage());
+        assertEquals("EXCEPTION", failure.getTrackerErrorCode());
+        assertTrue(failure.getTrackerErrorMessage().contains("S3 connection timeout"));
+        assertTrue(failure.getOutbox().isEmpty());
     }
 
     @Test
     void testValidationEventSequence() {
         // Arrange
-        String claimData = "{\"pagwId\":\"" + PAGW_ID + "\"}";
+        JsonNode claimData = JsonUtils.parseJson("{\"pagwId\":\"" + PAGW_ID + "\"}");
         ValidationResult result = new ValidationResult();
         result.setPagwId(PAGW_ID);
         result.setValid(true);
         result.setWarnings(new ArrayList<>());
         
-        when(s3Service.getObject(BUCKET, PAYLOAD_KEY)).thenReturn(claimData);
+        when(artifactStore.read(BUCKET, PAYLOAD_KEY)).thenReturn(StageArtifact.of(BUCKET, PAYLOAD_KEY, claimData));
         when(validatorService.validate(claimData, testMessage)).thenReturn(result);
         
         // Act
         listener.handleMessage(messageBody, PAGW_ID);
         
         // Assert - verify event sequence order
-        var inOrder = inOrder(eventTrackerService, trackerService, validatorService, s3Service, outboxService);
+        var inOrder = inOrder(stageTransitionService, validatorService, artifactStore);
+        ArgumentCaptor<StageTransition> transitionCaptor = ArgumentCaptor.forClass(StageTransition.class);
         
-        // 1. VAL_START event
-        inOrder.verify(eventTrackerService).logStageStart(
-                eq(PAGW_ID), eq(TENANT), eq("VALIDATOR"), 
-                eq(EventTracker.EVENT_VAL_START), isNull()
-        );
+        // 1. VAL_START event with tracker status
+        inOrder.verify(stageTransitionService).apply(transitionCaptor.capture());
+        assertEquals(EventTracker.EVENT_VAL_START, transitionCaptor.getValue().getEventType());
+        assertEquals("VALIDATING", transitionCaptor.getValue().getTrackerStatus());
         
-        // 2. Update tracker status
-        inOrder.verify(trackerService).updateStatus(PAGW_ID, "VALIDATING", "business-validator");
+        // 2. Fetch data from S3
+        inOrder.verify(artifactStore).read(BUCKET, PAYLOAD_KEY);
         
-        // 3. Fetch data from S3
-        inOrder.verify(s3Service).getObject(BUCKET, PAYLOAD_KEY);
-        
-        // 4. Run validation
+        // 3. Run validation
         inOrder.verify(validatorService).validate(claimData, testMessage);
         
-        // 5. Store result in S3
-        inOrder.verify(s3Service).putObject(eq(BUCKET), contains("validated"), anyString());
-        
-        // 6. Write to outbox
-        inOrder.verify(outboxService).writeOutbox(anyString(), any(PagwMessage.class));
-        
-        // 7. Update tracker
-        inOrder.verify(trackerService).updateStatus(PAGW_ID, "VALIDATED", "business-validator");
-        
-        // 8. VAL_OK event
-        inOrder.verify(eventTrackerService).logStageComplete(
-                eq(PAGW_ID), eq(TENANT), eq("VALIDATOR"), 
-                eq(EventTracker.EVENT_VAL_OK), anyLong(), anyString()
-        );
+        // 4. Store result in S3
+        inOrder.verify(artifactStore).write(any(), contains("validated"), any());
+        
+        // 5. VAL_OK event, tracker update and outbox write together
+        inOrder.verify(stageTransitionService).apply(transitionCaptor.capture());
+        StageTransition complete = transitionCaptor.getValue();
+        assertEquals(EventTracker.EVENT_VAL_OK, complete.getEventType());
+        assertEquals("VALIDATED", complete.getTrackerStatus());
+        assertEquals("business-validator", complete.getLastStage());
+        assertEquals(1, complete.getOutbox().size());
+        assertEquals("REQUEST_ENRICHER", complete.getOutbox().get(0).message().getStage());
     }
 
     @Test
     void testDurationTracking() {
         // Arrange
-        String claimData = "{\"pagwId\":\"" + PAGW_ID + "\"}";
+        JsonNode claimData = JsonUtils.parseJson("{\"pagwId\":\"" + PAGW_ID + "\"}");
         ValidationResult result = new ValidationResult();
         result.setPagwId(PAGW_ID);
         result.setValid(true);
         result.setWarnings(new ArrayList<>());
         
-        when(s3Service.getObject(BUCKET, PAYLOAD_KEY)).thenReturn(claimData);
+        when(artifactStore.read(BUCKET, PAYLOAD_KEY)).thenReturn(StageArtifact.of(BUCKET, PAYLOAD_KEY, claimData));
         when(validatorService.validate(claimData, testMessage)).thenReturn(result);
         
         // Act
         listener.handleMessage(messageBody, PAGW_ID);
         
         // Assert - duration is tracked and non-negative
-        ArgumentCaptor<Long> durationCaptor = ArgumentCaptor.forClass(Long.class);
-        verify(eventTrackerService).logStageComplete(
-                eq(PAGW_ID),
-                eq(TENANT),
-                eq("VALIDATOR"),
-                eq(EventTracker.EVENT_VAL_OK),
-                durationCaptor.capture(),
-                anyString()
-        );
-        
-        Long duration = durationCaptor.getValue();
+        Long duration = transitions(2).get(1).getDurationMs();
         assertNotNull(duration);
         assertTrue(duration >= 0, "Duration should be non-negative");
     }
+
+    private List<StageTransition> transitions(int expected) {
+        ArgumentCaptor<StageTransition> captor = ArgumentCaptor.forClass(StageTransition.class);
+        verify(stageTransitionService, times(expected)).apply(captor.capture());
+        return captor.getAllValues();
+    }
 }
@@ -5,11 +5,11 @@ import com.anthem.pagw.callback.service.CallbackHandlerService;
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
-import com.anthem.pagw.core.service.RequestTrackerService;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.S3Service;
-import com.anthem.pagw.core.util.JsonUtils;
+import com.anthem.pagw.core.service.StageTransitionService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,21 +33,18 @@ public class CallbackHandlerListener {
 
     private final CallbackHandlerService callbackService;
     private final S3Service s3Service;
-    private final RequestTrackerService trackerService;
-    private final EventTrackerService eventTrackerService;
-    private final OutboxService outboxService;
+    private final StageTransitionService stageTransitionService;
+    private final PagwMessageCodec messageCodec;
 
     public CallbackHandlerListener(
             CallbackHandlerService callbackService,
             S3Service s3Service,
-            RequestTrackerService trackerService,
-            EventTrackerService eventTrackerService,
-            OutboxService outboxService) {
+            StageTransitionService stageTransitionService,
+            PagwMessageCodec messageCodec) {
         this.callbackService = callbackService;
         this.s3Service = s3Service;
-        this.trackerService = trackerService;
-        this.eventTrackerService = eventTrackerService;
-        this.outboxService = outboxService;
+        this.stageTransitionService = stageTransitionService;
+        this.messageCodec = messageCodec;
     }
 
     @SqsListener(value = "${pagw.aws.sqs.callback-handler-queue}")
@@ -62,21 +59,21 @@ public class CallbackHandlerListener {
         long startTime = System.currentTimeMillis();
         
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
             tenant = message.getTenant();
             
             log.info("Received callback message: pagwId={}, externalRef={}", 
                     pagwId, message.getExternalReferenceId());
             
-            // Event tracking: CALLBACK_START
-            eventTrackerService.logStageStart(pagwId, tenant, "CALLBACK_HANDLER", EventTracker.EVENT_CALLBACK_START, null);
-            
-            // Update tracker status
-            trackerService.updateStatus(pagwId, "PROCESSING_CALLBACK", "callback-handler");
+            // Event tracking: CALLBACK_START, with the tracker status
+            stageTransitionService.apply(
+                    StageTransition.start(pagwId, tenant, "CALLBACK_HANDLER", EventTracker.EVENT_CALLBACK_START)
+                            .tracker("PROCESSING_CALLBACK", "callback-handler")
+                            .build());
             
             // Fetch original response data
-            String responseData = s3Service.getObject(
+            JsonNode responseData = s3Service.downloadJson(
                     message.getPayloadBucket(), 
                     message.getPayloadKey()
             );
@@ -86,10 +83,10 @@ public class CallbackHandlerListener {
             
             // Store callback result using standardized path
             String callbackKey = PagwProperties.S3Paths.callbackResponse(pagwId);
-            s3Service.putObject(
+            s3Service.uploadJson(
                     message.getPayloadBucket(),
                     callbackKey,
-                    JsonUtils.toJson(callbackResult)
+                    callbackResult
             );
             
             // Prepare message for response builder
@@ -115,19 +112,16 @@ public class CallbackHandlerListener {
                         .build();
             }
             
-            // Write to outbox
-            outboxService.writeOutbox(RESPONSE_QUEUE, responseMessage);
-            
-            // Update tracker
-            trackerService.updateStatus(pagwId, "CALLBACK_PROCESSED", "callback-handler");
-            
-            // Event tracking: CALLBACK_OK
+            // Event tracking: CALLBACK_OK, with the tracker status and the outbox write
             long duration = System.currentTimeMillis() - startTime;
             String metadata = String.format("{\"status\":\"%s\",\"isError\":%b}",
                 callbackResult.getStatus(), callbackResult.isError());
-            eventTrackerService.logStageComplete(
-                pagwId, tenant, "CALLBACK_HANDLER", EventTracker.EVENT_CALLBACK_OK, duration, metadata
-            );
+            stageTransitionService.apply(
+                    StageTransition.complete(pagwId, tenant, "CALLBACK_HANDLER", EventTracker.EVENT_CALLBACK_OK, duration)
+                            .metadata(metadata)
+                            .tracker("CALLBACK_PROCESSED", "callback-handler")
+                            .send(RESPONSE_QUEUE, responseMessage)
+                            .build());
             
             log.info("Callback processing complete: pagwId={}, status={}", 
                     pagwId, callbackResult.getStatus());
@@ -135,14 +129,14 @@ public class CallbackHandlerListener {
         } catch (Exception e) {
             log.error("Error processing callback: pagwId={}", pagwId, e);
             if (pagwId != null) {
-                // Event tracking: CALLBACK_FAIL (exception)
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "CALLBACK_HANDLER", EventTracker.EVENT_CALLBACK_FAIL,
-                    "CALLBACK_EXCEPTION", e.getMessage(), true, java.time.Instant.now().plusSeconds(300)
-                );
-                
-                trackerService.updateStatus(pagwId, "CALLBACK_ERROR", "callback-handler",
-                        "EXCEPTION", e.getMessage());
+                // Event tracking: CALLBACK_FAIL (exception), with the tracker error
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "CALLBACK_HANDLER", EventTracker.EVENT_CALLBACK_FAIL,
+                                        "CALLBACK_EXCEPTION", e.getMessage())
+                                .retryable(true)
+                                .nextRetryAt(Instant.now().plusSeconds(300))
+                                .trackerError("CALLBACK_ERROR", "callback-handler", "EXCEPTION", e.getMessage())
+                                .build());
             }
             throw new RuntimeException("Failed to process callback", e);
         }
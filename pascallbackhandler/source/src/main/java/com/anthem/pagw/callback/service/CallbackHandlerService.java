@@ -33,15 +33,26 @@ public class CallbackHandlerService {
      * @return CallbackResult with processed information
      */
     public CallbackResult processCallback(String responseData, PagwMessage message) {
-        CallbackResult result = new CallbackResult();
-        result.setPagwId(message.getPagwId());
-        result.setExternalReferenceId(message.getExternalReferenceId());
-        result.setProcessedAt(Instant.now());
+        JsonNode originalResponse;
+        try {
+            originalResponse = JsonUtils.parseJson(responseData);
+        } catch (Exception e) {
+            return callbackFailed(newResult(message), message, e);
+        }
+        return processCallback(originalResponse, message);
+    }
+
+    /**
+     * Process a callback for an already parsed API response (as streamed from S3).
+     * 
+     * @param originalResponse The original API response data
+     * @param message The PAGW message context
+     * @return CallbackResult with processed information
+     */
+    public CallbackResult processCallback(JsonNode originalResponse, PagwMessage message) {
+        CallbackResult result = newResult(message);
         
         try {
-            // Parse original response
-            JsonNode originalResponse = JsonUtils.parseJson(responseData);
-            
             // Determine callback status based on API response
             String apiStatus = message.getApiResponseStatus();
             
@@ -108,17 +119,30 @@ public class CallbackHandlerService {
                     message.getPagwId(), result.getStatus(), result.getOutcome());
             
         } catch (Exception e) {
-            log.error("Callback processing error: pagwId={}", message.getPagwId(), e);
-            result.setStatus("ERROR");
-            result.setError(true);
-            result.setErrorCode("CALLBACK_PROCESSING_ERROR");
-            result.setErrorMessage(e.getMessage());
-            result.setOutcome("error");
+            callbackFailed(result, message, e);
         }
         
         return result;
     }
 
+    private CallbackResult newResult(PagwMessage message) {
+        CallbackResult result = new CallbackResult();
+        result.setPagwId(message.getPagwId());
+        result.setExternalReferenceId(message.getExternalReferenceId());
+        result.setProcessedAt(Instant.now());
+        return result;
+    }
+
+    private CallbackResult callbackFailed(CallbackResult result, PagwMessage message, Exception e) {
+        log.error("Callback processing error: pagwId={}", message.getPagwId(), e);
+        result.setStatus("ERROR");
+        result.setError(true);
+        result.setErrorCode("CALLBACK_PROCESSING_ERROR");
+        result.setErrorMessage(e.getMessage());
+        result.setOutcome("error");
+        return result;
+    }
+
     private String extractErrorMessage(JsonNode response) {
         // Try various common error message fields
         if (response.has("errorMessage")) {
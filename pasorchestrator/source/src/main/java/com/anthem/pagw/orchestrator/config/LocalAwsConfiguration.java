@@ -10,6 +10,7 @@ import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
 import java.net.URI;
@@ -63,6 +64,19 @@ public class LocalAwsConfiguration {
                 .build();
     }
 
+    /**
+     * LocalStack SQS Async Client (used by SqsAsyncService for outbox fast-path sends).
+     */
+    @Bean
+    @Primary
+    public SqsAsyncClient sqsAsyncClient() {
+        return SqsAsyncClient.builder()
+                .endpointOverride(URI.create(awsEndpoint))
+                .region(Region.of(awsRegion))
+                .credentialsProvider(localCredentials())
+                .build();
+    }
+
     /**
      * LocalStack SecretsManager Client.
      */
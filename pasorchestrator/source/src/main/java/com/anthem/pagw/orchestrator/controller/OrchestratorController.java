@@ -111,6 +111,9 @@ public class OrchestratorController {
         if ("error".equals(response.getStatus())) {
             return ResponseEntity.badRequest().body(response);
         }
+        if ("conflict".equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
         return ResponseEntity.ok(response);
     }
     
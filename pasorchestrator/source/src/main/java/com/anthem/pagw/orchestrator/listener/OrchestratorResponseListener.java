@@ -2,8 +2,8 @@ package com.anthem.pagw.orchestrator.listener;
 
 import com.anthem.pagw.core.model.PagwMessage;
 import com.anthem.pagw.core.service.OutboxService;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.RequestTrackerService;
-import com.anthem.pagw.core.util.JsonUtils;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,12 +39,15 @@ public class OrchestratorResponseListener {
 
     private final OutboxService outboxService;
     private final RequestTrackerService trackerService;
+    private final PagwMessageCodec messageCodec;
 
     public OrchestratorResponseListener(
             OutboxService outboxService,
-            RequestTrackerService trackerService) {
+            RequestTrackerService trackerService,
+            PagwMessageCodec messageCodec) {
         this.outboxService = outboxService;
         this.trackerService = trackerService;
+        this.messageCodec = messageCodec;
     }
 
     @SqsListener(value = "${pagw.aws.sqs.response-queue}")
@@ -57,7 +60,7 @@ public class OrchestratorResponseListener {
         String pagwId = null;
 
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
 
             log.info("Orchestrator received async message: pagwId={}, stage={}", 
@@ -35,7 +35,7 @@ public class PasResponse {
     private String pagwId;
     
     /**
-     * Response status (approved, denied, partial, pended, queued, error).
+     * Response status (approved, denied, partial, pended, queued, error, duplicate, conflict).
      */
     private String status;
     
@@ -0,0 +1,358 @@
+package com.anthem.pagw.orchestrator.service;
+
+import com.anthem.pagw.core.service.IdempotencyStore;
+import com.anthem.pagw.orchestrator.model.PasRequest;
+import com.anthem.pagw.orchestrator.model.PasResponse;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Duplicate-submission pre-check for {@link OrchestratorService}, run before its transaction or,
+ * for a store that joins the caller's transaction, as its first statement.
+ *
+ * <p>A submission with an X-Idempotency-Key header is keyed on tenant and the header alone;
+ * otherwise on tenant, Bundle.identifier and a SHA-256 of the bundle. The key is acquired in the
+ * {@link IdempotencyStore} before anything is written. The final {@link PasResponse} is stored
+ * under the key gzip-compressed, together with the SHA-256 of the bundle, so a resubmission:</p>
+ * <ul>
+ *   <li>of a completed request gets the stored response back;</li>
+ *   <li>of a request still in flight on this instance waits for its response;</li>
+ *   <li>of a request in flight elsewhere polls the store for the response;</li>
+ *   <li>reusing a header key with a different bundle is a conflict;</li>
+ * </ul>
+ * <p>in each case for at most {@code pagw.sync.timeoutSeconds}, without touching S3 or the
+ * request tracker. Bundles without an identifier or header are not deduplicated.</p>
+ */
+@Service
+public class DuplicateSubmissionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateSubmissionService.class);
+
+    /** Prefix of stored results that are gzip-compressed, Base64-encoded response JSON. */
+    static final String GZIP_PREFIX = "gz:";
+    /** Prefix of stored results {@code gz+sha256:<bundle sha256>:<gzip, Base64 response JSON>}. */
+    static final String GZIP_SHA256_PREFIX = "gz+sha256:";
+    private static final String SERVICE_NAME = "pasorchestrator";
+    private static final long MIN_POLL_MILLIS = 50;
+    private static final long MAX_POLL_MILLIS = 1000;
+
+    /**
+     * A submission's key, the SHA-256 of its bundle and whether this request acquired the key.
+     * An untracked submission (no identifier, or no idempotency store) has no key and is always
+     * processed.
+     */
+    public record Submission(@Nullable String key, @Nullable String bundleSha256, boolean acquired) {
+
+        static final Submission UNTRACKED = new Submission(null, null, true);
+
+        public boolean isDuplicate() {
+            return !acquired;
+        }
+    }
+
+    /**
+     * What a duplicate gets: the original's response, nothing (still in flight past the wait, or
+     * unreadable), or a conflict because the key was first used with a different bundle.
+     */
+    public record Original(@Nullable PasResponse response, boolean conflict) {
+
+        static final Original UNAVAILABLE = new Original(null, false);
+        static final Original CONFLICT = new Original(null, true);
+
+        public Optional<PasResponse> replay() {
+            return Optional.ofNullable(response);
+        }
+    }
+
+    private record InFlight(String bundleSha256, CompletableFuture<PasResponse> response) {
+    }
+
+    @Nullable
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final long waitMillis;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public DuplicateSubmissionService(
+            @Nullable IdempotencyStore idempotencyStore,
+            ObjectMapper objectMapper,
+            @Value("${pagw.sync.timeoutSeconds:13}") long waitSeconds) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+        this.waitMillis = TimeUnit.SECONDS.toMillis(waitSeconds);
+    }
+
+    /**
+     * Whether {@link #begin} must run inside the request's transaction: the store writes the key
+     * on the caller's connection, so it commits or rolls back with the request.
+     */
+    public boolean acquiresInTransaction() {
+        return idempotencyStore != null && idempotencyStore.joinsCallerTransaction();
+    }
+
+    /**
+     * Acquire the submission's key. Must run before any side effect of the request, and outside
+     * its transaction unless {@link #acquiresInTransaction}. A duplicate must not
+     * {@link #awaitOriginal wait} for the original while holding a connection.
+     */
+    public Submission begin(PasRequest request) {
+        if (idempotencyStore == null) {
+            return Submission.UNTRACKED;
+        }
+        String tenant = request.getTenant() != null ? request.getTenant() : "default";
+        String bundle = request.getFhirBundle() != null ? request.getFhirBundle() : "";
+        String bundleSha256 = sha256(bundle);
+
+        String key;
+        if (request.getIdempotencyKey() != null) {
+            key = "pas:" + tenant + ":key:" + request.getIdempotencyKey();
+        } else {
+            String identifier = extractBundleIdentifier(request.getFhirBundle());
+            if (identifier == null) {
+                return Submission.UNTRACKED;
+            }
+            key = "pas:" + tenant + ":" + identifier + ":" + bundleSha256;
+        }
+
+        if (!idempotencyStore.tryAcquire(key, SERVICE_NAME)) {
+            log.info("Duplicate submission: key={}", key);
+            return new Submission(key, bundleSha256, false);
+        }
+        inFlight.put(key, new InFlight(bundleSha256, new CompletableFuture<>()));
+        return new Submission(key, bundleSha256, true);
+    }
+
+    /**
+     * Response of the original submission, waiting up to the sync timeout for one still in flight.
+     * A conflict if the original's bundle differs (same X-Idempotency-Key, different body).
+     */
+    public Original awaitOriginal(Submission submission) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+
+        InFlight local = inFlight.get(submission.key());
+        if (local != null) {
+            if (!local.bundleSha256().equals(submission.bundleSha256())) {
+                return Original.CONFLICT;
+            }
+            try {
+                return new Original(local.response().get(remainingMillis(deadline), TimeUnit.MILLISECONDS), false);
+            } catch (TimeoutException | ExecutionException e) {
+                log.debug("Original submission did not complete in time: key={}", submission.key());
+                return Original.UNAVAILABLE;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Original.UNAVAILABLE;
+            }
+        }
+
+        long pollMillis = MIN_POLL_MILLIS;
+        while (true) {
+            String stored = idempotencyStore.pollResult(submission.key());
+            if (stored != null) {
+                String originalSha256 = bundleSha256Of(stored);
+                if (originalSha256 != null && !originalSha256.equals(submission.bundleSha256())) {
+                    return Original.CONFLICT;
+                }
+                return new Original(decode(stored), false);
+            }
+            long remaining = remainingMillis(deadline);
+            if (remaining <= 0) {
+                return Original.UNAVAILABLE;
+            }
+            try {
+                Thread.sleep(Math.min(pollMillis, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Original.UNAVAILABLE;
+            }
+            pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+        }
+    }
+
+    /**
+     * Store the final response of an acquired submission and hand it to waiting duplicates
+     * (after the surrounding transaction commits, if there is one).
+     */
+    public void complete(Submission submission, PasResponse response) {
+        if (submission.key() == null) {
+            return;
+        }
+        String encoded = encode(submission.bundleSha256(), response);
+        if (encoded != null) {
+            idempotencyStore.markCompleted(submission.key(), encoded);
+        }
+        publish(submission.key(), response);
+    }
+
+    /**
+     * Release an acquired submission's key so the request can be retried. A key acquired in the
+     * request's transaction was already removed by its rollback, and may belong to a retry by now.
+     */
+    public void fail(Submission submission, Exception error) {
+        if (submission.key() == null) {
+            return;
+        }
+        if (!acquiresInTransaction()) {
+            idempotencyStore.markFailed(submission.key(), error.getMessage());
+        }
+        InFlight local = inFlight.remove(submission.key());
+        if (local != null) {
+            local.response().completeExceptionally(error);
+        }
+    }
+
+    private void publish(String key, PasResponse response) {
+        InFlight entry = inFlight.get(key);
+        if (entry == null) {
+            return;
+        }
+        CompletableFuture<PasResponse> local = entry.response();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlight.remove(key);
+            local.complete(response);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlight.remove(key);
+                if (status == STATUS_COMMITTED) {
+                    local.complete(response);
+                } else {
+                    local.completeExceptionally(new IllegalStateException("Original submission rolled back"));
+                }
+            }
+        });
+    }
+
+    /**
+     * Response JSON, gzip-compressed and Base64-encoded behind {@link #GZIP_SHA256_PREFIX} and
+     * the bundle's SHA-256 (or behind {@link #GZIP_PREFIX} without one).
+     */
+    String encode(@Nullable String bundleSha256, PasResponse response) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                objectMapper.writeValue(gzip, response);
+            }
+            String compressed = Base64.getEncoder().encodeToString(bytes.toByteArray());
+            return bundleSha256 != null
+                    ? GZIP_SHA256_PREFIX + bundleSha256 + ":" + compressed
+                    : GZIP_PREFIX + compressed;
+        } catch (IOException e) {
+            log.warn("Failed to encode response for replay: pagwId={}", response.getPagwId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Inverse of {@link #encode}; plain response JSON is accepted as well.
+     */
+    @Nullable
+    PasResponse decode(String stored) {
+        try {
+            String bundleSha256 = bundleSha256Of(stored);
+            if (bundleSha256 != null) {
+                stored = GZIP_PREFIX + stored.substring(GZIP_SHA256_PREFIX.length() + bundleSha256.length() + 1);
+            }
+            if (stored.startsWith(GZIP_PREFIX)) {
+                byte[] compressed = Base64.getDecoder().decode(stored.substring(GZIP_PREFIX.length()));
+                try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                    return objectMapper.readValue(gzip, PasResponse.class);
+                }
+            }
+            return objectMapper.readValue(stored, PasResponse.class);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Stored response cannot be replayed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * SHA-256 of the original bundle, or {@code null} for results stored without one.
+     */
+    @Nullable
+    static String bundleSha256Of(String stored) {
+        if (!stored.startsWith(GZIP_SHA256_PREFIX)) {
+            return null;
+        }
+        int end = stored.indexOf(':', GZIP_SHA256_PREFIX.length());
+        return end > 0 ? stored.substring(GZIP_SHA256_PREFIX.length(), end) : null;
+    }
+
+    /**
+     * Bundle.identifier as {@code system|value}, read by streaming only the top-level fields
+     * up to {@code identifier} rather than parsing the whole bundle.
+     */
+    @Nullable
+    String extractBundleIdentifier(String fhirBundle) {
+        if (fhirBundle == null) {
+            return null;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(fhirBundle)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (!"identifier".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                JsonNode identifier = parser.readValueAsTree();
+                String value = identifier.path("value").asText(null);
+                if (value == null || value.isBlank()) {
+                    return null;
+                }
+                String system = identifier.path("system").asText("");
+                return system.isEmpty() ? value : system + "|" + value;
+            }
+            return null;
+        } catch (IOException e) {
+            log.debug("Could not read Bundle.identifier: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long remainingMillis(long deadlineNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+}
@@ -13,12 +13,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Orchestrator Service - handles incoming PAS requests.
@@ -47,10 +48,10 @@ public class OrchestratorService {
     @Nullable
     private final PhiEncryptionService phiEncryptionService;
     private final AuditService auditService;
-    @Nullable
-    private final IdempotencyService idempotencyService;
+    private final DuplicateSubmissionService duplicateSubmissionService;
     private final SyncProcessingService syncProcessingService;
     private final PagwProperties properties;
+    private final TransactionTemplate transactionTemplate;
     
     public OrchestratorService(
             S3Service s3Service,
@@ -59,18 +60,20 @@ public class OrchestratorService {
             OutboxService outboxService,
             @Nullable PhiEncryptionService phiEncryptionService,
             AuditService auditService,
-            @Nullable IdempotencyService idempotencyService,
+            DuplicateSubmissionService duplicateSubmissionService,
             SyncProcessingService syncProcessingService,
-            PagwProperties properties) {
+            PagwProperties properties,
+            PlatformTransactionManager transactionManager) {
         this.s3Service = s3Service;
         this.requestTrackerService = requestTrackerService;
         this.eventTrackerService = eventTrackerService;
         this.outboxService = outboxService;
         this.phiEncryptionService = phiEncryptionService;
         this.auditService = auditService;
-        this.idempotencyService = idempotencyService;
+        this.duplicateSubmissionService = duplicateSubmissionService;
         this.syncProcessingService = syncProcessingService;
         this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     
     /**
@@ -83,9 +86,76 @@ public class OrchestratorService {
      * Processing modes:
      * 1. Sync path: Orchestrator → Parser → Validator → [Decision] → Immediate Response
      * 2. Async path: Queue to SQS → Full pipeline → Callback notification
+     * 
+     * The duplicate check runs before the transaction, so a waiting duplicate holds no database
+     * connection - unless the idempotency store joins the transaction (postgres): then the key is
+     * acquired in it and commits or rolls back with the request tracker row, and a duplicate ends
+     * the transaction before it waits for the original's response.
      */
-    @Transactional
     public PasResponse processRequest(PasRequest request) {
+        if (duplicateSubmissionService.acquiresInTransaction()) {
+            return processRequestInTransaction(request);
+        }
+        
+        // Check idempotency (Da Vinci PAS requires unique Bundle.identifier) before anything is written
+        DuplicateSubmissionService.Submission submission = duplicateSubmissionService.begin(request);
+        if (submission.isDuplicate()) {
+            return replayOriginal(request, submission);
+        }
+        
+        try {
+            return transactionTemplate.execute(status -> processSubmission(request, submission));
+        } catch (RuntimeException e) {
+            // Also covers a failed commit: release the key so the request can be retried
+            duplicateSubmissionService.fail(submission, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * {@link #processRequest} for an idempotency store that joins the transaction: a crash before
+     * the commit leaves no key behind, so a resubmission is processed rather than reported as a
+     * duplicate until the key expires.
+     */
+    private PasResponse processRequestInTransaction(PasRequest request) {
+        AtomicReference<DuplicateSubmissionService.Submission> begun = new AtomicReference<>();
+        PasResponse response;
+        try {
+            response = transactionTemplate.execute(status -> {
+                DuplicateSubmissionService.Submission submission = duplicateSubmissionService.begin(request);
+                begun.set(submission);
+                // A duplicate writes nothing: the transaction ends before it waits for the original
+                return submission.isDuplicate() ? null : processSubmission(request, submission);
+            });
+        } catch (RuntimeException e) {
+            DuplicateSubmissionService.Submission submission = begun.get();
+            if (submission != null && !submission.isDuplicate()) {
+                duplicateSubmissionService.fail(submission, e);
+            }
+            throw e;
+        }
+        DuplicateSubmissionService.Submission submission = begun.get();
+        return submission.isDuplicate() ? replayOriginal(request, submission) : response;
+    }
+    
+    /**
+     * Replay the original's response to a duplicate; nothing is stored, tracked or logged for it.
+     */
+    private PasResponse replayOriginal(PasRequest request, DuplicateSubmissionService.Submission submission) {
+        DuplicateSubmissionService.Original original = duplicateSubmissionService.awaitOriginal(submission);
+        if (original.conflict()) {
+            log.warn("Idempotency key reused with a different bundle: key={}", submission.key());
+            return buildConflictResponse(request.getIdempotencyKey());
+        }
+        log.warn("Duplicate request detected: key={}, replayed={}",
+                submission.key(), original.replay().isPresent());
+        return original.replay().orElseGet(() -> buildDuplicateResponse(submission.key()));
+    }
+    
+    /**
+     * Store, track and process an acquired submission (in the transaction started by {@link #processRequest}).
+     */
+    private PasResponse processSubmission(PasRequest request, DuplicateSubmissionService.Submission submission) {
         // Generate unique PAGW ID
         String pagwId = PagwIdGenerator.generate();
         String messageId = UUID.randomUUID().toString();
@@ -96,15 +166,9 @@ public class OrchestratorService {
         log.info("Processing request: pagwId={}, type={}, tenant={}, syncMode={}", 
                 pagwId, request.getRequestType(), tenant, request.isSyncProcessing());
         
-        // Check idempotency (Da Vinci PAS requires unique Bundle.identifier)
         String idempotencyKey = request.getIdempotencyKey() != null ? 
                 request.getIdempotencyKey() : pagwId;
         
-        if (idempotencyService != null && !idempotencyService.checkAndSet(idempotencyKey)) {
-            log.warn("Duplicate request detected: idempotencyKey={}", idempotencyKey);
-            return buildDuplicateResponse(idempotencyKey);
-        }
-        
         try {
             // Encrypt PHI fields if enabled and encryption service is available
             String processedBundle = request.getFhirBundle();
@@ -192,7 +256,7 @@ public class OrchestratorService {
                                 EventTracker.EVENT_WORKFLOW_COMPLETE, duration,
                                 String.format("{\"mode\":\"SYNC\",\"disposition\":\"%s\"}", syncResult.getDisposition()));
                         
-                        return buildSyncResponse(pagwId, syncResult);
+                        return completed(submission, buildSyncResponse(pagwId, syncResult));
                     } else {
                         // Validation error - return OperationOutcome
                         log.warn("Validation errors: pagwId={}, errors={}, details={}", 
@@ -204,7 +268,7 @@ public class OrchestratorService {
                                 String.format("%d validation errors", syncResult.getValidationErrors().size()),
                                 false, null);
                         
-                        return buildValidationErrorResponse(pagwId, syncResult);
+                        return completed(submission, buildValidationErrorResponse(pagwId, syncResult));
                     }
                 } else {
                     // Pended - queue for async processing and return pended response
@@ -223,7 +287,7 @@ public class OrchestratorService {
                     if (!queued) {
                         log.warn("Request already processed or queued, skipping async queue: pagwId={}", pagwId);
                     }
-                    return buildPendedResponse(pagwId, receivedAt, syncResult);
+                    return completed(submission, buildPendedResponse(pagwId, receivedAt, syncResult));
                 }
             } else {
                 // Async-only mode (legacy or explicit async request)
@@ -248,18 +312,23 @@ public class OrchestratorService {
                             EventTracker.EVENT_WORKFLOW_COMPLETE, "QUEUE_FAILED",
                             "Request already processed or queued", false, null);
                 }
-                return buildQueuedResponse(pagwId, receivedAt);
+                return completed(submission, buildQueuedResponse(pagwId, receivedAt));
             }
             
         } catch (Exception e) {
             log.error("Failed to process request: pagwId={}", pagwId, e);
-            if (idempotencyService != null) {
-                idempotencyService.remove(idempotencyKey);
-            }
             throw e;
         }
     }
     
+    /**
+     * Record the final response of a submission so resubmissions get it replayed.
+     */
+    private PasResponse completed(DuplicateSubmissionService.Submission submission, PasResponse response) {
+        duplicateSubmissionService.complete(submission, response);
+        return response;
+    }
+    
     /**
      * Queue request for asynchronous pipeline processing.
      * Uses atomic database update to prevent race conditions.
@@ -469,6 +538,16 @@ public class OrchestratorService {
                 .build();
     }
     
+    private PasResponse buildConflictResponse(String idempotencyKey) {
+        return PasResponse.builder()
+                .resourceType("OperationOutcome")
+                .status("conflict")
+                .errorCode("IDEMPOTENCY_KEY_CONFLICT")
+                .errorMessage("Idempotency key " + idempotencyKey + " was already used with a different request body")
+                .timestamp(Instant.now())
+                .build();
+    }
+    
     private String getStatusMessage(String status) {
         return switch (status) {
             case RequestTracker.STATUS_RECEIVED -> "Request received and queued";
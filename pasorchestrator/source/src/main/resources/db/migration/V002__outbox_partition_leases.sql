@@ -0,0 +1,34 @@
+-- ============================================================================
+-- PAGW Database Schema - Outbox partition leases
+-- Version: 1.0.1
+-- Description: Lease tables for hash-partitioned outbox publishing
+--              (pagw.outbox.partitioning.enabled=true)
+-- ============================================================================
+
+-- ============================================================================
+-- OUTBOX_PUBLISHER_NODE - Live outbox publisher pods (membership heartbeat)
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS pagw.outbox_publisher_node (
+    node_id                 VARCHAR(255) PRIMARY KEY,
+    started_at              TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    heartbeat_at            TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_publisher_node_heartbeat ON pagw.outbox_publisher_node(heartbeat_at);
+
+-- ============================================================================
+-- OUTBOX_PARTITION_LEASE - Which pod currently publishes which hash partition
+-- Partition of an outbox row: mod(abs(hashtext(aggregate_id)::bigint), <count>)
+-- Rows are created on demand by the publisher for 0..count-1.
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS pagw.outbox_partition_lease (
+    partition_no            INT PRIMARY KEY,
+    owner_id                VARCHAR(255),
+    lease_until             TIMESTAMP WITH TIME ZONE,
+    heartbeat_at            TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_partition_lease_owner ON pagw.outbox_partition_lease(owner_id) WHERE owner_id IS NOT NULL;
+
+COMMENT ON TABLE pagw.outbox_publisher_node IS 'Live outbox publisher pods used for partition rebalancing';
+COMMENT ON TABLE pagw.outbox_partition_lease IS 'Outbox hash partition leases held by publisher pods';
@@ -0,0 +1,25 @@
+-- ============================================================================
+-- PAGW Database Schema - Outbox insert notification
+-- Version: 1.0.2
+-- Description: NOTIFY pagw_outbox on every INSERT into pagw.outbox so the
+--              outbox publisher can wake up immediately
+--              (pagw.outbox.notify.enabled=true)
+-- ============================================================================
+
+-- Statement-level trigger: one notification per INSERT statement, and Postgres
+-- already folds identical notifications within a transaction into one.
+CREATE OR REPLACE FUNCTION pagw.notify_outbox_insert()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_notify('pagw_outbox', '');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_outbox_insert_notify ON pagw.outbox;
+CREATE TRIGGER trg_outbox_insert_notify
+    AFTER INSERT ON pagw.outbox
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION pagw.notify_outbox_insert();
+
+COMMENT ON FUNCTION pagw.notify_outbox_insert IS 'Wakes the outbox publisher via NOTIFY pagw_outbox after outbox inserts';
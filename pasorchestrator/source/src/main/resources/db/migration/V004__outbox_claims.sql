@@ -0,0 +1,16 @@
+-- ============================================================================
+-- PAGW Database Schema - Outbox claims
+-- Version: 1.0.3
+-- Description: Claim-and-lease columns so outbox rows stay reserved
+--              (status IN_FLIGHT) while a publisher worker sends them
+-- ============================================================================
+
+ALTER TABLE pagw.outbox ADD COLUMN IF NOT EXISTS claimed_by VARCHAR(255);
+ALTER TABLE pagw.outbox ADD COLUMN IF NOT EXISTS claim_expires_at TIMESTAMP WITH TIME ZONE;
+
+-- Reaper scan: expired claims are put back to PENDING
+CREATE INDEX IF NOT EXISTS idx_outbox_claim_expiry ON pagw.outbox(claim_expires_at)
+    WHERE status = 'IN_FLIGHT';
+
+COMMENT ON COLUMN pagw.outbox.claimed_by IS 'Publisher node/worker currently sending this entry (status IN_FLIGHT)';
+COMMENT ON COLUMN pagw.outbox.claim_expires_at IS 'Claim lease end; the reaper requeues IN_FLIGHT entries past this time';
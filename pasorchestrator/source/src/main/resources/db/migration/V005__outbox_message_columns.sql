@@ -0,0 +1,23 @@
+-- ============================================================================
+-- PAGW Database Schema - Outbox message columns
+-- Version: 1.0.4
+-- Description: Store the routing fields of the outbox message as columns so the
+--              outbox publisher can forward the payload without parsing it
+-- ============================================================================
+
+ALTER TABLE pagw.outbox ADD COLUMN IF NOT EXISTS pagw_id VARCHAR(50);
+ALTER TABLE pagw.outbox ADD COLUMN IF NOT EXISTS message_id VARCHAR(100);
+ALTER TABLE pagw.outbox ADD COLUMN IF NOT EXISTS message_group_id VARCHAR(128);
+
+-- Backfill entries that have not been published yet; published rows keep NULLs
+UPDATE pagw.outbox
+SET pagw_id          = payload->>'pagwId',
+    message_id       = payload->>'messageId',
+    message_group_id = payload->>'pagwId',
+    tenant           = COALESCE(payload->>'tenant', payload->'meta'->>'tenant', 'UNKNOWN')
+WHERE pagw_id IS NULL
+  AND status IN ('PENDING', 'IN_FLIGHT', 'FAILED');
+
+COMMENT ON COLUMN pagw.outbox.pagw_id IS 'pagwId of the message (event tracking key)';
+COMMENT ON COLUMN pagw.outbox.message_id IS 'PagwMessage.messageId, used as FIFO deduplication ID';
+COMMENT ON COLUMN pagw.outbox.message_group_id IS 'FIFO message group ID (pagwId)';
@@ -0,0 +1,40 @@
+-- ============================================================================
+-- PAGW Database Schema - Outbox retry lane
+-- Version: 1.0.5
+-- Description: Failed outbox entries wait in status FAILED until next_retry_at
+--              and are retried by a separate lane; entries that exhaust
+--              pagw.outbox.max-retries are moved to pagw.outbox_parked
+-- ============================================================================
+
+-- Retry rows stay FAILED (never PENDING), so idx_outbox_pending and the hot
+-- path only ever see fresh entries. Re-point the retry index at the due scan.
+DROP INDEX IF EXISTS pagw.idx_outbox_retry;
+CREATE INDEX IF NOT EXISTS idx_outbox_retry ON pagw.outbox(next_retry_at) WHERE status = 'FAILED';
+
+-- FAILED rows written before the retry lane have no schedule - make them due now
+UPDATE pagw.outbox SET next_retry_at = NOW() WHERE status = 'FAILED' AND next_retry_at IS NULL;
+
+-- ============================================================================
+-- OUTBOX_PARKED - Entries that exhausted their retries (operator queue)
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS pagw.outbox_parked (
+    id                      UUID PRIMARY KEY,
+    tenant                  VARCHAR(50) NOT NULL,
+    aggregate_type          VARCHAR(100) NOT NULL,
+    aggregate_id            VARCHAR(100) NOT NULL,
+    event_type              VARCHAR(100),
+    destination_queue       VARCHAR(500) NOT NULL,
+    payload                 JSONB NOT NULL,
+    pagw_id                 VARCHAR(50),
+    message_id              VARCHAR(100),
+    message_group_id        VARCHAR(128),
+    retry_count             INT NOT NULL,
+    last_error              TEXT,
+    created_at              TIMESTAMP WITH TIME ZONE,
+    parked_at               TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_parked_pagw ON pagw.outbox_parked(pagw_id);
+CREATE INDEX IF NOT EXISTS idx_outbox_parked_parked_at ON pagw.outbox_parked(parked_at DESC);
+
+COMMENT ON TABLE pagw.outbox_parked IS 'Outbox entries that exhausted pagw.outbox.max-retries; replay by moving back to pagw.outbox as PENDING';
@@ -0,0 +1,134 @@
+-- ============================================================================
+-- PAGW Database Schema - Time-partitioned outbox
+-- Version: 1.0.6
+-- Description: Convert pagw.outbox to daily range partitions on created_at so
+--              old COMPLETED rows are removed by dropping whole partitions
+--              (see OutboxPartitionMaintenance in outboxpublisher)
+-- ============================================================================
+--
+-- Partitions (UTC days):
+--   pagw.outbox_p_before_YYYYMMDD - rows carried over from the unpartitioned table
+--   pagw.outbox_pYYYYMMDD         - one per day, created ahead of time
+--
+-- The primary key must contain the partition key, so it becomes (id, created_at).
+-- Lookups by id alone (WHERE id = ?) use the per-partition idx_outbox_id.
+
+-- ----------------------------------------------------------------------------
+-- 1. Move the existing table out of the way
+-- ----------------------------------------------------------------------------
+DROP TRIGGER IF EXISTS trg_outbox_insert_notify ON pagw.outbox;
+ALTER TABLE pagw.outbox RENAME TO outbox_legacy;
+ALTER INDEX IF EXISTS pagw.outbox_pkey RENAME TO outbox_legacy_pkey;
+DROP INDEX IF EXISTS pagw.idx_outbox_pending;
+DROP INDEX IF EXISTS pagw.idx_outbox_retry;
+DROP INDEX IF EXISTS pagw.idx_outbox_tenant_published;
+DROP INDEX IF EXISTS pagw.idx_outbox_destination;
+DROP INDEX IF EXISTS pagw.idx_outbox_claim_expiry;
+
+-- ----------------------------------------------------------------------------
+-- 2. Partitioned outbox (same columns as V001 + V004 + V005)
+-- ----------------------------------------------------------------------------
+CREATE TABLE pagw.outbox (
+    id                      UUID NOT NULL,
+    tenant                  VARCHAR(50) NOT NULL DEFAULT 'elevance',
+    aggregate_type          VARCHAR(100) NOT NULL,
+    aggregate_id            VARCHAR(100) NOT NULL,
+    event_type              VARCHAR(100),
+    destination_queue       VARCHAR(500) NOT NULL,
+    destination             VARCHAR(100),
+    destination_type        VARCHAR(20) DEFAULT 'SQS',
+    payload                 JSONB NOT NULL,
+    status                  VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    retry_count             INT DEFAULT 0,
+    max_retries             INT DEFAULT 5,
+    last_error              TEXT,
+    created_at              TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at            TIMESTAMP WITH TIME ZONE,
+    published_at            TIMESTAMP WITH TIME ZONE,
+    next_retry_at           TIMESTAMP WITH TIME ZONE,
+    claimed_by              VARCHAR(255),
+    claim_expires_at        TIMESTAMP WITH TIME ZONE,
+    pagw_id                 VARCHAR(50),
+    message_id              VARCHAR(100),
+    message_group_id        VARCHAR(128),
+    CONSTRAINT outbox_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_id ON pagw.outbox(id);
+CREATE INDEX IF NOT EXISTS idx_outbox_pending ON pagw.outbox(status, created_at) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_outbox_retry ON pagw.outbox(next_retry_at) WHERE status = 'FAILED';
+CREATE INDEX IF NOT EXISTS idx_outbox_claim_expiry ON pagw.outbox(claim_expires_at) WHERE status = 'IN_FLIGHT';
+CREATE INDEX IF NOT EXISTS idx_outbox_tenant_published ON pagw.outbox(tenant, published_at) WHERE published_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_destination ON pagw.outbox(destination, created_at DESC);
+
+-- ----------------------------------------------------------------------------
+-- 3. Partition maintenance function (also called by the outbox publisher)
+-- ----------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION pagw.ensure_outbox_partitions(days_ahead INT)
+RETURNS INT AS $$
+DECLARE
+    today       DATE := (NOW() AT TIME ZONE 'UTC')::date;
+    part_day    DATE;
+    part_name   TEXT;
+    created     INT := 0;
+BEGIN
+    FOR i IN 0..days_ahead LOOP
+        part_day := today + i;
+        part_name := 'outbox_p' || to_char(part_day, 'YYYYMMDD');
+        IF to_regclass('pagw.' || part_name) IS NULL THEN
+            EXECUTE format(
+                'CREATE TABLE pagw.%I PARTITION OF pagw.outbox FOR VALUES FROM (%L) TO (%L)',
+                part_name,
+                (part_day::timestamp AT TIME ZONE 'UTC'),
+                ((part_day + 1)::timestamp AT TIME ZONE 'UTC'));
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION pagw.ensure_outbox_partitions IS 'Creates daily pagw.outbox partitions from today (UTC) up to days_ahead; returns number created';
+
+-- ----------------------------------------------------------------------------
+-- 4. Carry over rows: one catch-up partition up to today, daily partitions from today
+-- ----------------------------------------------------------------------------
+DO $$
+DECLARE
+    today DATE := (NOW() AT TIME ZONE 'UTC')::date;
+BEGIN
+    EXECUTE format(
+        'CREATE TABLE pagw.%I PARTITION OF pagw.outbox FOR VALUES FROM (MINVALUE) TO (%L)',
+        'outbox_p_before_' || to_char(today, 'YYYYMMDD'),
+        (today::timestamp AT TIME ZONE 'UTC'));
+END;
+$$;
+
+SELECT pagw.ensure_outbox_partitions(7);
+
+INSERT INTO pagw.outbox (
+    id, tenant, aggregate_type, aggregate_id, event_type, destination_queue, destination, destination_type,
+    payload, status, retry_count, max_retries, last_error, created_at, processed_at, published_at, next_retry_at,
+    claimed_by, claim_expires_at, pagw_id, message_id, message_group_id)
+SELECT
+    id, tenant, aggregate_type, aggregate_id, event_type, destination_queue, destination, destination_type,
+    payload, status, retry_count, max_retries, last_error, COALESCE(created_at, NOW()), processed_at, published_at, next_retry_at,
+    claimed_by, claim_expires_at, pagw_id, message_id, message_group_id
+FROM pagw.outbox_legacy;
+
+DROP TABLE pagw.outbox_legacy;
+
+-- ----------------------------------------------------------------------------
+-- 5. Re-attach the insert notification (V003) and comments
+-- ----------------------------------------------------------------------------
+CREATE TRIGGER trg_outbox_insert_notify
+    AFTER INSERT ON pagw.outbox
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION pagw.notify_outbox_insert();
+
+COMMENT ON TABLE pagw.outbox IS 'Transactional outbox for reliable SQS message publishing (daily range partitions on created_at)';
+COMMENT ON COLUMN pagw.outbox.claimed_by IS 'Publisher node/worker currently sending this entry (status IN_FLIGHT)';
+COMMENT ON COLUMN pagw.outbox.claim_expires_at IS 'Claim lease end; the reaper requeues IN_FLIGHT entries past this time';
+COMMENT ON COLUMN pagw.outbox.pagw_id IS 'pagwId of the message (event tracking key)';
+COMMENT ON COLUMN pagw.outbox.message_id IS 'PagwMessage.messageId, used as FIFO deduplication ID';
+COMMENT ON COLUMN pagw.outbox.message_group_id IS 'FIFO message group ID (pagwId)';
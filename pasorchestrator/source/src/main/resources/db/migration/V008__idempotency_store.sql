@@ -0,0 +1,16 @@
+-- ============================================================================
+-- PAGW Database Schema - Postgres idempotency store
+-- Version: 1.0.7
+-- Description: Columns used by PostgresIdempotencyStore (pagw.idempotency.store=postgres),
+--              which acquires keys in the same transaction as request_tracker
+-- ============================================================================
+
+-- Keys are acquired before a pagwId is known to the store
+ALTER TABLE pagw.idempotency ALTER COLUMN pagw_id DROP NOT NULL;
+
+ALTER TABLE pagw.idempotency ADD COLUMN IF NOT EXISTS service VARCHAR(100);
+ALTER TABLE pagw.idempotency ADD COLUMN IF NOT EXISTS result TEXT;
+ALTER TABLE pagw.idempotency ADD COLUMN IF NOT EXISTS completed_at TIMESTAMP WITH TIME ZONE;
+
+COMMENT ON COLUMN pagw.idempotency.response_status IS 'PROCESSING until the request completes, then COMPLETED';
+COMMENT ON COLUMN pagw.idempotency.result IS 'Result stored by IdempotencyStore.markCompleted';
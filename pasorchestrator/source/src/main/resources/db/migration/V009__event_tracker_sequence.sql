@@ -0,0 +1,23 @@
+-- ============================================================================
+-- PAGW Database Schema - Event sequence numbers
+-- Version: 1.0.8
+-- Description: event_tracker.sequence_no is drawn from a database sequence on
+--              insert instead of MAX(sequence_no) + 1 per pagwId
+-- ============================================================================
+
+-- nextval() never blocks and never hands out the same value twice, so stages of
+-- one request writing concurrently (sync path and async callback, the outbox
+-- publisher) get distinct, increasing numbers without reading the timeline first.
+-- Numbers are unique across requests, so a request's timeline is increasing but
+-- not dense (e.g. 1041, 1057, 1102).
+CREATE SEQUENCE IF NOT EXISTS pagw.event_tracker_sequence_no_seq AS BIGINT;
+
+-- Start above every existing number so in-flight timelines stay in order
+SELECT setval('pagw.event_tracker_sequence_no_seq',
+              COALESCE((SELECT MAX(sequence_no) FROM pagw.event_tracker), 0) + 1, false);
+
+ALTER SEQUENCE pagw.event_tracker_sequence_no_seq OWNED BY pagw.event_tracker.sequence_no;
+ALTER TABLE pagw.event_tracker
+    ALTER COLUMN sequence_no SET DEFAULT nextval('pagw.event_tracker_sequence_no_seq');
+
+COMMENT ON COLUMN pagw.event_tracker.sequence_no IS 'Ordering key within a request timeline, from pagw.event_tracker_sequence_no_seq';
@@ -0,0 +1,67 @@
+-- ============================================================================
+-- PAGW Database Schema - Default outbox partition
+-- Version: 1.0.9
+-- Description: Give pagw.outbox a DEFAULT partition so an insert for a day
+--              without a daily partition is kept instead of failing the
+--              business transaction that wrote it
+-- ============================================================================
+
+-- Rows only land in pagw.outbox_p_default if partition maintenance fell behind
+-- (e.g. the outbox publisher was down for longer than premake-days).
+-- OutboxPartitionMaintenance counts them on every run and logs an error and the
+-- pagw.outbox.partition.default.rows gauge while any are there.
+
+CREATE TABLE IF NOT EXISTS pagw.outbox_p_default PARTITION OF pagw.outbox DEFAULT;
+
+COMMENT ON TABLE pagw.outbox_p_default IS 'Catch-all for outbox rows without a daily partition; should stay empty (alerted by OutboxPartitionMaintenance)';
+
+-- ----------------------------------------------------------------------------
+-- ensure_outbox_partitions: with a default partition, CREATE TABLE ... PARTITION OF
+-- fails if the default already holds rows for that day. Build the day's table on
+-- its own, move those rows into it, then attach it. Days that only exist in the
+-- default partition (maintenance was down past their end) get a partition too, so
+-- their rows are published and retired like any other.
+-- ----------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION pagw.ensure_outbox_partitions(days_ahead INT)
+RETURNS INT AS $$
+DECLARE
+    today       DATE := (NOW() AT TIME ZONE 'UTC')::date;
+    part_day    DATE;
+    part_name   TEXT;
+    lower_bound TIMESTAMPTZ;
+    upper_bound TIMESTAMPTZ;
+    moved_rows  BIGINT;
+    created     INT := 0;
+BEGIN
+    FOR part_day IN
+        SELECT today + i FROM generate_series(0, days_ahead) AS i
+        UNION
+        SELECT DISTINCT (created_at AT TIME ZONE 'UTC')::date FROM pagw.outbox_p_default
+        ORDER BY 1
+    LOOP
+        part_name := 'outbox_p' || to_char(part_day, 'YYYYMMDD');
+        lower_bound := part_day::timestamp AT TIME ZONE 'UTC';
+        upper_bound := (part_day + 1)::timestamp AT TIME ZONE 'UTC';
+        IF to_regclass('pagw.' || part_name) IS NULL THEN
+            EXECUTE format(
+                'CREATE TABLE pagw.%I (LIKE pagw.outbox INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                part_name);
+            EXECUTE format(
+                'WITH moved AS (DELETE FROM pagw.outbox_p_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                    || 'INSERT INTO pagw.%I SELECT * FROM moved',
+                lower_bound, upper_bound, part_name);
+            GET DIAGNOSTICS moved_rows = ROW_COUNT;
+            IF moved_rows > 0 THEN
+                RAISE WARNING 'Moved % rows from pagw.outbox_p_default into pagw.%', moved_rows, part_name;
+            END IF;
+            EXECUTE format(
+                'ALTER TABLE pagw.outbox ATTACH PARTITION pagw.%I FOR VALUES FROM (%L) TO (%L)',
+                part_name, lower_bound, upper_bound);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION pagw.ensure_outbox_partitions IS 'Creates daily pagw.outbox partitions from today (UTC) up to days_ahead and for days found in the default partition, moving those rows out of it; returns number created';
@@ -1,8 +1,11 @@
 package com.anthem.pagw.orchestrator.listener;
 
+import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.PagwMessage;
 import com.anthem.pagw.core.service.OutboxService;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.RequestTrackerService;
+import com.anthem.pagw.core.service.S3Service;
 import com.anthem.pagw.core.util.JsonUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -41,7 +44,8 @@ class OrchestratorResponseListenerTest {
     void setUp() {
         listener = new OrchestratorResponseListener(
                 outboxService,
-                trackerService
+                trackerService,
+                new PagwMessageCodec(mock(S3Service.class), new PagwProperties())
         );
     }
 
@@ -0,0 +1,160 @@
+package com.anthem.pagw.orchestrator.service;
+
+import com.anthem.pagw.core.PagwProperties;
+import com.anthem.pagw.core.service.InMemoryIdempotencyStore;
+import com.anthem.pagw.orchestrator.model.PasRequest;
+import com.anthem.pagw.orchestrator.model.PasResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateSubmissionServiceTest {
+
+    private static final String BUNDLE =
+            "{\"resourceType\":\"Bundle\",\"entry\":[{\"resource\":{\"identifier\":{\"value\":\"nested\"}}}],"
+                    + "\"identifier\":{\"system\":\"urn:provider\",\"value\":\"B-1\"}}";
+
+    private InMemoryIdempotencyStore store;
+    private DuplicateSubmissionService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryIdempotencyStore(new PagwProperties());
+        service = new DuplicateSubmissionService(store, new ObjectMapper().findAndRegisterModules(), 5);
+    }
+
+    @Test
+    void readsTopLevelBundleIdentifier() {
+        assertEquals("urn:provider|B-1", service.extractBundleIdentifier(BUNDLE));
+        assertNull(service.extractBundleIdentifier("{\"resourceType\":\"Bundle\"}"));
+        assertNull(service.extractBundleIdentifier("not json"));
+    }
+
+    @Test
+    void bundlesWithoutIdentifierAreNotTracked() {
+        DuplicateSubmissionService.Submission submission = service.begin(request("{\"resourceType\":\"Bundle\"}"));
+
+        assertNull(submission.key());
+        assertFalse(submission.isDuplicate());
+    }
+
+    @Test
+    void sameIdentifierWithDifferentContentIsNotADuplicate() {
+        DuplicateSubmissionService.Submission first = service.begin(request(BUNDLE));
+        DuplicateSubmissionService.Submission changed = service.begin(request(BUNDLE.replace("nested", "changed")));
+        DuplicateSubmissionService.Submission resubmitted = service.begin(request(BUNDLE));
+
+        assertFalse(first.isDuplicate());
+        assertFalse(changed.isDuplicate());
+        assertTrue(resubmitted.isDuplicate());
+        assertEquals(first.key(), resubmitted.key());
+    }
+
+    @Test
+    void completedSubmissionIsReplayedFromTheStore() {
+        DuplicateSubmissionService.Submission original = service.begin(request(BUNDLE));
+        service.complete(original, response("PAGW-1"));
+
+        // A fresh instance has no in-flight state: the response comes from the compressed stored result
+        DuplicateSubmissionService otherInstance =
+                new DuplicateSubmissionService(store, new ObjectMapper().findAndRegisterModules(), 0);
+        DuplicateSubmissionService.Submission duplicate = otherInstance.begin(request(BUNDLE));
+
+        assertTrue(store.getResult(original.key()).startsWith(DuplicateSubmissionService.GZIP_SHA256_PREFIX));
+        Optional<PasResponse> replayed = otherInstance.awaitOriginal(duplicate).replay();
+        assertEquals("PAGW-1", replayed.orElseThrow().getPagwId());
+        assertEquals("approved", replayed.get().getStatus());
+    }
+
+    @Test
+    void inFlightDuplicateWaitsForTheOriginalResponse() throws Exception {
+        DuplicateSubmissionService.Submission original = service.begin(request(BUNDLE));
+        DuplicateSubmissionService.Submission duplicate = service.begin(request(BUNDLE));
+
+        CompletableFuture<Optional<PasResponse>> waiting =
+                CompletableFuture.supplyAsync(() -> service.awaitOriginal(duplicate).replay());
+        assertFalse(waiting.isDone());
+
+        service.complete(original, response("PAGW-2"));
+
+        assertEquals("PAGW-2", waiting.get(1, TimeUnit.SECONDS).orElseThrow().getPagwId());
+    }
+
+    @Test
+    void failedOriginalReleasesTheKey() throws Exception {
+        DuplicateSubmissionService.Submission original = service.begin(request(BUNDLE));
+        DuplicateSubmissionService.Submission duplicate = service.begin(request(BUNDLE));
+        CompletableFuture<Optional<PasResponse>> waiting =
+                CompletableFuture.supplyAsync(() -> service.awaitOriginal(duplicate).replay());
+
+        service.fail(original, new IllegalStateException("S3 unavailable"));
+
+        assertTrue(waiting.get(1, TimeUnit.SECONDS).isEmpty());
+        assertFalse(service.begin(request(BUNDLE)).isDuplicate());
+    }
+
+    @Test
+    void headerKeyAloneIdentifiesTheSubmission() {
+        DuplicateSubmissionService.Submission first = service.begin(request(BUNDLE, "key-1"));
+        DuplicateSubmissionService.Submission changed = service.begin(request(BUNDLE.replace("nested", "changed"), "key-1"));
+
+        assertFalse(first.isDuplicate());
+        assertTrue(changed.isDuplicate());
+        assertEquals("pas:ANTHEM:key:key-1", changed.key());
+    }
+
+    @Test
+    void headerKeyReusedWithDifferentBodyIsAConflict() {
+        DuplicateSubmissionService.Submission original = service.begin(request(BUNDLE, "key-1"));
+        DuplicateSubmissionService.Submission inFlightConflict =
+                service.begin(request(BUNDLE.replace("nested", "changed"), "key-1"));
+
+        // In flight on this instance: known at once, without waiting for the original
+        assertTrue(service.awaitOriginal(inFlightConflict).conflict());
+
+        service.complete(original, response("PAGW-3"));
+        DuplicateSubmissionService otherInstance =
+                new DuplicateSubmissionService(store, new ObjectMapper().findAndRegisterModules(), 0);
+        DuplicateSubmissionService.Submission storedConflict =
+                otherInstance.begin(request(BUNDLE.replace("nested", "changed"), "key-1"));
+        DuplicateSubmissionService.Submission resubmitted = otherInstance.begin(request(BUNDLE, "key-1"));
+
+        DuplicateSubmissionService.Original conflict = otherInstance.awaitOriginal(storedConflict);
+        assertTrue(conflict.conflict());
+        assertTrue(conflict.replay().isEmpty());
+        assertEquals("PAGW-3", otherInstance.awaitOriginal(resubmitted).replay().orElseThrow().getPagwId());
+    }
+
+    @Test
+    void resultsStoredWithoutBundleHashAreStillReplayed() {
+        String stored = service.encode(null, response("PAGW-4"));
+
+        assertTrue(stored.startsWith(DuplicateSubmissionService.GZIP_PREFIX));
+        assertNull(DuplicateSubmissionService.bundleSha256Of(stored));
+        assertEquals("PAGW-4", service.decode(stored).getPagwId());
+    }
+
+    private static PasRequest request(String bundle, String idempotencyKey) {
+        return PasRequest.builder().fhirBundle(bundle).tenant("ANTHEM").idempotencyKey(idempotencyKey).build();
+    }
+
+    private static PasRequest request(String bundle) {
+        return PasRequest.builder().fhirBundle(bundle).tenant("ANTHEM").build();
+    }
+
+    private static PasResponse response(String pagwId) {
+        return PasResponse.builder()
+                .resourceType("ClaimResponse")
+                .pagwId(pagwId)
+                .status("approved")
+                .timestamp(Instant.now())
+                .build();
+    }
+}
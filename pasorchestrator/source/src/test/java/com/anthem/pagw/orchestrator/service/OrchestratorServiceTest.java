@@ -7,11 +7,14 @@ import com.anthem.pagw.core.service.*;
 import com.anthem.pagw.orchestrator.model.PasRequest;
 import com.anthem.pagw.orchestrator.model.PasResponse;
 import com.anthem.pagw.orchestrator.model.SyncProcessingResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.List;
 
@@ -44,7 +47,7 @@ class OrchestratorServiceTest {
     private AuditService auditService;
 
     @Mock(lenient = true)
-    private IdempotencyService idempotencyService;
+    private IdempotencyStore idempotencyStore;
 
     @Mock(lenient = true)
     private SyncProcessingService syncProcessingService;
@@ -52,6 +55,11 @@ class OrchestratorServiceTest {
     @Mock(lenient = true)
     private PagwProperties properties;
 
+    @Mock(lenient = true)
+    private PlatformTransactionManager transactionManager;
+
+    private DuplicateSubmissionService duplicateSubmissionService;
+
     private OrchestratorService orchestratorService;
 
     @BeforeEach
@@ -73,10 +81,12 @@ class OrchestratorServiceTest {
         when(properties.getQueues()).thenReturn(queues);
         
         // Default behaviors
-        when(idempotencyService.checkAndSet(anyString())).thenReturn(true);
+        when(idempotencyStore.tryAcquire(anyString(), anyString())).thenReturn(true);
         when(requestTrackerService.tryMarkAsyncQueued(anyString())).thenReturn(true);
         when(requestTrackerService.create(any(RequestTracker.class))).thenAnswer(i -> i.getArgument(0));
         
+        duplicateSubmissionService = new DuplicateSubmissionService(
+                idempotencyStore, new ObjectMapper().findAndRegisterModules(), 0);
         orchestratorService = new OrchestratorService(
                 s3Service,
                 requestTrackerService,
@@ -84,9 +94,10 @@ class OrchestratorServiceTest {
                 outboxService,
                 phiEncryptionService,
                 auditService,
-                idempotencyService,
+                duplicateSubmissionService,
                 syncProcessingService,
-                properties
+                properties,
+                transactionManager
         );
     }
 
@@ -174,7 +185,7 @@ class OrchestratorServiceTest {
                 .idempotencyKey("duplicate-key")
                 .build();
 
-        when(idempotencyService.checkAndSet("duplicate-key")).thenReturn(false);
+        when(idempotencyStore.tryAcquire(eq("pas:default:key:duplicate-key"), anyString())).thenReturn(false);
 
         // When: Process the duplicate request
         PasResponse response = orchestratorService.processRequest(request);
@@ -183,9 +194,137 @@ class OrchestratorServiceTest {
         assertNotNull(response);
         assertEquals("duplicate", response.getStatus());
         
-        // Verify no actual processing occurred
+        // Verify no actual processing occurred, and no transaction was held while waiting
         verifyNoInteractions(s3Service);
         verifyNoInteractions(syncProcessingService);
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void shouldAcquireTransactionalKeyInsideTheTransaction() {
+        // Given: A store whose key joins the caller's transaction (postgres)
+        when(idempotencyStore.joinsCallerTransaction()).thenReturn(true);
+
+        // When: Process a new request
+        orchestratorService.processRequest(PasRequest.builder()
+                .fhirBundle("{}")
+                .idempotencyKey("tx-key")
+                .syncProcessing(false)
+                .build());
+
+        // Then: The key is written in the same transaction as the request tracker row
+        InOrder inOrder = inOrder(transactionManager, idempotencyStore, requestTrackerService);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(idempotencyStore).tryAcquire(eq("pas:default:key:tx-key"), anyString());
+        inOrder.verify(requestTrackerService).create(any(RequestTracker.class));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void shouldLeaveTransactionalKeyToTheRollback() {
+        // Given: A transactional store and a request that fails after the key was acquired
+        when(idempotencyStore.joinsCallerTransaction()).thenReturn(true);
+        doThrow(new IllegalStateException("S3 unavailable"))
+                .when(s3Service).putObject(anyString(), anyString(), anyString());
+
+        // When: Process the request
+        assertThrows(IllegalStateException.class, () -> orchestratorService.processRequest(PasRequest.builder()
+                .fhirBundle("{}")
+                .idempotencyKey("tx-key")
+                .syncProcessing(false)
+                .build()));
+
+        // Then: The rollback removes the key; it is not deleted again outside the transaction
+        verify(transactionManager).rollback(any());
+        verify(idempotencyStore, never()).markFailed(anyString(), any());
+    }
+
+    @Test
+    void shouldEndTheTransactionBeforeAwaitingTheOriginal() {
+        // Given: A transactional store that already holds the key
+        when(idempotencyStore.joinsCallerTransaction()).thenReturn(true);
+        when(idempotencyStore.tryAcquire(eq("pas:default:key:duplicate-key"), anyString())).thenReturn(false);
+
+        // When: Process the duplicate
+        PasResponse response = orchestratorService.processRequest(PasRequest.builder()
+                .fhirBundle("{}")
+                .idempotencyKey("duplicate-key")
+                .build());
+
+        // Then: Nothing is written and the transaction is over before the result is polled
+        assertEquals("duplicate", response.getStatus());
+        verifyNoInteractions(s3Service, requestTrackerService);
+        InOrder inOrder = inOrder(transactionManager, idempotencyStore);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(idempotencyStore).pollResult("pas:default:key:duplicate-key");
+    }
+
+    @Test
+    void shouldRejectReusedIdempotencyKeyWithDifferentBody() {
+        // Given: The key was first used for another bundle, which has completed
+        PasResponse original = PasResponse.builder().pagwId("PAGW-ORIGINAL").status("queued").build();
+        when(idempotencyStore.tryAcquire(eq("pas:ANTHEM:key:reused-key"), anyString())).thenReturn(false);
+        when(idempotencyStore.pollResult("pas:ANTHEM:key:reused-key"))
+                .thenReturn(duplicateSubmissionService.encode("0".repeat(64), original));
+
+        // When: The key is sent with a different bundle
+        PasResponse response = orchestratorService.processRequest(PasRequest.builder()
+                .fhirBundle("{\"resourceType\":\"Bundle\"}")
+                .idempotencyKey("reused-key")
+                .tenant("ANTHEM")
+                .build());
+
+        // Then: Conflict, and nothing is replayed or written
+        assertEquals("conflict", response.getStatus());
+        assertEquals("IDEMPOTENCY_KEY_CONFLICT", response.getErrorCode());
+        assertNull(response.getPagwId());
+        verifyNoInteractions(s3Service, requestTrackerService, transactionManager);
+    }
+
+    @Test
+    void shouldReplayStoredResponseForResubmittedBundle() {
+        // Given: A bundle whose identifier and content were already processed
+        String fhirBundle = "{\"resourceType\":\"Bundle\",\"identifier\":{\"system\":\"urn:provider\",\"value\":\"B-1\"}}";
+        PasResponse original = PasResponse.builder()
+                .resourceType("ClaimResponse")
+                .pagwId("PAGW-ORIGINAL")
+                .status("approved")
+                .claimResponseBundle("{\"resourceType\":\"ClaimResponse\"}")
+                .build();
+        when(idempotencyStore.tryAcquire(startsWith("pas:ANTHEM:urn:provider|B-1:"), anyString())).thenReturn(false);
+        when(idempotencyStore.pollResult(startsWith("pas:ANTHEM:urn:provider|B-1:")))
+                .thenReturn(duplicateSubmissionService.encode(null, original));
+
+        // When: The provider resubmits it
+        PasResponse response = orchestratorService.processRequest(PasRequest.builder()
+                .fhirBundle(fhirBundle)
+                .tenant("ANTHEM")
+                .syncProcessing(true)
+                .build());
+
+        // Then: The original response is replayed and nothing is written
+        assertEquals("PAGW-ORIGINAL", response.getPagwId());
+        assertEquals("approved", response.getStatus());
+        assertEquals(original.getClaimResponseBundle(), response.getClaimResponseBundle());
+        verifyNoInteractions(s3Service, requestTrackerService, eventTrackerService, auditService, syncProcessingService);
+        verify(idempotencyStore, never()).markCompleted(anyString(), anyString());
+    }
+
+    @Test
+    void shouldStoreFinalResponseForReplay() {
+        // Given: A new bundle with an identifier
+        PasRequest request = PasRequest.builder()
+                .fhirBundle("{\"resourceType\":\"Bundle\",\"identifier\":{\"value\":\"B-2\"}}")
+                .syncProcessing(false)
+                .build();
+
+        // When: Process the request
+        PasResponse response = orchestratorService.processRequest(request);
+
+        // Then: The queued response is stored compressed under the submission key
+        verify(idempotencyStore).markCompleted(startsWith("pas:default:B-2:"), argThat(stored ->
+                stored.startsWith(DuplicateSubmissionService.GZIP_SHA256_PREFIX)
+                        && response.getPagwId().equals(duplicateSubmissionService.decode(stored).getPagwId())));
     }
 
     @Test
@@ -3,11 +3,11 @@ package com.anthem.pagw.converter.listener;
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
-import com.anthem.pagw.core.service.RequestTrackerService;
-import com.anthem.pagw.core.service.S3Service;
-import com.anthem.pagw.core.util.JsonUtils;
+import com.anthem.pagw.core.model.StageArtifact;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.converter.service.RequestConverterService;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import org.slf4j.Logger;
@@ -30,24 +30,21 @@ public class RequestConverterListener {
     private static final Logger log = LoggerFactory.getLogger(RequestConverterListener.class);
 
     private final RequestConverterService converterService;
-    private final S3Service s3Service;
-    private final RequestTrackerService trackerService;
-    private final EventTrackerService eventTrackerService;
-    private final OutboxService outboxService;
+    private final StageArtifactStore artifactStore;
+    private final StageTransitionService stageTransitionService;
+    private final PagwMessageCodec messageCodec;
     private final String nextQueueName;
 
     public RequestConverterListener(
             RequestConverterService converterService,
-            S3Service s3Service,
-            RequestTrackerService trackerService,
-            EventTrackerService eventTrackerService,
-            OutboxService outboxService,
+            StageArtifactStore artifactStore,
+            StageTransitionService stageTransitionService,
+            PagwMessageCodec messageCodec,
             @Value("${pagw.aws.sqs.api-connector-queue}") String nextQueueName) {
         this.converterService = converterService;
-        this.s3Service = s3Service;
-        this.trackerService = trackerService;
-        this.eventTrackerService = eventTrackerService;
-        this.outboxService = outboxService;
+        this.artifactStore = artifactStore;
+        this.stageTransitionService = stageTransitionService;
+        this.messageCodec = messageCodec;
         this.nextQueueName = nextQueueName;
     }
 
@@ -63,35 +60,31 @@ public class RequestConverterListener {
         long startTime = System.currentTimeMillis();
         
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
             tenant = message.getTenant();
             
             log.info("Received message for conversion: pagwId={}, stage={}", 
                     pagwId, message.getStage());
             
-            // Event tracking: CONVERT_START
-            eventTrackerService.logStageStart(pagwId, tenant, "CONVERTER", EventTracker.EVENT_CONVERT_START, null);
-            
-            // Update tracker status
-            trackerService.updateStatus(pagwId, "CONVERTING", "request-converter");
+            // Tracker CONVERTING + event CONVERT_START (one statement)
+            stageTransitionService.apply(
+                    StageTransition.start(pagwId, tenant, "CONVERTER", EventTracker.EVENT_CONVERT_START)
+                            .tracker("CONVERTING", "request-converter")
+                            .build());
             
             // Fetch enriched data from S3
-            String enrichedData = s3Service.getObject(
+            StageArtifact enriched = artifactStore.read(
                     message.getPayloadBucket(), 
                     message.getPayloadKey()
             );
             
             // Convert to per-target payload
-            var conversionResult = converterService.convertPayload(enrichedData, message);
+            var conversionResult = converterService.convertPayload(enriched.json(), message);
             
             // Store converted payload in S3 using standardized path
             String convertedKey = PagwProperties.S3Paths.canonical(pagwId);
-            s3Service.putObject(
-                    message.getPayloadBucket(),
-                    convertedKey,
-                    JsonUtils.toJson(conversionResult.getConvertedPayload())
-            );
+            artifactStore.write(enriched, convertedKey, conversionResult.getConvertedPayload());
             
             // Prepare next stage message
             PagwMessage nextMessage = PagwMessage.builder()
@@ -107,19 +100,16 @@ public class RequestConverterListener {
                     .createdAt(Instant.now())
                     .build();
             
-            // Write to outbox
-            outboxService.writeOutbox(nextQueueName, nextMessage);
-            
-            // Update tracker
-            trackerService.updateStatus(pagwId, "CONVERTED", "request-converter");
-            
-            // Event tracking: CONVERT_OK
+            // Tracker CONVERTED + event CONVERT_OK + outbox (one statement)
             long duration = System.currentTimeMillis() - startTime;
             String metadata = String.format("{\"targetSystem\":\"%s\"}",
                 conversionResult.getTargetSystem());
-            eventTrackerService.logStageComplete(
-                pagwId, tenant, "CONVERTER", EventTracker.EVENT_CONVERT_OK, duration, metadata
-            );
+            stageTransitionService.apply(
+                    StageTransition.complete(pagwId, tenant, "CONVERTER", EventTracker.EVENT_CONVERT_OK, duration)
+                            .metadata(metadata)
+                            .tracker("CONVERTED", "request-converter")
+                            .send(nextQueueName, nextMessage)
+                            .build());
             
             log.info("Converted successfully: pagwId={}, targetSystem={}", 
                     pagwId, conversionResult.getTargetSystem());
@@ -128,14 +118,14 @@ public class RequestConverterListener {
             log.error("Conversion error: pagwId={}", pagwId, e);
             
             if (pagwId != null) {
-                // Event tracking: CONVERT_FAIL (exception)
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "CONVERTER", EventTracker.EVENT_CONVERT_FAIL,
-                    "CONVERSION_EXCEPTION", e.getMessage(), true, Instant.now().plusSeconds(300)
-                );
-                
-                trackerService.updateError(pagwId, "CONVERSION_ERROR", 
-                        e.getMessage(), "request-converter");
+                // Event CONVERT_FAIL (exception) + tracker error (one statement)
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "CONVERTER", EventTracker.EVENT_CONVERT_FAIL,
+                                        "CONVERSION_EXCEPTION", e.getMessage())
+                                .retryable(true)
+                                .nextRetryAt(Instant.now().plusSeconds(300))
+                                .trackerFailed("request-converter", "CONVERSION_ERROR", e.getMessage())
+                                .build());
             }
             
             throw new RuntimeException("Conversion failed: " + pagwId, e);
@@ -33,11 +33,26 @@ public class RequestConverterService {
      * @return ConversionResult with converted payload
      */
     public ConversionResult convertPayload(String enrichedData, PagwMessage message) {
+        JsonNode data;
+        try {
+            data = JsonUtils.parseJson(enrichedData);
+        } catch (Exception e) {
+            return conversionFailed(new ConversionResult(), message, e);
+        }
+        return convertPayload(data, message);
+    }
+
+    /**
+     * Convert an already parsed enriched claim tree (as streamed from S3).
+     * 
+     * @param data The enriched claim data
+     * @param message The PAGW message context
+     * @return ConversionResult with converted payload
+     */
+    public ConversionResult convertPayload(JsonNode data, PagwMessage message) {
         ConversionResult result = new ConversionResult();
         
         try {
-            JsonNode data = JsonUtils.parseJson(enrichedData);
-            
             ConvertedPayload payload = new ConvertedPayload();
             
             // Core identifiers
@@ -106,14 +121,19 @@ public class RequestConverterService {
                     message.getPagwId(), targetSystem);
             
         } catch (Exception e) {
-            log.error("Conversion error: pagwId={}", message.getPagwId(), e);
-            result.setSuccess(false);
-            result.setErrorMessage(e.getMessage());
+            conversionFailed(result, message, e);
         }
         
         return result;
     }
 
+    private ConversionResult conversionFailed(ConversionResult result, PagwMessage message, Exception e) {
+        log.error("Conversion error: pagwId={}", message.getPagwId(), e);
+        result.setSuccess(false);
+        result.setErrorMessage(e.getMessage());
+        return result;
+    }
+
     private String determineTargetSystem(String claimType, JsonNode data) {
         // Determine target system based on claim type and other factors
         switch (claimType.toLowerCase()) {
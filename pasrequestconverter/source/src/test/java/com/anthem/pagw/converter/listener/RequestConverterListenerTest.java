@@ -3,12 +3,15 @@ package com.anthem.pagw.converter.listener;
 import com.anthem.pagw.converter.model.ConversionResult;
 import com.anthem.pagw.converter.model.ConvertedPayload;
 import com.anthem.pagw.converter.service.RequestConverterService;
+import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
-import com.anthem.pagw.core.service.RequestTrackerService;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.S3Service;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.core.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +20,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,13 +40,7 @@ class RequestConverterListenerTest {
     private S3Service s3Service;
 
     @Mock
-    private RequestTrackerService trackerService;
-
-    @Mock
-    private EventTrackerService eventTrackerService;
-
-    @Mock
-    private OutboxService outboxService;
+    private StageTransitionService stageTransitionService;
 
     private RequestConverterListener listener;
 
@@ -52,10 +50,9 @@ class RequestConverterListenerTest {
     void setUp() {
         listener = new RequestConverterListener(
                 converterService,
-                s3Service,
-                trackerService,
-                eventTrackerService,
-                outboxService,
+                new StageArtifactStore(s3Service, new PagwProperties()),
+                stageTransitionService,
+                new PagwMessageCodec(s3Service, new PagwProperties()),
                 NEXT_QUEUE
         );
     }
@@ -64,7 +61,7 @@ class RequestConverterListenerTest {
     void shouldConvertMessageSuccessfully() {
         // Given
         String pagwId = "PAGW-12345";
-        String enrichedData = "{\"claimId\":\"CLM-001\",\"patientData\":{\"id\":\"P123\"}}";
+        JsonNode enrichedData = JsonUtils.parseJson("{\"claimId\":\"CLM-001\",\"patientData\":{\"id\":\"P123\"}}");
 
         PagwMessage message = PagwMessage.builder()
                 .messageId("msg-123")
@@ -87,19 +84,21 @@ class RequestConverterListenerTest {
         result.setTargetSystem("CLAIMS_PRO");
         result.setConvertedPayload(convertedPayload);
 
-        when(s3Service.getObject(anyString(), anyString())).thenReturn(enrichedData);
-        when(converterService.convertPayload(anyString(), any())).thenReturn(result);
+        when(s3Service.downloadJson(anyString(), anyString())).thenReturn(enrichedData);
+        when(converterService.convertPayload(any(JsonNode.class), any())).thenReturn(result);
 
         // When
         listener.handleMessage(JsonUtils.toJson(message), pagwId);
 
         // Then
-        verify(trackerService).updateStatus(pagwId, "CONVERTING", "request-converter");
-        verify(s3Service).getObject("pagw-request-dev", "enriched/PAGW-12345.json");
+        verify(s3Service).downloadJson("pagw-request-dev", "enriched/PAGW-12345.json");
         verify(converterService).convertPayload(enrichedData, message);
-        verify(s3Service).putObject(eq("pagw-request-dev"), contains("canonical.json"), anyString());
-        verify(outboxService).writeOutbox(eq(NEXT_QUEUE), any(PagwMessage.class));
-        verify(trackerService).updateStatus(pagwId, "CONVERTED", "request-converter");
+        verify(s3Service).uploadJson(eq("pagw-request-dev"), contains("canonical.json"), any());
+        List<StageTransition> transitions = transitions(2);
+        assertEquals("CONVERTING", transitions.get(0).getTrackerStatus());
+        assertEquals("CONVERTED", transitions.get(1).getTrackerStatus());
+        assertEquals("request-converter", transitions.get(1).getLastStage());
+        assertEquals(NEXT_QUEUE, transitions.get(1).getOutbox().get(0).destinationQueue());
     }
 
     @Test
@@ -112,7 +111,7 @@ class RequestConverterListenerTest {
                 .payloadKey("enriched/PAGW-12345.json")
                 .build();
 
-        when(s3Service.getObject(anyString(), anyString()))
+        when(s3Service.downloadJson(anyString(), anyString()))
                 .thenThrow(new RuntimeException("S3 error"));
 
         // When/Then
@@ -120,16 +119,18 @@ class RequestConverterListenerTest {
                 listener.handleMessage(JsonUtils.toJson(message), pagwId)
         );
 
-        verify(trackerService).updateStatus(pagwId, "CONVERTING", "request-converter");
-        verify(trackerService).updateError(eq(pagwId), eq("CONVERSION_ERROR"), 
-                anyString(), eq("request-converter"));
+        List<StageTransition> transitions = transitions(2);
+        assertEquals("CONVERTING", transitions.get(0).getTrackerStatus());
+        assertTrue(transitions.get(1).isFailure());
+        assertEquals("CONVERSION_ERROR", transitions.get(1).getTrackerErrorCode());
+        assertEquals("request-converter", transitions.get(1).getLastStage());
     }
 
     @Test
     void shouldHandleConversionFailure() {
         // Given
         String pagwId = "PAGW-12345";
-        String enrichedData = "{\"invalid\":\"data\"}";
+        JsonNode enrichedData = JsonUtils.parseJson("{\"invalid\":\"data\"}");
 
         PagwMessage message = PagwMessage.builder()
                 .pagwId(pagwId)
@@ -137,8 +138,8 @@ class RequestConverterListenerTest {
                 .payloadKey("enriched/PAGW-12345.json")
                 .build();
 
-        when(s3Service.getObject(anyString(), anyString())).thenReturn(enrichedData);
-        when(converterService.convertPayload(anyString(), any()))
+        when(s3Service.downloadJson(anyString(), anyString())).thenReturn(enrichedData);
+        when(converterService.convertPayload(any(JsonNode.class), any()))
                 .thenThrow(new RuntimeException("Conversion failed"));
 
         // When/Then
@@ -146,16 +147,18 @@ class RequestConverterListenerTest {
                 listener.handleMessage(JsonUtils.toJson(message), pagwId)
         );
 
-        verify(trackerService).updateStatus(pagwId, "CONVERTING", "request-converter");
-        verify(trackerService).updateError(eq(pagwId), eq("CONVERSION_ERROR"), 
-                anyString(), eq("request-converter"));
+        List<StageTransition> transitions = transitions(2);
+        assertEquals("CONVERTING", transitions.get(0).getTrackerStatus());
+        assertTrue(transitions.get(1).isFailure());
+        assertEquals("CONVERSION_ERROR", transitions.get(1).getTrackerErrorCode());
+        assertEquals("request-converter", transitions.get(1).getLastStage());
     }
 
     @Test
     void shouldWriteCorrectMessageToOutbox() {
         // Given
         String pagwId = "PAGW-12345";
-        String enrichedData = "{\"claimId\":\"CLM-001\"}";
+        JsonNode enrichedData = JsonUtils.parseJson("{\"claimId\":\"CLM-001\"}");
 
         PagwMessage message = PagwMessage.builder()
                 .messageId("msg-123")
@@ -178,18 +181,17 @@ class RequestConverterListenerTest {
         result.setTargetSystem("CLAIMS_PRO");
         result.setConvertedPayload(convertedPayload);
 
-        when(s3Service.getObject(anyString(), anyString())).thenReturn(enrichedData);
-        when(converterService.convertPayload(anyString(), any())).thenReturn(result);
-
-        ArgumentCaptor<PagwMessage> messageCaptor = ArgumentCaptor.forClass(PagwMessage.class);
+        when(s3Service.downloadJson(anyString(), anyString())).thenReturn(enrichedData);
+        when(converterService.convertPayload(any(JsonNode.class), any())).thenReturn(result);
 
         // When
         listener.handleMessage(JsonUtils.toJson(message), pagwId);
 
         // Then
-        verify(outboxService).writeOutbox(eq(NEXT_QUEUE), messageCaptor.capture());
+        StageTransition.Outbound outbound = transitions(2).get(1).getOutbox().get(0);
+        assertEquals(NEXT_QUEUE, outbound.destinationQueue());
 
-        PagwMessage capturedMessage = messageCaptor.getValue();
+        PagwMessage capturedMessage = outbound.message();
         assertEquals(pagwId, capturedMessage.getPagwId());
         assertEquals("API_CONNECTOR", capturedMessage.getStage());
         assertEquals("ANTHEM", capturedMessage.getTenant());
@@ -203,15 +205,14 @@ class RequestConverterListenerTest {
         String customQueue = "custom-api-connector-queue";
         RequestConverterListener customListener = new RequestConverterListener(
                 converterService,
-                s3Service,
-                trackerService,
-                eventTrackerService,
-                outboxService,
+                new StageArtifactStore(s3Service, new PagwProperties()),
+                stageTransitionService,
+                new PagwMessageCodec(s3Service, new PagwProperties()),
                 customQueue
         );
 
         String pagwId = "PAGW-12345";
-        String enrichedData = "{\"claimId\":\"CLM-001\"}";
+        JsonNode enrichedData = JsonUtils.parseJson("{\"claimId\":\"CLM-001\"}");
 
         PagwMessage message = PagwMessage.builder()
                 .pagwId(pagwId)
@@ -225,21 +226,21 @@ class RequestConverterListenerTest {
         result.setTargetSystem("CLAIMS_PRO");
         result.setConvertedPayload(convertedPayload);
 
-        when(s3Service.getObject(anyString(), anyString())).thenReturn(enrichedData);
-        when(converterService.convertPayload(anyString(), any())).thenReturn(result);
+        when(s3Service.downloadJson(anyString(), anyString())).thenReturn(enrichedData);
+        when(converterService.convertPayload(any(JsonNode.class), any())).thenReturn(result);
 
         // When
         customListener.handleMessage(JsonUtils.toJson(message), pagwId);
 
         // Then
-        verify(outboxService).writeOutbox(eq(customQueue), any(PagwMessage.class));
+        assertEquals(customQueue, transitions(2).get(1).getOutbox().get(0).destinationQueue());
     }
 
     @Test
     void shouldStoreConvertedPayloadInS3() {
         // Given
         String pagwId = "PAGW-12345";
-        String enrichedData = "{\"claimId\":\"CLM-001\"}";
+        JsonNode enrichedData = JsonUtils.parseJson("{\"claimId\":\"CLM-001\"}");
 
         PagwMessage message = PagwMessage.builder()
                 .pagwId(pagwId)
@@ -255,22 +256,28 @@ class RequestConverterListenerTest {
         result.setTargetSystem("CLAIMS_PRO");
         result.setConvertedPayload(convertedPayload);
 
-        when(s3Service.getObject(anyString(), anyString())).thenReturn(enrichedData);
-        when(converterService.convertPayload(anyString(), any())).thenReturn(result);
+        when(s3Service.downloadJson(anyString(), anyString())).thenReturn(enrichedData);
+        when(converterService.convertPayload(any(JsonNode.class), any())).thenReturn(result);
 
         ArgumentCaptor<String> bucketCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object> dataCaptor = ArgumentCaptor.forClass(Object.class);
 
         // When
         listener.handleMessage(JsonUtils.toJson(message), pagwId);
 
         // Then
-        verify(s3Service).putObject(bucketCaptor.capture(), keyCaptor.capture(), dataCaptor.capture());
+        verify(s3Service).uploadJson(bucketCaptor.capture(), keyCaptor.capture(), dataCaptor.capture());
 
         assertEquals("pagw-request-dev", bucketCaptor.getValue());
         assertTrue(keyCaptor.getValue().contains("canonical.json"));
         assertTrue(keyCaptor.getValue().contains(pagwId));
         assertNotNull(dataCaptor.getValue());
     }
+
+    private List<StageTransition> transitions(int expected) {
+        ArgumentCaptor<StageTransition> captor = ArgumentCaptor.forClass(StageTransition.class);
+        verify(stageTransitionService, times(expected)).apply(captor.capture());
+        return captor.getAllValues();
+    }
 }
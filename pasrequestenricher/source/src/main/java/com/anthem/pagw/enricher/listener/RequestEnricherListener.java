@@ -3,11 +3,11 @@ package com.anthem.pagw.enricher.listener;
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
-import com.anthem.pagw.core.service.RequestTrackerService;
-import com.anthem.pagw.core.service.S3Service;
-import com.anthem.pagw.core.util.JsonUtils;
+import com.anthem.pagw.core.model.StageArtifact;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.enricher.service.RequestEnricherService;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import org.slf4j.Logger;
@@ -30,24 +30,21 @@ public class RequestEnricherListener {
     private static final Logger log = LoggerFactory.getLogger(RequestEnricherListener.class);
 
     private final RequestEnricherService enricherService;
-    private final S3Service s3Service;
-    private final RequestTrackerService trackerService;
-    private final EventTrackerService eventTrackerService;
-    private final OutboxService outboxService;
+    private final StageArtifactStore artifactStore;
+    private final StageTransitionService stageTransitionService;
+    private final PagwMessageCodec messageCodec;
     private final String nextQueueName;
 
     public RequestEnricherListener(
             RequestEnricherService enricherService,
-            S3Service s3Service,
-            RequestTrackerService trackerService,
-            EventTrackerService eventTrackerService,
-            OutboxService outboxService,
+            StageArtifactStore artifactStore,
+            StageTransitionService stageTransitionService,
+            PagwMessageCodec messageCodec,
             @Value("${pagw.aws.sqs.request-converter-queue}") String nextQueueName) {
         this.enricherService = enricherService;
-        this.s3Service = s3Service;
-        this.trackerService = trackerService;
-        this.eventTrackerService = eventTrackerService;
-        this.outboxService = outboxService;
+        this.artifactStore = artifactStore;
+        this.stageTransitionService = stageTransitionService;
+        this.messageCodec = messageCodec;
         this.nextQueueName = nextQueueName;
     }
 
@@ -63,35 +60,31 @@ public class RequestEnricherListener {
         long startTime = System.currentTimeMillis();
         
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
             tenant = message.getTenant();
             
             log.info("Received message for enrichment: pagwId={}, stage={}", 
                     pagwId, message.getStage());
             
-            // Event tracking: ENRICH_START
-            eventTrackerService.logStageStart(pagwId, tenant, "ENRICHER", EventTracker.EVENT_ENRICH_START, null);
-            
-            // Update tracker status
-            trackerService.updateStatus(pagwId, "ENRICHING", "request-enricher");
+            // Tracker ENRICHING + event ENRICH_START (one statement)
+            stageTransitionService.apply(
+                    StageTransition.start(pagwId, tenant, "ENRICHER", EventTracker.EVENT_ENRICH_START)
+                            .tracker("ENRICHING", "request-enricher")
+                            .build());
             
             // Fetch validated data from S3
-            String validatedData = s3Service.getObject(
+            StageArtifact validated = artifactStore.read(
                     message.getPayloadBucket(), 
                     message.getPayloadKey()
             );
             
             // Enrich the claim data
-            var enrichedResult = enricherService.enrich(validatedData, message);
+            var enrichedResult = enricherService.enrich(validated.json(), message);
             
             // Store enriched data in S3 using standardized path
             String enrichedKey = PagwProperties.S3Paths.enriched(pagwId);
-            s3Service.putObject(
-                    message.getPayloadBucket(),
-                    enrichedKey,
-                    JsonUtils.toJson(enrichedResult.getEnrichedData())
-            );
+            artifactStore.write(validated, enrichedKey, enrichedResult.getEnrichedData());
             
             // Prepare next stage message
             PagwMessage nextMessage = PagwMessage.builder()
@@ -107,19 +100,16 @@ public class RequestEnricherListener {
                     .createdAt(Instant.now())
                     .build();
             
-            // Write to outbox
-            outboxService.writeOutbox(nextQueueName, nextMessage);
-            
-            // Update tracker
-            trackerService.updateStatus(pagwId, "ENRICHED", "request-enricher");
-            
-            // Event tracking: ENRICH_OK
+            // Tracker ENRICHED + event ENRICH_OK + outbox (one statement)
             long duration = System.currentTimeMillis() - startTime;
             String metadata = String.format("{\"sourcesUsed\":\"%s\",\"sourceCount\":%d}",
                 String.join(",", enrichedResult.getSourcesUsed()), enrichedResult.getSourcesUsed().size());
-            eventTrackerService.logStageComplete(
-                pagwId, tenant, "ENRICHER", EventTracker.EVENT_ENRICH_OK, duration, metadata
-            );
+            stageTransitionService.apply(
+                    StageTransition.complete(pagwId, tenant, "ENRICHER", EventTracker.EVENT_ENRICH_OK, duration)
+                            .metadata(metadata)
+                            .tracker("ENRICHED", "request-enricher")
+                            .send(nextQueueName, nextMessage)
+                            .build());
             
             log.info("Enrichment complete: pagwId={}, sourcesUsed={}", 
                     pagwId, enrichedResult.getSourcesUsed());
@@ -127,14 +117,14 @@ public class RequestEnricherListener {
         } catch (Exception e) {
             log.error("Error processing message: pagwId={}", pagwId, e);
             if (pagwId != null) {
-                // Event tracking: ENRICH_FAIL (exception)
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "ENRICHER", EventTracker.EVENT_ENRICH_FAIL,
-                    "ENRICHMENT_EXCEPTION", e.getMessage(), true, Instant.now().plusSeconds(300)
-                );
-                
-                trackerService.updateStatus(pagwId, "ENRICHMENT_ERROR", "request-enricher",
-                        "EXCEPTION", e.getMessage());
+                // Event ENRICH_FAIL (exception) + tracker error (one statement)
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "ENRICHER", EventTracker.EVENT_ENRICH_FAIL,
+                                        "ENRICHMENT_EXCEPTION", e.getMessage())
+                                .retryable(true)
+                                .nextRetryAt(Instant.now().plusSeconds(300))
+                                .trackerError("ENRICHMENT_ERROR", "request-enricher", "EXCEPTION", e.getMessage())
+                                .build());
             }
             throw new RuntimeException("Failed to process message", e);
         }
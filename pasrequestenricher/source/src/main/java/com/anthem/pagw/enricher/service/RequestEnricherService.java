@@ -41,11 +41,28 @@ public class RequestEnricherService {
      * @return EnrichmentResult with enriched data
      */
     public EnrichmentResult enrich(String claimData, PagwMessage message) {
+        JsonNode data;
+        try {
+            data = JsonUtils.parseJson(claimData);
+        } catch (Exception e) {
+            return enrichmentFailed(new EnrichmentResult(), message, e);
+        }
+        return enrich(data, message);
+    }
+
+    /**
+     * Enrich an already parsed claim tree (as streamed from S3). The tree is enriched in place.
+     * 
+     * @param claimData The validated claim data
+     * @param message The PAGW message context
+     * @return EnrichmentResult with enriched data
+     */
+    public EnrichmentResult enrich(JsonNode claimData, PagwMessage message) {
         EnrichmentResult result = new EnrichmentResult();
         List<String> sourcesUsed = new ArrayList<>();
         
         try {
-            ObjectNode data = (ObjectNode) JsonUtils.parseJson(claimData);
+            ObjectNode data = (ObjectNode) claimData;
             
             // Enrich with eligibility data
             String memberId = extractMemberId(data);
@@ -92,14 +109,19 @@ public class RequestEnricherService {
             result.setSuccess(true);
             
         } catch (Exception e) {
-            log.error("Enrichment error: pagwId={}", message.getPagwId(), e);
-            result.setSuccess(false);
-            result.setErrorMessage(e.getMessage());
+            enrichmentFailed(result, message, e);
         }
         
         return result;
     }
 
+    private EnrichmentResult enrichmentFailed(EnrichmentResult result, PagwMessage message, Exception e) {
+        log.error("Enrichment error: pagwId={}", message.getPagwId(), e);
+        result.setSuccess(false);
+        result.setErrorMessage(e.getMessage());
+        return result;
+    }
+
     private String extractMemberId(JsonNode data) {
         // Try to extract member ID from patient data
         JsonNode patientData = data.path("patientData");
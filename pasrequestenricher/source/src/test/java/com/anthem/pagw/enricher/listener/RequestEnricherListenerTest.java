@@ -2,13 +2,15 @@ package com.anthem.pagw.enricher.listener;
 
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
-import com.anthem.pagw.core.service.RequestTrackerService;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.S3Service;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.core.util.JsonUtils;
 import com.anthem.pagw.enricher.model.EnrichmentResult;
 import com.anthem.pagw.enricher.service.RequestEnricherService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -39,13 +41,7 @@ class RequestEnricherListenerTest {
     private S3Service s3Service;
 
     @Mock
-    private RequestTrackerService trackerService;
-
-    @Mock
-    private EventTrackerService eventTrackerService;
-
-    @Mock
-    private OutboxService outboxService;
+    private StageTransitionService stageTransitionService;
 
     private RequestEnricherListener listener;
     private static final String NEXT_QUEUE_NAME = "pagw-request-converter-queue";
@@ -56,10 +52,9 @@ class RequestEnricherListenerTest {
     void setUp() {
         listener = new RequestEnricherListener(
                 enricherService,
-                s3Service,
-                trackerService,
-                eventTrackerService,
-                outboxService,
+                new StageArtifactStore(s3Service, new PagwProperties()),
+                stageTransitionService,
+                new PagwMessageCodec(s3Service, new PagwProperties()),
                 NEXT_QUEUE_NAME
         );
     }
@@ -69,7 +64,7 @@ class RequestEnricherListenerTest {
         // Given
         PagwMessage inputMessage = createTestMessage();
         String messageJson = JsonUtils.toJson(inputMessage);
-        String validatedData = "{\"patientData\":{\"memberId\":\"M123\"}}";
+        JsonNode validatedData = JsonUtils.parseJson("{\"patientData\":{\"memberId\":\"M123\"}}");
         
         String enrichedDataJson = "{\"patientData\":{\"memberId\":\"M123\"},\"eligibilityData\":{\"status\":\"ACTIVE\"}}";
         ObjectNode enrichedData = (ObjectNode) JsonUtils.parseJson(enrichedDataJson);
@@ -78,7 +73,7 @@ class RequestEnricherListenerTest {
         enrichmentResult.setSourcesUsed(List.of("ELIGIBILITY_SERVICE"));
         enrichmentResult.setSuccess(true);
 
-        when(s3Service.getObject(TEST_BUCKET, inputMessage.getPayloadKey()))
+        when(s3Service.downloadJson(TEST_BUCKET, inputMessage.getPayloadKey()))
                 .thenReturn(validatedData);
         when(enricherService.enrich(validatedData, inputMessage))
                 .thenReturn(enrichmentResult);
@@ -87,27 +82,27 @@ class RequestEnricherListenerTest {
         listener.handleMessage(messageJson, TEST_PAGW_ID);
 
         // Then
-        verify(trackerService).updateStatus(TEST_PAGW_ID, "ENRICHING", "request-enricher");
-        verify(s3Service).getObject(TEST_BUCKET, inputMessage.getPayloadKey());
+        verify(s3Service).downloadJson(TEST_BUCKET, inputMessage.getPayloadKey());
         verify(enricherService).enrich(validatedData, inputMessage);
         
         ArgumentCaptor<String> s3KeyCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> s3DataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(s3Service).putObject(eq(TEST_BUCKET), s3KeyCaptor.capture(), s3DataCaptor.capture());
+        ArgumentCaptor<Object> s3DataCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(s3Service).uploadJson(eq(TEST_BUCKET), s3KeyCaptor.capture(), s3DataCaptor.capture());
         
         String savedKey = s3KeyCaptor.getValue();
         assertThat(savedKey).isEqualTo(PagwProperties.S3Paths.enriched(TEST_PAGW_ID));
         
-        ArgumentCaptor<PagwMessage> messageCaptor = ArgumentCaptor.forClass(PagwMessage.class);
-        verify(outboxService).writeOutbox(eq(NEXT_QUEUE_NAME), messageCaptor.capture());
+        List<StageTransition> transitions = transitions(2);
+        assertThat(transitions.get(0).getTrackerStatus()).isEqualTo("ENRICHING");
+        assertThat(transitions.get(1).getTrackerStatus()).isEqualTo("ENRICHED");
+        StageTransition.Outbound outbound = transitions.get(1).getOutbox().get(0);
+        assertThat(outbound.destinationQueue()).isEqualTo(NEXT_QUEUE_NAME);
         
-        PagwMessage sentMessage = messageCaptor.getValue();
+        PagwMessage sentMessage = outbound.message();
         assertThat(sentMessage.getPagwId()).isEqualTo(TEST_PAGW_ID);
         assertThat(sentMessage.getStage()).isEqualTo("CANONICAL_MAPPER");
         assertThat(sentMessage.getPayloadKey()).isEqualTo(savedKey);
         assertThat(sentMessage.getEnrichmentSources()).containsExactly("ELIGIBILITY_SERVICE");
-        
-        verify(trackerService).updateStatus(TEST_PAGW_ID, "ENRICHED", "request-enricher");
     }
 
     @Test
@@ -115,9 +110,9 @@ class RequestEnricherListenerTest {
         // Given
         PagwMessage inputMessage = createTestMessage();
         String messageJson = JsonUtils.toJson(inputMessage);
-        String validatedData = "{\"patientData\":{}}";
+        JsonNode validatedData = JsonUtils.parseJson("{\"patientData\":{}}");
 
-        when(s3Service.getObject(TEST_BUCKET, inputMessage.getPayloadKey()))
+        when(s3Service.downloadJson(TEST_BUCKET, inputMessage.getPayloadKey()))
                 .thenReturn(validatedData);
         when(enricherService.enrich(validatedData, inputMessage))
                 .thenThrow(new RuntimeException("Enrichment service unavailable"));
@@ -127,15 +122,14 @@ class RequestEnricherListenerTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Failed to process message");
 
-        verify(trackerService).updateStatus(TEST_PAGW_ID, "ENRICHING", "request-enricher");
-        verify(trackerService).updateStatus(
-                eq(TEST_PAGW_ID), 
-                eq("ENRICHMENT_ERROR"), 
-                eq("request-enricher"),
-                eq("EXCEPTION"),
-                contains("Enrichment service unavailable")
-        );
-        verify(outboxService, never()).writeOutbox(anyString(), any());
+        List<StageTransition> transitions = transitions(2);
+        assertThat(transitions.get(0).getTrackerStatus()).isEqualTo("ENRICHING");
+        StageTransition failure = transitions.get(1);
+        assertThat(failure.getTrackerStatus()).isEqualTo("ENRICHMENT_ERROR");
+        assertThat(failure.getLastStage()).isEqualTo("request-enricher");
+        assertThat(failure.getTrackerErrorCode()).isEqualTo("EXCEPTION");
+        assertThat(failure.getTrackerErrorMessage()).contains("Enrichment service unavailable");
+        assertThat(failure.getOutbox()).isEmpty();
     }
 
     @Test
@@ -144,7 +138,7 @@ class RequestEnricherListenerTest {
         PagwMessage inputMessage = createTestMessage();
         String messageJson = JsonUtils.toJson(inputMessage);
 
-        when(s3Service.getObject(TEST_BUCKET, inputMessage.getPayloadKey()))
+        when(s3Service.downloadJson(TEST_BUCKET, inputMessage.getPayloadKey()))
                 .thenThrow(new RuntimeException("S3 access denied"));
 
         // When/Then
@@ -152,9 +146,11 @@ class RequestEnricherListenerTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Failed to process message");
 
-        verify(trackerService).updateStatus(TEST_PAGW_ID, "ENRICHING", "request-enricher");
-        verify(enricherService, never()).enrich(anyString(), any());
-        verify(outboxService, never()).writeOutbox(anyString(), any());
+        List<StageTransition> transitions = transitions(2);
+        assertThat(transitions.get(0).getTrackerStatus()).isEqualTo("ENRICHING");
+        assertThat(transitions.get(1).isFailure()).isTrue();
+        assertThat(transitions.get(1).getOutbox()).isEmpty();
+        verify(enricherService, never()).enrich(any(JsonNode.class), any());
     }
 
     @Test
@@ -166,7 +162,7 @@ class RequestEnricherListenerTest {
         assertThatThrownBy(() -> listener.handleMessage(invalidJson, null))
                 .isInstanceOf(RuntimeException.class);
 
-        verify(trackerService, never()).updateStatus(anyString(), anyString(), anyString());
+        verify(stageTransitionService, never()).apply(any());
     }
 
     @Test
@@ -175,30 +171,35 @@ class RequestEnricherListenerTest {
         String customQueueName = "custom-queue-name";
         RequestEnricherListener customListener = new RequestEnricherListener(
                 enricherService,
-                s3Service,
-                trackerService,
-                eventTrackerService,
-                outboxService,
+                new StageArtifactStore(s3Service, new PagwProperties()),
+                stageTransitionService,
+                new PagwMessageCodec(s3Service, new PagwProperties()),
                 customQueueName
         );
 
         PagwMessage inputMessage = createTestMessage();
         String messageJson = JsonUtils.toJson(inputMessage);
-        String validatedData = "{}";
+        JsonNode validatedData = JsonUtils.parseJson("{}");
         
         EnrichmentResult enrichmentResult = new EnrichmentResult();
         enrichmentResult.setEnrichedData((ObjectNode) JsonUtils.parseJson("{}"));
         enrichmentResult.setSourcesUsed(List.of());
         enrichmentResult.setSuccess(true);
 
-        when(s3Service.getObject(anyString(), anyString())).thenReturn(validatedData);
-        when(enricherService.enrich(anyString(), any())).thenReturn(enrichmentResult);
+        when(s3Service.downloadJson(anyString(), anyString())).thenReturn(validatedData);
+        when(enricherService.enrich(any(JsonNode.class), any())).thenReturn(enrichmentResult);
 
         // When
         customListener.handleMessage(messageJson, TEST_PAGW_ID);
 
         // Then
-        verify(outboxService).writeOutbox(eq(customQueueName), any(PagwMessage.class));
+        assertThat(transitions(2).get(1).getOutbox().get(0).destinationQueue()).isEqualTo(customQueueName);
+    }
+
+    private List<StageTransition> transitions(int expected) {
+        ArgumentCaptor<StageTransition> captor = ArgumentCaptor.forClass(StageTransition.class);
+        verify(stageTransitionService, times(expected)).apply(captor.capture());
+        return captor.getAllValues();
     }
 
     private PagwMessage createTestMessage() {
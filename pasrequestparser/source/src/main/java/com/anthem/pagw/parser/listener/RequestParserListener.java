@@ -3,12 +3,13 @@ package com.anthem.pagw.parser.listener;
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
+import com.anthem.pagw.core.model.StageTransition;
 import com.anthem.pagw.core.model.fhir.ParsedFhirData;
-import com.anthem.pagw.core.service.EventTrackerService;
 import com.anthem.pagw.core.service.FhirExtractionService;
-import com.anthem.pagw.core.service.OutboxService;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.RequestTrackerService;
 import com.anthem.pagw.core.service.S3Service;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.core.util.JsonUtils;
 import com.anthem.pagw.parser.service.RequestParserService;
 import io.awspring.cloud.sqs.annotation.SqsListener;
@@ -19,6 +20,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -41,22 +44,22 @@ public class RequestParserListener {
     private final FhirExtractionService fhirExtractionService;
     private final S3Service s3Service;
     private final RequestTrackerService trackerService;
-    private final EventTrackerService eventTrackerService;
-    private final OutboxService outboxService;
+    private final StageTransitionService stageTransitionService;
+    private final PagwMessageCodec messageCodec;
 
     public RequestParserListener(
             RequestParserService parserService,
             FhirExtractionService fhirExtractionService,
             S3Service s3Service,
             RequestTrackerService trackerService,
-            EventTrackerService eventTrackerService,
-            OutboxService outboxService) {
+            StageTransitionService stageTransitionService,
+            PagwMessageCodec messageCodec) {
         this.parserService = parserService;
         this.fhirExtractionService = fhirExtractionService;
         this.s3Service = s3Service;
         this.trackerService = trackerService;
-        this.eventTrackerService = eventTrackerService;
-        this.outboxService = outboxService;
+        this.stageTransitionService = stageTransitionService;
+        this.messageCodec = messageCodec;
     }
 
     @SqsListener(value = "${pagw.aws.sqs.request-parser-queue}")
@@ -71,18 +74,18 @@ public class RequestParserListener {
         long startTime = System.currentTimeMillis();
         
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
             tenant = message.getTenant();
             
             log.info("Received message for parsing: pagwId={}, stage={}", 
                     pagwId, message.getStage());
             
-            // Event tracking: PARSE_START
-            eventTrackerService.logStageStart(pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_START, null);
-            
-            // Update tracker status
-            trackerService.updateStatus(pagwId, "PARSING", "request-parser");
+            // Tracker PARSING + event PARSE_START (one statement)
+            stageTransitionService.apply(
+                    StageTransition.start(pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_START)
+                            .tracker("PARSING", "request-parser")
+                            .build());
             
             // Fetch raw bundle from S3
             String rawBundle = s3Service.getObject(
@@ -96,14 +99,13 @@ public class RequestParserListener {
             if (!parseResult.isValid()) {
                 log.error("Parse failed for pagwId={}: {}", pagwId, parseResult.getErrors());
                 
-                // Event tracking: PARSE_FAIL
+                // Event PARSE_FAIL + tracker error (one statement)
                 String errorMessage = String.join("; ", parseResult.getErrors());
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_FAIL,
-                    "PARSE_VALIDATION_ERROR", errorMessage, false, null
-                );
-                
-                trackerService.updateError(pagwId, "PARSE_FAILED", errorMessage, "request-parser");
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_FAIL,
+                                        "PARSE_VALIDATION_ERROR", errorMessage)
+                                .trackerFailed("request-parser", "PARSE_FAILED", errorMessage)
+                                .build());
                 return;
             }
             
@@ -118,7 +120,7 @@ public class RequestParserListener {
                     message.getPayloadBucket(),
                     tenant,
                     pagwId,
-                    JsonUtils.toJson(parsedFhirData)
+                    parsedFhirData
                 );
                 
                 log.info("FHIR extraction complete: pagwId={}, patient={}, diagnosisCount={}, procedureCount={}, urgent={}", 
@@ -151,14 +153,14 @@ public class RequestParserListener {
             
             // Store parsed result in S3 using standardized path
             String parsedKey = PagwProperties.S3Paths.parsed(pagwId);
-            s3Service.putObject(
+            s3Service.uploadJson(
                     message.getPayloadBucket(),
                     parsedKey,
-                    JsonUtils.toJson(parseResult.getParsedData())
+                    parseResult.getParsedData()
             );
             
-            // Update request_tracker with parsed summary
-            trackerService.updateStatus(pagwId, "PARSED", "request-parser");
+            // Next-stage messages, written with the PARSE_OK transition below
+            List<StageTransition.Outbound> outbound = new ArrayList<>();
             
             // If attachments exist, send to attachment-handler (parallel path)
             if (parseResult.hasAttachments()) {
@@ -177,8 +179,8 @@ public class RequestParserListener {
                         .createdAt(Instant.now())
                         .build();
                 
-                outboxService.writeOutbox(ATTACHMENT_HANDLER_QUEUE, attachmentMessage);
-                log.info("Sent to attachment-handler: pagwId={}, attachmentCount={}", 
+                outbound.add(new StageTransition.Outbound(ATTACHMENT_HANDLER_QUEUE, attachmentMessage));
+                log.info("Queued for attachment-handler: pagwId={}, attachmentCount={}", 
                         pagwId, parseResult.getAttachmentCount());
             }
             
@@ -198,9 +200,9 @@ public class RequestParserListener {
                     .createdAt(Instant.now())
                     .build();
             
-            outboxService.writeOutbox(BUSINESS_VALIDATOR_QUEUE, businessMessage);
+            outbound.add(new StageTransition.Outbound(BUSINESS_VALIDATOR_QUEUE, businessMessage));
             
-            // Event tracking: PARSE_OK
+            // Tracker PARSED + event PARSE_OK + outbox (one statement)
             long duration = System.currentTimeMillis() - startTime;
             String metadata = parsedFhirData != null 
                 ? String.format("{\"attachmentCount\":%d,\"hasAttachments\":%b,\"diagnosisCount\":%d,\"procedureCount\":%d,\"hasUrgent\":%b}",
@@ -208,9 +210,12 @@ public class RequestParserListener {
                     parsedFhirData.getTotalDiagnosisCodes(), parsedFhirData.getTotalProcedureCodes(), parsedFhirData.isHasUrgentIndicator())
                 : String.format("{\"attachmentCount\":%d,\"hasAttachments\":%b}",
                     parseResult.getAttachmentCount(), parseResult.hasAttachments());
-            eventTrackerService.logStageComplete(
-                pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_OK, duration, metadata
-            );
+            stageTransitionService.apply(
+                    StageTransition.complete(pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_OK, duration)
+                            .metadata(metadata)
+                            .tracker("PARSED", "request-parser")
+                            .outbox(outbound)
+                            .build());
             
             log.info("Parse complete: pagwId={}, sentTo=business-validator, hasAttachments={}", 
                     pagwId, parseResult.hasAttachments());
@@ -218,13 +223,14 @@ public class RequestParserListener {
         } catch (Exception e) {
             log.error("Error processing message: pagwId={}", pagwId, e);
             if (pagwId != null) {
-                // Event tracking: PARSE_FAIL (exception)
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_FAIL,
-                    "PARSE_EXCEPTION", e.getMessage(), true, Instant.now().plusSeconds(300)
-                );
-                
-                trackerService.updateError(pagwId, "PARSE_EXCEPTION", e.getMessage(), "request-parser");
+                // Event PARSE_FAIL (exception) + tracker error (one statement)
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "PARSER", EventTracker.EVENT_PARSE_FAIL,
+                                        "PARSE_EXCEPTION", e.getMessage())
+                                .retryable(true)
+                                .nextRetryAt(Instant.now().plusSeconds(300))
+                                .trackerFailed("request-parser", "PARSE_EXCEPTION", e.getMessage())
+                                .build());
             }
             throw new RuntimeException("Failed to process message", e);
         }
@@ -3,11 +3,12 @@ package com.anthem.pagw.response.listener;
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.OutboxService;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.RequestTrackerService;
 import com.anthem.pagw.core.service.S3Service;
-import com.anthem.pagw.core.util.JsonUtils;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.response.model.ClaimResponse;
 import com.anthem.pagw.response.service.ResponseBuilderService;
 import io.awspring.cloud.sqs.annotation.SqsListener;
@@ -30,21 +31,24 @@ public class ResponseBuilderListener {
 
     private final ResponseBuilderService responseBuilderService;
     private final S3Service s3Service;
+    private final StageArtifactStore artifactStore;
     private final RequestTrackerService trackerService;
-    private final EventTrackerService eventTrackerService;
-    private final OutboxService outboxService;
+    private final StageTransitionService stageTransitionService;
+    private final PagwMessageCodec messageCodec;
 
     public ResponseBuilderListener(
             ResponseBuilderService responseBuilderService,
             S3Service s3Service,
+            StageArtifactStore artifactStore,
             RequestTrackerService trackerService,
-            EventTrackerService eventTrackerService,
-            OutboxService outboxService) {
+            StageTransitionService stageTransitionService,
+            PagwMessageCodec messageCodec) {
         this.responseBuilderService = responseBuilderService;
         this.s3Service = s3Service;
+        this.artifactStore = artifactStore;
         this.trackerService = trackerService;
-        this.eventTrackerService = eventTrackerService;
-        this.outboxService = outboxService;
+        this.stageTransitionService = stageTransitionService;
+        this.messageCodec = messageCodec;
     }
 
     @SqsListener(value = "${pagw.aws.sqs.response-builder-queue}")
@@ -59,24 +63,24 @@ public class ResponseBuilderListener {
         long startTime = System.currentTimeMillis();
         
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
             tenant = message.getTenant();
             
             log.info("Received message for response building: pagwId={}, stage={}", 
                     pagwId, message.getStage());
             
-            // Event tracking: RESPONSE_START
-            eventTrackerService.logStageStart(pagwId, tenant, "RESPONSE_BUILDER", EventTracker.EVENT_RESPONSE_START, null);
-            
-            // Update tracker status
-            trackerService.updateStatus(pagwId, "BUILDING_RESPONSE", "response-builder");
+            // Event tracking: RESPONSE_START, with the tracker status
+            stageTransitionService.apply(
+                    StageTransition.start(pagwId, tenant, "RESPONSE_BUILDER", EventTracker.EVENT_RESPONSE_START)
+                            .tracker("BUILDING_RESPONSE", "response-builder")
+                            .build());
             
             // Fetch API response data from S3
             String responseData = null;
             if (message.getPayloadKey() != null) {
                 try {
-                    responseData = s3Service.getObject(
+                    responseData = artifactStore.readString(
                             message.getPayloadBucket(), 
                             message.getPayloadKey()
                     );
@@ -97,10 +101,10 @@ public class ResponseBuilderListener {
             
             // Store final FHIR ClaimResponse in S3 using standardized path
             String finalKey = PagwProperties.S3Paths.fhirResponse(pagwId);
-            s3Service.putObject(
+            s3Service.uploadJson(
                     message.getPayloadBucket(),
                     finalKey,
-                    JsonUtils.toJson(claimResponse)
+                    claimResponse
             );
             
             // Update tracker with final status based on Da Vinci PAS outcome
@@ -116,15 +120,16 @@ public class ResponseBuilderListener {
                     .payloadKey(finalKey)
                     .apiResponseStatus(claimResponse.getOutcome())
                     .build();
-            outboxService.writeOutbox(NEXT_QUEUE, nextMessage);
             
-            // Event tracking: RESPONSE_OK
+            // Event tracking: RESPONSE_OK, with the outbox write
             long duration = System.currentTimeMillis() - startTime;
             String metadata = String.format("{\"outcome\":\"%s\",\"disposition\":\"%s\"}",
                 claimResponse.getOutcome(), claimResponse.getDisposition());
-            eventTrackerService.logStageComplete(
-                pagwId, tenant, "RESPONSE_BUILDER", EventTracker.EVENT_RESPONSE_OK, duration, metadata
-            );
+            stageTransitionService.apply(
+                    StageTransition.complete(pagwId, tenant, "RESPONSE_BUILDER", EventTracker.EVENT_RESPONSE_OK, duration)
+                            .metadata(metadata)
+                            .send(NEXT_QUEUE, nextMessage)
+                            .build());
             
             log.info("Response building complete: pagwId={}, outcome={}, disposition={}, routedTo={}", 
                     pagwId, claimResponse.getOutcome(), claimResponse.getDisposition(), NEXT_QUEUE);
@@ -132,14 +137,14 @@ public class ResponseBuilderListener {
         } catch (Exception e) {
             log.error("Error processing message: pagwId={}", pagwId, e);
             if (pagwId != null) {
-                // Event tracking: RESPONSE_FAIL (exception)
-                eventTrackerService.logStageError(
-                    pagwId, tenant, "RESPONSE_BUILDER", EventTracker.EVENT_RESPONSE_FAIL,
-                    "RESPONSE_BUILD_EXCEPTION", e.getMessage(), true, java.time.Instant.now().plusSeconds(300)
-                );
-                
-                trackerService.updateStatus(pagwId, "RESPONSE_BUILD_ERROR", "response-builder",
-                        "EXCEPTION", e.getMessage());
+                // Event tracking: RESPONSE_FAIL (exception), with the tracker error
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, tenant, "RESPONSE_BUILDER", EventTracker.EVENT_RESPONSE_FAIL,
+                                        "RESPONSE_BUILD_EXCEPTION", e.getMessage())
+                                .retryable(true)
+                                .nextRetryAt(java.time.Instant.now().plusSeconds(300))
+                                .trackerError("RESPONSE_BUILD_ERROR", "response-builder", "EXCEPTION", e.getMessage())
+                                .build());
             }
             throw new RuntimeException("Failed to process message", e);
         }
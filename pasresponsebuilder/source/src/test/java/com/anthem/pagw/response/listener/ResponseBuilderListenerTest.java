@@ -1,9 +1,13 @@
 package com.anthem.pagw.response.listener;
 
+import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.OutboxService;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.RequestTrackerService;
 import com.anthem.pagw.core.service.S3Service;
+import com.anthem.pagw.core.service.StageArtifactStore;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.core.util.JsonUtils;
 import com.anthem.pagw.response.model.ClaimResponse;
 import com.anthem.pagw.response.service.ResponseBuilderService;
@@ -14,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.HashMap;
@@ -34,11 +39,17 @@ class ResponseBuilderListenerTest {
     @Mock
     private S3Service s3Service;
 
+    @Mock
+    private StageArtifactStore artifactStore;
+
     @Mock
     private RequestTrackerService trackerService;
 
     @Mock
-    private OutboxService outboxService;
+    private StageTransitionService stageTransitionService;
+
+    @Spy
+    private PagwMessageCodec messageCodec = new PagwMessageCodec(mock(S3Service.class), new PagwProperties());
 
     @InjectMocks
     private ResponseBuilderListener listener;
@@ -59,7 +70,7 @@ class ResponseBuilderListenerTest {
         String responseData = "{\"externalId\":\"EXT-123\",\"status\":\"ACCEPTED\"}";
         ClaimResponse claimResponse = createSuccessClaimResponse();
         
-        when(s3Service.getObject(anyString(), anyString())).thenReturn(responseData);
+        when(artifactStore.readString(anyString(), anyString())).thenReturn(responseData);
         when(responseBuilderService.buildSuccessResponse(anyString(), any(PagwMessage.class)))
                 .thenReturn(claimResponse);
 
@@ -68,12 +79,14 @@ class ResponseBuilderListenerTest {
 
         // Then
         // Verify status update
-        verify(trackerService).updateStatus("PAGW-TEST-001", "BUILDING_RESPONSE", "response-builder");
+        List<StageTransition> transitions = transitions(2);
+        assertEquals("BUILDING_RESPONSE", transitions.get(0).getTrackerStatus());
+        assertEquals("response-builder", transitions.get(0).getLastStage());
         
         // Verify S3 operations
-        verify(s3Service).getObject("test-bucket", "test/response-key");
+        verify(artifactStore).readString("test-bucket", "test/response-key");
         ArgumentCaptor<String> s3KeyCaptor = ArgumentCaptor.forClass(String.class);
-        verify(s3Service).putObject(eq("test-bucket"), s3KeyCaptor.capture(), anyString());
+        verify(s3Service).uploadJson(eq("test-bucket"), s3KeyCaptor.capture(), any());
         
         // Verify S3 key contains pagwId and follows pattern
         String capturedS3Key = s3KeyCaptor.getValue();
@@ -99,12 +112,10 @@ class ResponseBuilderListenerTest {
         assertTrue(finalS3Key.contains("response"));
         
         // Verify routing to subscription handler
-        ArgumentCaptor<String> queueCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<PagwMessage> messageCaptor = ArgumentCaptor.forClass(PagwMessage.class);
-        verify(outboxService).writeOutbox(queueCaptor.capture(), messageCaptor.capture());
+        StageTransition.Outbound outbound = transitions.get(1).getOutbox().get(0);
         
-        assertEquals("pagw-subscription-handler-queue", queueCaptor.getValue());
-        PagwMessage routedMessage = messageCaptor.getValue();
+        assertEquals("pagw-subscription-handler-queue", outbound.destinationQueue());
+        PagwMessage routedMessage = outbound.message();
         assertEquals("SUBSCRIPTION_HANDLER", routedMessage.getStage());
         assertEquals("complete", routedMessage.getApiResponseStatus());
     }
@@ -142,7 +153,7 @@ class ResponseBuilderListenerTest {
     @DisplayName("Should handle S3 fetch failure gracefully")
     void testHandleS3FetchFailure() throws Exception {
         // Given
-        when(s3Service.getObject(anyString(), anyString()))
+        when(artifactStore.readString(anyString(), anyString()))
                 .thenThrow(new RuntimeException("S3 error"));
         
         ClaimResponse claimResponse = createSuccessClaimResponse();
@@ -179,7 +190,7 @@ class ResponseBuilderListenerTest {
         listener.handleMessage(testMessageJson, "PAGW-TEST-001");
 
         // Then
-        verify(s3Service, never()).getObject(anyString(), anyString());
+        verify(artifactStore, never()).readString(anyString(), anyString());
         verify(responseBuilderService).buildSuccessResponse(isNull(), any(PagwMessage.class));
     }
 
@@ -187,7 +198,7 @@ class ResponseBuilderListenerTest {
     @DisplayName("Should handle processing exception and update error status")
     void testHandleProcessingException() {
         // Given
-        when(s3Service.getObject(anyString(), anyString()))
+        when(artifactStore.readString(anyString(), anyString()))
                 .thenThrow(new RuntimeException("Unexpected error"));
         when(responseBuilderService.buildSuccessResponse(any(), any(PagwMessage.class)))
                 .thenThrow(new RuntimeException("Build error"));
@@ -198,13 +209,13 @@ class ResponseBuilderListenerTest {
         });
 
         // Verify error tracking
-        verify(trackerService).updateStatus(
-                eq("PAGW-TEST-001"),
-                eq("RESPONSE_BUILD_ERROR"),
-                eq("response-builder"),
-                eq("EXCEPTION"),
-                anyString()
-        );
+        StageTransition failure = transitions(2).get(1);
+        assertTrue(failure.isFailure());
+        assertEquals("PAGW-TEST-001", failure.getPagwId());
+        assertEquals("RESPONSE_BUILD_ERROR", failure.getTrackerStatus());
+        assertEquals("response-builder", failure.getLastStage());
+        assertEquals("EXCEPTION", failure.getTrackerErrorCode());
+        assertNotNull(failure.getTrackerErrorMessage());
     }
 
     @Test
@@ -232,7 +243,7 @@ class ResponseBuilderListenerTest {
 
         // Then
         ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
-        verify(s3Service).putObject(eq("test-bucket"), keyCaptor.capture(), anyString());
+        verify(s3Service).uploadJson(eq("test-bucket"), keyCaptor.capture(), any());
         
         String capturedKey = keyCaptor.getValue();
         assertTrue(capturedKey.contains("PAGW-TEST-001"), 
@@ -259,10 +270,7 @@ class ResponseBuilderListenerTest {
         listener.handleMessage(testMessageJson, "PAGW-TEST-001");
 
         // Then
-        ArgumentCaptor<PagwMessage> messageCaptor = ArgumentCaptor.forClass(PagwMessage.class);
-        verify(outboxService).writeOutbox(anyString(), messageCaptor.capture());
-        
-        PagwMessage routedMessage = messageCaptor.getValue();
+        PagwMessage routedMessage = transitions(2).get(1).getOutbox().get(0).message();
         assertEquals("CORR-123", routedMessage.getCorrelationId());
         assertEquals("TENANT-ABC", routedMessage.getTenant());
     }
@@ -290,6 +298,12 @@ class ResponseBuilderListenerTest {
     }
 
     // Helper methods
+    private List<StageTransition> transitions(int expected) {
+        ArgumentCaptor<StageTransition> captor = ArgumentCaptor.forClass(StageTransition.class);
+        verify(stageTransitionService, times(expected)).apply(captor.capture());
+        return captor.getAllValues();
+    }
+
     private PagwMessage createTestMessage() {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("patientReference", "Patient/PAT-001");
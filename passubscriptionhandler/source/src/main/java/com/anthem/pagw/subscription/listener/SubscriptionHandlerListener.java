@@ -3,10 +3,10 @@ package com.anthem.pagw.subscription.listener;
 import com.anthem.pagw.core.PagwProperties;
 import com.anthem.pagw.core.model.EventTracker;
 import com.anthem.pagw.core.model.PagwMessage;
-import com.anthem.pagw.core.service.EventTrackerService;
-import com.anthem.pagw.core.service.RequestTrackerService;
+import com.anthem.pagw.core.model.StageTransition;
+import com.anthem.pagw.core.service.PagwMessageCodec;
 import com.anthem.pagw.core.service.S3Service;
-import com.anthem.pagw.core.util.JsonUtils;
+import com.anthem.pagw.core.service.StageTransitionService;
 import com.anthem.pagw.subscription.model.Subscription;
 import com.anthem.pagw.subscription.model.SubscriptionNotification;
 import com.anthem.pagw.subscription.service.NotificationDeliveryService;
@@ -35,20 +35,20 @@ public class SubscriptionHandlerListener {
     private final SubscriptionService subscriptionService;
     private final NotificationDeliveryService deliveryService;
     private final S3Service s3Service;
-    private final RequestTrackerService trackerService;
-    private final EventTrackerService eventTrackerService;
+    private final StageTransitionService stageTransitionService;
+    private final PagwMessageCodec messageCodec;
 
     public SubscriptionHandlerListener(
             SubscriptionService subscriptionService,
             NotificationDeliveryService deliveryService,
             S3Service s3Service,
-            RequestTrackerService trackerService,
-            EventTrackerService eventTrackerService) {
+            StageTransitionService stageTransitionService,
+            PagwMessageCodec messageCodec) {
         this.subscriptionService = subscriptionService;
         this.deliveryService = deliveryService;
         this.s3Service = s3Service;
-        this.trackerService = trackerService;
-        this.eventTrackerService = eventTrackerService;
+        this.stageTransitionService = stageTransitionService;
+        this.messageCodec = messageCodec;
     }
 
     @SqsListener(value = "${pagw.aws.sqs.subscription-handler-queue}")
@@ -62,18 +62,18 @@ public class SubscriptionHandlerListener {
         long startTime = System.currentTimeMillis();
         
         try {
-            message = JsonUtils.fromJson(messageBody, PagwMessage.class);
+            message = messageCodec.decode(messageBody);
             pagwId = message.getPagwId();
             String tenant = message.getTenant();
             
             log.info("Received subscription notification request: pagwId={}, tenant={}", 
                     pagwId, tenant);
             
-            // Event tracking: NOTIFY_START
-            eventTrackerService.logStageStart(pagwId, tenant, "SUBSCRIPTION_HANDLER", EventTracker.EVENT_NOTIFY_START, null);
-            
-            // Update tracker status
-            trackerService.updateStatus(pagwId, "NOTIFYING_SUBSCRIBERS", "subscription-handler");
+            // Event tracking: NOTIFY_START, with the tracker status
+            stageTransitionService.apply(
+                    StageTransition.start(pagwId, tenant, "SUBSCRIPTION_HANDLER", EventTracker.EVENT_NOTIFY_START)
+                            .tracker("NOTIFYING_SUBSCRIBERS", "subscription-handler")
+                            .build());
             
             // Find all active subscriptions for this tenant
             List<Subscription> subscriptions = subscriptionService
@@ -81,7 +81,10 @@ public class SubscriptionHandlerListener {
             
             if (subscriptions.isEmpty()) {
                 log.info("No active subscriptions for tenant: {}", tenant);
-                trackerService.updateStatus(pagwId, "COMPLETED", "subscription-handler");
+                stageTransitionService.apply(
+                        StageTransition.of(pagwId, tenant)
+                                .tracker("COMPLETED", "subscription-handler")
+                                .build());
                 return;
             }
             
@@ -110,14 +113,14 @@ public class SubscriptionHandlerListener {
                 }
             }
             
-            trackerService.updateStatus(pagwId, "COMPLETED", "subscription-handler");
-            
-            // Event tracking: NOTIFY_OK
+            // Event tracking: NOTIFY_OK, with the tracker status
             long duration = System.currentTimeMillis() - startTime;
             String metadata = String.format("{\"subscriptionCount\":%d}", subscriptions.size());
-            eventTrackerService.logStageComplete(
-                pagwId, message.getTenant(), "SUBSCRIPTION_HANDLER", EventTracker.EVENT_NOTIFY_OK, duration, metadata
-            );
+            stageTransitionService.apply(
+                    StageTransition.complete(pagwId, tenant, "SUBSCRIPTION_HANDLER", EventTracker.EVENT_NOTIFY_OK, duration)
+                            .metadata(metadata)
+                            .tracker("COMPLETED", "subscription-handler")
+                            .build());
             
             log.info("Subscription notifications initiated: pagwId={}, subscriptions={}", 
                     pagwId, subscriptions.size());
@@ -126,14 +129,14 @@ public class SubscriptionHandlerListener {
             log.error("Error processing subscription notification: pagwId={}, error={}", 
                     pagwId, e.getMessage(), e);
             if (pagwId != null) {
-                // Event tracking: NOTIFY_FAIL (exception)
-                eventTrackerService.logStageError(
-                    pagwId, message != null ? message.getTenant() : null, "SUBSCRIPTION_HANDLER", EventTracker.EVENT_NOTIFY_FAIL,
-                    "NOTIFICATION_EXCEPTION", e.getMessage(), true, java.time.Instant.now().plusSeconds(300)
-                );
-                
-                trackerService.updateStatus(pagwId, "SUBSCRIPTION_ERROR", "subscription-handler");
-                trackerService.recordError(pagwId, "SUBSCRIPTION_DELIVERY_ERROR", e.getMessage());
+                // Event tracking: NOTIFY_FAIL (exception), with the tracker error
+                stageTransitionService.apply(
+                        StageTransition.fail(pagwId, message != null ? message.getTenant() : null, "SUBSCRIPTION_HANDLER",
+                                        EventTracker.EVENT_NOTIFY_FAIL, "NOTIFICATION_EXCEPTION", e.getMessage())
+                                .retryable(true)
+                                .nextRetryAt(java.time.Instant.now().plusSeconds(300))
+                                .trackerFailed("subscription-handler", "SUBSCRIPTION_DELIVERY_ERROR", e.getMessage())
+                                .build());
             }
             throw new RuntimeException("Subscription handler error", e);
         }